@@ -7,18 +7,32 @@ import com.securitytesting.zap.auth.FormAuthenticationHandler;
 import com.securitytesting.zap.auth.OAuth2AuthenticationHandler;
 import com.securitytesting.zap.config.AuthenticationConfig;
 import com.securitytesting.zap.config.ScanConfig;
+import com.securitytesting.zap.config.ScanRole;
 import com.securitytesting.zap.exception.AuthenticationException;
 import com.securitytesting.zap.exception.ScanConfigurationException;
 import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.policy.PolicyAutoTuner;
 import com.securitytesting.zap.policy.PolicyManager;
+import com.securitytesting.zap.policy.RuleExecution;
+import com.securitytesting.zap.policy.ScanHistory;
 import com.securitytesting.zap.policy.ScanPolicy;
+import com.securitytesting.zap.policy.TechnologyRulePruner;
 import com.securitytesting.zap.report.RemediationReport;
 import com.securitytesting.zap.report.ReportGenerator;
+import com.securitytesting.zap.report.RoleMatrixResult;
 import com.securitytesting.zap.report.ScanResult;
+import com.securitytesting.zap.report.ScanResultDiff;
+import com.securitytesting.zap.report.ScanResultMerger;
+import com.securitytesting.zap.report.SuppressionBaseline;
 import com.securitytesting.zap.scanner.OpenApiScanner;
+import com.securitytesting.zap.scanner.RoleMatrixScanner;
+import com.securitytesting.zap.scanner.ScanCancellation;
+import com.securitytesting.zap.scanner.ScanJournal;
 import com.securitytesting.zap.scanner.SeleniumScanner;
+import com.securitytesting.zap.scanner.TechnologyFingerprinter;
 import com.securitytesting.zap.scanner.WebAppScanner;
 import com.securitytesting.zap.util.ZapClientFactory;
+import io.swagger.v3.oas.models.OpenAPI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zaproxy.clientapi.core.ClientApi;
@@ -27,7 +41,13 @@ import org.zaproxy.clientapi.core.ClientApiException;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main class for ZAP security scanning.
@@ -36,11 +56,20 @@ import java.util.Date;
 public class ZapScanner {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ZapScanner.class);
+    private static final AtomicInteger ASYNC_THREAD_COUNT = new AtomicInteger();
     
     private final ClientApi zapClient;
     private final ScanConfig config;
     private final PolicyManager policyManager;
     private final ReportGenerator reportGenerator;
+    private final PolicyAutoTuner policyAutoTuner;
+    private final TechnologyRulePruner rulePruner;
+    private final ExecutorService asyncExecutor = Executors.newCachedThreadPool(runnable -> {
+        // Async scans must not keep the JVM alive
+        Thread thread = new Thread(runnable, "zap-scan-" + ASYNC_THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
     
     /**
      * Creates a new ZAP scanner with the specified configuration.
@@ -53,6 +82,11 @@ public class ZapScanner {
         this.zapClient = ZapClientFactory.createZapClient(config.getZapHost(), config.getZapPort(), config.getZapApiKey());
         this.policyManager = new PolicyManager();
         this.reportGenerator = new ReportGenerator(zapClient);
+        if (config.getSuppressionBaselineFile() != null) {
+            reportGenerator.setSuppressionBaseline(loadSuppressionBaseline());
+        }
+        this.policyAutoTuner = config.isPolicyAutoTuningEnabled() ? createPolicyAutoTuner() : null;
+        this.rulePruner = new TechnologyRulePruner.Builder().build();
         
         if (config.isResetContextBeforeScan()) {
             resetContext();
@@ -79,6 +113,137 @@ public class ZapScanner {
         }
     }
     
+    /**
+     * Creates the policy auto-tuner, loading the scan history it tunes from.
+     * 
+     * @return The policy auto-tuner
+     * @throws ZapScannerException If the scan history cannot be loaded
+     */
+    private PolicyAutoTuner createPolicyAutoTuner() throws ZapScannerException {
+        try {
+            ScanHistory history = ScanHistory.load(Paths.get(config.getScanHistoryFile()));
+            return new PolicyAutoTuner.Builder(history)
+                    .coverageFloor(config.getPolicyCoverageFloor())
+                    .fullStrengthInterval(config.getFullStrengthScanInterval())
+                    .build();
+        } catch (IOException e) {
+            LOGGER.error("Failed to load scan history", e);
+            throw new ZapScannerException("Failed to load scan history: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Loads the baseline of alerts to leave out of scan results.
+     * 
+     * @return The suppression baseline
+     * @throws ZapScannerException If the baseline cannot be loaded
+     */
+    private SuppressionBaseline loadSuppressionBaseline() throws ZapScannerException {
+        try {
+            SuppressionBaseline baseline = SuppressionBaseline.load(Paths.get(config.getSuppressionBaselineFile()));
+            LOGGER.info("Loaded {} alert suppressions from {}", baseline.size(), config.getSuppressionBaselineFile());
+            return baseline;
+        } catch (IOException e) {
+            LOGGER.error("Failed to load suppression baseline", e);
+            throw new ZapScannerException("Failed to load suppression baseline: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Prunes the rules that cannot apply to a target's technologies from a scan policy, if
+     * technology rule pruning is enabled. The target is fingerprinted from what the spider and
+     * passive scan recorded; if that fails, the policy runs unpruned.
+     * 
+     * @param policy The scan policy
+     * @param targetUrl The target URL
+     * @return The policy to run
+     */
+    private ScanPolicy pruneRules(ScanPolicy policy, String targetUrl) {
+        if (!config.isTechnologyRulePruningEnabled()) {
+            return policy;
+        }
+        
+        try {
+            TechnologyFingerprinter fingerprinter = new TechnologyFingerprinter(zapClient, 
+                    config.getMaxFingerprintMessages());
+            return rulePruner.prune(policy, fingerprinter.fingerprint(targetUrl));
+        } catch (ZapScannerException e) {
+            LOGGER.warn("Failed to fingerprint {}, running all rules: {}", targetUrl, e.getMessage());
+            return policy;
+        }
+    }
+    
+    /**
+     * Opens the journal of a scan of a target if scan journaling is enabled.
+     * 
+     * @param targetUrl The target URL
+     * @return The scan journal, or null if scans are not journaled
+     */
+    private ScanJournal openScanJournal(String targetUrl) {
+        if (config.getScanJournalDirectory() == null) {
+            return null;
+        }
+        
+        return ScanJournal.open(Paths.get(config.getScanJournalDirectory()), targetUrl, 
+                config.getZapHost() + ":" + config.getZapPort(), ScanJournal.zapSession(zapClient), 
+                config.getCheckpointIntervalInSeconds() * 1000L);
+    }
+    
+    /**
+     * Checks whether a previous run of a journaled scan completed a phase.
+     * 
+     * @param journal The scan journal, or null if the scan is not journaled
+     * @param phase The phase
+     * @return True if the phase was completed, false otherwise
+     */
+    private static boolean isPhaseCompleted(ScanJournal journal, ScanJournal.Phase phase) {
+        return journal != null && journal.isCompleted(phase);
+    }
+    
+    /**
+     * Checkpoints the completion of a phase of a journaled scan.
+     * 
+     * @param journal The scan journal, or null if the scan is not journaled
+     * @param phase The phase
+     */
+    private static void completePhase(ScanJournal journal, ScanJournal.Phase phase) {
+        if (journal != null) {
+            journal.phaseCompleted(phase);
+        }
+    }
+    
+    /**
+     * Tunes a scan policy to a target if policy auto-tuning is enabled.
+     * 
+     * @param policy The scan policy
+     * @param targetUrl The target URL
+     * @return The policy to run
+     */
+    private ScanPolicy tunePolicy(ScanPolicy policy, String targetUrl) {
+        return policyAutoTuner != null ? policyAutoTuner.tune(policy, targetUrl) : policy;
+    }
+    
+    /**
+     * Records what each rule of an active scan cost and found, if policy auto-tuning is enabled.
+     * The scan result does not depend on the history, so failing to save it only logs a warning.
+     * 
+     * @param targetUrl The target URL
+     * @param policy The policy the scan ran
+     * @param executions The rule executions of the scan
+     */
+    private void recordRuleExecutions(String targetUrl, ScanPolicy policy, List<RuleExecution> executions) {
+        if (policyAutoTuner == null) {
+            return;
+        }
+        
+        policyAutoTuner.record(targetUrl, policy, executions);
+        try {
+            policyAutoTuner.getHistory().save(Paths.get(config.getScanHistoryFile()));
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save scan history: {}", e.getMessage());
+        }
+    }
+    
     /**
      * Scans a web application.
      * 
@@ -99,11 +264,29 @@ public class ZapScanner {
      * @throws ZapScannerException If scanning fails
      */
     public ScanResult scanWebApplication(String targetUrl, ScanPolicy policy) throws ZapScannerException {
+        return scanWebApplication(targetUrl, policy, new ScanCancellation());
+    }
+    
+    /**
+     * Scans a web application with the specified policy, stopping the scans it started in ZAP if cancelled.
+     * 
+     * @param targetUrl The target URL
+     * @param policy The scan policy
+     * @param cancellation The cancellation of the scan
+     * @return The scan result
+     * @throws ZapScannerException If scanning fails or is cancelled
+     */
+    private ScanResult scanWebApplication(String targetUrl, ScanPolicy policy, ScanCancellation cancellation) 
+            throws ZapScannerException {
         LOGGER.info("Starting web application scan for target URL: {}", targetUrl);
         
+        // Resume the checkpoint a previous run left, if journaling is enabled
+        ScanJournal journal = openScanJournal(targetUrl);
+        
         try {
             // Create a web application scanner
             WebAppScanner scanner = new WebAppScanner(zapClient, config);
+            scanner.setCancellation(cancellation);
             
             // Configure authentication if needed
             if (config.getAuthenticationConfig() != null) {
@@ -113,29 +296,74 @@ public class ZapScanner {
             // Use default policy if none provided
             ScanPolicy scanPolicy = policy != null ? policy : policyManager.createMediumSecurityPolicy();
             
+            scanner.setScanJournal(journal);
+            
+            // A spider ZAP no longer lists, as after a new session, left nothing in its site tree to scan
+            if (isPhaseCompleted(journal, ScanJournal.Phase.SPIDER) && (journal.getSpiderScanId() == null 
+                    || !scanner.isSpiderListed(targetUrl, journal.getSpiderScanId()))) {
+                journal.restart();
+            }
+            
             // Start the scan
-            long startTime = System.currentTimeMillis();
+            long startTime = journal != null ? journal.getStartTime() : System.currentTimeMillis();
             
-            // Spider the target
-            scanner.spiderTarget(targetUrl, config.getContextName(), config.getMaxSpiderDepth(), 
-                    config.getMaxSpiderDurationInMinutes());
+            // Spider the target, reattaching to the spider a previous run left running
+            if (!isPhaseCompleted(journal, ScanJournal.Phase.SPIDER)) {
+                Integer spiderScanId = journal != null ? journal.getSpiderScanId() : null;
+                if (spiderScanId == null 
+                        || !scanner.reattachSpider(targetUrl, spiderScanId, config.getMaxSpiderDurationInMinutes())) {
+                    scanner.spiderTarget(targetUrl, config.getContextName(), config.getMaxSpiderDepth(), 
+                            config.getMaxSpiderDurationInMinutes());
+                }
+                completePhase(journal, ScanJournal.Phase.SPIDER);
+            }
             
             // Perform passive scan
-            scanner.performPassiveScan(config.getContextName(), config.getMaxPassiveScanDurationInMinutes());
+            if (!isPhaseCompleted(journal, ScanJournal.Phase.PASSIVE_SCAN)) {
+                cancellation.checkCancelled();
+                scanner.performPassiveScan(config.getContextName(), config.getMaxPassiveScanDurationInMinutes());
+                completePhase(journal, ScanJournal.Phase.PASSIVE_SCAN);
+            }
             
-            // Perform active scan
-            scanner.performActiveScan(targetUrl, config.getContextName(), scanPolicy, 
-                    config.getMaxActiveScanDurationInMinutes());
+            cancellation.checkCancelled();
+            
+            // Reattach to the active scan a previous run started, even a completed one, to profile it
+            ScanPolicy activeScanPolicy;
+            Integer activeScanId = journal != null ? journal.getActiveScanId() : null;
+            if (activeScanId != null 
+                    && scanner.reattachActiveScan(targetUrl, activeScanId, config.getMaxActiveScanDurationInMinutes())) {
+                activeScanPolicy = new ScanPolicy.Builder(journal.getPolicyName()).tuned(journal.isPolicyTuned()).build();
+            } else {
+                // Perform active scan, with the policy pruned to the target's technologies and tuned to it if enabled
+                activeScanPolicy = tunePolicy(pruneRules(scanPolicy, targetUrl), targetUrl);
+                scanner.performActiveScan(targetUrl, config.getContextName(), activeScanPolicy, 
+                        config.getMaxActiveScanDurationInMinutes());
+            }
+            completePhase(journal, ScanJournal.Phase.ACTIVE_SCAN);
+            recordRuleExecutions(targetUrl, activeScanPolicy, scanner.getRuleExecutions());
             
             // Generate scan result
             long endTime = System.currentTimeMillis();
             ScanResult result = reportGenerator.generateScanResult(targetUrl, endTime - startTime);
+            result.setScanProfile(scanner.getScanProfile());
+            if (journal != null) {
+                journal.finish();
+            }
             
             LOGGER.info("Web application scan completed for target URL: {}", targetUrl);
             return result;
         } catch (Exception e) {
+            if (journal != null && cancellation.isCancelled()) {
+                // The scans were stopped in ZAP, so there is nothing to resume
+                journal.finish();
+            }
             LOGGER.error("Failed to scan web application", e);
             throw new ZapScannerException("Failed to scan web application: " + e.getMessage(), e);
+        } finally {
+            // Leave the checkpoint of a failed scan for the next scan of the target to resume
+            if (journal != null) {
+                journal.close();
+            }
         }
     }
     
@@ -159,11 +387,26 @@ public class ZapScanner {
      * @throws ZapScannerException If scanning fails
      */
     public ScanResult scanOpenApi(URL openApiUrl, ScanPolicy policy) throws ZapScannerException {
+        return scanOpenApi(openApiUrl, policy, new ScanCancellation());
+    }
+    
+    /**
+     * Scans an OpenAPI specification with the specified policy, stopping the scans it started in ZAP if cancelled.
+     * 
+     * @param openApiUrl The URL to the OpenAPI specification
+     * @param policy The scan policy
+     * @param cancellation The cancellation of the scan
+     * @return The scan result
+     * @throws ZapScannerException If scanning fails or is cancelled
+     */
+    private ScanResult scanOpenApi(URL openApiUrl, ScanPolicy policy, ScanCancellation cancellation) 
+            throws ZapScannerException {
         LOGGER.info("Starting OpenAPI scan for specification URL: {}", openApiUrl);
         
         try {
             // Create an OpenAPI scanner
             OpenApiScanner scanner = new OpenApiScanner(zapClient, config);
+            scanner.setCancellation(cancellation);
             
             // Configure authentication if needed
             if (config.getAuthenticationConfig() != null) {
@@ -180,15 +423,20 @@ public class ZapScanner {
             String targetUrl = scanner.importOpenApiDefinition(openApiUrl, config.getContextName());
             
             // Perform passive scan
+            cancellation.checkCancelled();
             scanner.performPassiveScan(config.getContextName(), config.getMaxPassiveScanDurationInMinutes());
             
-            // Perform active scan
-            scanner.performActiveScan(targetUrl, config.getContextName(), scanPolicy, 
+            // Perform active scan, with the policy pruned to the target's technologies and tuned to it if enabled
+            cancellation.checkCancelled();
+            ScanPolicy activeScanPolicy = tunePolicy(pruneRules(scanPolicy, targetUrl), targetUrl);
+            scanner.performActiveScan(targetUrl, config.getContextName(), activeScanPolicy, 
                     config.getMaxActiveScanDurationInMinutes());
+            recordRuleExecutions(targetUrl, activeScanPolicy, scanner.getRuleExecutions());
             
             // Generate scan result
             long endTime = System.currentTimeMillis();
             ScanResult result = reportGenerator.generateScanResult(targetUrl, endTime - startTime);
+            result.setScanProfile(scanner.getScanProfile());
             
             LOGGER.info("OpenAPI scan completed for specification URL: {}", openApiUrl);
             return result;
@@ -218,11 +466,26 @@ public class ZapScanner {
      * @throws ZapScannerException If scanning fails
      */
     public ScanResult scanOpenApi(File openApiFile, ScanPolicy policy) throws ZapScannerException {
+        return scanOpenApi(openApiFile, policy, new ScanCancellation());
+    }
+    
+    /**
+     * Scans an OpenAPI specification file with the specified policy, stopping the scans it started in ZAP if cancelled.
+     * 
+     * @param openApiFile The OpenAPI specification file
+     * @param policy The scan policy
+     * @param cancellation The cancellation of the scan
+     * @return The scan result
+     * @throws ZapScannerException If scanning fails or is cancelled
+     */
+    private ScanResult scanOpenApi(File openApiFile, ScanPolicy policy, ScanCancellation cancellation) 
+            throws ZapScannerException {
         LOGGER.info("Starting OpenAPI scan for specification file: {}", openApiFile.getAbsolutePath());
         
         try {
             // Create an OpenAPI scanner
             OpenApiScanner scanner = new OpenApiScanner(zapClient, config);
+            scanner.setCancellation(cancellation);
             
             // Configure authentication if needed
             if (config.getAuthenticationConfig() != null) {
@@ -239,15 +502,20 @@ public class ZapScanner {
             String targetUrl = scanner.importOpenApiDefinition(openApiFile, config.getContextName());
             
             // Perform passive scan
+            cancellation.checkCancelled();
             scanner.performPassiveScan(config.getContextName(), config.getMaxPassiveScanDurationInMinutes());
             
-            // Perform active scan
-            scanner.performActiveScan(targetUrl, config.getContextName(), scanPolicy, 
+            // Perform active scan, with the policy pruned to the target's technologies and tuned to it if enabled
+            cancellation.checkCancelled();
+            ScanPolicy activeScanPolicy = tunePolicy(pruneRules(scanPolicy, targetUrl), targetUrl);
+            scanner.performActiveScan(targetUrl, config.getContextName(), activeScanPolicy, 
                     config.getMaxActiveScanDurationInMinutes());
+            recordRuleExecutions(targetUrl, activeScanPolicy, scanner.getRuleExecutions());
             
             // Generate scan result
             long endTime = System.currentTimeMillis();
             ScanResult result = reportGenerator.generateScanResult(targetUrl, endTime - startTime);
+            result.setScanProfile(scanner.getScanProfile());
             
             LOGGER.info("OpenAPI scan completed for specification file: {}", openApiFile.getAbsolutePath());
             return result;
@@ -257,6 +525,65 @@ public class ZapScanner {
         }
     }
     
+    /**
+     * Scans only what changed in a new version of an OpenAPI specification, carrying over the
+     * alerts of the previous scan for unchanged operations.
+     * 
+     * @param openApiUrl The URL to the new OpenAPI specification
+     * @param previousModel The previously scanned definition, or null to scan every operation
+     * @param previousResult The result of the previous scan, or null if there is none
+     * @return The scan result
+     * @throws ZapScannerException If scanning fails
+     */
+    public ScanResult scanOpenApiChanges(URL openApiUrl, OpenAPI previousModel, ScanResult previousResult) 
+            throws ZapScannerException {
+        return scanOpenApiChanges(openApiUrl, previousModel, previousResult, null);
+    }
+    
+    /**
+     * Scans only what changed in a new version of an OpenAPI specification with the specified policy,
+     * carrying over the alerts of the previous scan for unchanged operations.
+     * 
+     * @param openApiUrl The URL to the new OpenAPI specification
+     * @param previousModel The previously scanned definition, or null to scan every operation
+     * @param previousResult The result of the previous scan, or null if there is none
+     * @param policy The scan policy
+     * @return The scan result
+     * @throws ZapScannerException If scanning fails
+     */
+    public ScanResult scanOpenApiChanges(URL openApiUrl, OpenAPI previousModel, ScanResult previousResult, 
+                                         ScanPolicy policy) throws ZapScannerException {
+        LOGGER.info("Starting incremental OpenAPI scan for specification URL: {}", openApiUrl);
+        
+        try {
+            // Create an OpenAPI scanner reading alerts through the shared report generator
+            OpenApiScanner scanner = new OpenApiScanner(zapClient, config);
+            scanner.setCancellation(new ScanCancellation());
+            scanner.setReportGenerator(reportGenerator);
+            
+            // Configure authentication if needed
+            if (config.getAuthenticationConfig() != null) {
+                scanner.setAuthenticationHandler(createAuthenticationHandler(config.getAuthenticationConfig()));
+            }
+            
+            // Use default policy if none provided, pruned to the target's technologies and tuned to it if enabled
+            ScanPolicy scanPolicy = policy != null ? policy : policyManager.createApiSecurityPolicy();
+            String targetUrl = scanner.getTargetUrl(openApiUrl);
+            ScanPolicy activeScanPolicy = tunePolicy(pruneRules(scanPolicy, targetUrl), targetUrl);
+            
+            ScanResult result = scanner.scanChanges(openApiUrl.toString(), previousModel, previousResult, 
+                    activeScanPolicy);
+            recordRuleExecutions(targetUrl, activeScanPolicy, scanner.getRuleExecutions());
+            result.setScanProfile(scanner.getScanProfile());
+            
+            LOGGER.info("Incremental OpenAPI scan completed for specification URL: {}", openApiUrl);
+            return result;
+        } catch (Exception e) {
+            LOGGER.error("Failed to scan OpenAPI specification changes", e);
+            throw new ZapScannerException("Failed to scan OpenAPI specification changes: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Scans a web application using Selenium.
      * 
@@ -279,12 +606,26 @@ public class ZapScanner {
      * @throws ZapScannerException If scanning fails
      */
     public ScanResult scanWithSelenium(String targetUrl, String driverPath, ScanPolicy policy) throws ZapScannerException {
+        return scanWithSelenium(targetUrl, driverPath, policy, new ScanCancellation());
+    }
+    
+    /**
+     * Scans a web application using Selenium with the specified policy, stopping the scans it started in ZAP if cancelled.
+     * 
+     * @param targetUrl The target URL
+     * @param driverPath The path to the Selenium WebDriver
+     * @param policy The scan policy
+     * @param cancellation The cancellation of the scan
+     * @return The scan result
+     * @throws ZapScannerException If scanning fails or is cancelled
+     */
+    private ScanResult scanWithSelenium(String targetUrl, String driverPath, ScanPolicy policy, ScanCancellation cancellation) 
+            throws ZapScannerException {
         LOGGER.info("Starting Selenium scan for target URL: {}", targetUrl);
         
-        try {
-            // Create a Selenium scanner
-            SeleniumScanner scanner = new SeleniumScanner(zapClient, config, driverPath);
-            
+        // Create a Selenium scanner, quitting its browser sessions when the scan ends
+        try (SeleniumScanner scanner = new SeleniumScanner(zapClient, config, driverPath)) {
+            scanner.setCancellation(cancellation);
             // Configure authentication if needed
             if (config.getAuthenticationConfig() != null) {
                 scanner.setAuthenticationHandler(createAuthenticationHandler(config.getAuthenticationConfig()));
@@ -296,19 +637,24 @@ public class ZapScanner {
             // Start the scan
             long startTime = System.currentTimeMillis();
             
-            // Use Selenium to navigate the application
-            scanner.navigateApplication(targetUrl);
+            // Use Selenium to crawl the application
+            scanner.crawlApplication(targetUrl);
             
             // Perform passive scan
+            cancellation.checkCancelled();
             scanner.performPassiveScan(config.getContextName(), config.getMaxPassiveScanDurationInMinutes());
             
-            // Perform active scan
-            scanner.performActiveScan(targetUrl, config.getContextName(), scanPolicy, 
+            // Perform active scan, with the policy pruned to the target's technologies and tuned to it if enabled
+            cancellation.checkCancelled();
+            ScanPolicy activeScanPolicy = tunePolicy(pruneRules(scanPolicy, targetUrl), targetUrl);
+            scanner.performActiveScan(targetUrl, config.getContextName(), activeScanPolicy, 
                     config.getMaxActiveScanDurationInMinutes());
+            recordRuleExecutions(targetUrl, activeScanPolicy, scanner.getRuleExecutions());
             
             // Generate scan result
             long endTime = System.currentTimeMillis();
             ScanResult result = reportGenerator.generateScanResult(targetUrl, endTime - startTime);
+            result.setScanProfile(scanner.getScanProfile());
             
             LOGGER.info("Selenium scan completed for target URL: {}", targetUrl);
             return result;
@@ -318,6 +664,166 @@ public class ZapScanner {
         }
     }
     
+    /**
+     * Scans a web application without blocking the caller.
+     * 
+     * @param targetUrl The target URL
+     * @return The future scan result; cancelling it stops the scan in ZAP
+     */
+    public CompletableFuture<ScanResult> scanWebApplicationAsync(String targetUrl) {
+        return scanWebApplicationAsync(targetUrl, null);
+    }
+    
+    /**
+     * Scans a web application with the specified policy without blocking the caller.
+     * 
+     * @param targetUrl The target URL
+     * @param policy The scan policy
+     * @return The future scan result; cancelling it stops the scan in ZAP
+     */
+    public CompletableFuture<ScanResult> scanWebApplicationAsync(String targetUrl, ScanPolicy policy) {
+        return scanAsync(cancellation -> scanWebApplication(targetUrl, policy, cancellation));
+    }
+    
+    /**
+     * Scans an OpenAPI specification without blocking the caller.
+     * 
+     * @param openApiUrl The URL to the OpenAPI specification
+     * @return The future scan result; cancelling it stops the scan in ZAP
+     */
+    public CompletableFuture<ScanResult> scanOpenApiAsync(URL openApiUrl) {
+        return scanOpenApiAsync(openApiUrl, null);
+    }
+    
+    /**
+     * Scans an OpenAPI specification with the specified policy without blocking the caller.
+     * 
+     * @param openApiUrl The URL to the OpenAPI specification
+     * @param policy The scan policy
+     * @return The future scan result; cancelling it stops the scan in ZAP
+     */
+    public CompletableFuture<ScanResult> scanOpenApiAsync(URL openApiUrl, ScanPolicy policy) {
+        return scanAsync(cancellation -> scanOpenApi(openApiUrl, policy, cancellation));
+    }
+    
+    /**
+     * Scans an OpenAPI specification file without blocking the caller.
+     * 
+     * @param openApiFile The OpenAPI specification file
+     * @return The future scan result; cancelling it stops the scan in ZAP
+     */
+    public CompletableFuture<ScanResult> scanOpenApiAsync(File openApiFile) {
+        return scanOpenApiAsync(openApiFile, null);
+    }
+    
+    /**
+     * Scans an OpenAPI specification file with the specified policy without blocking the caller.
+     * 
+     * @param openApiFile The OpenAPI specification file
+     * @param policy The scan policy
+     * @return The future scan result; cancelling it stops the scan in ZAP
+     */
+    public CompletableFuture<ScanResult> scanOpenApiAsync(File openApiFile, ScanPolicy policy) {
+        return scanAsync(cancellation -> scanOpenApi(openApiFile, policy, cancellation));
+    }
+    
+    /**
+     * Scans a web application using Selenium without blocking the caller.
+     * 
+     * @param targetUrl The target URL
+     * @param driverPath The path to the Selenium WebDriver
+     * @return The future scan result; cancelling it stops the scan in ZAP
+     */
+    public CompletableFuture<ScanResult> scanWithSeleniumAsync(String targetUrl, String driverPath) {
+        return scanWithSeleniumAsync(targetUrl, driverPath, null);
+    }
+    
+    /**
+     * Scans a web application using Selenium with the specified policy without blocking the caller.
+     * 
+     * @param targetUrl The target URL
+     * @param driverPath The path to the Selenium WebDriver
+     * @param policy The scan policy
+     * @return The future scan result; cancelling it stops the scan in ZAP
+     */
+    public CompletableFuture<ScanResult> scanWithSeleniumAsync(String targetUrl, String driverPath, ScanPolicy policy) {
+        return scanAsync(cancellation -> scanWithSelenium(targetUrl, driverPath, policy, cancellation));
+    }
+    
+    /**
+     * Runs a scan on the async executor.
+     * Cancelling the returned future stops the spiders and active scans the scan started in ZAP
+     * and ends its polling at once; a scan cancelled before it started never starts.
+     * Cancellation does not propagate from futures derived from the returned one.
+     * 
+     * @param scan The scan
+     * @return The future scan result
+     */
+    private CompletableFuture<ScanResult> scanAsync(CancellableScan scan) {
+        ScanCancellation cancellation = new ScanCancellation();
+        ScanFuture future = new ScanFuture(cancellation);
+        
+        asyncExecutor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(scan.run(cancellation));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * Scans a web application as each of the specified roles.
+     * 
+     * @param targetUrl The target URL
+     * @param roles The roles to scan as
+     * @return The role matrix result
+     * @throws ZapScannerException If scanning fails
+     */
+    public RoleMatrixResult scanRoleMatrix(String targetUrl, List<ScanRole> roles) throws ZapScannerException {
+        return scanRoleMatrix(targetUrl, roles, null);
+    }
+    
+    /**
+     * Scans a web application as each of the specified roles with the specified policy.
+     * The application is spidered once and the active scans of the roles share the result.
+     * 
+     * @param targetUrl The target URL
+     * @param roles The roles to scan as
+     * @param policy The scan policy
+     * @return The role matrix result
+     * @throws ZapScannerException If scanning fails
+     */
+    public RoleMatrixResult scanRoleMatrix(String targetUrl, List<ScanRole> roles, ScanPolicy policy) 
+            throws ZapScannerException {
+        LOGGER.info("Starting role matrix scan for target URL: {}", targetUrl);
+        
+        try {
+            // Create a role matrix scanner
+            RoleMatrixScanner scanner = new RoleMatrixScanner(zapClient, config, reportGenerator);
+            
+            // Configure authentication if needed
+            if (config.getAuthenticationConfig() != null) {
+                scanner.setAuthenticationHandler(createAuthenticationHandler(config.getAuthenticationConfig()));
+            }
+            
+            // Use default policy if none provided
+            ScanPolicy scanPolicy = policy != null ? policy : policyManager.createMediumSecurityPolicy();
+            
+            RoleMatrixResult result = scanner.scan(targetUrl, roles, scanPolicy);
+            
+            LOGGER.info("Role matrix scan completed for target URL: {}", targetUrl);
+            return result;
+        } catch (Exception e) {
+            LOGGER.error("Failed to scan role matrix", e);
+            throw new ZapScannerException("Failed to scan role matrix: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Generates a scan report.
      * 
@@ -331,6 +837,88 @@ public class ZapScanner {
         reportGenerator.generateReport(result, format, outputPath);
     }
     
+    /**
+     * Generates a profiling report showing which rules and hosts consumed the active scan's time.
+     * 
+     * @param result The scan result
+     * @param format The format of the report: MD for a table, or JSON
+     * @param outputPath The output path for the report
+     * @throws ZapScannerException If report generation fails
+     */
+    public void generateProfilingReport(ScanResult result, ReportGenerator.ReportFormat format, String outputPath) 
+            throws ZapScannerException {
+        reportGenerator.generateProfilingReport(result.getScanProfile(), format, outputPath);
+    }
+    
+    /**
+     * Merges the results of scanning one target in parts, such as shards, ZAP instances or policies.
+     * 
+     * @param results The results to merge, in order of precedence
+     * @return The merged result, with each distinct alert once
+     */
+    public ScanResult mergeResults(List<ScanResult> results) {
+        return new ScanResultMerger().merge(results);
+    }
+    
+    /**
+     * Compares two scans of a target.
+     * 
+     * @param previous The result of the previous scan
+     * @param current The result of the current scan
+     * @return The new, fixed and persisting alerts
+     */
+    public ScanResultDiff diffResults(ScanResult previous, ScanResult current) {
+        return ScanResultDiff.compare(previous, current);
+    }
+    
+    /**
+     * Generates a report of only the alerts that are new or fixed since a previous scan.
+     * 
+     * @param previous The result of the previous scan
+     * @param current The result of the current scan
+     * @param format The format of the report: MD or JSON
+     * @param outputPath The output path for the report
+     * @throws ZapScannerException If report generation fails
+     */
+    public void generateDiffReport(ScanResult previous, ScanResult current, ReportGenerator.ReportFormat format,
+            String outputPath) throws ZapScannerException {
+        reportGenerator.generateDiffReport(diffResults(previous, current), format, outputPath);
+    }
+    
+    /**
+     * Saves a scan result in a compact binary form that can be loaded back later.
+     * 
+     * @param result The scan result
+     * @param outputPath The output path
+     * @throws ZapScannerException If saving fails
+     */
+    public void saveScanResult(ScanResult result, String outputPath) throws ZapScannerException {
+        reportGenerator.saveScanResult(result, outputPath);
+    }
+    
+    /**
+     * Loads a scan result saved by {@link #saveScanResult(ScanResult, String)}.
+     * 
+     * @param inputPath The input path
+     * @return The scan result
+     * @throws ZapScannerException If loading fails
+     */
+    public ScanResult loadScanResult(String inputPath) throws ZapScannerException {
+        return reportGenerator.loadScanResult(inputPath);
+    }
+    
+    /**
+     * Generates a SARIF report from a scan result saved with {@link #saveScanResult(ScanResult, String)},
+     * streaming its alerts so even very large results are converted in bounded memory.
+     * 
+     * @param inputPath The path of the saved scan result
+     * @param outputPath The output path for the report
+     * @throws ZapScannerException If report generation fails
+     */
+    public void generateSarifReport(String inputPath, String outputPath) throws ZapScannerException {
+        reportGenerator.generateSarifReport(inputPath, outputPath);
+    }
+    
     /**
      * Generates a remediation report with guided suggestions for fixing vulnerabilities.
      * 
@@ -500,4 +1088,32 @@ public class ZapScanner {
             throw new ZapScannerException("Failed to authenticate with Selenium: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * A scan that can be cancelled.
+     */
+    @FunctionalInterface
+    private interface CancellableScan {
+        ScanResult run(ScanCancellation cancellation) throws ZapScannerException;
+    }
+    
+    /**
+     * Future of an async scan, which cancels the scan when cancelled.
+     */
+    private static class ScanFuture extends CompletableFuture<ScanResult> {
+        private final ScanCancellation cancellation;
+        
+        ScanFuture(ScanCancellation cancellation) {
+            this.cancellation = cancellation;
+        }
+        
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                cancellation.cancel();
+            }
+            return cancelled;
+        }
+    }
 }
@@ -10,14 +10,14 @@ import org.zaproxy.clientapi.core.ClientApiException;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Authentication handler for API key authentication.
  * Uses a custom script to handle API key authentication in ZAP.
+ * The script is provisioned through the {@link AuthScriptRegistry}, so handlers with
+ * the same header share a single loaded script.
  */
 public class ApiKeyAuthenticationHandler implements AuthenticationHandler {
 
@@ -26,7 +26,9 @@ public class ApiKeyAuthenticationHandler implements AuthenticationHandler {
     private final ClientApi zapClient;
     private final String apiKeyHeaderName;
     private final String apiKeyValue;
+    private final String scriptContent;
     private final String scriptName;
+    private final AuthScriptRegistry scriptRegistry;
     private File scriptFile;
     
     /**
@@ -40,7 +42,9 @@ public class ApiKeyAuthenticationHandler implements AuthenticationHandler {
         this.zapClient = zapClient;
         this.apiKeyHeaderName = apiKeyHeaderName;
         this.apiKeyValue = apiKeyValue;
-        this.scriptName = "api-key-auth-" + System.currentTimeMillis();
+        this.scriptContent = renderApiKeyScript(apiKeyHeaderName, apiKeyValue);
+        this.scriptName = AuthScriptRegistry.scriptName("api-key-auth", scriptContent);
+        this.scriptRegistry = AuthScriptRegistry.getInstance();
     }
     
     @Override
@@ -56,17 +60,8 @@ public class ApiKeyAuthenticationHandler implements AuthenticationHandler {
             Integer contextId = Integer.valueOf(contextIdStr);
             LOGGER.debug("Context ID: {}", contextId);
             
-            // Create a script for API key authentication
-            createApiKeyScript(contextId, apiKeyHeaderName, apiKeyValue);
-            
-            // Load the script into ZAP
-            zapClient.script.load(
-                scriptName,
-                "authentication",
-                "ECMAScript",
-                scriptFile.getAbsolutePath(),
-                "API Key Authentication Script",
-                null);
+            // Load the API key authentication script into ZAP
+            acquireScript();
             
             // Configure authentication to use the script
             Map<String, String> params = new HashMap<>();
@@ -88,17 +83,8 @@ public class ApiKeyAuthenticationHandler implements AuthenticationHandler {
         try {
             LOGGER.info("Setting up API key authentication for context ID: {}", contextId);
             
-            // Create a script for API key authentication
-            createApiKeyScript(contextId, apiKeyHeaderName, apiKeyValue);
-            
-            // Load the script into ZAP
-            zapClient.script.load(
-                scriptName,
-                "authentication",
-                "ECMAScript",
-                scriptFile.getAbsolutePath(),
-                "API Key Authentication Script",
-                null);
+            // Load the API key authentication script into ZAP
+            acquireScript();
             
             // Configure authentication to use the script
             Map<String, String> params = new HashMap<>();
@@ -119,15 +105,8 @@ public class ApiKeyAuthenticationHandler implements AuthenticationHandler {
         try {
             LOGGER.info("Cleaning up API key authentication for context ID: {}", contextId);
             
-            // Remove the script
-            if (scriptName != null) {
-                zapClient.script.remove(scriptName);
-            }
-            
-            // Delete the temporary script file
-            if (scriptFile != null && scriptFile.exists()) {
-                scriptFile.delete();
-            }
+            // Release the script, removing it from ZAP once no context uses it
+            scriptRegistry.release(zapClient, scriptName);
             
             LOGGER.info("API key authentication cleanup complete for context ID: {}", contextId);
         } catch (ClientApiException e) {
@@ -137,48 +116,48 @@ public class ApiKeyAuthenticationHandler implements AuthenticationHandler {
     }
     
     /**
-     * Creates a JavaScript file that implements API key authentication.
+     * Acquires the API key authentication script from the registry.
+     * 
+     * @throws ClientApiException If loading the script fails
+     * @throws IOException If writing the script file fails
+     */
+    private void acquireScript() throws ClientApiException, IOException {
+        scriptFile = scriptRegistry.acquire(zapClient, "api-key-auth", "API Key Authentication Script", scriptContent)
+                .toFile();
+    }
+    
+    /**
+     * Renders the JavaScript that implements API key authentication.
      * 
-     * @param contextId The context ID
      * @param headerName The name of the header for the API key
      * @param headerValue The value of the API key
-     * @throws IOException If script creation fails
+     * @return The script content
      */
-    private void createApiKeyScript(int contextId, String headerName, String headerValue) throws IOException {
-        LOGGER.debug("Creating API key authentication script for context ID: {}", contextId);
-        
-        // Create a temporary file for the script
-        scriptFile = File.createTempFile("api-key-auth-", ".js");
-        scriptFile.deleteOnExit();
-        
-        // Script content
-        StringBuilder scriptContent = new StringBuilder();
-        scriptContent.append("// API Key Authentication Script\n");
-        scriptContent.append("// Automatically generated by ZapScanner\n\n");
-        
-        scriptContent.append("function authenticate(helper, paramsValues, credentials) {\n");
-        scriptContent.append("  // Add the API key as a header\n");
-        scriptContent.append("  var requestHeader = \"").append(headerName).append(": ").append(headerValue).append("\";\n");
-        scriptContent.append("  helper.addRequestHeader(requestHeader);\n");
-        scriptContent.append("  return helper.requestUrl(\"\");\n");
-        scriptContent.append("}\n\n");
+    private static String renderApiKeyScript(String headerName, String headerValue) {
+        StringBuilder script = new StringBuilder();
+        script.append("// API Key Authentication Script\n");
+        script.append("// Automatically generated by ZapScanner\n\n");
         
-        scriptContent.append("function getRequiredParamsNames() {\n");
-        scriptContent.append("  return [];\n");
-        scriptContent.append("}\n\n");
+        script.append("function authenticate(helper, paramsValues, credentials) {\n");
+        script.append("  // Add the API key as a header\n");
+        script.append("  var requestHeader = \"").append(headerName).append(": ").append(headerValue).append("\";\n");
+        script.append("  helper.addRequestHeader(requestHeader);\n");
+        script.append("  return helper.requestUrl(\"\");\n");
+        script.append("}\n\n");
         
-        scriptContent.append("function getOptionalParamsNames() {\n");
-        scriptContent.append("  return [];\n");
-        scriptContent.append("}\n\n");
+        script.append("function getRequiredParamsNames() {\n");
+        script.append("  return [];\n");
+        script.append("}\n\n");
         
-        scriptContent.append("function getCredentialsParamsNames() {\n");
-        scriptContent.append("  return [];\n");
-        scriptContent.append("}\n");
+        script.append("function getOptionalParamsNames() {\n");
+        script.append("  return [];\n");
+        script.append("}\n\n");
         
-        // Write the script to the file
-        Files.write(Paths.get(scriptFile.getAbsolutePath()), scriptContent.toString().getBytes());
+        script.append("function getCredentialsParamsNames() {\n");
+        script.append("  return [];\n");
+        script.append("}\n");
         
-        LOGGER.debug("API key authentication script created at: {}", scriptFile.getAbsolutePath());
+        return script.toString();
     }
     
     /**
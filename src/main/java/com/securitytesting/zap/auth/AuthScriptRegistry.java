@@ -0,0 +1,343 @@
+package com.securitytesting.zap.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Registry for authentication scripts loaded into ZAP.
+ * Scripts are named by a hash of their content, written to disk once and loaded
+ * into each ZAP instance once. Every acquisition is reference counted so that the
+ * script is only removed from ZAP, and its file deleted, when the last context using
+ * it is cleaned up.
+ * <p>
+ * As scripts contain credentials such as API keys and client secrets, the shared
+ * registry writes them to a directory private to this process and readable only by
+ * its owner. Only files the registry wrote itself are handed to ZAP: a file it finds
+ * already in place may be stale or planted, so it is replaced on first use, while a
+ * file it wrote is trusted for as long as it keeps it.
+ */
+public class AuthScriptRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthScriptRegistry.class);
+    private static final String SCRIPT_TYPE = "authentication";
+    private static final String SCRIPT_ENGINE = "ECMAScript";
+    private static final int HASH_PREFIX_LENGTH = 16;
+
+    private static final AuthScriptRegistry DEFAULT_INSTANCE = new AuthScriptRegistry();
+
+    private Path scriptDirectory;
+    private final Map<String, Path> scriptFiles = new HashMap<>();
+    private final Map<String, Integer> fileReferences = new HashMap<>();
+    private final Map<ClientApi, Map<String, Integer>> loadedScripts = new WeakHashMap<>();
+
+    /**
+     * Creates a new registry that stores rendered scripts in a private temporary directory,
+     * created on first use.
+     */
+    public AuthScriptRegistry() {
+        this(null);
+    }
+
+    /**
+     * Creates a new registry that stores rendered scripts in the specified directory.
+     *
+     * @param scriptDirectory The directory for rendered script files, which must not be
+     *                        writable by other users
+     */
+    public AuthScriptRegistry(Path scriptDirectory) {
+        this.scriptDirectory = scriptDirectory;
+    }
+
+    /**
+     * Gets the shared registry used by the authentication handlers.
+     *
+     * @return The shared registry
+     */
+    public static AuthScriptRegistry getInstance() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Computes the content-addressed name of a script.
+     *
+     * @param namePrefix The script name prefix
+     * @param content The script content
+     * @return The script name
+     */
+    public static String scriptName(String namePrefix, String content) {
+        return namePrefix + "-" + hash(content).substring(0, HASH_PREFIX_LENGTH);
+    }
+
+    /**
+     * Acquires a script for use with a ZAP instance.
+     * The script file is written unless the registry already wrote it and the script is
+     * loaded into ZAP only on the first acquisition for that instance. The script is named
+     * {@link #scriptName(String, String)} in ZAP.
+     *
+     * @param zapClient The ZAP client API
+     * @param namePrefix The script name prefix
+     * @param description The script description
+     * @param content The script content
+     * @return The script file, retained until the script is released
+     * @throws ClientApiException If loading the script fails
+     * @throws IOException If writing the script file fails
+     */
+    public Path acquire(ClientApi zapClient, String namePrefix, String description, String content)
+            throws ClientApiException, IOException {
+        String scriptName = scriptName(namePrefix, content);
+        Path scriptFile = retainScriptFile(scriptName, content);
+
+        Map<String, Integer> instanceScripts = getInstanceScripts(zapClient);
+        synchronized (instanceScripts) {
+            Integer references = instanceScripts.get(scriptName);
+
+            if (references == null) {
+                try {
+                    zapClient.script.load(
+                        scriptName,
+                        SCRIPT_TYPE,
+                        SCRIPT_ENGINE,
+                        scriptFile.toAbsolutePath().toString(),
+                        description,
+                        null);
+                } catch (ClientApiException | RuntimeException e) {
+                    releaseScriptFile(scriptName);
+                    throw e;
+                }
+                references = 0;
+                LOGGER.debug("Loaded authentication script {} into ZAP", scriptName);
+            }
+
+            instanceScripts.put(scriptName, references + 1);
+            LOGGER.debug("Acquired authentication script {} (references: {})", scriptName, references + 1);
+        }
+
+        return scriptFile;
+    }
+
+    /**
+     * Releases a script previously acquired for a ZAP instance.
+     * The script is removed from ZAP when its last reference for the instance is released,
+     * and its file is deleted when its last reference for any instance is released.
+     *
+     * @param zapClient The ZAP client API
+     * @param scriptName The name of the script
+     * @throws ClientApiException If removing the script fails
+     */
+    public void release(ClientApi zapClient, String scriptName) throws ClientApiException {
+        Map<String, Integer> instanceScripts = getInstanceScripts(zapClient);
+        synchronized (instanceScripts) {
+            Integer references = instanceScripts.get(scriptName);
+
+            if (references == null) {
+                LOGGER.debug("Authentication script {} is not loaded, nothing to release", scriptName);
+                return;
+            }
+
+            try {
+                if (references > 1) {
+                    instanceScripts.put(scriptName, references - 1);
+                    LOGGER.debug("Released authentication script {} (references: {})", scriptName, references - 1);
+                    return;
+                }
+
+                instanceScripts.remove(scriptName);
+                zapClient.script.remove(scriptName);
+                LOGGER.debug("Removed authentication script {} from ZAP", scriptName);
+            } finally {
+                releaseScriptFile(scriptName);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of references held on a script for a ZAP instance.
+     *
+     * @param zapClient The ZAP client API
+     * @param scriptName The name of the script
+     * @return The number of references, or 0 if the script is not loaded
+     */
+    public int getReferenceCount(ClientApi zapClient, String scriptName) {
+        Map<String, Integer> instanceScripts = getInstanceScripts(zapClient);
+        synchronized (instanceScripts) {
+            return instanceScripts.getOrDefault(scriptName, 0);
+        }
+    }
+
+    /**
+     * Gets the rendered file for a script, writing it unless the registry already wrote it.
+     *
+     * @param scriptName The name of the script
+     * @param content The script content
+     * @return The script file
+     * @throws IOException If writing the file fails
+     */
+    public Path getScriptFile(String scriptName, String content) throws IOException {
+        synchronized (fileReferences) {
+            Path scriptFile = scriptFiles.get(scriptName);
+            // The file is named after its content, so one the registry wrote still holds the script
+            if (scriptFile != null && Files.isRegularFile(scriptFile, LinkOption.NOFOLLOW_LINKS)) {
+                return scriptFile;
+            }
+
+            // Never trust a file the registry did not write: it may be stale or planted by someone else
+            scriptFile = getScriptDirectory().resolve(scriptName + ".js");
+            writeScriptFile(scriptFile, scriptName, content.getBytes(StandardCharsets.UTF_8));
+
+            scriptFiles.put(scriptName, scriptFile);
+            return scriptFile;
+        }
+    }
+
+    /**
+     * Gets the rendered file for a script and holds a reference on it until it is released.
+     *
+     * @param scriptName The name of the script
+     * @param content The script content
+     * @return The script file
+     * @throws IOException If writing the file fails
+     */
+    private Path retainScriptFile(String scriptName, String content) throws IOException {
+        synchronized (fileReferences) {
+            Path scriptFile = getScriptFile(scriptName, content);
+            fileReferences.merge(scriptName, 1, Integer::sum);
+            return scriptFile;
+        }
+    }
+
+    /**
+     * Releases a reference on the rendered file for a script, deleting the file with the last one.
+     *
+     * @param scriptName The name of the script
+     */
+    private void releaseScriptFile(String scriptName) {
+        synchronized (fileReferences) {
+            Integer references = fileReferences.get(scriptName);
+            if (references == null) {
+                return;
+            }
+            if (references > 1) {
+                fileReferences.put(scriptName, references - 1);
+                return;
+            }
+
+            fileReferences.remove(scriptName);
+            Path scriptFile = scriptFiles.remove(scriptName);
+            try {
+                if (scriptFile != null && Files.deleteIfExists(scriptFile)) {
+                    LOGGER.debug("Authentication script file deleted: {}", scriptFile);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete authentication script file {}: {}", scriptFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes a script file atomically, so ZAP never reads a partial script.
+     *
+     * @param scriptFile The script file
+     * @param scriptName The name of the script
+     * @param bytes The script content
+     * @throws IOException If writing the file fails
+     */
+    private void writeScriptFile(Path scriptFile, String scriptName, byte[] bytes) throws IOException {
+        Path tempFile = Files.createTempFile(scriptFile.getParent(), scriptName, ".tmp");
+        try {
+            Files.write(tempFile, bytes);
+            try {
+                Files.move(tempFile, scriptFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, scriptFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        scriptFile.toFile().deleteOnExit();
+        LOGGER.debug("Authentication script written to: {}", scriptFile);
+    }
+
+    /**
+     * Gets the directory script files are written to, creating a private temporary directory
+     * if none was specified.
+     *
+     * @return The script directory
+     * @throws IOException If the directory cannot be created
+     */
+    private Path getScriptDirectory() throws IOException {
+        if (scriptDirectory == null) {
+            Path directory;
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                directory = Files.createTempDirectory("zap-auth-scripts",
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } else {
+                directory = Files.createTempDirectory("zap-auth-scripts");
+                File file = directory.toFile();
+                file.setReadable(false, false);
+                file.setWritable(false, false);
+                file.setExecutable(false, false);
+                file.setReadable(true, true);
+                file.setWritable(true, true);
+                file.setExecutable(true, true);
+            }
+            directory.toFile().deleteOnExit();
+            scriptDirectory = directory;
+            LOGGER.debug("Authentication scripts are written to {}", directory);
+        } else {
+            Files.createDirectories(scriptDirectory);
+        }
+        return scriptDirectory;
+    }
+
+    /**
+     * Gets the loaded script reference counts for a ZAP instance.
+     *
+     * @param zapClient The ZAP client API
+     * @return The reference counts keyed by script name
+     */
+    private Map<String, Integer> getInstanceScripts(ClientApi zapClient) {
+        synchronized (loadedScripts) {
+            return loadedScripts.computeIfAbsent(zapClient, client -> new HashMap<>());
+        }
+    }
+
+    /**
+     * Computes the SHA-256 hash of a script.
+     *
+     * @param content The script content
+     * @return The hash as a hexadecimal string
+     */
+    private static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -34,4 +34,27 @@ public interface AuthenticationHandler {
      * @throws AuthenticationException If cleanup fails
      */
     void cleanup(ClientApi zapClient, int contextId) throws AuthenticationException;
+    
+    /**
+     * Gets the ID of the user created during setup.
+     * 
+     * @return The user ID, or null if the handler does not create a user
+     */
+    default Integer getUserId() {
+        return null;
+    }
+    
+    /**
+     * Creates an additional user in a context that was set up by this handler.
+     * Used to scan the same context as several roles.
+     * 
+     * @param contextId The ID of the context
+     * @param username The username
+     * @param password The password
+     * @return The ID of the created user
+     * @throws AuthenticationException If the handler does not support users or creation fails
+     */
+    default int createUser(int contextId, String username, String password) throws AuthenticationException {
+        throw new AuthenticationException(getClass().getSimpleName() + " does not support additional users");
+    }
 }
@@ -28,6 +28,7 @@ public class FormAuthenticationHandler implements AuthenticationHandler {
     private final String loginRequestData;
     private final String loggedInIndicator;
     private final String loggedOutIndicator;
+    private volatile Integer userId;
     
     /**
      * Builder for FormAuthenticationHandler.
@@ -216,7 +217,7 @@ public class FormAuthenticationHandler implements AuthenticationHandler {
             setupFormAuthentication(contextId);
             
             // Create a user in the context
-            createUser(contextId, username, password);
+            userId = registerUser(contextId, username, password);
             
             LOGGER.info("Form authentication setup complete for context: {}", contextName);
             return contextId;
@@ -235,7 +236,7 @@ public class FormAuthenticationHandler implements AuthenticationHandler {
             setupFormAuthentication(contextId);
             
             // Create a user in the context
-            createUser(contextId, username, password);
+            userId = registerUser(contextId, username, password);
             
             LOGGER.info("Form authentication setup complete for context ID: {}", contextId);
         } catch (ClientApiException e) {
@@ -288,8 +289,23 @@ public class FormAuthenticationHandler implements AuthenticationHandler {
         LOGGER.debug("Form authentication setup for context ID: {}", contextId);
     }
     
+    @Override
+    public Integer getUserId() {
+        return userId;
+    }
+    
+    @Override
+    public int createUser(int contextId, String username, String password) throws AuthenticationException {
+        try {
+            return registerUser(contextId, username, password);
+        } catch (ClientApiException | NumberFormatException e) {
+            LOGGER.error("Failed to create user {}", username, e);
+            throw new AuthenticationException("Failed to create user " + username + ": " + e.getMessage(), e);
+        }
+    }
+    
     /**
-     * Creates a user in a context.
+     * Registers a user with credentials in a context.
      * 
      * @param contextId The context ID
      * @param username The username
@@ -297,7 +313,7 @@ public class FormAuthenticationHandler implements AuthenticationHandler {
      * @return The user ID
      * @throws ClientApiException If user creation fails
      */
-    private int createUser(int contextId, String username, String password) throws ClientApiException {
+    private int registerUser(int contextId, String username, String password) throws ClientApiException {
         LOGGER.debug("Creating user for context ID {}: {}", contextId, username);
         
         // In a real implementation, we would use the ZAP API to create a user
@@ -10,14 +10,14 @@ import org.zaproxy.clientapi.core.ClientApiException;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Authentication handler for OAuth 2.0 authentication.
  * Uses a custom script to handle OAuth 2.0 authentication in ZAP.
+ * The script is provisioned through the {@link AuthScriptRegistry}, so handlers with
+ * the same client settings share a single loaded script.
  */
 public class OAuth2AuthenticationHandler implements AuthenticationHandler {
 
@@ -30,8 +30,11 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
     private final String authorizationUrl;
     private final String redirectUrl;
     private final String scope;
+    private final String scriptContent;
     private final String scriptName;
+    private final AuthScriptRegistry scriptRegistry;
     private File scriptFile;
+    private volatile Integer userId;
     
     /**
      * Builder for OAuth2 authentication handler.
@@ -108,7 +111,9 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
         this.authorizationUrl = builder.authorizationUrl;
         this.redirectUrl = builder.redirectUrl;
         this.scope = builder.scope;
-        this.scriptName = "oauth2-auth-" + System.currentTimeMillis();
+        this.scriptContent = renderOAuth2Script();
+        this.scriptName = AuthScriptRegistry.scriptName("oauth2-auth", scriptContent);
+        this.scriptRegistry = AuthScriptRegistry.getInstance();
     }
     
     /**
@@ -130,7 +135,9 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
         this.authorizationUrl = authorizationUrl;
         this.redirectUrl = null;
         this.scope = scope;
-        this.scriptName = "oauth2-auth-" + System.currentTimeMillis();
+        this.scriptContent = renderOAuth2Script();
+        this.scriptName = AuthScriptRegistry.scriptName("oauth2-auth", scriptContent);
+        this.scriptRegistry = AuthScriptRegistry.getInstance();
     }
     
     /**
@@ -153,7 +160,9 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
         this.authorizationUrl = authorizationUrl;
         this.redirectUrl = redirectUrl;
         this.scope = scope;
-        this.scriptName = "oauth2-auth-" + System.currentTimeMillis();
+        this.scriptContent = renderOAuth2Script();
+        this.scriptName = AuthScriptRegistry.scriptName("oauth2-auth", scriptContent);
+        this.scriptRegistry = AuthScriptRegistry.getInstance();
     }
     
     @Override
@@ -169,17 +178,8 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
             Integer contextId = Integer.valueOf(contextIdStr);
             LOGGER.debug("Context ID: {}", contextId);
             
-            // Create a script for OAuth2 authentication
-            createOAuth2Script(contextId);
-            
-            // Load the script into ZAP
-            zapClient.script.load(
-                scriptName,
-                "authentication",
-                "ECMAScript",
-                scriptFile.getAbsolutePath(),
-                "OAuth2 Authentication Script",
-                null);
+            // Load the OAuth2 authentication script into ZAP
+            acquireScript();
             
             // Configure authentication to use the script
             Map<String, String> params = new HashMap<>();
@@ -189,7 +189,7 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
             zapClient.authentication.setAuthenticationMethod(params, "scriptBasedAuthentication");
             
             // Create a user in the context
-            createUser(contextId, clientId, clientSecret);
+            userId = registerUser(contextId, clientId, clientSecret);
             
             LOGGER.info("OAuth2 authentication setup complete for context: {}", contextName);
             return contextId;
@@ -204,17 +204,8 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
         try {
             LOGGER.info("Setting up OAuth2 authentication for context ID: {}", contextId);
             
-            // Create a script for OAuth2 authentication
-            createOAuth2Script(contextId);
-            
-            // Load the script into ZAP
-            zapClient.script.load(
-                scriptName,
-                "authentication",
-                "ECMAScript",
-                scriptFile.getAbsolutePath(),
-                "OAuth2 Authentication Script",
-                null);
+            // Load the OAuth2 authentication script into ZAP
+            acquireScript();
             
             // Configure authentication to use the script
             Map<String, String> params = new HashMap<>();
@@ -224,7 +215,7 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
             zapClient.authentication.setAuthenticationMethod(params, "scriptBasedAuthentication");
             
             // Create a user in the context
-            createUser(contextId, clientId, clientSecret);
+            userId = registerUser(contextId, clientId, clientSecret);
             
             LOGGER.info("OAuth2 authentication setup complete for context ID: {}", contextId);
         } catch (ClientApiException | IOException e) {
@@ -238,15 +229,8 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
         try {
             LOGGER.info("Cleaning up OAuth2 authentication for context ID: {}", contextId);
             
-            // Remove the script
-            if (scriptName != null) {
-                zapClient.script.remove(scriptName);
-            }
-            
-            // Delete the temporary script file
-            if (scriptFile != null && scriptFile.exists()) {
-                scriptFile.delete();
-            }
+            // Release the script, removing it from ZAP once no context uses it
+            scriptRegistry.release(zapClient, scriptName);
             
             LOGGER.info("OAuth2 authentication cleanup complete for context ID: {}", contextId);
         } catch (ClientApiException e) {
@@ -255,8 +239,23 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
         }
     }
     
+    @Override
+    public Integer getUserId() {
+        return userId;
+    }
+    
+    @Override
+    public int createUser(int contextId, String username, String password) throws AuthenticationException {
+        try {
+            return registerUser(contextId, username, password);
+        } catch (ClientApiException | NumberFormatException e) {
+            LOGGER.error("Failed to create user {}", username, e);
+            throw new AuthenticationException("Failed to create user " + username + ": " + e.getMessage(), e);
+        }
+    }
+    
     /**
-     * Creates a user in a context.
+     * Registers a user with credentials in a context.
      * 
      * @param contextId The context ID
      * @param username The username
@@ -264,7 +263,7 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
      * @return The user ID
      * @throws ClientApiException If user creation fails
      */
-    private int createUser(int contextId, String username, String password) throws ClientApiException {
+    private int registerUser(int contextId, String username, String password) throws ClientApiException {
         LOGGER.debug("Creating user for context ID {}: {}", contextId, username);
         
         // Create the user
@@ -288,91 +287,109 @@ public class OAuth2AuthenticationHandler implements AuthenticationHandler {
     }
     
     /**
-     * Creates a JavaScript file that implements OAuth2 authentication.
+     * Acquires the OAuth2 authentication script from the registry.
      * 
-     * @param contextId The context ID
-     * @throws IOException If script creation fails
+     * @throws ClientApiException If loading the script fails
+     * @throws IOException If writing the script file fails
      */
-    private void createOAuth2Script(int contextId) throws IOException {
-        LOGGER.debug("Creating OAuth2 authentication script for context ID: {}", contextId);
-        
-        // Create a temporary file for the script
-        scriptFile = File.createTempFile("oauth2-auth-", ".js");
-        scriptFile.deleteOnExit();
-        
-        // Script content
-        StringBuilder scriptContent = new StringBuilder();
-        scriptContent.append("// OAuth2 Authentication Script\n");
-        scriptContent.append("// Automatically generated by ZapScanner\n\n");
+    private void acquireScript() throws ClientApiException, IOException {
+        scriptFile = scriptRegistry.acquire(zapClient, "oauth2-auth", "OAuth2 Authentication Script", scriptContent)
+                .toFile();
+    }
+    
+    /**
+     * Renders the JavaScript that implements OAuth2 authentication.
+     * 
+     * @return The script content
+     */
+    private String renderOAuth2Script() {
+        StringBuilder script = new StringBuilder();
+        script.append("// OAuth2 Authentication Script\n");
+        script.append("// Automatically generated by ZapScanner\n\n");
         
-        scriptContent.append("var CLIENT_ID = \"").append(clientId).append("\";\n");
-        scriptContent.append("var CLIENT_SECRET = \"").append(clientSecret).append("\";\n");
-        scriptContent.append("var TOKEN_URL = \"").append(tokenUrl).append("\";\n");
-        scriptContent.append("var AUTHORIZATION_URL = \"").append(authorizationUrl).append("\";\n");
+        script.append("var CLIENT_ID = \"").append(clientId).append("\";\n");
+        script.append("var CLIENT_SECRET = \"").append(clientSecret).append("\";\n");
+        script.append("var TOKEN_URL = \"").append(tokenUrl).append("\";\n");
+        script.append("var AUTHORIZATION_URL = \"").append(authorizationUrl).append("\";\n");
         
         if (redirectUrl != null && !redirectUrl.isEmpty()) {
-            scriptContent.append("var REDIRECT_URL = \"").append(redirectUrl).append("\";\n");
+            script.append("var REDIRECT_URL = \"").append(redirectUrl).append("\";\n");
         }
         
         if (scope != null && !scope.isEmpty()) {
-            scriptContent.append("var SCOPE = \"").append(scope).append("\";\n");
+            script.append("var SCOPE = \"").append(scope).append("\";\n");
         }
         
-        scriptContent.append("\n");
+        script.append("\n");
         
-        scriptContent.append("function authenticate(helper, paramsValues, credentials) {\n");
-        scriptContent.append("  var clientId = credentials.getParam(\"username\");\n");
-        scriptContent.append("  var clientSecret = credentials.getParam(\"password\");\n");
-        scriptContent.append("  \n");
-        scriptContent.append("  // Get an access token using client credentials grant\n");
-        scriptContent.append("  var tokenRequestBody = \"grant_type=client_credentials\";\n");
+        script.append("function authenticate(helper, paramsValues, credentials) {\n");
+        script.append("  var clientId = credentials.getParam(\"username\");\n");
+        script.append("  var clientSecret = credentials.getParam(\"password\");\n");
+        script.append("  \n");
+        script.append("  // Get an access token using client credentials grant\n");
+        script.append("  var tokenRequestBody = \"grant_type=client_credentials\";\n");
         
         if (scope != null && !scope.isEmpty()) {
-            scriptContent.append("  tokenRequestBody += \"&scope=\" + encodeURIComponent(SCOPE);\n");
+            script.append("  tokenRequestBody += \"&scope=\" + encodeURIComponent(SCOPE);\n");
         }
         
-        scriptContent.append("  tokenRequestBody += \"&client_id=\" + encodeURIComponent(clientId);\n");
-        scriptContent.append("  tokenRequestBody += \"&client_secret=\" + encodeURIComponent(clientSecret);\n");
+        script.append("  tokenRequestBody += \"&client_id=\" + encodeURIComponent(clientId);\n");
+        script.append("  tokenRequestBody += \"&client_secret=\" + encodeURIComponent(clientSecret);\n");
         
         if (redirectUrl != null && !redirectUrl.isEmpty()) {
-            scriptContent.append("  tokenRequestBody += \"&redirect_uri=\" + encodeURIComponent(REDIRECT_URL);\n");
+            script.append("  tokenRequestBody += \"&redirect_uri=\" + encodeURIComponent(REDIRECT_URL);\n");
         }
         
-        scriptContent.append("  \n");
-        scriptContent.append("  // Set up the token request\n");
-        scriptContent.append("  var tokenRequest = \"POST \" + TOKEN_URL;\n");
-        scriptContent.append("  var tokenHeaders = \"Content-Type: application/x-www-form-urlencoded\";\n");
-        scriptContent.append("  var tokenMsg = helper.prepareMessage();\n");
-        scriptContent.append("  \n");
-        scriptContent.append("  // Send the token request\n");
-        scriptContent.append("  var tokenResponse = helper.sendAndReceive(tokenMsg, tokenRequestBody, tokenHeaders);\n");
-        scriptContent.append("  var tokenResponseBody = tokenResponse.getResponseBody().toString();\n");
-        scriptContent.append("  \n");
-        scriptContent.append("  // Parse the JSON response\n");
-        scriptContent.append("  var json = JSON.parse(tokenResponseBody);\n");
-        scriptContent.append("  var accessToken = json.access_token;\n");
-        scriptContent.append("  \n");
-        scriptContent.append("  // Store the access token in the session\n");
-        scriptContent.append("  helper.getCorrespondingHttpMessage().getRequestHeader().setHeader(\"Authorization\", \"Bearer \" + accessToken);\n");
-        scriptContent.append("  \n");
-        scriptContent.append("  return tokenResponse;\n");
-        scriptContent.append("}\n\n");
+        script.append("  \n");
+        script.append("  // Set up the token request\n");
+        script.append("  var tokenRequest = \"POST \" + TOKEN_URL;\n");
+        script.append("  var tokenHeaders = \"Content-Type: application/x-www-form-urlencoded\";\n");
+        script.append("  var tokenMsg = helper.prepareMessage();\n");
+        script.append("  \n");
+        script.append("  // Send the token request\n");
+        script.append("  var tokenResponse = helper.sendAndReceive(tokenMsg, tokenRequestBody, tokenHeaders);\n");
+        script.append("  var tokenResponseBody = tokenResponse.getResponseBody().toString();\n");
+        script.append("  \n");
+        script.append("  // Parse the JSON response\n");
+        script.append("  var json = JSON.parse(tokenResponseBody);\n");
+        script.append("  var accessToken = json.access_token;\n");
+        script.append("  \n");
+        script.append("  // Store the access token in the session\n");
+        script.append("  helper.getCorrespondingHttpMessage().getRequestHeader().setHeader(\"Authorization\", \"Bearer \" + accessToken);\n");
+        script.append("  \n");
+        script.append("  return tokenResponse;\n");
+        script.append("}\n\n");
         
-        scriptContent.append("function getRequiredParamsNames() {\n");
-        scriptContent.append("  return [];\n");
-        scriptContent.append("}\n\n");
+        script.append("function getRequiredParamsNames() {\n");
+        script.append("  return [];\n");
+        script.append("}\n\n");
         
-        scriptContent.append("function getOptionalParamsNames() {\n");
-        scriptContent.append("  return [];\n");
-        scriptContent.append("}\n\n");
+        script.append("function getOptionalParamsNames() {\n");
+        script.append("  return [];\n");
+        script.append("}\n\n");
         
-        scriptContent.append("function getCredentialsParamsNames() {\n");
-        scriptContent.append("  return [\"username\", \"password\"];\n");
-        scriptContent.append("}\n");
+        script.append("function getCredentialsParamsNames() {\n");
+        script.append("  return [\"username\", \"password\"];\n");
+        script.append("}\n");
         
-        // Write the script to the file
-        Files.write(Paths.get(scriptFile.getAbsolutePath()), scriptContent.toString().getBytes());
-        
-        LOGGER.debug("OAuth2 authentication script created at: {}", scriptFile.getAbsolutePath());
+        return script.toString();
+    }
+    
+    /**
+     * Gets the name of the script.
+     * 
+     * @return The name of the script
+     */
+    public String getScriptName() {
+        return scriptName;
+    }
+    
+    /**
+     * Gets the script file.
+     * 
+     * @return The script file
+     */
+    public File getScriptFile() {
+        return scriptFile;
     }
 }
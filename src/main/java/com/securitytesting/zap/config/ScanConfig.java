@@ -29,6 +29,20 @@ public class ScanConfig {
     private final int maxActiveScanDurationInMinutes;
     private final int threadCount;
     private final boolean activeScanEnabled;
+    private final int maxConcurrentScans;
+    private final int maxBrowserSessions;
+    private final int maxInFlightRequests;
+    private final boolean adaptiveConcurrencyEnabled;
+    private final int maxThreadCount;
+    private final boolean policyAutoTuningEnabled;
+    private final String scanHistoryFile;
+    private final double policyCoverageFloor;
+    private final int fullStrengthScanInterval;
+    private final boolean technologyRulePruningEnabled;
+    private final int maxFingerprintMessages;
+    private final String scanJournalDirectory;
+    private final int checkpointIntervalInSeconds;
+    private final String suppressionBaselineFile;
     
     /**
      * Builder for scan configuration.
@@ -55,6 +69,20 @@ public class ScanConfig {
         private int maxActiveScanDurationInMinutes = 60;
         private int threadCount = 5;
         private boolean activeScanEnabled = true;
+        private int maxConcurrentScans = 2;
+        private int maxBrowserSessions = 2;
+        private int maxInFlightRequests = 32;
+        private boolean adaptiveConcurrencyEnabled = true;
+        private int maxThreadCount = 20;
+        private boolean policyAutoTuningEnabled = false;
+        private String scanHistoryFile = "zap-scan-history.json";
+        private double policyCoverageFloor = 0.8;
+        private int fullStrengthScanInterval = 5;
+        private boolean technologyRulePruningEnabled = false;
+        private int maxFingerprintMessages = 2000;
+        private String scanJournalDirectory = null;
+        private int checkpointIntervalInSeconds = 30;
+        private String suppressionBaselineFile = null;
         
         /**
          * Sets the ZAP host.
@@ -191,6 +219,160 @@ public class ScanConfig {
             return this;
         }
         
+        /**
+         * Sets the maximum number of active scans run concurrently against ZAP.
+         * 
+         * @param maxConcurrentScans The maximum number of concurrent scans
+         * @return The builder
+         */
+        public Builder maxConcurrentScans(int maxConcurrentScans) {
+            this.maxConcurrentScans = maxConcurrentScans;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum number of browser sessions used for Selenium navigation.
+         * 
+         * @param maxBrowserSessions The maximum number of browser sessions
+         * @return The builder
+         */
+        public Builder maxBrowserSessions(int maxBrowserSessions) {
+            this.maxBrowserSessions = maxBrowserSessions;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum number of requests in flight when seeding ZAP with API requests.
+         * 
+         * @param maxInFlightRequests The maximum number of in-flight requests
+         * @return The builder
+         */
+        public Builder maxInFlightRequests(int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+        
+        /**
+         * Sets whether the active scan thread count and delay adapt to the target's health.
+         * 
+         * @param adaptiveConcurrencyEnabled Whether adaptive concurrency is enabled
+         * @return The builder
+         */
+        public Builder adaptiveConcurrencyEnabled(boolean adaptiveConcurrencyEnabled) {
+            this.adaptiveConcurrencyEnabled = adaptiveConcurrencyEnabled;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum thread count per host that adaptive concurrency may raise the thread count to.
+         * 
+         * @param maxThreadCount The maximum thread count
+         * @return The builder
+         */
+        public Builder maxThreadCount(int maxThreadCount) {
+            this.maxThreadCount = maxThreadCount;
+            return this;
+        }
+        
+        /**
+         * Sets whether scan policies are tuned per target from the history of earlier scans.
+         * 
+         * @param policyAutoTuningEnabled Whether policy auto-tuning is enabled
+         * @return The builder
+         */
+        public Builder policyAutoTuningEnabled(boolean policyAutoTuningEnabled) {
+            this.policyAutoTuningEnabled = policyAutoTuningEnabled;
+            return this;
+        }
+        
+        /**
+         * Sets the file the per-rule scan history used for policy auto-tuning is kept in.
+         * 
+         * @param scanHistoryFile The scan history file
+         * @return The builder
+         */
+        public Builder scanHistoryFile(String scanHistoryFile) {
+            this.scanHistoryFile = scanHistoryFile;
+            return this;
+        }
+        
+        /**
+         * Sets the share of a policy's rules a tuned policy must keep.
+         * 
+         * @param policyCoverageFloor The coverage floor, between 0 and 1
+         * @return The builder
+         */
+        public Builder policyCoverageFloor(double policyCoverageFloor) {
+            this.policyCoverageFloor = policyCoverageFloor;
+            return this;
+        }
+        
+        /**
+         * Sets how often the untuned policy runs when policy auto-tuning is enabled.
+         * 
+         * @param fullStrengthScanInterval The number of scans of a target per full-strength scan
+         * @return The builder
+         */
+        public Builder fullStrengthScanInterval(int fullStrengthScanInterval) {
+            this.fullStrengthScanInterval = fullStrengthScanInterval;
+            return this;
+        }
+        
+        /**
+         * Sets whether active scan rules that cannot apply to the target's technologies are pruned after the spider.
+         * 
+         * @param technologyRulePruningEnabled Whether technology rule pruning is enabled
+         * @return The builder
+         */
+        public Builder technologyRulePruningEnabled(boolean technologyRulePruningEnabled) {
+            this.technologyRulePruningEnabled = technologyRulePruningEnabled;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum number of spidered messages read to fingerprint the target's technologies.
+         * 
+         * @param maxFingerprintMessages The maximum number of messages
+         * @return The builder
+         */
+        public Builder maxFingerprintMessages(int maxFingerprintMessages) {
+            this.maxFingerprintMessages = maxFingerprintMessages;
+            return this;
+        }
+        
+        /**
+         * Sets the directory scan checkpoints are journaled to, so a restarted process resumes its scans instead of starting over.
+         * 
+         * @param scanJournalDirectory The journal directory, or null to not checkpoint scans
+         * @return The builder
+         */
+        public Builder scanJournalDirectory(String scanJournalDirectory) {
+            this.scanJournalDirectory = scanJournalDirectory;
+            return this;
+        }
+        
+        /**
+         * Sets the minimum time between checkpoints of a scan's progress while it is polled.
+         * 
+         * @param checkpointIntervalInSeconds The checkpoint interval in seconds
+         * @return The builder
+         */
+        public Builder checkpointIntervalInSeconds(int checkpointIntervalInSeconds) {
+            this.checkpointIntervalInSeconds = checkpointIntervalInSeconds;
+            return this;
+        }
+        
+        /**
+         * Sets the baseline file of accepted-risk and false-positive alerts to leave out of scan results.
+         * 
+         * @param suppressionBaselineFile The suppression baseline file, or null to keep all alerts
+         * @return The builder
+         */
+        public Builder suppressionBaselineFile(String suppressionBaselineFile) {
+            this.suppressionBaselineFile = suppressionBaselineFile;
+            return this;
+        }
+        
         /**
          * Builds the scan configuration.
          * 
@@ -219,6 +401,20 @@ public class ScanConfig {
         this.maxActiveScanDurationInMinutes = builder.maxActiveScanDurationInMinutes;
         this.threadCount = builder.threadCount;
         this.activeScanEnabled = builder.activeScanEnabled;
+        this.maxConcurrentScans = builder.maxConcurrentScans;
+        this.maxBrowserSessions = builder.maxBrowserSessions;
+        this.maxInFlightRequests = builder.maxInFlightRequests;
+        this.adaptiveConcurrencyEnabled = builder.adaptiveConcurrencyEnabled;
+        this.maxThreadCount = builder.maxThreadCount;
+        this.policyAutoTuningEnabled = builder.policyAutoTuningEnabled;
+        this.scanHistoryFile = builder.scanHistoryFile;
+        this.policyCoverageFloor = builder.policyCoverageFloor;
+        this.fullStrengthScanInterval = builder.fullStrengthScanInterval;
+        this.technologyRulePruningEnabled = builder.technologyRulePruningEnabled;
+        this.maxFingerprintMessages = builder.maxFingerprintMessages;
+        this.scanJournalDirectory = builder.scanJournalDirectory;
+        this.checkpointIntervalInSeconds = builder.checkpointIntervalInSeconds;
+        this.suppressionBaselineFile = builder.suppressionBaselineFile;
     }
     
     /**
@@ -328,4 +524,130 @@ public class ScanConfig {
     public boolean isActiveScanEnabled() {
         return activeScanEnabled;
     }
+    
+    /**
+     * Gets the maximum number of active scans run concurrently against ZAP.
+     * 
+     * @return The maximum number of concurrent scans
+     */
+    public int getMaxConcurrentScans() {
+        return maxConcurrentScans;
+    }
+    
+    /**
+     * Gets the maximum number of browser sessions used for Selenium navigation.
+     * 
+     * @return The maximum number of browser sessions
+     */
+    public int getMaxBrowserSessions() {
+        return maxBrowserSessions;
+    }
+    
+    /**
+     * Gets the maximum number of requests in flight when seeding ZAP with API requests.
+     * 
+     * @return The maximum number of in-flight requests
+     */
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+    
+    /**
+     * Gets whether the active scan thread count and delay adapt to the target's health.
+     * 
+     * @return Whether adaptive concurrency is enabled
+     */
+    public boolean isAdaptiveConcurrencyEnabled() {
+        return adaptiveConcurrencyEnabled;
+    }
+    
+    /**
+     * Gets the maximum thread count per host that adaptive concurrency may raise the thread count to.
+     * 
+     * @return The maximum thread count
+     */
+    public int getMaxThreadCount() {
+        return maxThreadCount;
+    }
+    
+    /**
+     * Gets whether scan policies are tuned per target from the history of earlier scans.
+     * 
+     * @return Whether policy auto-tuning is enabled
+     */
+    public boolean isPolicyAutoTuningEnabled() {
+        return policyAutoTuningEnabled;
+    }
+    
+    /**
+     * Gets the file the per-rule scan history used for policy auto-tuning is kept in.
+     * 
+     * @return The scan history file
+     */
+    public String getScanHistoryFile() {
+        return scanHistoryFile;
+    }
+    
+    /**
+     * Gets the share of a policy's rules a tuned policy must keep.
+     * 
+     * @return The coverage floor, between 0 and 1
+     */
+    public double getPolicyCoverageFloor() {
+        return policyCoverageFloor;
+    }
+    
+    /**
+     * Gets how often the untuned policy runs when policy auto-tuning is enabled.
+     * 
+     * @return The number of scans of a target per full-strength scan
+     */
+    public int getFullStrengthScanInterval() {
+        return fullStrengthScanInterval;
+    }
+    
+    /**
+     * Checks whether active scan rules that cannot apply to the target's technologies are pruned.
+     * 
+     * @return Whether technology rule pruning is enabled
+     */
+    public boolean isTechnologyRulePruningEnabled() {
+        return technologyRulePruningEnabled;
+    }
+    
+    /**
+     * Gets the maximum number of spidered messages read to fingerprint the target's technologies.
+     * 
+     * @return The maximum number of messages
+     */
+    public int getMaxFingerprintMessages() {
+        return maxFingerprintMessages;
+    }
+    
+    /**
+     * Gets the directory scan checkpoints are journaled to.
+     * 
+     * @return The journal directory, or null to not checkpoint scans
+     */
+    public String getScanJournalDirectory() {
+        return scanJournalDirectory;
+    }
+    
+    /**
+     * Gets the minimum time between checkpoints of a scan's progress while it is polled.
+     * 
+     * @return The checkpoint interval in seconds
+     */
+    public int getCheckpointIntervalInSeconds() {
+        return checkpointIntervalInSeconds;
+    }
+    
+    /**
+     * Gets the baseline file of accepted-risk and false-positive alerts to leave out of scan results.
+     * 
+     * @return The suppression baseline file, or null to keep all alerts
+     */
+    public String getSuppressionBaselineFile() {
+        return suppressionBaselineFile;
+    }
 }
@@ -0,0 +1,76 @@
+package com.securitytesting.zap.config;
+
+/**
+ * A role to scan as in a role matrix scan.
+ * A role either has credentials for a user in the scan context or is anonymous.
+ */
+public class ScanRole {
+
+    private final String name;
+    private final String username;
+    private final String password;
+
+    /**
+     * Creates a new role with the specified credentials.
+     *
+     * @param name The name of the role (e.g. "admin")
+     * @param username The username of the role's user
+     * @param password The password of the role's user
+     */
+    public ScanRole(String name, String username, String password) {
+        this.name = name;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Creates an anonymous role that scans without a user.
+     *
+     * @param name The name of the role
+     * @return The anonymous role
+     */
+    public static ScanRole anonymous(String name) {
+        return new ScanRole(name, null, null);
+    }
+
+    /**
+     * Gets the name of the role.
+     *
+     * @return The name of the role
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the username of the role's user.
+     *
+     * @return The username, or null for an anonymous role
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the password of the role's user.
+     *
+     * @return The password, or null for an anonymous role
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Gets whether the role scans without a user.
+     *
+     * @return True if the role is anonymous, false otherwise
+     */
+    public boolean isAnonymous() {
+        return username == null || username.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
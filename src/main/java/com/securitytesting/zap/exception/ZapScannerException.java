@@ -1,12 +1,19 @@
 package com.securitytesting.zap.exception;
 
+import com.securitytesting.zap.report.ScanProfile;
+
 /**
  * Exception thrown for errors that occur during ZAP scanning operations.
+ * <p>
+ * A failed or timed out active scan still ran rules, so the exception carries the profile of
+ * the active scans run so far, if any, for reading where their time went.
  */
 public class ZapScannerException extends Exception {
 
     private static final long serialVersionUID = 1L;
 
+    private transient ScanProfile scanProfile;
+
     /**
      * Constructs a new ZapScannerException with the specified detail message.
      * 
@@ -24,6 +31,7 @@ public class ZapScannerException extends Exception {
      */
     public ZapScannerException(String message, Throwable cause) {
         super(message, cause);
+        inheritScanProfile(cause);
     }
 
     /**
@@ -33,5 +41,30 @@ public class ZapScannerException extends Exception {
      */
     public ZapScannerException(Throwable cause) {
         super(cause);
+        inheritScanProfile(cause);
+    }
+
+    /**
+     * Gets the profile of the active scans run before the failure.
+     * 
+     * @return The scan profile, or null if none was collected
+     */
+    public ScanProfile getScanProfile() {
+        return scanProfile;
+    }
+
+    /**
+     * Sets the profile of the active scans run before the failure.
+     * 
+     * @param scanProfile The scan profile
+     */
+    public void setScanProfile(ScanProfile scanProfile) {
+        this.scanProfile = scanProfile;
+    }
+
+    private void inheritScanProfile(Throwable cause) {
+        if (cause instanceof ZapScannerException) {
+            this.scanProfile = ((ZapScannerException) cause).getScanProfile();
+        }
     }
 }
@@ -0,0 +1,486 @@
+package com.securitytesting.zap.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.securitytesting.zap.exception.ZapScannerException;
+import io.swagger.parser.OpenAPIParser;
+import io.swagger.parser.SwaggerResolver;
+import io.swagger.parser.util.SwaggerDeserializationResult;
+import io.swagger.parser.util.SwaggerDeserializer;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.ObjectMapperFactory;
+import io.swagger.v3.parser.OpenAPIResolver;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import io.swagger.v3.parser.converter.SwaggerConverter;
+import io.swagger.v3.parser.core.models.ParseOptions;
+import io.swagger.v3.parser.core.models.SwaggerParseResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.LoaderOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of parsed OpenAPI models keyed by a hash of the specification content.
+ * Parsed models are kept in memory with least-recently-used eviction and, if a cache
+ * directory is configured, also written to disk so that other processes scanning the
+ * same specification version skip parsing entirely.
+ * <p>
+ * External references are resolved when parsing; references to components within the
+ * document are kept and resolved through the model's components. The cache key covers
+ * the root document only.
+ * <p>
+ * Large specifications should be passed as a file, channel or stream rather than a string.
+ * Files are memory-mapped, hashed and parsed straight from the mapping; streams and channels
+ * that are not file-backed are first spooled to a temporary file. The parser then builds its
+ * tree from the mapped bytes, so the specification is never copied into a {@code String}
+ * or {@code byte[]}.
+ */
+public class OpenApiModelCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenApiModelCache.class);
+    private static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private static final OpenApiModelCache DEFAULT_INSTANCE = new OpenApiModelCache(DEFAULT_MAX_ENTRIES, null);
+
+    private static final ObjectMapper JSON_MAPPER = ObjectMapperFactory.createJson();
+    private static final ObjectMapper YAML_MAPPER = createYamlMapper();
+
+    private final Path cacheDirectory;
+    private final Map<String, OpenAPI> models;
+
+    /**
+     * Creates a new model cache.
+     *
+     * @param maxEntries The maximum number of models kept in memory
+     * @param cacheDirectory The directory for cached models on disk, or null to cache in memory only
+     */
+    public OpenApiModelCache(int maxEntries, Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        this.models = new LinkedHashMap<String, OpenAPI>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OpenAPI> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Creates the mapper for YAML specifications. The YAML parser's default document size limit
+     * of 3 MB is lifted, since generated specifications are routinely much larger.
+     *
+     * @return The YAML mapper
+     */
+    private static ObjectMapper createYamlMapper() {
+        LoaderOptions loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit(Integer.MAX_VALUE);
+        return new ObjectMapper(YAMLFactory.builder().loaderOptions(loaderOptions).build());
+    }
+
+    /**
+     * Gets the shared in-memory cache used by the OpenAPI scanner.
+     *
+     * @return The shared cache
+     */
+    public static OpenApiModelCache getInstance() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Gets the parsed model of a specification fetched from a URL.
+     *
+     * @param url The URL of the specification
+     * @return The parsed model
+     * @throws ZapScannerException If fetching or parsing fails
+     */
+    public OpenAPI getModel(URL url) throws ZapScannerException {
+        try (InputStream in = url.openStream()) {
+            return getModel(in, url.toString());
+        } catch (IOException e) {
+            LOGGER.error("Failed to fetch OpenAPI specification from {}", url, e);
+            throw new ZapScannerException("Failed to fetch OpenAPI specification: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the parsed model of a specification file. The file is memory-mapped rather than read.
+     *
+     * @param file The specification file
+     * @return The parsed model
+     * @throws ZapScannerException If reading or parsing fails
+     */
+    public OpenAPI getModel(Path file) throws ZapScannerException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return getModel(channel, file.toUri().toString());
+        } catch (IOException e) {
+            LOGGER.error("Failed to read OpenAPI specification from {}", file, e);
+            throw new ZapScannerException("Failed to read OpenAPI specification: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the parsed model of a specification read from a stream.
+     * The stream is spooled to a temporary file and parsed from a memory mapping of that file.
+     * The stream is not closed.
+     *
+     * @param in The stream of the specification content, in JSON or YAML
+     * @param location The location relative external references are resolved against, or null
+     * @return The parsed model
+     * @throws ZapScannerException If reading or parsing fails
+     */
+    public OpenAPI getModel(InputStream in, String location) throws ZapScannerException {
+        Path spoolFile = null;
+        try {
+            spoolFile = Files.createTempFile("openapi-", ".spec");
+            Files.copy(in, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+
+            try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.READ)) {
+                return getModel(channel, location);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to read OpenAPI specification from stream", e);
+            throw new ZapScannerException("Failed to read OpenAPI specification: " + e.getMessage(), e);
+        } finally {
+            deleteSpoolFile(spoolFile);
+        }
+    }
+
+    /**
+     * Gets the parsed model of a specification read from a channel.
+     * File channels are memory-mapped directly; other channels are spooled to a temporary file first.
+     * The channel is not closed.
+     *
+     * @param channel The channel of the specification content, in JSON or YAML
+     * @param location The location relative external references are resolved against, or null
+     * @return The parsed model
+     * @throws ZapScannerException If reading or parsing fails
+     */
+    public OpenAPI getModel(ReadableByteChannel channel, String location) throws ZapScannerException {
+        if (!(channel instanceof FileChannel)) {
+            return getModel(Channels.newInputStream(channel), location);
+        }
+
+        try {
+            FileChannel fileChannel = (FileChannel) channel;
+            long position = fileChannel.position();
+            long size = fileChannel.size() - position;
+            if (size > Integer.MAX_VALUE) {
+                throw new ZapScannerException("OpenAPI specification too large to map: " + size + " bytes");
+            }
+
+            // The mapping stays valid after the channel is closed and is released by the garbage collector
+            ByteBuffer content = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            return getModel(content, location);
+        } catch (IOException e) {
+            LOGGER.error("Failed to map OpenAPI specification", e);
+            throw new ZapScannerException("Failed to read OpenAPI specification: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the parsed model of a specification.
+     *
+     * @param content The specification content, in JSON or YAML
+     * @param location The location relative external references are resolved against, or null
+     * @return The parsed model
+     * @throws ZapScannerException If parsing fails
+     */
+    public OpenAPI getModel(String content, String location) throws ZapScannerException {
+        return getModel(contentHash(content), () -> parse(content, location));
+    }
+
+    /**
+     * Gets the parsed model of a specification held in a buffer, such as a memory-mapped file.
+     *
+     * @param content The specification content, in JSON or YAML; its position and limit are not changed
+     * @param location The location relative external references are resolved against, or null
+     * @return The parsed model
+     * @throws ZapScannerException If parsing fails
+     */
+    private OpenAPI getModel(ByteBuffer content, String location) throws ZapScannerException {
+        return getModel(contentHash(content), () -> parse(content, location));
+    }
+
+    /**
+     * Gets a model from the memory or disk cache, parsing it on a miss.
+     *
+     * @param key The cache key
+     * @param parser Parses the specification on a cache miss
+     * @return The parsed model
+     * @throws ZapScannerException If parsing fails
+     */
+    private OpenAPI getModel(String key, ModelParser parser) throws ZapScannerException {
+        synchronized (models) {
+            OpenAPI model = models.get(key);
+            if (model != null) {
+                LOGGER.debug("OpenAPI model {} found in memory cache", key);
+                return model;
+            }
+        }
+
+        OpenAPI model = readFromDisk(key);
+        if (model == null) {
+            long startTime = System.currentTimeMillis();
+            model = parser.parse();
+            LOGGER.info("Parsed OpenAPI specification {} in {} ms", key, System.currentTimeMillis() - startTime);
+            writeToDisk(key, model);
+        }
+
+        synchronized (models) {
+            models.put(key, model);
+        }
+        return model;
+    }
+
+    /**
+     * Gets the number of models cached in memory.
+     *
+     * @return The number of models
+     */
+    public int size() {
+        synchronized (models) {
+            return models.size();
+        }
+    }
+
+    /**
+     * Computes the cache key of a specification.
+     *
+     * @param content The specification content
+     * @return The hex-encoded SHA-256 hash of the content
+     */
+    public static String contentHash(String content) {
+        MessageDigest digest = sha256();
+        return toHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Computes the cache key of a specification held in a buffer.
+     * The key matches that of the same content passed as a UTF-8 string.
+     *
+     * @param content The specification content; its position and limit are not changed
+     * @return The hex-encoded SHA-256 hash of the content
+     */
+    static String contentHash(ByteBuffer content) {
+        MessageDigest digest = sha256();
+        digest.update(content.duplicate());
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Parses a specification, converting Swagger 2.0 specifications to OpenAPI 3.
+     *
+     * @param content The specification content
+     * @param location The location relative external references are resolved against, or null
+     * @return The parsed model
+     * @throws ZapScannerException If the specification cannot be parsed
+     */
+    private static OpenAPI parse(String content, String location) throws ZapScannerException {
+        ParseOptions options = new ParseOptions();
+        options.setResolve(true);
+
+        SwaggerParseResult result = new OpenAPIV3Parser().readContents(content, null, options, location);
+        if (result == null || result.getOpenAPI() == null) {
+            // Not an OpenAPI 3 document, so let the parser try the Swagger 2.0 converter
+            result = new OpenAPIParser().readContents(content, null, options);
+        }
+
+        return checkResult(result);
+    }
+
+    /**
+     * Checks the result of parsing a specification.
+     *
+     * @param result The parse result
+     * @return The parsed model
+     * @throws ZapScannerException If the specification could not be parsed
+     */
+    private static OpenAPI checkResult(SwaggerParseResult result) throws ZapScannerException {
+        if (result == null || result.getOpenAPI() == null) {
+            String messages = result != null && result.getMessages() != null
+                    ? String.join("; ", result.getMessages()) : "unknown error";
+            throw new ZapScannerException("Failed to parse OpenAPI specification: " + messages);
+        }
+
+        if (result.getMessages() != null && !result.getMessages().isEmpty()) {
+            LOGGER.warn("OpenAPI specification parsed with warnings: {}", result.getMessages());
+        }
+
+        return result.getOpenAPI();
+    }
+
+    /**
+     * Parses a specification held in a buffer. The document tree is read straight from the buffer
+     * and handed to the parser, so no string copy of the specification is made.
+     *
+     * @param content The specification content; its position and limit are not changed
+     * @param location The location relative external references are resolved against, or null
+     * @return The parsed model
+     * @throws ZapScannerException If the specification cannot be parsed
+     */
+    private static OpenAPI parse(ByteBuffer content, String location) throws ZapScannerException {
+        JsonNode root;
+        try (InputStream in = new ByteBufferBackedInputStream(content.duplicate())) {
+            root = (isJson(content) ? JSON_MAPPER : YAML_MAPPER).readTree(in);
+        } catch (IOException e) {
+            throw new ZapScannerException("Failed to parse OpenAPI specification: " + e.getMessage(), e);
+        }
+
+        if (root == null || !root.isObject()) {
+            throw new ZapScannerException("Failed to parse OpenAPI specification: not a JSON or YAML object");
+        }
+
+        ParseOptions options = new ParseOptions();
+        options.setResolve(true);
+
+        SwaggerParseResult result;
+        if (root.has("swagger")) {
+            SwaggerDeserializationResult swagger = new SwaggerDeserializer().deserialize(root);
+            if (swagger.getSwagger() != null) {
+                swagger.setSwagger(new SwaggerResolver(swagger.getSwagger(), null, location).resolve());
+            }
+            result = new SwaggerConverter().convert(swagger);
+        } else {
+            result = new OpenAPIV3Parser().parseJsonNode(location, root, options);
+            if (result != null && result.getOpenAPI() != null) {
+                result.setOpenAPI(new OpenAPIResolver(result.getOpenAPI(), null, location, null, options).resolve());
+            }
+        }
+
+        return checkResult(result);
+    }
+
+    /**
+     * Checks whether a specification is JSON rather than YAML from its first significant byte.
+     *
+     * @param content The specification content; its position and limit are not changed
+     * @return True if the content is a JSON document, false otherwise
+     */
+    private static boolean isJson(ByteBuffer content) {
+        for (int i = content.position(); i < content.limit(); i++) {
+            byte b = content.get(i);
+            if (b == '{' || b == '[') {
+                return true;
+            }
+            // Skip whitespace and a UTF-8 byte order mark
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n' && b != (byte) 0xEF && b != (byte) 0xBB && b != (byte) 0xBF) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deletes a temporary spool file. Failures are logged since the file is only scratch space.
+     *
+     * @param spoolFile The spool file, or null if none was created
+     */
+    private static void deleteSpoolFile(Path spoolFile) {
+        if (spoolFile == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete temporary OpenAPI specification {}", spoolFile, e);
+        }
+    }
+
+    /**
+     * Reads a cached model from disk.
+     *
+     * @param key The cache key
+     * @return The model, or null if it is not cached on disk
+     */
+    private OpenAPI readFromDisk(String key) {
+        if (cacheDirectory == null) {
+            return null;
+        }
+
+        Path file = cacheDirectory.resolve(key + ".json");
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try {
+            OpenAPI model = Json.mapper().readValue(file.toFile(), OpenAPI.class);
+            LOGGER.debug("OpenAPI model {} found in disk cache", key);
+            return model;
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable cached OpenAPI model {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a model to the disk cache. Failures are logged since the cache is only an optimization.
+     *
+     * @param key The cache key
+     * @param model The model
+     */
+    private void writeToDisk(String key, OpenAPI model) {
+        if (cacheDirectory == null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(cacheDirectory);
+            Path file = cacheDirectory.resolve(key + ".json");
+
+            // Write to a temporary file first so concurrent readers never see a partial model
+            Path tempFile = Files.createTempFile(cacheDirectory, key, ".tmp");
+            Files.write(tempFile, Json.mapper().writeValueAsBytes(model));
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write OpenAPI model {} to disk cache", key, e);
+        }
+    }
+
+    /**
+     * Parses a specification on a cache miss.
+     */
+    @FunctionalInterface
+    private interface ModelParser {
+        OpenAPI parse() throws ZapScannerException;
+    }
+}
@@ -0,0 +1,302 @@
+package com.securitytesting.zap.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a concrete sample request for every operation of an OpenAPI model.
+ * Path, query, header and cookie parameters are filled in with example values, and a
+ * request body is generated from the schema of the preferred media type.
+ */
+public class OpenApiRequestGenerator {
+
+    private static final String COMPONENT_PARAMETER_PREFIX = "#/components/parameters/";
+    private static final String COMPONENT_REQUEST_BODY_PREFIX = "#/components/requestBodies/";
+    private static final String JSON_MEDIA_TYPE = "application/json";
+    private static final String FORM_MEDIA_TYPE = "application/x-www-form-urlencoded";
+
+    private final OpenAPI model;
+    private final SchemaExampleGenerator exampleGenerator;
+
+    /**
+     * Creates a new request generator for a model.
+     *
+     * @param model The OpenAPI model
+     */
+    public OpenApiRequestGenerator(OpenAPI model) {
+        this.model = model;
+        this.exampleGenerator = new SchemaExampleGenerator(model);
+    }
+
+    /**
+     * Generates a sample request for every operation of the model.
+     *
+     * @param targetUrl The base URL of the API
+     * @return The sample requests
+     */
+    public List<SampleRequest> generateRequests(String targetUrl) {
+        return generateRequests(targetUrl, null);
+    }
+
+    /**
+     * Generates a sample request for some of the operations of the model.
+     *
+     * @param targetUrl The base URL of the API
+     * @param endpoints The endpoints to include, as returned by {@link OperationFingerprint#endpoint},
+     *                  or null to include every operation
+     * @return The sample requests
+     */
+    public List<SampleRequest> generateRequests(String targetUrl, Set<String> endpoints) {
+        List<SampleRequest> requests = new ArrayList<>();
+        if (model.getPaths() == null) {
+            return requests;
+        }
+
+        String baseUrl = targetUrl.endsWith("/") ? targetUrl.substring(0, targetUrl.length() - 1) : targetUrl;
+
+        for (Map.Entry<String, PathItem> path : model.getPaths().entrySet()) {
+            for (Map.Entry<PathItem.HttpMethod, Operation> operation : path.getValue().readOperationsMap().entrySet()) {
+                if (endpoints != null
+                        && !endpoints.contains(OperationFingerprint.endpoint(operation.getKey().name(), path.getKey()))) {
+                    continue;
+                }
+                requests.add(generateRequest(baseUrl, path.getKey(), path.getValue(), operation.getKey(),
+                        operation.getValue()));
+            }
+        }
+
+        return requests;
+    }
+
+    /**
+     * Generates a sample request for an operation.
+     *
+     * @param baseUrl The base URL of the API, without a trailing slash
+     * @param path The path template of the operation
+     * @param pathItem The path item
+     * @param method The HTTP method
+     * @param operation The operation
+     * @return The sample request
+     */
+    SampleRequest generateRequest(String baseUrl, String path, PathItem pathItem,
+                                  PathItem.HttpMethod method, Operation operation) {
+        String resolvedPath = path;
+        StringBuilder query = new StringBuilder();
+        Map<String, String> headers = new LinkedHashMap<>();
+        List<String> cookies = new ArrayList<>();
+
+        for (Parameter parameter : getParameters(pathItem, operation)) {
+            String value = exampleValue(parameter);
+
+            switch (parameter.getIn()) {
+                case "path":
+                    resolvedPath = resolvedPath.replace("{" + parameter.getName() + "}", encode(value));
+                    break;
+                case "query":
+                    query.append(query.length() == 0 ? '?' : '&')
+                            .append(encode(parameter.getName())).append('=').append(encode(value));
+                    break;
+                case "header":
+                    headers.put(parameter.getName(), value);
+                    break;
+                case "cookie":
+                    cookies.add(parameter.getName() + "=" + value);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (!cookies.isEmpty()) {
+            headers.put("Cookie", String.join("; ", cookies));
+        }
+
+        String body = null;
+        RequestBody requestBody = resolve(operation.getRequestBody());
+        if (requestBody != null && requestBody.getContent() != null && !requestBody.getContent().isEmpty()) {
+            String mediaType = preferredMediaType(requestBody.getContent());
+            JsonNode example = exampleValue(requestBody.getContent().get(mediaType));
+
+            headers.put("Content-Type", mediaType);
+            body = FORM_MEDIA_TYPE.equals(mediaType) ? formEncode(example) : example != null ? example.toString() : "";
+        }
+
+        String operationId = operation.getOperationId() != null
+                ? operation.getOperationId() : method + " " + path;
+
+        return new SampleRequest(operationId, method.name(), baseUrl + resolvedPath + query, headers, body);
+    }
+
+    /**
+     * Gets the parameters of an operation, including the path-level parameters it does not override.
+     *
+     * @param pathItem The path item
+     * @param operation The operation
+     * @return The resolved parameters
+     */
+    List<Parameter> getParameters(PathItem pathItem, Operation operation) {
+        Map<String, Parameter> parameters = new LinkedHashMap<>();
+
+        for (List<Parameter> level : List.of(
+                pathItem.getParameters() != null ? pathItem.getParameters() : List.<Parameter>of(),
+                operation.getParameters() != null ? operation.getParameters() : List.<Parameter>of())) {
+            for (Parameter parameter : level) {
+                Parameter resolved = resolve(parameter);
+                if (resolved != null && resolved.getName() != null && resolved.getIn() != null) {
+                    parameters.put(resolved.getIn() + ":" + resolved.getName(), resolved);
+                }
+            }
+        }
+
+        return new ArrayList<>(parameters.values());
+    }
+
+    /**
+     * Resolves a reference to a component parameter.
+     *
+     * @param parameter The parameter
+     * @return The resolved parameter, or null if the reference cannot be resolved
+     */
+    private Parameter resolve(Parameter parameter) {
+        if (parameter.get$ref() == null) {
+            return parameter;
+        }
+
+        String name = parameter.get$ref().replace(COMPONENT_PARAMETER_PREFIX, "");
+        return model.getComponents() != null && model.getComponents().getParameters() != null
+                ? model.getComponents().getParameters().get(name) : null;
+    }
+
+    /**
+     * Resolves a reference to a component request body.
+     *
+     * @param requestBody The request body
+     * @return The resolved request body, or null if there is none
+     */
+    RequestBody resolve(RequestBody requestBody) {
+        if (requestBody == null || requestBody.get$ref() == null) {
+            return requestBody;
+        }
+
+        String name = requestBody.get$ref().replace(COMPONENT_REQUEST_BODY_PREFIX, "");
+        return model.getComponents() != null && model.getComponents().getRequestBodies() != null
+                ? model.getComponents().getRequestBodies().get(name) : null;
+    }
+
+    /**
+     * Gets the example value of a parameter as a string.
+     *
+     * @param parameter The parameter
+     * @return The example value
+     */
+    private String exampleValue(Parameter parameter) {
+        JsonNode value = null;
+
+        if (parameter.getExample() != null) {
+            value = Json.mapper().valueToTree(parameter.getExample());
+        } else if (parameter.getSchema() != null) {
+            value = exampleGenerator.generate(parameter.getSchema());
+        } else if (parameter.getContent() != null && !parameter.getContent().isEmpty()) {
+            value = exampleValue(parameter.getContent().values().iterator().next());
+        }
+
+        if (value == null) {
+            return "1";
+        }
+
+        if (value.isArray()) {
+            // Serialize arrays in the default "form" style: comma-separated values
+            List<String> items = new ArrayList<>();
+            value.forEach(item -> items.add(item.isValueNode() ? item.asText() : item.toString()));
+            return String.join(",", items);
+        }
+
+        return value.isValueNode() ? value.asText() : value.toString();
+    }
+
+    /**
+     * Gets the example value of a media type.
+     *
+     * @param mediaType The media type
+     * @return The example value, or null if none can be generated
+     */
+    private JsonNode exampleValue(MediaType mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+
+        if (mediaType.getExample() != null) {
+            return Json.mapper().valueToTree(mediaType.getExample());
+        }
+
+        return exampleGenerator.generate(mediaType.getSchema());
+    }
+
+    /**
+     * Picks the media type used for the request body, preferring JSON and then form encoding.
+     *
+     * @param content The content of the request body
+     * @return The media type
+     */
+    private static String preferredMediaType(Content content) {
+        for (String mediaType : content.keySet()) {
+            if (mediaType.startsWith(JSON_MEDIA_TYPE) || mediaType.endsWith("+json")) {
+                return mediaType;
+            }
+        }
+
+        return content.containsKey(FORM_MEDIA_TYPE) ? FORM_MEDIA_TYPE : content.keySet().iterator().next();
+    }
+
+    /**
+     * Encodes the top-level fields of an example object as a form body.
+     *
+     * @param example The example object
+     * @return The form body
+     */
+    private static String formEncode(JsonNode example) {
+        if (example == null || !example.isObject()) {
+            return "";
+        }
+
+        StringBuilder form = new StringBuilder();
+        Iterator<Map.Entry<String, JsonNode>> fields = example.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (form.length() > 0) {
+                form.append('&');
+            }
+
+            JsonNode value = field.getValue();
+            form.append(encode(field.getKey())).append('=')
+                    .append(encode(value.isValueNode() ? value.asText() : value.toString()));
+        }
+        return form.toString();
+    }
+
+    /**
+     * URL-encodes a value.
+     *
+     * @param value The value
+     * @return The encoded value
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,193 @@
+package com.securitytesting.zap.openapi;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends sample requests for the operations of an API through the ZAP proxy so that ZAP
+ * records every endpoint before scanning. Requests are sent asynchronously with a bounded
+ * number in flight, so large specifications are seeded in seconds without flooding the target.
+ */
+public class OpenApiRequestSeeder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenApiRequestSeeder.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Headers the JDK HTTP client sets itself and does not allow callers to set
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient httpClient;
+    private final int maxInFlightRequests;
+
+    /**
+     * Creates a new seeder that sends requests with the specified client.
+     *
+     * @param httpClient The HTTP client
+     * @param maxInFlightRequests The maximum number of requests in flight at the same time
+     */
+    public OpenApiRequestSeeder(HttpClient httpClient, int maxInFlightRequests) {
+        if (maxInFlightRequests < 1) {
+            throw new IllegalArgumentException("Maximum number of in-flight requests must be at least 1");
+        }
+
+        this.httpClient = httpClient;
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * Creates a seeder that sends requests through the ZAP proxy.
+     * Certificates are not verified, since ZAP re-signs HTTPS traffic with its own root certificate.
+     *
+     * @param zapHost The ZAP host
+     * @param zapPort The ZAP proxy port
+     * @param maxInFlightRequests The maximum number of requests in flight at the same time
+     * @return The seeder
+     * @throws ZapScannerException If the HTTP client cannot be created
+     */
+    public static OpenApiRequestSeeder throughProxy(String zapHost, int zapPort, int maxInFlightRequests)
+            throws ZapScannerException {
+        try {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[] {new TrustZapCertificates()}, null);
+
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .proxy(ProxySelector.of(new InetSocketAddress(zapHost, zapPort)))
+                    .sslContext(sslContext)
+                    .connectTimeout(REQUEST_TIMEOUT)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build();
+
+            return new OpenApiRequestSeeder(httpClient, maxInFlightRequests);
+        } catch (GeneralSecurityException e) {
+            throw new ZapScannerException("Failed to create HTTP client for ZAP proxy: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends the sample requests and waits for all responses.
+     * A request that fails is logged and counted; it does not stop the other requests.
+     *
+     * @param requests The sample requests
+     * @return The number of requests that received a response
+     * @throws ZapScannerException If seeding is interrupted
+     */
+    public int seed(List<SampleRequest> requests) throws ZapScannerException {
+        LOGGER.info("Seeding {} requests with up to {} in flight", requests.size(), maxInFlightRequests);
+        long startTime = System.currentTimeMillis();
+
+        Semaphore inFlight = new Semaphore(maxInFlightRequests);
+        AtomicInteger responses = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<?>> futures = new ArrayList<>(requests.size());
+
+        try {
+            for (SampleRequest request : requests) {
+                HttpRequest httpRequest;
+                try {
+                    httpRequest = toHttpRequest(request);
+                } catch (IllegalArgumentException e) {
+                    LOGGER.warn("Skipping invalid sample request {}: {}", request, e.getMessage());
+                    failures.incrementAndGet();
+                    continue;
+                }
+
+                inFlight.acquire();
+                try {
+                    futures.add(httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                            .whenComplete((response, error) -> {
+                                inFlight.release();
+                                if (error != null) {
+                                    failures.incrementAndGet();
+                                    LOGGER.debug("Sample request {} failed: {}", request, error.getMessage());
+                                } else {
+                                    responses.incrementAndGet();
+                                }
+                            }));
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    failures.incrementAndGet();
+                    LOGGER.warn("Failed to send sample request {}: {}", request, e.getMessage());
+                }
+            }
+
+            // Failures are already counted, so only wait for completion here
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .exceptionally(error -> null)
+                    .join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new ZapScannerException("Request seeding interrupted", e);
+        }
+
+        LOGGER.info("Seeded {} requests in {} ms ({} failed)", responses.get(),
+                System.currentTimeMillis() - startTime, failures.get());
+        return responses.get();
+    }
+
+    /**
+     * Converts a sample request to a JDK HTTP request.
+     *
+     * @param request The sample request
+     * @return The HTTP request
+     * @throws IllegalArgumentException If the URL or a header is invalid
+     */
+    private static HttpRequest toHttpRequest(SampleRequest request) {
+        HttpRequest.BodyPublisher body = request.getBody() != null
+                ? HttpRequest.BodyPublishers.ofString(request.getBody())
+                : HttpRequest.BodyPublishers.noBody();
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl()))
+                .timeout(REQUEST_TIMEOUT)
+                .method(request.getMethod(), body);
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+                builder.header(header.getKey(), header.getValue());
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Trust manager accepting the certificates ZAP generates when proxying HTTPS traffic.
+     */
+    private static final class TrustZapCertificates implements X509TrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.securitytesting.zap.openapi;
+
+import com.securitytesting.zap.report.Alert;
+import io.swagger.v3.oas.models.OpenAPI;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Differences between two versions of an API specification, at operation level.
+ * Operations are matched by operation ID where both versions declare one, and by method
+ * and path otherwise. A matched operation is changed if its input signature differs.
+ * <p>
+ * Only added and changed operations need to be active scanned again; alerts raised
+ * earlier for unchanged operations can be carried over to the new scan result.
+ */
+public class OpenApiSpecDiff {
+
+    private static final Pattern PATH_PARAMETER = Pattern.compile("\\{[^}/]+\\}");
+
+    private final List<OperationFingerprint> added;
+    private final List<OperationFingerprint> changed;
+    private final List<OperationFingerprint> unchanged;
+    private final List<OperationFingerprint> removed;
+
+    private OpenApiSpecDiff(List<OperationFingerprint> added, List<OperationFingerprint> changed,
+                            List<OperationFingerprint> unchanged, List<OperationFingerprint> removed) {
+        this.added = Collections.unmodifiableList(added);
+        this.changed = Collections.unmodifiableList(changed);
+        this.unchanged = Collections.unmodifiableList(unchanged);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * Compares two versions of a specification.
+     *
+     * @param previous The previously scanned version, or null to treat every operation as added
+     * @param current The new version
+     * @return The differences
+     */
+    public static OpenApiSpecDiff compare(OpenAPI previous, OpenAPI current) {
+        List<OperationFingerprint> previousOperations = previous != null
+                ? OperationFingerprint.of(previous) : List.of();
+
+        Map<String, OperationFingerprint> previousById = new HashMap<>();
+        Map<String, OperationFingerprint> previousByEndpoint = new HashMap<>();
+        for (OperationFingerprint operation : previousOperations) {
+            if (operation.getOperationId() != null) {
+                previousById.put(operation.getOperationId(), operation);
+            }
+            previousByEndpoint.put(operation.getEndpoint(), operation);
+        }
+
+        List<OperationFingerprint> added = new ArrayList<>();
+        List<OperationFingerprint> changed = new ArrayList<>();
+        List<OperationFingerprint> unchanged = new ArrayList<>();
+        Set<OperationFingerprint> matched = new HashSet<>();
+
+        for (OperationFingerprint operation : OperationFingerprint.of(current)) {
+            OperationFingerprint match = operation.getOperationId() != null
+                    ? previousById.get(operation.getOperationId()) : null;
+            if (match == null) {
+                match = previousByEndpoint.get(operation.getEndpoint());
+            }
+
+            if (match == null || !matched.add(match)) {
+                added.add(operation);
+            } else if (match.getSignatureHash().equals(operation.getSignatureHash())) {
+                unchanged.add(operation);
+            } else {
+                changed.add(operation);
+            }
+        }
+
+        List<OperationFingerprint> removed = new ArrayList<>();
+        for (OperationFingerprint operation : previousOperations) {
+            if (!matched.contains(operation)) {
+                removed.add(operation);
+            }
+        }
+
+        return new OpenApiSpecDiff(added, changed, unchanged, removed);
+    }
+
+    /**
+     * Gets the operations that are new in the current version.
+     *
+     * @return The added operations
+     */
+    public List<OperationFingerprint> getAdded() {
+        return added;
+    }
+
+    /**
+     * Gets the operations whose input signature changed.
+     *
+     * @return The changed operations, as declared in the current version
+     */
+    public List<OperationFingerprint> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Gets the operations that did not change.
+     *
+     * @return The unchanged operations, as declared in the current version
+     */
+    public List<OperationFingerprint> getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Gets the operations that no longer exist in the current version.
+     *
+     * @return The removed operations, as declared in the previous version
+     */
+    public List<OperationFingerprint> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Gets the endpoints that must be scanned again: those of added and changed operations.
+     *
+     * @return The endpoint keys, as returned by {@link OperationFingerprint#getEndpoint()}
+     */
+    public Set<String> getEndpointsToScan() {
+        Set<String> endpoints = new LinkedHashSet<>();
+        added.forEach(operation -> endpoints.add(operation.getEndpoint()));
+        changed.forEach(operation -> endpoints.add(operation.getEndpoint()));
+        return endpoints;
+    }
+
+    /**
+     * Checks whether the specification changed at all.
+     *
+     * @return True if any operation was added, changed or removed, false otherwise
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !changed.isEmpty() || !removed.isEmpty();
+    }
+
+    /**
+     * Selects the alerts of an earlier scan that still apply to unchanged operations.
+     * Alerts carry a URL but no method, so an alert is carried over only if its URL matches the
+     * path of an unchanged operation and no path that is scanned again; those paths get fresh alerts.
+     *
+     * @param previousAlerts The alerts of the earlier scan
+     * @param targetUrl The base URL of the API
+     * @return The alerts to carry over
+     */
+    public List<Alert> carryOverAlerts(List<Alert> previousAlerts, String targetUrl) {
+        List<Pattern> unchangedPaths = pathPatterns(unchanged);
+        List<Pattern> rescannedPaths = new ArrayList<>(pathPatterns(added));
+        rescannedPaths.addAll(pathPatterns(changed));
+
+        String basePath = URI.create(targetUrl).getPath();
+        basePath = basePath == null ? "" : basePath.replaceAll("/+$", "");
+
+        List<Alert> carriedOver = new ArrayList<>();
+        for (Alert alert : previousAlerts) {
+            String path = relativePath(alert.getUrl(), basePath);
+            if (path != null && matchesAny(unchangedPaths, path) && !matchesAny(rescannedPaths, path)) {
+                carriedOver.add(alert);
+            }
+        }
+        return carriedOver;
+    }
+
+    @Override
+    public String toString() {
+        return added.size() + " added, " + changed.size() + " changed, " + unchanged.size() + " unchanged, "
+                + removed.size() + " removed";
+    }
+
+    /**
+     * Gets the path of an alert URL relative to the base path of the API.
+     *
+     * @param url The alert URL
+     * @param basePath The base path of the API, without a trailing slash
+     * @return The relative path, or null if the URL is not below the base path
+     */
+    private static String relativePath(String url, String basePath) {
+        if (url == null) {
+            return null;
+        }
+
+        try {
+            String path = URI.create(url).getPath();
+            if (path == null || !path.startsWith(basePath)) {
+                return null;
+            }
+            String relative = path.substring(basePath.length());
+            return relative.isEmpty() ? "/" : relative;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the path templates of operations into patterns matching concrete paths.
+     *
+     * @param operations The operations
+     * @return The patterns
+     */
+    private static List<Pattern> pathPatterns(List<OperationFingerprint> operations) {
+        Set<String> templates = new LinkedHashSet<>();
+        operations.forEach(operation -> templates.add(operation.getPath()));
+
+        List<Pattern> patterns = new ArrayList<>();
+        for (String template : templates) {
+            StringBuilder regex = new StringBuilder();
+            Matcher matcher = PATH_PARAMETER.matcher(template);
+            int last = 0;
+            while (matcher.find()) {
+                regex.append(Pattern.quote(template.substring(last, matcher.start()))).append("[^/]+");
+                last = matcher.end();
+            }
+            regex.append(Pattern.quote(template.substring(last))).append("/?");
+            patterns.add(Pattern.compile(regex.toString()));
+        }
+        return patterns;
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String path) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,270 @@
+package com.securitytesting.zap.openapi;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Identity and input signature of an API operation, used to detect which operations
+ * changed between two versions of a specification.
+ * <p>
+ * The signature covers what an active scan attacks: the method and path, the resolved
+ * parameters, the request body and every component schema they reference, and the
+ * security requirements. Documentation-only fields such as descriptions and examples
+ * are ignored, so editing docs does not trigger a rescan.
+ */
+public class OperationFingerprint {
+
+    private static final String SCHEMA_REF_PREFIX = "#/components/schemas/";
+    private static final Set<String> DOCUMENTATION_FIELDS = Set.of(
+            "description", "summary", "title", "externalDocs", "example", "examples", "deprecated");
+
+    private final String method;
+    private final String path;
+    private final String operationId;
+    private final String signatureHash;
+
+    /**
+     * Creates a new fingerprint.
+     *
+     * @param method The HTTP method, in upper case
+     * @param path The path template
+     * @param operationId The operation ID, or null if the operation has none
+     * @param signatureHash The hash of the operation's input signature
+     */
+    public OperationFingerprint(String method, String path, String operationId, String signatureHash) {
+        this.method = method;
+        this.path = path;
+        this.operationId = operationId;
+        this.signatureHash = signatureHash;
+    }
+
+    /**
+     * Fingerprints every operation of an API.
+     *
+     * @param model The OpenAPI model
+     * @return The fingerprints in declaration order
+     */
+    public static List<OperationFingerprint> of(OpenAPI model) {
+        List<OperationFingerprint> fingerprints = new ArrayList<>();
+        if (model.getPaths() == null) {
+            return fingerprints;
+        }
+
+        OpenApiRequestGenerator generator = new OpenApiRequestGenerator(model);
+        for (Map.Entry<String, PathItem> path : model.getPaths().entrySet()) {
+            for (Map.Entry<PathItem.HttpMethod, Operation> entry : path.getValue().readOperationsMap().entrySet()) {
+                Operation operation = entry.getValue();
+
+                Map<String, Object> signature = new LinkedHashMap<>();
+                signature.put("method", entry.getKey().name());
+                signature.put("path", path.getKey());
+
+                List<Parameter> parameters = new ArrayList<>(generator.getParameters(path.getValue(), operation));
+                parameters.sort(Comparator.comparing((Parameter parameter) -> parameter.getIn())
+                        .thenComparing(Parameter::getName));
+                signature.put("parameters", parameters);
+                signature.put("requestBody", generator.resolve(operation.getRequestBody()));
+                signature.put("security", operation.getSecurity() != null ? operation.getSecurity() : model.getSecurity());
+
+                fingerprints.add(new OperationFingerprint(entry.getKey().name(), path.getKey(),
+                        operation.getOperationId(), signatureHash(model, signature)));
+            }
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Gets the key identifying an endpoint by method and path.
+     *
+     * @param method The HTTP method
+     * @param path The path template
+     * @return The endpoint key
+     */
+    public static String endpoint(String method, String path) {
+        return method.toUpperCase() + " " + path;
+    }
+
+    /**
+     * Gets the HTTP method.
+     *
+     * @return The HTTP method, in upper case
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the path template.
+     *
+     * @return The path template
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the operation ID.
+     *
+     * @return The operation ID, or null if the operation has none
+     */
+    public String getOperationId() {
+        return operationId;
+    }
+
+    /**
+     * Gets the hash of the operation's input signature.
+     *
+     * @return The hex-encoded SHA-256 hash
+     */
+    public String getSignatureHash() {
+        return signatureHash;
+    }
+
+    /**
+     * Gets the key identifying the operation's endpoint by method and path.
+     *
+     * @return The endpoint key
+     */
+    public String getEndpoint() {
+        return endpoint(method, path);
+    }
+
+    @Override
+    public String toString() {
+        return getEndpoint() + (operationId != null ? " (" + operationId + ")" : "");
+    }
+
+    /**
+     * Hashes an operation signature together with the component schemas it references, transitively.
+     *
+     * @param model The OpenAPI model
+     * @param signature The operation signature
+     * @return The hex-encoded SHA-256 hash
+     */
+    private static String signatureHash(OpenAPI model, Map<String, Object> signature) {
+        ObjectNode canonical = JsonNodeFactory.instance.objectNode();
+        canonical.set("operation", canonicalTree(signature));
+
+        Map<String, Schema> schemas = model.getComponents() != null && model.getComponents().getSchemas() != null
+                ? model.getComponents().getSchemas() : Map.of();
+
+        // Referenced schemas are keyed by name, so the hash does not depend on reference order
+        Map<String, JsonNode> referenced = new TreeMap<>();
+        Set<String> visited = new HashSet<>();
+        Deque<JsonNode> pending = new ArrayDeque<>();
+        pending.push(canonical.get("operation"));
+
+        while (!pending.isEmpty()) {
+            for (String name : schemaReferences(pending.pop())) {
+                if (visited.add(name)) {
+                    JsonNode schema = schemas.containsKey(name) ? canonicalTree(schemas.get(name)) : null;
+                    referenced.put(name, schema != null ? schema : NullNode.getInstance());
+                    if (schema != null) {
+                        pending.push(schema);
+                    }
+                }
+            }
+        }
+
+        canonical.putObject("schemas").setAll(referenced);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(Json.mapper().writeValueAsString(canonical).getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize operation signature", e);
+        }
+    }
+
+    /**
+     * Converts a model object to a JSON tree with sorted keys and without documentation-only fields.
+     *
+     * @param value The model object
+     * @return The JSON tree
+     */
+    private static JsonNode canonicalTree(Object value) {
+        return canonicalize(Json.mapper().valueToTree(value), false);
+    }
+
+    /**
+     * Copies a JSON tree with object keys sorted and documentation-only fields removed.
+     * The keys of a schema's {@code properties} map are property names, not fields, so they are kept.
+     *
+     * @param node The JSON tree
+     * @param propertyMap Whether the node is a {@code properties} map
+     * @return The canonical copy
+     */
+    private static JsonNode canonicalize(JsonNode node, boolean propertyMap) {
+        if (node.isArray()) {
+            ArrayNode array = JsonNodeFactory.instance.arrayNode();
+            node.forEach(element -> array.add(canonicalize(element, false)));
+            return array;
+        }
+
+        if (!node.isObject()) {
+            return node;
+        }
+
+        Map<String, JsonNode> sorted = new TreeMap<>();
+        node.fields().forEachRemaining(field -> {
+            if (propertyMap || !DOCUMENTATION_FIELDS.contains(field.getKey())) {
+                sorted.put(field.getKey(), canonicalize(field.getValue(),
+                        !propertyMap && "properties".equals(field.getKey())));
+            }
+        });
+
+        ObjectNode object = JsonNodeFactory.instance.objectNode();
+        object.setAll(sorted);
+        return object;
+    }
+
+    /**
+     * Finds the names of the component schemas referenced anywhere in a JSON tree.
+     *
+     * @param node The JSON tree
+     * @return The schema names
+     */
+    private static Set<String> schemaReferences(JsonNode node) {
+        Set<String> names = new TreeSet<>();
+        for (JsonNode ref : node.findValues("$ref")) {
+            if (ref.isTextual() && ref.asText().startsWith(SCHEMA_REF_PREFIX)) {
+                names.add(ref.asText().substring(SCHEMA_REF_PREFIX.length()));
+            }
+        }
+        return names;
+    }
+}
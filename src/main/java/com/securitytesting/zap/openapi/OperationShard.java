@@ -0,0 +1,152 @@
+package com.securitytesting.zap.openapi;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A group of API operations that is active scanned together.
+ * Shards are ordered by risk so that the operations most likely to yield high-value
+ * findings are scanned first.
+ */
+public class OperationShard {
+
+    private final String name;
+    private final int maxRisk;
+    private final int totalRisk;
+    private final int operationCount;
+    private final List<ScanTarget> targets;
+
+    /**
+     * Creates a new shard.
+     *
+     * @param name The name of the shard (a path prefix or tag)
+     * @param maxRisk The highest risk score of the shard's operations
+     * @param totalRisk The sum of the risk scores of the shard's operations
+     * @param operationCount The number of operations in the shard
+     * @param targets The active scans that cover the shard, highest risk first
+     */
+    public OperationShard(String name, int maxRisk, int totalRisk, int operationCount, List<ScanTarget> targets) {
+        this.name = name;
+        this.maxRisk = maxRisk;
+        this.totalRisk = totalRisk;
+        this.operationCount = operationCount;
+        this.targets = Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * Gets the name of the shard.
+     *
+     * @return The name of the shard
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the highest risk score of the shard's operations.
+     *
+     * @return The highest risk score
+     */
+    public int getMaxRisk() {
+        return maxRisk;
+    }
+
+    /**
+     * Gets the sum of the risk scores of the shard's operations.
+     *
+     * @return The total risk score
+     */
+    public int getTotalRisk() {
+        return totalRisk;
+    }
+
+    /**
+     * Gets the number of operations in the shard.
+     *
+     * @return The number of operations
+     */
+    public int getOperationCount() {
+        return operationCount;
+    }
+
+    /**
+     * Gets the active scans that cover the shard.
+     *
+     * @return The scan targets, highest risk first
+     */
+    public List<ScanTarget> getTargets() {
+        return targets;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + operationCount + " operations, risk " + maxRisk + "/" + totalRisk + ")";
+    }
+
+    /**
+     * A single active scan: either a recursive scan of a URL prefix or a scan of one request.
+     */
+    public static class ScanTarget {
+
+        private final String url;
+        private final boolean recurse;
+        private final String method;
+        private final String body;
+
+        /**
+         * Creates a new scan target.
+         *
+         * @param url The URL to scan
+         * @param recurse Whether to scan everything below the URL
+         * @param method The HTTP method of the request to scan, or null for a recursive scan
+         * @param body The body of the request to scan, or null if it has none
+         */
+        public ScanTarget(String url, boolean recurse, String method, String body) {
+            this.url = url;
+            this.recurse = recurse;
+            this.method = method;
+            this.body = body;
+        }
+
+        /**
+         * Gets the URL to scan.
+         *
+         * @return The URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Gets whether to scan everything below the URL.
+         *
+         * @return True for a recursive scan, false otherwise
+         */
+        public boolean isRecurse() {
+            return recurse;
+        }
+
+        /**
+         * Gets the HTTP method of the request to scan.
+         *
+         * @return The HTTP method, or null for a recursive scan
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * Gets the body of the request to scan.
+         *
+         * @return The body, or null if the request has none
+         */
+        public String getBody() {
+            return body;
+        }
+
+        @Override
+        public String toString() {
+            return (method != null ? method + " " : "") + url + (recurse ? " (recursive)" : "");
+        }
+    }
+}
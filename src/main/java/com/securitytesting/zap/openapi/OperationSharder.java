@@ -0,0 +1,212 @@
+package com.securitytesting.zap.openapi;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the operations of an API into shards for concurrent active scanning.
+ * Operations are scored by risk: write methods, request bodies and ID-like path parameters
+ * (the usual homes of injection and access-control issues) score highest. Shards are
+ * returned highest risk first.
+ */
+public class OperationSharder {
+
+    /**
+     * How operations are grouped into shards.
+     */
+    public enum Strategy {
+        /**
+         * One shard per first path segment, scanned with a single recursive scan of that prefix.
+         */
+        PATH_PREFIX,
+
+        /**
+         * One shard per first tag, scanned one operation at a time.
+         */
+        TAG
+    }
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final Pattern ID_PARAMETER = Pattern.compile("(?i).*(id|uuid|key|slug)$");
+    private static final String ROOT_SHARD = "/";
+    private static final String UNTAGGED_SHARD = "untagged";
+
+    private final Strategy strategy;
+
+    /**
+     * Creates a new sharder.
+     *
+     * @param strategy How operations are grouped into shards
+     */
+    public OperationSharder(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Splits the operations of an API into shards.
+     *
+     * @param model The OpenAPI model
+     * @param targetUrl The base URL of the API
+     * @return The shards, highest risk first
+     */
+    public List<OperationShard> shard(OpenAPI model, String targetUrl) {
+        return shard(model, targetUrl, null);
+    }
+
+    /**
+     * Splits a subset of the operations of an API into shards.
+     * Since a recursive scan of a path prefix would also cover the operations left out,
+     * every shard of a subset is scanned one operation at a time.
+     *
+     * @param model The OpenAPI model
+     * @param targetUrl The base URL of the API
+     * @param endpoints The endpoints to include, as returned by {@link OperationFingerprint#endpoint},
+     *                  or null to include every operation
+     * @return The shards, highest risk first
+     */
+    public List<OperationShard> shard(OpenAPI model, String targetUrl, Set<String> endpoints) {
+        String baseUrl = targetUrl.endsWith("/") ? targetUrl.substring(0, targetUrl.length() - 1) : targetUrl;
+        OpenApiRequestGenerator generator = new OpenApiRequestGenerator(model);
+        Map<String, List<ScoredRequest>> requestsByShard = new LinkedHashMap<>();
+        Map<String, String> prefixUrls = new LinkedHashMap<>();
+
+        if (model.getPaths() != null) {
+            for (Map.Entry<String, PathItem> path : model.getPaths().entrySet()) {
+                for (Map.Entry<PathItem.HttpMethod, Operation> entry : path.getValue().readOperationsMap().entrySet()) {
+                    if (endpoints != null
+                            && !endpoints.contains(OperationFingerprint.endpoint(entry.getKey().name(), path.getKey()))) {
+                        continue;
+                    }
+
+                    Operation operation = entry.getValue();
+                    SampleRequest request = generator.generateRequest(baseUrl, path.getKey(), path.getValue(),
+                            entry.getKey(), operation);
+                    int risk = riskScore(entry.getKey(), generator.getParameters(path.getValue(), operation),
+                            generator.resolve(operation.getRequestBody()));
+
+                    String shardName;
+                    if (strategy == Strategy.TAG) {
+                        shardName = operation.getTags() != null && !operation.getTags().isEmpty()
+                                ? operation.getTags().get(0) : UNTAGGED_SHARD;
+                    } else {
+                        String segment = firstSegment(request.getUrl().substring(baseUrl.length()));
+                        shardName = segment.isEmpty() ? ROOT_SHARD : "/" + firstSegment(path.getKey());
+                        prefixUrls.putIfAbsent(shardName, baseUrl + "/" + segment);
+                    }
+
+                    requestsByShard.computeIfAbsent(shardName, name -> new ArrayList<>())
+                            .add(new ScoredRequest(request, risk));
+                }
+            }
+        }
+
+        List<OperationShard> shards = new ArrayList<>();
+        for (Map.Entry<String, List<ScoredRequest>> entry : requestsByShard.entrySet()) {
+            List<ScoredRequest> requests = entry.getValue();
+            requests.sort(Comparator.comparingInt((ScoredRequest request) -> request.risk).reversed());
+
+            int maxRisk = requests.get(0).risk;
+            int totalRisk = requests.stream().mapToInt(request -> request.risk).sum();
+
+            List<OperationShard.ScanTarget> targets = new ArrayList<>();
+            if (strategy == Strategy.PATH_PREFIX && endpoints == null && !ROOT_SHARD.equals(entry.getKey())) {
+                targets.add(new OperationShard.ScanTarget(prefixUrls.get(entry.getKey()), true, null, null));
+            } else {
+                for (ScoredRequest request : requests) {
+                    targets.add(new OperationShard.ScanTarget(request.request.getUrl(), false,
+                            request.request.getMethod(), request.request.getBody()));
+                }
+            }
+
+            shards.add(new OperationShard(entry.getKey(), maxRisk, totalRisk, requests.size(), targets));
+        }
+
+        shards.sort(Comparator.comparingInt(OperationShard::getMaxRisk)
+                .thenComparingInt(OperationShard::getTotalRisk)
+                .reversed()
+                .thenComparing(OperationShard::getName));
+        return shards;
+    }
+
+    /**
+     * Scores the risk of an operation.
+     *
+     * @param method The HTTP method
+     * @param parameters The resolved parameters of the operation
+     * @param requestBody The resolved request body, or null if there is none
+     * @return The risk score, at least 1
+     */
+    static int riskScore(PathItem.HttpMethod method, List<Parameter> parameters, RequestBody requestBody) {
+        int risk = 1;
+
+        if (WRITE_METHODS.contains(method.name())) {
+            risk += 3;
+        }
+
+        if (requestBody != null && requestBody.getContent() != null && !requestBody.getContent().isEmpty()) {
+            risk += 3;
+        }
+
+        for (Parameter parameter : parameters) {
+            if ("path".equals(parameter.getIn()) && isIdLike(parameter)) {
+                risk += 2;
+                break;
+            }
+        }
+
+        return risk;
+    }
+
+    /**
+     * Checks whether a parameter identifies a record, making it a candidate for access-control issues.
+     *
+     * @param parameter The parameter
+     * @return True if the parameter is ID-like, false otherwise
+     */
+    private static boolean isIdLike(Parameter parameter) {
+        if (ID_PARAMETER.matcher(parameter.getName()).matches()) {
+            return true;
+        }
+
+        return parameter.getSchema() != null
+                && ("integer".equals(parameter.getSchema().getType()) || "uuid".equals(parameter.getSchema().getFormat()));
+    }
+
+    /**
+     * Gets the first segment of a path.
+     *
+     * @param path The path, optionally with a query string
+     * @return The first segment, or an empty string for the root path
+     */
+    private static String firstSegment(String path) {
+        int query = path.indexOf('?');
+        String segments = (query >= 0 ? path.substring(0, query) : path).replaceFirst("^/+", "");
+        int slash = segments.indexOf('/');
+        return slash >= 0 ? segments.substring(0, slash) : segments;
+    }
+
+    /**
+     * A sample request with the risk score of its operation.
+     */
+    private static final class ScoredRequest {
+
+        private final SampleRequest request;
+        private final int risk;
+
+        private ScoredRequest(SampleRequest request, int risk) {
+            this.request = request;
+            this.risk = risk;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.securitytesting.zap.openapi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A concrete sample request for an OpenAPI operation, used to seed ZAP with the API's endpoints.
+ */
+public class SampleRequest {
+
+    private final String operationId;
+    private final String method;
+    private final String url;
+    private final Map<String, String> headers;
+    private final String body;
+
+    /**
+     * Creates a new sample request.
+     *
+     * @param operationId The ID of the operation, or a "METHOD path" key if the operation has none
+     * @param method The HTTP method
+     * @param url The request URL, with path and query parameters filled in
+     * @param headers The request headers
+     * @param body The request body, or null if the request has no body
+     */
+    public SampleRequest(String operationId, String method, String url, Map<String, String> headers, String body) {
+        this.operationId = operationId;
+        this.method = method;
+        this.url = url;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.body = body;
+    }
+
+    /**
+     * Gets the ID of the operation.
+     *
+     * @return The operation ID
+     */
+    public String getOperationId() {
+        return operationId;
+    }
+
+    /**
+     * Gets the HTTP method.
+     *
+     * @return The HTTP method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the request URL.
+     *
+     * @return The request URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the request headers.
+     *
+     * @return The request headers
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the request body.
+     *
+     * @return The request body, or null if the request has no body
+     */
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+}
@@ -0,0 +1,252 @@
+package com.securitytesting.zap.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates example values for OpenAPI schemas.
+ * Examples of component schemas are memoized, so a schema referenced by many operations
+ * is generated once. A schema that references itself, directly or through other schemas,
+ * is cut off at the point of recursion: the property is omitted or the array left empty.
+ * Only examples that are the same wherever the schema is used are memoized; an example cut
+ * off by the nesting depth, or by the recursion of a schema that encloses it, is not.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class SchemaExampleGenerator {
+
+    private static final String COMPONENT_SCHEMA_PREFIX = "#/components/schemas/";
+    private static final int MAX_DEPTH = 12;
+
+    private final Map<String, Schema> componentSchemas;
+    private final Map<String, JsonNode> examplesByRef = new HashMap<>();
+    private final Map<String, Integer> refsInProgress = new HashMap<>();
+    private final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+    /**
+     * The shallowest level of the references in progress at which the example being generated
+     * was cut off, or -1 if it was cut off by the nesting depth.
+     */
+    private int shallowestCut = Integer.MAX_VALUE;
+
+    /**
+     * Creates a new example generator for the schemas of a model.
+     *
+     * @param model The OpenAPI model
+     */
+    public SchemaExampleGenerator(OpenAPI model) {
+        this.componentSchemas = model.getComponents() != null && model.getComponents().getSchemas() != null
+                ? model.getComponents().getSchemas() : new HashMap<>();
+    }
+
+    /**
+     * Generates an example value for a schema.
+     *
+     * @param schema The schema
+     * @return The example value, or null if the schema is recursive at this point
+     */
+    public JsonNode generate(Schema<?> schema) {
+        shallowestCut = Integer.MAX_VALUE;
+        return generate(schema, 0);
+    }
+
+    /**
+     * Generates an example value for a schema at a nesting depth.
+     *
+     * @param schema The schema
+     * @param depth The nesting depth
+     * @return The example value, or null if the schema is recursive or too deeply nested
+     */
+    private JsonNode generate(Schema<?> schema, int depth) {
+        if (schema == null) {
+            return null;
+        }
+
+        if (depth > MAX_DEPTH) {
+            shallowestCut = -1;
+            return null;
+        }
+
+        if (schema.get$ref() != null) {
+            return generateRef(schema.get$ref(), depth);
+        }
+
+        if (schema.getExample() != null) {
+            return Json.mapper().valueToTree(schema.getExample());
+        }
+
+        if (schema.getDefault() != null) {
+            return Json.mapper().valueToTree(schema.getDefault());
+        }
+
+        if (schema.getEnum() != null && !schema.getEnum().isEmpty()) {
+            return Json.mapper().valueToTree(schema.getEnum().get(0));
+        }
+
+        if (schema.getAllOf() != null && !schema.getAllOf().isEmpty()) {
+            return generateAllOf(schema.getAllOf(), depth);
+        }
+
+        if (schema.getOneOf() != null && !schema.getOneOf().isEmpty()) {
+            return generate(schema.getOneOf().get(0), depth + 1);
+        }
+
+        if (schema.getAnyOf() != null && !schema.getAnyOf().isEmpty()) {
+            return generate(schema.getAnyOf().get(0), depth + 1);
+        }
+
+        String type = schema.getType();
+        if (type == null) {
+            type = schema.getProperties() != null ? "object" : schema.getItems() != null ? "array" : "string";
+        }
+
+        switch (type) {
+            case "object":
+                return generateObject(schema, depth);
+            case "array":
+                ArrayNode array = nodeFactory.arrayNode();
+                JsonNode item = generate(schema.getItems(), depth + 1);
+                if (item != null) {
+                    array.add(item);
+                }
+                return array;
+            case "integer":
+                return nodeFactory.numberNode(schema.getMinimum() != null ? schema.getMinimum().longValue() : 1L);
+            case "number":
+                return nodeFactory.numberNode(schema.getMinimum() != null ? schema.getMinimum().doubleValue() : 1.0);
+            case "boolean":
+                return nodeFactory.booleanNode(true);
+            default:
+                return nodeFactory.textNode(exampleString(schema.getFormat()));
+        }
+    }
+
+    /**
+     * Generates the example of a referenced component schema, memoizing the result if it does
+     * not depend on where the schema is used.
+     *
+     * @param ref The reference
+     * @param depth The nesting depth
+     * @return The example value, or null if the reference is recursive or unknown
+     */
+    private JsonNode generateRef(String ref, int depth) {
+        JsonNode example = examplesByRef.get(ref);
+        if (example != null) {
+            return example;
+        }
+
+        Integer inProgress = refsInProgress.get(ref);
+        if (inProgress != null) {
+            // The schema references itself, so cut the recursion here
+            shallowestCut = Math.min(shallowestCut, inProgress);
+            return null;
+        }
+
+        int level = refsInProgress.size();
+        int outerCut = shallowestCut;
+        shallowestCut = Integer.MAX_VALUE;
+        refsInProgress.put(ref, level);
+        try {
+            String name = ref.startsWith(COMPONENT_SCHEMA_PREFIX) ? ref.substring(COMPONENT_SCHEMA_PREFIX.length()) : ref;
+            example = generate(componentSchemas.get(name), depth + 1);
+        } finally {
+            refsInProgress.remove(ref);
+        }
+
+        // Cutting off its own recursion does not make the example depend on where it is used
+        boolean complete = shallowestCut >= level;
+        shallowestCut = Math.min(outerCut, shallowestCut);
+        if (example != null && complete) {
+            examplesByRef.put(ref, example);
+        }
+        return example;
+    }
+
+    /**
+     * Generates an example object with a value for each property.
+     *
+     * @param schema The object schema
+     * @param depth The nesting depth
+     * @return The example object
+     */
+    private JsonNode generateObject(Schema<?> schema, int depth) {
+        ObjectNode object = nodeFactory.objectNode();
+
+        if (schema.getProperties() != null) {
+            for (Map.Entry<String, Schema> property : schema.getProperties().entrySet()) {
+                JsonNode value = generate(property.getValue(), depth + 1);
+                if (value != null) {
+                    object.set(property.getKey(), value);
+                }
+            }
+        }
+
+        return object;
+    }
+
+    /**
+     * Generates an example combining the examples of all schemas of an allOf composition.
+     *
+     * @param schemas The composed schemas
+     * @param depth The nesting depth
+     * @return The example value
+     */
+    private JsonNode generateAllOf(List<Schema> schemas, int depth) {
+        ObjectNode merged = nodeFactory.objectNode();
+        JsonNode last = null;
+
+        for (Schema<?> schema : schemas) {
+            JsonNode value = generate(schema, depth + 1);
+            if (value instanceof ObjectNode) {
+                merged.setAll((ObjectNode) value);
+            } else if (value != null) {
+                last = value;
+            }
+        }
+
+        return merged.size() > 0 || last == null ? merged : last;
+    }
+
+    /**
+     * Gets an example string for a string format.
+     *
+     * @param format The string format
+     * @return The example string
+     */
+    private static String exampleString(String format) {
+        if (format == null) {
+            return "string";
+        }
+
+        switch (format) {
+            case "date":
+                return "2024-01-01";
+            case "date-time":
+                return "2024-01-01T00:00:00Z";
+            case "uuid":
+                return "3fa85f64-5717-4562-b3fc-2c963f66afa6";
+            case "email":
+                return "user@example.com";
+            case "uri":
+            case "url":
+                return "https://example.com";
+            case "ipv4":
+                return "192.0.2.1";
+            case "byte":
+                return "c3RyaW5n";
+            case "password":
+                return "Password1!";
+            default:
+                return "string";
+        }
+    }
+}
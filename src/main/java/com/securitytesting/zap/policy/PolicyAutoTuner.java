@@ -0,0 +1,244 @@
+package com.securitytesting.zap.policy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tunes scan policies per target from the history of earlier scans.
+ * <p>
+ * A rule that has run against a target several times without raising an alert, and takes
+ * long to do so, has a poor cost-to-yield ratio. The most expensive such rules are dropped
+ * from the tuned policy, as long as the policy keeps at least the coverage floor of its rules;
+ * the remaining ones run at a lower strength. Rules that ever raised an alert on the target
+ * always run at full strength.
+ * <p>
+ * Every few scans the untuned policy runs instead, so dropped rules get measured again and
+ * the history does not only confirm itself.
+ * <p>
+ * A tuned policy is named after the policy and a digest of the rules it runs, so scans of
+ * targets tuned differently from one policy never share, and rewrite, one ZAP policy.
+ */
+public class PolicyAutoTuner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PolicyAutoTuner.class);
+
+    private final ScanHistory history;
+    private final double coverageFloor;
+    private final int fullStrengthInterval;
+    private final int minRuns;
+    private final long minRuleTimeInMs;
+    private final ScanPolicy.Strength downgradeStrength;
+
+    private PolicyAutoTuner(Builder builder) {
+        this.history = builder.history;
+        this.coverageFloor = builder.coverageFloor;
+        this.fullStrengthInterval = builder.fullStrengthInterval;
+        this.minRuns = builder.minRuns;
+        this.minRuleTimeInMs = builder.minRuleTimeInMs;
+        this.downgradeStrength = builder.downgradeStrength;
+    }
+
+    /**
+     * Checks whether the next scan of a target should run the untuned policy.
+     *
+     * @param targetUrl The target URL
+     * @return True if the target has too little history or is due a full-strength scan
+     */
+    public boolean isFullStrengthRunDue(String targetUrl) {
+        ScanHistory.TargetHistory target = history.getTarget(targetUrl);
+        return target == null || target.getRuns() < minRuns
+                || target.getRunsSinceFullStrength() + 1 >= fullStrengthInterval;
+    }
+
+    /**
+     * Tunes a policy for a target.
+     *
+     * @param policy The untuned policy
+     * @param targetUrl The target URL
+     * @return The tuned policy, or the untuned policy if a full-strength scan is due or nothing can be tuned
+     */
+    public ScanPolicy tune(ScanPolicy policy, String targetUrl) {
+        if (isFullStrengthRunDue(targetUrl)) {
+            LOGGER.info("Running full-strength policy '{}' against {}", policy.getName(), targetUrl);
+            return policy;
+        }
+
+        Map<Integer, ScanHistory.RuleHistory> rules = history.getTarget(targetUrl).getRules();
+
+        // Rules the policy runs: its enabled rules, or every rule seen so far that it does not disable
+        RuleSet enabled = policy.getEnabledRuleSet();
+        RuleSet covered = !enabled.isEmpty() ? enabled
+                : RuleSet.of(rules.keySet()).minus(policy.getDisabledRuleSet());
+
+        List<ScanHistory.RuleHistory> unproductive = new ArrayList<>();
+        covered.forEach(ruleId -> {
+            ScanHistory.RuleHistory rule = rules.get(ruleId);
+            if (rule != null && rule.getRuns() >= minRuns && rule.getAlertCount() == 0
+                    && rule.getMeanTimeInMs() >= minRuleTimeInMs) {
+                unproductive.add(rule);
+            }
+        });
+        if (unproductive.isEmpty()) {
+            return policy;
+        }
+        unproductive.sort(Comparator.comparingLong(ScanHistory.RuleHistory::getMeanTimeInMs).reversed()
+                .thenComparingInt(ScanHistory.RuleHistory::getRuleId));
+
+        // Keep at least one rule: a policy without enabled rules would run every scanner
+        int dropBudget = Math.min(covered.size() - (int) Math.ceil(coverageFloor * covered.size()),
+                covered.size() - 1);
+        int[] dropped = new int[Math.min(dropBudget, unproductive.size())];
+        for (int i = 0; i < dropped.length; i++) {
+            dropped[i] = unproductive.get(i).getRuleId();
+        }
+        RuleSet droppedRules = RuleSet.of(dropped);
+
+        ScanPolicy.Builder builder = new ScanPolicy.Builder(policy.getName())
+                .description(policy.getDescription())
+                .tuned(true)
+                .strength(policy.getStrength())
+                .threshold(policy.getThreshold());
+        if (!enabled.isEmpty()) {
+            builder.enableRules(enabled.minus(droppedRules));
+        }
+        builder.disableRules(policy.getDisabledRuleSet());
+        if (enabled.isEmpty()) {
+            builder.disableRules(droppedRules);
+        }
+        policy.getRuleStrengths().forEach(builder::ruleStrength);
+
+        int downgraded = 0;
+        for (ScanHistory.RuleHistory rule : unproductive.subList(dropped.length, unproductive.size())) {
+            if (policy.getRuleStrength(rule.getRuleId()).getValue() > downgradeStrength.getValue()) {
+                builder.ruleStrength(rule.getRuleId(), downgradeStrength);
+                downgraded++;
+            }
+        }
+
+        LOGGER.info("Tuned policy '{}' for {}: {} rule(s) dropped, {} downgraded to {}", policy.getName(), targetUrl,
+                dropped.length, downgraded, downgradeStrength);
+        ScanPolicy tunedPolicy = builder.build();
+        tunedPolicy.setName(policy.getName() + " (Tuned " + tunedPolicy.getRulesDigest() + ")");
+        return tunedPolicy;
+    }
+
+    /**
+     * Records the rule executions of a scan in the history.
+     *
+     * @param targetUrl The target URL
+     * @param policy The policy the scan ran, as returned by {@link #tune(ScanPolicy, String)}
+     * @param executions The rule executions of the scan
+     */
+    public void record(String targetUrl, ScanPolicy policy, List<RuleExecution> executions) {
+        history.record(targetUrl, executions, !isTuned(policy));
+    }
+
+    /**
+     * Checks whether a policy was produced by a tuner.
+     *
+     * @param policy The policy
+     * @return True if the policy is tuned, false otherwise
+     */
+    public static boolean isTuned(ScanPolicy policy) {
+        return policy.isTuned();
+    }
+
+    /**
+     * Gets the history the tuner reads and records.
+     *
+     * @return The scan history
+     */
+    public ScanHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Builder for PolicyAutoTuner.
+     */
+    public static class Builder {
+        private final ScanHistory history;
+        private double coverageFloor = 0.8;
+        private int fullStrengthInterval = 5;
+        private int minRuns = 3;
+        private long minRuleTimeInMs = 30_000;
+        private ScanPolicy.Strength downgradeStrength = ScanPolicy.Strength.LOW;
+
+        /**
+         * Creates a new builder.
+         *
+         * @param history The scan history
+         */
+        public Builder(ScanHistory history) {
+            this.history = history;
+        }
+
+        /**
+         * Sets the share of a policy's rules a tuned policy must keep.
+         *
+         * @param coverageFloor The coverage floor, between 0 and 1
+         * @return This builder
+         */
+        public Builder coverageFloor(double coverageFloor) {
+            this.coverageFloor = Math.max(0, Math.min(1, coverageFloor));
+            return this;
+        }
+
+        /**
+         * Sets how often the untuned policy runs.
+         *
+         * @param fullStrengthInterval Run the untuned policy every this many scans of a target
+         * @return This builder
+         */
+        public Builder fullStrengthInterval(int fullStrengthInterval) {
+            this.fullStrengthInterval = Math.max(1, fullStrengthInterval);
+            return this;
+        }
+
+        /**
+         * Sets how many scans of a target a rule needs before it can be tuned.
+         *
+         * @param minRuns The minimum number of scans
+         * @return This builder
+         */
+        public Builder minRuns(int minRuns) {
+            this.minRuns = Math.max(1, minRuns);
+            return this;
+        }
+
+        /**
+         * Sets how long a rule must take per scan before it is worth tuning.
+         *
+         * @param minRuleTimeInMs The minimum mean time in milliseconds
+         * @return This builder
+         */
+        public Builder minRuleTimeInMs(long minRuleTimeInMs) {
+            this.minRuleTimeInMs = minRuleTimeInMs;
+            return this;
+        }
+
+        /**
+         * Sets the strength unproductive rules that are not dropped run at.
+         *
+         * @param downgradeStrength The strength
+         * @return This builder
+         */
+        public Builder downgradeStrength(ScanPolicy.Strength downgradeStrength) {
+            this.downgradeStrength = downgradeStrength;
+            return this;
+        }
+
+        /**
+         * Builds the tuner.
+         *
+         * @return The tuner
+         */
+        public PolicyAutoTuner build() {
+            return new PolicyAutoTuner(this);
+        }
+    }
+}
@@ -4,7 +4,6 @@ import com.securitytesting.zap.exception.ScanConfigurationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -16,20 +15,65 @@ public class PolicyManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(PolicyManager.class);
     
     // Common OWASP Top 10 scanner IDs (example values, real ZAP IDs would be used)
-    private static final List<Integer> SQL_INJECTION_SCANNERS = Arrays.asList(40018, 40019, 40020, 40021, 40022);
-    private static final List<Integer> XSS_SCANNERS = Arrays.asList(40012, 40014, 40016, 40017);
-    private static final List<Integer> CMD_INJECTION_SCANNERS = Arrays.asList(90020);
-    private static final List<Integer> PATH_TRAVERSAL_SCANNERS = Arrays.asList(6);
-    private static final List<Integer> REMOTE_FILE_INCLUSION_SCANNERS = Arrays.asList(7);
-    private static final List<Integer> SERVER_SIDE_INCLUDE_SCANNERS = Arrays.asList(40009);
-    private static final List<Integer> SCRIPT_ACTIVE_SCAN_RULES = Arrays.asList(50000);
-    private static final List<Integer> SERVER_SIDE_CODE_INJECTION_SCANNERS = Arrays.asList(90019);
-    private static final List<Integer> REMOTE_OS_COMMAND_INJECTION_SCANNERS = Arrays.asList(90020);
-    private static final List<Integer> LDAP_INJECTION_SCANNERS = Arrays.asList(40015);
-    private static final List<Integer> XML_EXTERNAL_ENTITY_SCANNERS = Arrays.asList(90023);
-    private static final List<Integer> PADDING_ORACLE_SCANNERS = Arrays.asList(90024);
-    private static final List<Integer> INSECURE_HTTP_METHODS_SCANNERS = Arrays.asList(90028);
-    private static final List<Integer> PARAMETER_TAMPERING_SCANNERS = Arrays.asList(40008, 40009);
+    private static final RuleSet SQL_INJECTION_SCANNERS = RuleSet.of(40018, 40019, 40020, 40021, 40022);
+    private static final RuleSet XSS_SCANNERS = RuleSet.of(40012, 40014, 40016, 40017);
+    private static final RuleSet CMD_INJECTION_SCANNERS = RuleSet.of(90020);
+    private static final RuleSet PATH_TRAVERSAL_SCANNERS = RuleSet.of(6);
+    private static final RuleSet REMOTE_FILE_INCLUSION_SCANNERS = RuleSet.of(7);
+    private static final RuleSet SERVER_SIDE_INCLUDE_SCANNERS = RuleSet.of(40009);
+    private static final RuleSet SCRIPT_ACTIVE_SCAN_RULES = RuleSet.of(50000);
+    private static final RuleSet SERVER_SIDE_CODE_INJECTION_SCANNERS = RuleSet.of(90019);
+    private static final RuleSet REMOTE_OS_COMMAND_INJECTION_SCANNERS = RuleSet.of(90020);
+    private static final RuleSet LDAP_INJECTION_SCANNERS = RuleSet.of(40015);
+    private static final RuleSet XML_EXTERNAL_ENTITY_SCANNERS = RuleSet.of(90023);
+    private static final RuleSet PADDING_ORACLE_SCANNERS = RuleSet.of(90024);
+    private static final RuleSet INSECURE_HTTP_METHODS_SCANNERS = RuleSet.of(90028);
+    private static final RuleSet PARAMETER_TAMPERING_SCANNERS = RuleSet.of(40008, 40009);
+    
+    /** Rules of the high-security preset: every known scanner. */
+    public static final RuleSet HIGH_SECURITY_RULES = SQL_INJECTION_SCANNERS
+            .union(XSS_SCANNERS)
+            .union(CMD_INJECTION_SCANNERS)
+            .union(PATH_TRAVERSAL_SCANNERS)
+            .union(REMOTE_FILE_INCLUSION_SCANNERS)
+            .union(SERVER_SIDE_INCLUDE_SCANNERS)
+            .union(SCRIPT_ACTIVE_SCAN_RULES)
+            .union(SERVER_SIDE_CODE_INJECTION_SCANNERS)
+            .union(REMOTE_OS_COMMAND_INJECTION_SCANNERS)
+            .union(LDAP_INJECTION_SCANNERS)
+            .union(XML_EXTERNAL_ENTITY_SCANNERS)
+            .union(PADDING_ORACLE_SCANNERS)
+            .union(INSECURE_HTTP_METHODS_SCANNERS)
+            .union(PARAMETER_TAMPERING_SCANNERS);
+    
+    /** Rules of the medium-security preset: common scanners. */
+    public static final RuleSet MEDIUM_SECURITY_RULES = SQL_INJECTION_SCANNERS
+            .union(XSS_SCANNERS)
+            .union(CMD_INJECTION_SCANNERS)
+            .union(PATH_TRAVERSAL_SCANNERS)
+            .union(REMOTE_FILE_INCLUSION_SCANNERS)
+            .union(SERVER_SIDE_CODE_INJECTION_SCANNERS)
+            .union(LDAP_INJECTION_SCANNERS);
+    
+    /** Rules of the low-security preset: basic injection scanners. */
+    public static final RuleSet LOW_SECURITY_RULES = SQL_INJECTION_SCANNERS
+            .union(XSS_SCANNERS);
+    
+    /** Rules of the API security preset. */
+    public static final RuleSet API_SECURITY_RULES = SQL_INJECTION_SCANNERS
+            .union(CMD_INJECTION_SCANNERS)
+            .union(PATH_TRAVERSAL_SCANNERS)
+            .union(XML_EXTERNAL_ENTITY_SCANNERS)
+            .union(SERVER_SIDE_CODE_INJECTION_SCANNERS)
+            .union(PARAMETER_TAMPERING_SCANNERS);
+    
+    /** Rules of the OWASP Top 10 preset. */
+    public static final RuleSet OWASP_TOP_10_RULES = SQL_INJECTION_SCANNERS // A1: Injection
+            .union(XSS_SCANNERS) // A7: XSS
+            .union(CMD_INJECTION_SCANNERS) // A1: Injection
+            .union(PATH_TRAVERSAL_SCANNERS) // A5: Broken Access Control
+            .union(XML_EXTERNAL_ENTITY_SCANNERS) // A4: XML External Entities
+            .union(INSECURE_HTTP_METHODS_SCANNERS); // A6: Security Misconfiguration
     
     /**
      * Creates a high-security policy with all scanners enabled at high strength.
@@ -45,20 +89,7 @@ public class PolicyManager {
                 .threshold(ScanPolicy.Threshold.LOW);
         
         // Enable all scanners
-        builder.enableScanners(SQL_INJECTION_SCANNERS);
-        builder.enableScanners(XSS_SCANNERS);
-        builder.enableScanners(CMD_INJECTION_SCANNERS);
-        builder.enableScanners(PATH_TRAVERSAL_SCANNERS);
-        builder.enableScanners(REMOTE_FILE_INCLUSION_SCANNERS);
-        builder.enableScanners(SERVER_SIDE_INCLUDE_SCANNERS);
-        builder.enableScanners(SCRIPT_ACTIVE_SCAN_RULES);
-        builder.enableScanners(SERVER_SIDE_CODE_INJECTION_SCANNERS);
-        builder.enableScanners(REMOTE_OS_COMMAND_INJECTION_SCANNERS);
-        builder.enableScanners(LDAP_INJECTION_SCANNERS);
-        builder.enableScanners(XML_EXTERNAL_ENTITY_SCANNERS);
-        builder.enableScanners(PADDING_ORACLE_SCANNERS);
-        builder.enableScanners(INSECURE_HTTP_METHODS_SCANNERS);
-        builder.enableScanners(PARAMETER_TAMPERING_SCANNERS);
+        builder.enableRules(HIGH_SECURITY_RULES);
         
         ScanPolicy policy = builder.build();
         LOGGER.info("High security policy created");
@@ -79,13 +110,7 @@ public class PolicyManager {
                 .threshold(ScanPolicy.Threshold.MEDIUM);
         
         // Enable common scanners
-        builder.enableScanners(SQL_INJECTION_SCANNERS);
-        builder.enableScanners(XSS_SCANNERS);
-        builder.enableScanners(CMD_INJECTION_SCANNERS);
-        builder.enableScanners(PATH_TRAVERSAL_SCANNERS);
-        builder.enableScanners(REMOTE_FILE_INCLUSION_SCANNERS);
-        builder.enableScanners(SERVER_SIDE_CODE_INJECTION_SCANNERS);
-        builder.enableScanners(LDAP_INJECTION_SCANNERS);
+        builder.enableRules(MEDIUM_SECURITY_RULES);
         
         ScanPolicy policy = builder.build();
         LOGGER.info("Medium security policy created");
@@ -106,8 +131,7 @@ public class PolicyManager {
                 .threshold(ScanPolicy.Threshold.HIGH);
         
         // Enable basic scanners
-        builder.enableScanners(SQL_INJECTION_SCANNERS);
-        builder.enableScanners(XSS_SCANNERS);
+        builder.enableRules(LOW_SECURITY_RULES);
         
         ScanPolicy policy = builder.build();
         LOGGER.info("Low security policy created");
@@ -128,12 +152,7 @@ public class PolicyManager {
                 .threshold(ScanPolicy.Threshold.MEDIUM);
         
         // Enable API-relevant scanners
-        builder.enableScanners(SQL_INJECTION_SCANNERS);
-        builder.enableScanners(CMD_INJECTION_SCANNERS);
-        builder.enableScanners(PATH_TRAVERSAL_SCANNERS);
-        builder.enableScanners(XML_EXTERNAL_ENTITY_SCANNERS);
-        builder.enableScanners(SERVER_SIDE_CODE_INJECTION_SCANNERS);
-        builder.enableScanners(PARAMETER_TAMPERING_SCANNERS);
+        builder.enableRules(API_SECURITY_RULES);
         
         ScanPolicy policy = builder.build();
         LOGGER.info("API security policy created");
@@ -154,12 +173,7 @@ public class PolicyManager {
                 .threshold(ScanPolicy.Threshold.MEDIUM);
         
         // Enable OWASP Top 10 relevant scanners
-        builder.enableScanners(SQL_INJECTION_SCANNERS); // A1: Injection
-        builder.enableScanners(XSS_SCANNERS); // A7: XSS
-        builder.enableScanners(CMD_INJECTION_SCANNERS); // A1: Injection
-        builder.enableScanners(PATH_TRAVERSAL_SCANNERS); // A5: Broken Access Control
-        builder.enableScanners(XML_EXTERNAL_ENTITY_SCANNERS); // A4: XML External Entities
-        builder.enableScanners(INSECURE_HTTP_METHODS_SCANNERS); // A6: Security Misconfiguration
+        builder.enableRules(OWASP_TOP_10_RULES);
         
         ScanPolicy policy = builder.build();
         LOGGER.info("OWASP Top 10 policy created");
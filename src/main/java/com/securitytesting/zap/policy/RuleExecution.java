@@ -0,0 +1,142 @@
+package com.securitytesting.zap.policy;
+
+import com.securitytesting.zap.report.ScanProfile;
+import org.zaproxy.clientapi.core.ApiResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What one active scan rule cost and found during a scan: the time it ran, the requests
+ * it sent and the alerts it raised.
+ */
+public class RuleExecution {
+
+    private final int ruleId;
+    private final String name;
+    private final long timeInMs;
+    private final long requestCount;
+    private final long alertCount;
+
+    /**
+     * Creates a new rule execution.
+     *
+     * @param ruleId The ID of the rule
+     * @param name The name of the rule
+     * @param timeInMs The time the rule ran, in milliseconds
+     * @param requestCount The number of requests the rule sent
+     * @param alertCount The number of alerts the rule raised
+     */
+    public RuleExecution(int ruleId, String name, long timeInMs, long requestCount, long alertCount) {
+        this.ruleId = ruleId;
+        this.name = name;
+        this.timeInMs = timeInMs;
+        this.requestCount = requestCount;
+        this.alertCount = alertCount;
+    }
+
+    /**
+     * Reads the rule executions from ZAP's scanProgress response; a rule that ran against
+     * several hosts is summed.
+     *
+     * @param scanProgress The scanProgress response
+     * @return The rule executions, ordered by rule ID
+     */
+    public static List<RuleExecution> fromScanProgress(ApiResponse scanProgress) {
+        return fromProfile(ScanProfile.fromScanProgress(-1, scanProgress));
+    }
+
+    /**
+     * Sums the rule executions of a scan profile over its scans and hosts.
+     *
+     * @param profile The scan profile
+     * @return The rule executions, ordered by rule ID
+     */
+    public static List<RuleExecution> fromProfile(ScanProfile profile) {
+        List<RuleExecution> executions = new ArrayList<>();
+        for (ScanProfile.RuleProfile rule : profile.getRules()) {
+            executions.add(new RuleExecution(rule.getRuleId(), rule.getRuleName(), rule.getTimeInMs(),
+                    rule.getRequestCount(), rule.getAlertCount()));
+        }
+        return merge(executions);
+    }
+
+    /**
+     * Sums executions of the same rule, for instance from several scans of one target.
+     *
+     * @param executions The rule executions
+     * @return One execution per rule, ordered by rule ID
+     */
+    public static List<RuleExecution> merge(Collection<RuleExecution> executions) {
+        Map<Integer, RuleExecution> merged = new TreeMap<>();
+        for (RuleExecution execution : executions) {
+            merged.merge(execution.ruleId, execution, RuleExecution::plus);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Gets the ID of the rule.
+     *
+     * @return The rule ID
+     */
+    public int getRuleId() {
+        return ruleId;
+    }
+
+    /**
+     * Gets the name of the rule.
+     *
+     * @return The rule name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the time the rule ran.
+     *
+     * @return The time in milliseconds
+     */
+    public long getTimeInMs() {
+        return timeInMs;
+    }
+
+    /**
+     * Gets the number of requests the rule sent.
+     *
+     * @return The request count
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Gets the number of alerts the rule raised.
+     *
+     * @return The alert count
+     */
+    public long getAlertCount() {
+        return alertCount;
+    }
+
+    /**
+     * Adds another execution of the same rule to this one.
+     *
+     * @param other The other execution
+     * @return The combined execution
+     */
+    public RuleExecution plus(RuleExecution other) {
+        return new RuleExecution(ruleId, name != null ? name : other.name, timeInMs + other.timeInMs,
+                requestCount + other.requestCount, alertCount + other.alertCount);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%d): %d ms, %d requests, %d alerts", name, ruleId, timeInMs, requestCount,
+                alertCount);
+    }
+}
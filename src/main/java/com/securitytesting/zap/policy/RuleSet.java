@@ -0,0 +1,336 @@
+package com.securitytesting.zap.policy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable set of scan rule IDs, stored as a sorted array of primitive ints.
+ * <p>
+ * ZAP rule IDs are sparse (0 to 100000+) while a policy holds a few dozen of them, so a
+ * sorted array is far smaller than a bitset over the ID range. Membership is a binary
+ * search, and union, intersection and difference are single linear merges, which lets
+ * policies be composed cheaply:
+ * <pre>
+ * RuleSet rules = owaspTop10.minus(slowRules).union(apiRules);
+ * </pre>
+ */
+public final class RuleSet {
+
+    /** The empty rule set. */
+    public static final RuleSet EMPTY = new RuleSet(new int[0]);
+
+    private final int[] ids;
+
+    private RuleSet(int[] ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Creates a rule set from rule IDs.
+     *
+     * @param ids The rule IDs, in any order and possibly repeated
+     * @return The rule set
+     */
+    public static RuleSet of(int... ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        return new RuleSet(dedup(sorted, sorted.length));
+    }
+
+    /**
+     * Creates a rule set from boxed rule IDs.
+     *
+     * @param ids The rule IDs
+     * @return The rule set
+     */
+    public static RuleSet of(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return EMPTY;
+        }
+
+        int[] sorted = new int[ids.size()];
+        int i = 0;
+        for (Integer id : ids) {
+            sorted[i++] = id;
+        }
+        Arrays.sort(sorted);
+        return new RuleSet(dedup(sorted, sorted.length));
+    }
+
+    /**
+     * Checks whether a rule is in this set.
+     *
+     * @param id The rule ID
+     * @return True if the rule is in this set, false otherwise
+     */
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /**
+     * Gets the number of rules in this set.
+     *
+     * @return The number of rules
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Checks whether this set is empty.
+     *
+     * @return True if this set holds no rules, false otherwise
+     */
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /**
+     * Returns the rules in either this set or another.
+     *
+     * @param other The other rule set
+     * @return The union
+     */
+    public RuleSet union(RuleSet other) {
+        if (other.isEmpty() || this == other) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+
+        int[] result = new int[ids.length + other.ids.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < ids.length && j < other.ids.length) {
+            int a = ids[i];
+            int b = other.ids[j];
+            if (a < b) {
+                result[n++] = a;
+                i++;
+            } else if (a > b) {
+                result[n++] = b;
+                j++;
+            } else {
+                result[n++] = a;
+                i++;
+                j++;
+            }
+        }
+        while (i < ids.length) {
+            result[n++] = ids[i++];
+        }
+        while (j < other.ids.length) {
+            result[n++] = other.ids[j++];
+        }
+        return n == ids.length ? this : new RuleSet(Arrays.copyOf(result, n));
+    }
+
+    /**
+     * Returns the rules in both this set and another.
+     *
+     * @param other The other rule set
+     * @return The intersection
+     */
+    public RuleSet intersect(RuleSet other) {
+        if (this == other) {
+            return this;
+        }
+
+        int[] result = new int[Math.min(ids.length, other.ids.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < ids.length && j < other.ids.length) {
+            int a = ids[i];
+            int b = other.ids[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                result[n++] = a;
+                i++;
+                j++;
+            }
+        }
+        return wrap(result, n);
+    }
+
+    /**
+     * Returns the rules in this set that are not in another.
+     *
+     * @param other The other rule set
+     * @return The difference
+     */
+    public RuleSet minus(RuleSet other) {
+        if (isEmpty() || other.isEmpty()) {
+            return this;
+        }
+
+        int[] result = new int[ids.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < ids.length && j < other.ids.length) {
+            int a = ids[i];
+            int b = other.ids[j];
+            if (a < b) {
+                result[n++] = a;
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        while (i < ids.length) {
+            result[n++] = ids[i++];
+        }
+        return n == ids.length ? this : wrap(result, n);
+    }
+
+    /**
+     * Returns this set with a rule added.
+     *
+     * @param id The rule ID
+     * @return The new rule set, or this set if it already holds the rule
+     */
+    public RuleSet with(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return this;
+        }
+
+        int insertion = -index - 1;
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, insertion);
+        result[insertion] = id;
+        System.arraycopy(ids, insertion, result, insertion + 1, ids.length - insertion);
+        return new RuleSet(result);
+    }
+
+    /**
+     * Returns this set with a rule removed.
+     *
+     * @param id The rule ID
+     * @return The new rule set, or this set if it does not hold the rule
+     */
+    public RuleSet without(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return this;
+        }
+
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return wrap(result, result.length);
+    }
+
+    /**
+     * Calls an action for each rule, in ascending ID order.
+     *
+     * @param action The action
+     */
+    public void forEach(IntConsumer action) {
+        for (int id : ids) {
+            action.accept(id);
+        }
+    }
+
+    /**
+     * Streams the rules in ascending ID order.
+     *
+     * @return The rule IDs
+     */
+    public IntStream stream() {
+        return Arrays.stream(ids);
+    }
+
+    /**
+     * Copies the rules to an array.
+     *
+     * @return The rule IDs in ascending order
+     */
+    public int[] toArray() {
+        return ids.clone();
+    }
+
+    /**
+     * Copies the rules to a set of boxed IDs, for callers that need a collection.
+     *
+     * @return The rule IDs
+     */
+    public Set<Integer> toSet() {
+        Set<Integer> set = new TreeSet<>();
+        for (int id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    /**
+     * Joins the rules into the comma-separated form the ZAP API takes.
+     *
+     * @return The comma-separated rule IDs
+     */
+    public String toIdList() {
+        StringBuilder builder = new StringBuilder();
+        for (int id : ids) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(id);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RuleSet)) {
+            return false;
+        }
+        return Arrays.equals(ids, ((RuleSet) o).ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + toIdList() + "]";
+    }
+
+    private static RuleSet wrap(int[] ids, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        return new RuleSet(length == ids.length ? ids : Arrays.copyOf(ids, length));
+    }
+
+    private static int[] dedup(int[] sorted, int length) {
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            if (n == 0 || sorted[n - 1] != sorted[i]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+    }
+}
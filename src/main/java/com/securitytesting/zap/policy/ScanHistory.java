@@ -0,0 +1,288 @@
+package com.securitytesting.zap.policy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-target history of active scan rules across runs: how often each rule ran against a
+ * target, how long it took and how many alerts it raised. Targets are keyed by origin, so
+ * scans of different paths of one application share their history.
+ */
+public class ScanHistory {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, TargetHistory> targets = new HashMap<>();
+
+    /**
+     * Loads a history from a file.
+     *
+     * @param file The history file
+     * @return The history, empty if the file does not exist
+     * @throws IOException If the file cannot be read
+     */
+    public static ScanHistory load(Path file) throws IOException {
+        ScanHistory history = new ScanHistory();
+        if (!Files.exists(file)) {
+            return history;
+        }
+
+        JsonNode root = MAPPER.readTree(file.toFile());
+        Iterator<Map.Entry<String, JsonNode>> targetNodes = root.path("targets").fields();
+        while (targetNodes.hasNext()) {
+            Map.Entry<String, JsonNode> targetNode = targetNodes.next();
+            JsonNode target = targetNode.getValue();
+
+            Map<Integer, RuleHistory> rules = new TreeMap<>();
+            target.path("rules").fields().forEachRemaining(rule -> {
+                JsonNode node = rule.getValue();
+                int ruleId = Integer.parseInt(rule.getKey());
+                rules.put(ruleId, new RuleHistory(ruleId, node.path("name").asText(null), node.path("runs").asInt(),
+                        node.path("timeInMs").asLong(), node.path("requestCount").asLong(),
+                        node.path("alertCount").asLong()));
+            });
+
+            history.targets.put(targetNode.getKey(), new TargetHistory(target.path("runs").asInt(),
+                    target.path("runsSinceFullStrength").asInt(), rules));
+        }
+        return history;
+    }
+
+    /**
+     * Saves the history to a file, replacing it atomically.
+     *
+     * @param file The history file
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void save(Path file) throws IOException {
+        ObjectNode root = MAPPER.createObjectNode();
+        ObjectNode targetNodes = root.putObject("targets");
+        for (Map.Entry<String, TargetHistory> entry : new TreeMap<>(targets).entrySet()) {
+            TargetHistory target = entry.getValue();
+            ObjectNode targetNode = targetNodes.putObject(entry.getKey());
+            targetNode.put("runs", target.getRuns());
+            targetNode.put("runsSinceFullStrength", target.getRunsSinceFullStrength());
+
+            ObjectNode ruleNodes = targetNode.putObject("rules");
+            for (RuleHistory rule : target.getRules().values()) {
+                ObjectNode ruleNode = ruleNodes.putObject(String.valueOf(rule.getRuleId()));
+                ruleNode.put("name", rule.getName());
+                ruleNode.put("runs", rule.getRuns());
+                ruleNode.put("timeInMs", rule.getTimeInMs());
+                ruleNode.put("requestCount", rule.getRequestCount());
+                ruleNode.put("alertCount", rule.getAlertCount());
+            }
+        }
+
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), root);
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Records the rule executions of one scan of a target.
+     *
+     * @param targetUrl The target URL
+     * @param executions The rule executions of the scan
+     * @param fullStrength Whether the scan ran the untuned policy
+     */
+    public synchronized void record(String targetUrl, List<RuleExecution> executions, boolean fullStrength) {
+        String key = targetKey(targetUrl);
+        TargetHistory previous = targets.getOrDefault(key, new TargetHistory(0, 0, Map.of()));
+
+        Map<Integer, RuleHistory> rules = new TreeMap<>(previous.getRules());
+        for (RuleExecution execution : RuleExecution.merge(executions)) {
+            RuleHistory rule = rules.get(execution.getRuleId());
+            rules.put(execution.getRuleId(), rule != null ? rule.plus(execution)
+                    : new RuleHistory(execution.getRuleId(), execution.getName(), 1, execution.getTimeInMs(),
+                            execution.getRequestCount(), execution.getAlertCount()));
+        }
+
+        targets.put(key, new TargetHistory(previous.getRuns() + 1,
+                fullStrength ? 0 : previous.getRunsSinceFullStrength() + 1, rules));
+    }
+
+    /**
+     * Gets the history of a target.
+     *
+     * @param targetUrl The target URL
+     * @return The target history, or null if the target was never scanned
+     */
+    public synchronized TargetHistory getTarget(String targetUrl) {
+        return targets.get(targetKey(targetUrl));
+    }
+
+    /**
+     * Gets the key a target's history is stored under: the scheme, host and port of its URL.
+     *
+     * @param targetUrl The target URL
+     * @return The target key
+     */
+    public static String targetKey(String targetUrl) {
+        try {
+            URI uri = URI.create(targetUrl.trim());
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                return targetUrl;
+            }
+
+            String scheme = uri.getScheme().toLowerCase();
+            int port = uri.getPort();
+            if (port == -1) {
+                port = "https".equals(scheme) ? 443 : 80;
+            }
+            return scheme + "://" + uri.getHost().toLowerCase() + ":" + port;
+        } catch (IllegalArgumentException e) {
+            return targetUrl;
+        }
+    }
+
+    /**
+     * History of one target.
+     */
+    public static class TargetHistory {
+        private final int runs;
+        private final int runsSinceFullStrength;
+        private final Map<Integer, RuleHistory> rules;
+
+        TargetHistory(int runs, int runsSinceFullStrength, Map<Integer, RuleHistory> rules) {
+            this.runs = runs;
+            this.runsSinceFullStrength = runsSinceFullStrength;
+            this.rules = Collections.unmodifiableMap(new TreeMap<>(rules));
+        }
+
+        /**
+         * Gets the number of recorded scans of the target.
+         *
+         * @return The number of scans
+         */
+        public int getRuns() {
+            return runs;
+        }
+
+        /**
+         * Gets the number of tuned scans since the last untuned one.
+         *
+         * @return The number of tuned scans
+         */
+        public int getRunsSinceFullStrength() {
+            return runsSinceFullStrength;
+        }
+
+        /**
+         * Gets the history of each rule that ran against the target.
+         *
+         * @return The rule histories, by rule ID
+         */
+        public Map<Integer, RuleHistory> getRules() {
+            return rules;
+        }
+    }
+
+    /**
+     * History of one rule against one target.
+     */
+    public static class RuleHistory {
+        private final int ruleId;
+        private final String name;
+        private final int runs;
+        private final long timeInMs;
+        private final long requestCount;
+        private final long alertCount;
+
+        RuleHistory(int ruleId, String name, int runs, long timeInMs, long requestCount, long alertCount) {
+            this.ruleId = ruleId;
+            this.name = name;
+            this.runs = runs;
+            this.timeInMs = timeInMs;
+            this.requestCount = requestCount;
+            this.alertCount = alertCount;
+        }
+
+        private RuleHistory plus(RuleExecution execution) {
+            return new RuleHistory(ruleId, name != null ? name : execution.getName(), runs + 1,
+                    timeInMs + execution.getTimeInMs(), requestCount + execution.getRequestCount(),
+                    alertCount + execution.getAlertCount());
+        }
+
+        /**
+         * Gets the ID of the rule.
+         *
+         * @return The rule ID
+         */
+        public int getRuleId() {
+            return ruleId;
+        }
+
+        /**
+         * Gets the name of the rule.
+         *
+         * @return The rule name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of scans the rule ran in.
+         *
+         * @return The number of scans
+         */
+        public int getRuns() {
+            return runs;
+        }
+
+        /**
+         * Gets the total time the rule ran.
+         *
+         * @return The time in milliseconds
+         */
+        public long getTimeInMs() {
+            return timeInMs;
+        }
+
+        /**
+         * Gets the total number of requests the rule sent.
+         *
+         * @return The request count
+         */
+        public long getRequestCount() {
+            return requestCount;
+        }
+
+        /**
+         * Gets the total number of alerts the rule raised.
+         *
+         * @return The alert count
+         */
+        public long getAlertCount() {
+            return alertCount;
+        }
+
+        /**
+         * Gets the mean time the rule ran per scan.
+         *
+         * @return The mean time in milliseconds
+         */
+        public long getMeanTimeInMs() {
+            return runs > 0 ? timeInMs / runs : 0;
+        }
+    }
+}
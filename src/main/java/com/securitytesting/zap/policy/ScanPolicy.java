@@ -1,9 +1,13 @@
 package com.securitytesting.zap.policy;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Represents a security scan policy with configurable rules and settings.
@@ -72,9 +76,11 @@ public class ScanPolicy {
     
     private String name;
     private String description;
-    private Set<Integer> enabledRules;
-    private Set<Integer> disabledRules;
+    private RuleSet enabledRules;
+    private RuleSet disabledRules;
+    private Map<Integer, Strength> ruleStrengths;
     private boolean defaultPolicy;
+    private boolean tuned;
     private Strength strength;
     private Threshold threshold;
     
@@ -86,8 +92,9 @@ public class ScanPolicy {
     public ScanPolicy(String name) {
         this.name = name;
         this.description = "";
-        this.enabledRules = new HashSet<>();
-        this.disabledRules = new HashSet<>();
+        this.enabledRules = RuleSet.EMPTY;
+        this.disabledRules = RuleSet.EMPTY;
+        this.ruleStrengths = new TreeMap<>();
         this.defaultPolicy = false;
         this.strength = Strength.MEDIUM;
         this.threshold = Threshold.MEDIUM;
@@ -112,9 +119,11 @@ public class ScanPolicy {
     private ScanPolicy(Builder builder) {
         this.name = builder.name;
         this.description = builder.description;
-        this.enabledRules = new HashSet<>(builder.enabledRules);
-        this.disabledRules = new HashSet<>(builder.disabledRules);
+        this.enabledRules = builder.enabledRules;
+        this.disabledRules = builder.disabledRules;
+        this.ruleStrengths = new TreeMap<>(builder.ruleStrengths);
         this.defaultPolicy = builder.defaultPolicy;
+        this.tuned = builder.tuned;
         this.strength = builder.strength;
         this.threshold = builder.threshold;
     }
@@ -173,6 +182,24 @@ public class ScanPolicy {
         this.defaultPolicy = defaultPolicy;
     }
     
+    /**
+     * Returns whether the policy was tuned to a target from the history of its scans.
+     * 
+     * @return True if the policy is tuned, false otherwise
+     */
+    public boolean isTuned() {
+        return tuned;
+    }
+    
+    /**
+     * Sets whether the policy was tuned to a target from the history of its scans.
+     * 
+     * @param tuned True if the policy is tuned, false otherwise
+     */
+    public void setTuned(boolean tuned) {
+        this.tuned = tuned;
+    }
+    
     /**
      * Returns the strength of the scan policy.
      * 
@@ -233,8 +260,8 @@ public class ScanPolicy {
      * @param ruleId The ID of the rule to enable
      */
     public void enableRule(int ruleId) {
-        enabledRules.add(ruleId);
-        disabledRules.remove(ruleId);
+        enabledRules = enabledRules.with(ruleId);
+        disabledRules = disabledRules.without(ruleId);
     }
     
     /**
@@ -243,8 +270,8 @@ public class ScanPolicy {
      * @param ruleId The ID of the rule to disable
      */
     public void disableRule(int ruleId) {
-        disabledRules.add(ruleId);
-        enabledRules.remove(ruleId);
+        disabledRules = disabledRules.with(ruleId);
+        enabledRules = enabledRules.without(ruleId);
     }
     
     /**
@@ -253,7 +280,26 @@ public class ScanPolicy {
      * @return The set of enabled rules
      */
     public Set<Integer> getEnabledRules() {
-        return new HashSet<>(enabledRules);
+        return enabledRules.toSet();
+    }
+    
+    /**
+     * Returns the enabled rules without copying them.
+     * 
+     * @return The enabled rules
+     */
+    public RuleSet getEnabledRuleSet() {
+        return enabledRules;
+    }
+    
+    /**
+     * Checks whether a rule is explicitly enabled.
+     * 
+     * @param ruleId The ID of the rule
+     * @return True if the rule is enabled, false otherwise
+     */
+    public boolean isRuleEnabled(int ruleId) {
+        return enabledRules.contains(ruleId);
     }
     
     /**
@@ -262,7 +308,26 @@ public class ScanPolicy {
      * @return The set of disabled rules
      */
     public Set<Integer> getDisabledRules() {
-        return new HashSet<>(disabledRules);
+        return disabledRules.toSet();
+    }
+    
+    /**
+     * Returns the disabled rules without copying them.
+     * 
+     * @return The disabled rules
+     */
+    public RuleSet getDisabledRuleSet() {
+        return disabledRules;
+    }
+    
+    /**
+     * Checks whether a rule is explicitly disabled.
+     * 
+     * @param ruleId The ID of the rule
+     * @return True if the rule is disabled, false otherwise
+     */
+    public boolean isRuleDisabled(int ruleId) {
+        return disabledRules.contains(ruleId);
     }
     
     /**
@@ -271,8 +336,17 @@ public class ScanPolicy {
      * @param ruleIds The IDs of the rules to enable
      */
     public void enableRules(Set<Integer> ruleIds) {
-        enabledRules.addAll(ruleIds);
-        disabledRules.removeAll(ruleIds);
+        enableRules(RuleSet.of(ruleIds));
+    }
+    
+    /**
+     * Enables multiple scanning rules.
+     * 
+     * @param ruleIds The rules to enable
+     */
+    public void enableRules(RuleSet ruleIds) {
+        enabledRules = enabledRules.union(ruleIds);
+        disabledRules = disabledRules.minus(ruleIds);
     }
     
     /**
@@ -281,16 +355,82 @@ public class ScanPolicy {
      * @param ruleIds The IDs of the rules to disable
      */
     public void disableRules(Set<Integer> ruleIds) {
-        disabledRules.addAll(ruleIds);
-        enabledRules.removeAll(ruleIds);
+        disableRules(RuleSet.of(ruleIds));
+    }
+    
+    /**
+     * Disables multiple scanning rules.
+     * 
+     * @param ruleIds The rules to disable
+     */
+    public void disableRules(RuleSet ruleIds) {
+        disabledRules = disabledRules.union(ruleIds);
+        enabledRules = enabledRules.minus(ruleIds);
     }
     
     /**
      * Clears all rule settings, resetting to default behavior.
      */
     public void resetRules() {
-        enabledRules.clear();
-        disabledRules.clear();
+        enabledRules = RuleSet.EMPTY;
+        disabledRules = RuleSet.EMPTY;
+        ruleStrengths.clear();
+    }
+    
+    /**
+     * Overrides the strength of a specific scanning rule.
+     * 
+     * @param ruleId The ID of the rule
+     * @param strength The strength of the rule, or null to use the policy strength
+     */
+    public void setRuleStrength(int ruleId, Strength strength) {
+        if (strength != null) {
+            ruleStrengths.put(ruleId, strength);
+        } else {
+            ruleStrengths.remove(ruleId);
+        }
+    }
+    
+    /**
+     * Returns the strength a specific scanning rule runs at.
+     * 
+     * @param ruleId The ID of the rule
+     * @return The overridden strength of the rule, or the policy strength
+     */
+    public Strength getRuleStrength(int ruleId) {
+        return ruleStrengths.getOrDefault(ruleId, strength);
+    }
+    
+    /**
+     * Returns the rules whose strength differs from the policy strength.
+     * 
+     * @return The overridden strengths, by rule ID
+     */
+    public Map<Integer, Strength> getRuleStrengths() {
+        return Collections.unmodifiableMap(new TreeMap<>(ruleStrengths));
+    }
+    
+    /**
+     * Returns a short digest of what the policy runs: its strength and threshold, its enabled
+     * and disabled rules and its per-rule strengths. Policies that run the same rules the same
+     * way have the same digest, whatever their names.
+     * 
+     * @return The digest as eight hexadecimal digits
+     */
+    public String getRulesDigest() {
+        String rules = strength + ";" + threshold + ";" + enabledRules.toIdList() + ";" 
+                + disabledRules.toIdList() + ";" + ruleStrengths;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rules.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform implements SHA-256
+            throw new IllegalStateException(e);
+        }
     }
     
     /**
@@ -299,9 +439,11 @@ public class ScanPolicy {
     public static class Builder {
         private String name;
         private String description = "";
-        private Set<Integer> enabledRules = new HashSet<>();
-        private Set<Integer> disabledRules = new HashSet<>();
+        private RuleSet enabledRules = RuleSet.EMPTY;
+        private RuleSet disabledRules = RuleSet.EMPTY;
+        private Map<Integer, Strength> ruleStrengths = new TreeMap<>();
         private boolean defaultPolicy = false;
+        private boolean tuned = false;
         private Strength strength = Strength.MEDIUM;
         private Threshold threshold = Threshold.MEDIUM;
         
@@ -336,6 +478,17 @@ public class ScanPolicy {
             return this;
         }
         
+        /**
+         * Sets whether the policy was tuned to a target from the history of its scans.
+         * 
+         * @param tuned True if the policy is tuned, false otherwise
+         * @return This builder
+         */
+        public Builder tuned(boolean tuned) {
+            this.tuned = tuned;
+            return this;
+        }
+        
         /**
          * Sets the strength of the scan policy.
          * 
@@ -365,8 +518,8 @@ public class ScanPolicy {
          * @return This builder
          */
         public Builder enableRule(int ruleId) {
-            enabledRules.add(ruleId);
-            disabledRules.remove(ruleId);
+            enabledRules = enabledRules.with(ruleId);
+            disabledRules = disabledRules.without(ruleId);
             return this;
         }
         
@@ -377,8 +530,8 @@ public class ScanPolicy {
          * @return This builder
          */
         public Builder disableRule(int ruleId) {
-            disabledRules.add(ruleId);
-            enabledRules.remove(ruleId);
+            disabledRules = disabledRules.with(ruleId);
+            enabledRules = enabledRules.without(ruleId);
             return this;
         }
         
@@ -389,8 +542,18 @@ public class ScanPolicy {
          * @return This builder
          */
         public Builder enableRules(Set<Integer> ruleIds) {
-            enabledRules.addAll(ruleIds);
-            disabledRules.removeAll(ruleIds);
+            return enableRules(RuleSet.of(ruleIds));
+        }
+        
+        /**
+         * Enables multiple scanning rules.
+         * 
+         * @param ruleIds The rules to enable
+         * @return This builder
+         */
+        public Builder enableRules(RuleSet ruleIds) {
+            enabledRules = enabledRules.union(ruleIds);
+            disabledRules = disabledRules.minus(ruleIds);
             return this;
         }
         
@@ -401,9 +564,7 @@ public class ScanPolicy {
          * @return This builder
          */
         public Builder enableScanners(List<Integer> ruleIds) {
-            enabledRules.addAll(ruleIds);
-            disabledRules.removeAll(ruleIds);
-            return this;
+            return enableRules(RuleSet.of(ruleIds));
         }
         
         /**
@@ -413,8 +574,30 @@ public class ScanPolicy {
          * @return This builder
          */
         public Builder disableRules(Set<Integer> ruleIds) {
-            disabledRules.addAll(ruleIds);
-            enabledRules.removeAll(ruleIds);
+            return disableRules(RuleSet.of(ruleIds));
+        }
+        
+        /**
+         * Disables multiple scanning rules.
+         * 
+         * @param ruleIds The rules to disable
+         * @return This builder
+         */
+        public Builder disableRules(RuleSet ruleIds) {
+            disabledRules = disabledRules.union(ruleIds);
+            enabledRules = enabledRules.minus(ruleIds);
+            return this;
+        }
+        
+        /**
+         * Overrides the strength of a specific scanning rule.
+         * 
+         * @param ruleId The ID of the rule
+         * @param strength The strength of the rule
+         * @return This builder
+         */
+        public Builder ruleStrength(int ruleId, Strength strength) {
+            ruleStrengths.put(ruleId, strength);
             return this;
         }
         
@@ -0,0 +1,236 @@
+package com.securitytesting.zap.policy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * Applies scan policies to ZAP instances with as few API calls as possible.
+ * <p>
+ * The applier remembers the state it last pushed for each policy of each ZAP instance and
+ * only sends the differences. Scanners are enabled and disabled in batches, one call per
+ * direction, and the policy-wide threshold and strength share a single call. ZAP has no
+ * batch call for per-rule strengths, so each changed override costs one call. Applying a
+ * policy that is already in place costs no calls at all.
+ * <p>
+ * A policy with enabled rules runs only those rules; a policy without enabled rules runs
+ * every scanner except its disabled rules.
+ */
+public class ScanPolicyApplier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanPolicyApplier.class);
+
+    private static final ScanPolicyApplier INSTANCE = new ScanPolicyApplier();
+
+    // Applied policy states per ZAP instance, keyed by policy name; dropped with the client
+    private final Map<ClientApi, Map<String, AppliedPolicy>> appliedPolicies = new WeakHashMap<>();
+
+    /**
+     * Gets the shared applier.
+     *
+     * @return The shared applier
+     */
+    public static ScanPolicyApplier getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Applies a scan policy to a ZAP instance, pushing only what changed since it was last applied.
+     *
+     * @param zapClient The ZAP client
+     * @param policy The scan policy
+     * @return The number of ZAP API calls made
+     * @throws ClientApiException If a ZAP API call fails
+     */
+    public int apply(ClientApi zapClient, ScanPolicy policy) throws ClientApiException {
+        Map<String, AppliedPolicy> policies;
+        synchronized (appliedPolicies) {
+            policies = appliedPolicies.computeIfAbsent(zapClient, client -> new HashMap<>());
+        }
+
+        // Policies of one ZAP instance are applied one at a time, so the cached state stays accurate
+        synchronized (policies) {
+            String name = policy.getName();
+            AppliedPolicy target = AppliedPolicy.of(policy);
+            AppliedPolicy current = policies.remove(name);
+
+            int calls = current == null ? create(zapClient, target, name) : update(zapClient, current, target, name);
+
+            policies.put(name, target);
+            LOGGER.debug("Scan policy '{}' applied with {} API call(s)", name, calls);
+            return calls;
+        }
+    }
+
+    /**
+     * Forgets the state applied to a ZAP instance, for instance after it was restarted.
+     * The next policy applied to it is pushed in full.
+     *
+     * @param zapClient The ZAP client
+     */
+    public void invalidate(ClientApi zapClient) {
+        synchronized (appliedPolicies) {
+            appliedPolicies.remove(zapClient);
+        }
+    }
+
+    /**
+     * Pushes a policy the applier has no state for.
+     *
+     * @param zapClient The ZAP client
+     * @param target The policy state to apply
+     * @param name The policy name
+     * @return The number of API calls made
+     * @throws ClientApiException If a ZAP API call fails
+     */
+    private int create(ClientApi zapClient, AppliedPolicy target, String name) throws ClientApiException {
+        int calls = 1;
+        try {
+            zapClient.ascan.addScanPolicy(name, target.threshold.name(), target.strength.name());
+        } catch (ClientApiException e) {
+            // The policy may already exist from an earlier run against this ZAP instance
+            LOGGER.debug("Could not add scan policy '{}', updating it instead: {}", name, e.getMessage());
+            zapClient.ascan.updateScanPolicy(name, target.threshold.name(), target.strength.name());
+            calls++;
+        }
+
+        calls += resetScanners(zapClient, target, name);
+        return calls + updateRuleStrengths(zapClient, Map.of(), target.ruleStrengths, name);
+    }
+
+    /**
+     * Pushes the differences between the applied and the requested state of a policy.
+     *
+     * @param zapClient The ZAP client
+     * @param current The applied policy state
+     * @param target The policy state to apply
+     * @param name The policy name
+     * @return The number of API calls made
+     * @throws ClientApiException If a ZAP API call fails
+     */
+    private int update(ClientApi zapClient, AppliedPolicy current, AppliedPolicy target, String name)
+            throws ClientApiException {
+        int calls = 0;
+        if (current.threshold != target.threshold || current.strength != target.strength) {
+            zapClient.ascan.updateScanPolicy(name, target.threshold.name(), target.strength.name());
+            calls++;
+        }
+
+        calls += updateRuleStrengths(zapClient, current.ruleStrengths, target.ruleStrengths, name);
+
+        if (current.allowList != target.allowList) {
+            return calls + resetScanners(zapClient, target, name);
+        }
+
+        RuleSet added = target.exceptions.minus(current.exceptions);
+        RuleSet removed = current.exceptions.minus(target.exceptions);
+        if (target.allowList) {
+            calls += enableScanners(zapClient, added, name);
+            calls += disableScanners(zapClient, removed, name);
+        } else {
+            calls += disableScanners(zapClient, added, name);
+            calls += enableScanners(zapClient, removed, name);
+        }
+        return calls;
+    }
+
+    /**
+     * Resets every scanner of a policy to the policy's default and then applies its exceptions.
+     *
+     * @param zapClient The ZAP client
+     * @param target The policy state to apply
+     * @param name The policy name
+     * @return The number of API calls made
+     * @throws ClientApiException If a ZAP API call fails
+     */
+    private int resetScanners(ClientApi zapClient, AppliedPolicy target, String name) throws ClientApiException {
+        if (target.allowList) {
+            zapClient.ascan.disableAllScanners(name);
+            return 1 + enableScanners(zapClient, target.exceptions, name);
+        }
+
+        zapClient.ascan.enableAllScanners(name);
+        return 1 + disableScanners(zapClient, target.exceptions, name);
+    }
+
+    /**
+     * Pushes the per-rule strength overrides that changed, resetting dropped ones to the policy default.
+     *
+     * @param zapClient The ZAP client
+     * @param current The applied overrides
+     * @param target The overrides to apply
+     * @param name The policy name
+     * @return The number of API calls made
+     * @throws ClientApiException If a ZAP API call fails
+     */
+    private static int updateRuleStrengths(ClientApi zapClient, Map<Integer, ScanPolicy.Strength> current,
+                                           Map<Integer, ScanPolicy.Strength> target, String name)
+            throws ClientApiException {
+        int calls = 0;
+        for (Map.Entry<Integer, ScanPolicy.Strength> entry : target.entrySet()) {
+            if (!Objects.equals(current.get(entry.getKey()), entry.getValue())) {
+                zapClient.ascan.setScannerAttackStrength(String.valueOf(entry.getKey()), entry.getValue().name(), name);
+                calls++;
+            }
+        }
+        for (Integer ruleId : current.keySet()) {
+            if (!target.containsKey(ruleId)) {
+                zapClient.ascan.setScannerAttackStrength(String.valueOf(ruleId), ScanPolicy.Strength.DEFAULT.name(),
+                        name);
+                calls++;
+            }
+        }
+        return calls;
+    }
+
+    private static int enableScanners(ClientApi zapClient, RuleSet ids, String name) throws ClientApiException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        zapClient.ascan.enableScanners(ids.toIdList(), name);
+        return 1;
+    }
+
+    private static int disableScanners(ClientApi zapClient, RuleSet ids, String name) throws ClientApiException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        zapClient.ascan.disableScanners(ids.toIdList(), name);
+        return 1;
+    }
+
+    /**
+     * State of a policy as applied to ZAP: the policy-wide settings, whether scanners are
+     * disabled unless listed or enabled unless listed, the listed scanners and the per-rule
+     * strength overrides.
+     */
+    private static class AppliedPolicy {
+        private final ScanPolicy.Threshold threshold;
+        private final ScanPolicy.Strength strength;
+        private final boolean allowList;
+        private final RuleSet exceptions;
+        private final Map<Integer, ScanPolicy.Strength> ruleStrengths;
+
+        private AppliedPolicy(ScanPolicy.Threshold threshold, ScanPolicy.Strength strength,
+                              boolean allowList, RuleSet exceptions, Map<Integer, ScanPolicy.Strength> ruleStrengths) {
+            this.threshold = threshold;
+            this.strength = strength;
+            this.allowList = allowList;
+            this.exceptions = exceptions;
+            this.ruleStrengths = ruleStrengths;
+        }
+
+        private static AppliedPolicy of(ScanPolicy policy) {
+            RuleSet enabled = policy.getEnabledRuleSet();
+            boolean allowList = !enabled.isEmpty();
+            return new AppliedPolicy(policy.getThreshold(), policy.getStrength(), allowList,
+                    allowList ? enabled : policy.getDisabledRuleSet(), policy.getRuleStrengths());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.securitytesting.zap.policy;
+
+/**
+ * A technology a target can be built on, as far as it decides which active scan rules apply.
+ * Technologies are grouped by category: a target may combine several of one category, for
+ * instance a Node.js front end proxying to a Java back end.
+ */
+public enum Technology {
+    ASP_NET(Category.PLATFORM),
+    JAVA(Category.PLATFORM),
+    PHP(Category.PLATFORM),
+    NODE_JS(Category.PLATFORM),
+    PYTHON(Category.PLATFORM),
+    RUBY(Category.PLATFORM),
+
+    IIS(Category.SERVER),
+    APACHE(Category.SERVER),
+    NGINX(Category.SERVER),
+    APPLICATION_SERVER(Category.SERVER),
+
+    HTML(Category.CONTENT),
+    JSON(Category.CONTENT),
+    XML(Category.CONTENT);
+
+    /**
+     * Enum representing the categories of technologies.
+     */
+    public enum Category {
+        /** The language or framework the application runs on. */
+        PLATFORM,
+        /** The web server in front of the application. */
+        SERVER,
+        /** The kind of content the application exchanges. */
+        CONTENT
+    }
+
+    private final Category category;
+
+    Technology(Category category) {
+        this.category = category;
+    }
+
+    /**
+     * Gets the category of the technology.
+     *
+     * @return The category
+     */
+    public Category getCategory() {
+        return category;
+    }
+}
@@ -0,0 +1,314 @@
+package com.securitytesting.zap.policy;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The technologies a target was seen to use, inferred from the headers, cookies, file
+ * extensions and passive alerts of the traffic the spider produced.
+ * <p>
+ * Only positive evidence counts: a fingerprint never rules a technology out by itself, it
+ * only tells which technologies of a category were seen. Each detected technology keeps the
+ * evidence it was detected from, for logging why rules were pruned.
+ */
+public class TechnologyFingerprint {
+
+    private static final List<String> PROXY_SERVERS = List.of("cloudflare", "akamai", "cloudfront", "varnish",
+            "envoy", "awselb");
+
+    private static final Map<String, Technology> SERVER_SIGNATURES = new LinkedHashMap<>();
+    private static final Map<String, Technology> POWERED_BY_SIGNATURES = new LinkedHashMap<>();
+    private static final Map<String, Technology> PRESENT_HEADERS = new LinkedHashMap<>();
+    private static final Map<String, Technology> COOKIE_SIGNATURES = new LinkedHashMap<>();
+    private static final Map<String, Technology> EXTENSION_SIGNATURES = new LinkedHashMap<>();
+    private static final Map<String, Technology> ALERT_SIGNATURES = new LinkedHashMap<>();
+
+    static {
+        // Order matters: the first matching signature wins, so specific tokens come before generic ones
+        SERVER_SIGNATURES.put("microsoft-iis", Technology.IIS);
+        SERVER_SIGNATURES.put("apache-coyote", Technology.JAVA);
+        SERVER_SIGNATURES.put("apache", Technology.APACHE);
+        SERVER_SIGNATURES.put("nginx", Technology.NGINX);
+        SERVER_SIGNATURES.put("openresty", Technology.NGINX);
+        SERVER_SIGNATURES.put("kestrel", Technology.ASP_NET);
+        SERVER_SIGNATURES.put("jetty", Technology.JAVA);
+        SERVER_SIGNATURES.put("wildfly", Technology.JAVA);
+        SERVER_SIGNATURES.put("gunicorn", Technology.PYTHON);
+        SERVER_SIGNATURES.put("uvicorn", Technology.PYTHON);
+        SERVER_SIGNATURES.put("werkzeug", Technology.PYTHON);
+        SERVER_SIGNATURES.put("puma", Technology.RUBY);
+        SERVER_SIGNATURES.put("passenger", Technology.RUBY);
+
+        POWERED_BY_SIGNATURES.put("asp.net", Technology.ASP_NET);
+        POWERED_BY_SIGNATURES.put("php", Technology.PHP);
+        POWERED_BY_SIGNATURES.put("express", Technology.NODE_JS);
+        POWERED_BY_SIGNATURES.put("next.js", Technology.NODE_JS);
+        POWERED_BY_SIGNATURES.put("servlet", Technology.JAVA);
+        POWERED_BY_SIGNATURES.put("jsp", Technology.JAVA);
+        POWERED_BY_SIGNATURES.put("passenger", Technology.RUBY);
+
+        PRESENT_HEADERS.put("x-aspnet-version", Technology.ASP_NET);
+        PRESENT_HEADERS.put("x-aspnetmvc-version", Technology.ASP_NET);
+
+        COOKIE_SIGNATURES.put("asp.net_sessionid", Technology.ASP_NET);
+        COOKIE_SIGNATURES.put(".aspxauth", Technology.ASP_NET);
+        COOKIE_SIGNATURES.put(".aspnetcore.session", Technology.ASP_NET);
+        COOKIE_SIGNATURES.put("jsessionid", Technology.JAVA);
+        COOKIE_SIGNATURES.put("phpsessid", Technology.PHP);
+        COOKIE_SIGNATURES.put("laravel_session", Technology.PHP);
+        COOKIE_SIGNATURES.put("connect.sid", Technology.NODE_JS);
+        COOKIE_SIGNATURES.put("csrftoken", Technology.PYTHON);
+        COOKIE_SIGNATURES.put("rack.session", Technology.RUBY);
+        COOKIE_SIGNATURES.put("_session_id", Technology.RUBY);
+
+        EXTENSION_SIGNATURES.put("aspx", Technology.ASP_NET);
+        EXTENSION_SIGNATURES.put("asp", Technology.ASP_NET);
+        EXTENSION_SIGNATURES.put("ashx", Technology.ASP_NET);
+        EXTENSION_SIGNATURES.put("asmx", Technology.ASP_NET);
+        EXTENSION_SIGNATURES.put("jsp", Technology.JAVA);
+        EXTENSION_SIGNATURES.put("jsf", Technology.JAVA);
+        EXTENSION_SIGNATURES.put("do", Technology.JAVA);
+        EXTENSION_SIGNATURES.put("action", Technology.JAVA);
+        EXTENSION_SIGNATURES.put("php", Technology.PHP);
+        EXTENSION_SIGNATURES.put("html", Technology.HTML);
+        EXTENSION_SIGNATURES.put("shtml", Technology.HTML);
+        EXTENSION_SIGNATURES.put("xml", Technology.XML);
+        EXTENSION_SIGNATURES.put("wsdl", Technology.XML);
+
+        ALERT_SIGNATURES.put("x-aspnet-version", Technology.ASP_NET);
+        ALERT_SIGNATURES.put("viewstate", Technology.ASP_NET);
+    }
+
+    private final Map<Technology, Set<String>> evidence = new EnumMap<>(Technology.class);
+
+    /**
+     * Adds a request or response header seen in the traffic with the target.
+     *
+     * @param name The header name
+     * @param value The header value
+     */
+    public void addHeader(String name, String value) {
+        if (name == null) {
+            return;
+        }
+
+        String header = name.trim().toLowerCase(Locale.ROOT);
+        String lowerValue = value != null ? value.toLowerCase(Locale.ROOT) : "";
+        String description = name.trim() + ": " + (value != null ? value.trim() : "");
+
+        switch (header) {
+            case "server":
+                if (lowerValue.isEmpty() || contains(PROXY_SERVERS, lowerValue)) {
+                    // A CDN or proxy hides the server behind it
+                    break;
+                }
+                Technology server = find(SERVER_SIGNATURES, lowerValue);
+                if (server == null || server.getCategory() != Technology.Category.SERVER) {
+                    // Anything but a known web server is the application serving itself
+                    detect(Technology.APPLICATION_SERVER, description);
+                }
+                if (server != null) {
+                    detect(server, description);
+                }
+                break;
+            case "x-powered-by":
+                match(POWERED_BY_SIGNATURES, lowerValue, description);
+                break;
+            case "content-type":
+                if (lowerValue.contains("html")) {
+                    detect(Technology.HTML, description);
+                } else if (lowerValue.contains("json")) {
+                    detect(Technology.JSON, description);
+                } else if (lowerValue.contains("xml")) {
+                    detect(Technology.XML, description);
+                }
+                break;
+            case "set-cookie":
+            case "cookie":
+                for (String cookie : lowerValue.split(";")) {
+                    int equals = cookie.indexOf('=');
+                    if (equals > 0) {
+                        addCookie(cookie.substring(0, equals));
+                    }
+                    if ("set-cookie".equals(header)) {
+                        // Only the first pair of a Set-Cookie header is a cookie, the rest are attributes
+                        break;
+                    }
+                }
+                break;
+            default:
+                Technology technology = PRESENT_HEADERS.get(header);
+                if (technology != null) {
+                    detect(technology, description);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Adds the name of a cookie the target set or received.
+     *
+     * @param name The cookie name
+     */
+    public void addCookie(String name) {
+        if (name == null) {
+            return;
+        }
+
+        Technology technology = COOKIE_SIGNATURES.get(name.trim().toLowerCase(Locale.ROOT));
+        if (technology != null) {
+            detect(technology, "Cookie " + name.trim());
+        }
+    }
+
+    /**
+     * Adds a URL found on the target, fingerprinted by its file extension.
+     *
+     * @param url The URL
+     */
+    public void addUrl(String url) {
+        if (url == null) {
+            return;
+        }
+
+        String path = url;
+        int end = path.length();
+        for (char delimiter : new char[] {'?', '#', ';'}) {
+            int index = path.indexOf(delimiter);
+            if (index >= 0 && index < end) {
+                end = index;
+            }
+        }
+        path = path.substring(0, end);
+
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/')) {
+            return;
+        }
+
+        Technology technology = EXTENSION_SIGNATURES.get(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+        if (technology != null) {
+            detect(technology, "URL " + url);
+        }
+    }
+
+    /**
+     * Adds a passive scan alert raised on the target. Alerts about leaking headers are read
+     * through their evidence, which holds the header.
+     *
+     * @param name The alert name
+     * @param evidence The alert evidence, may be null
+     */
+    public void addAlert(String name, String evidence) {
+        String lowerName = name != null ? name.toLowerCase(Locale.ROOT) : "";
+        match(ALERT_SIGNATURES, lowerName, "Alert " + name);
+
+        if (evidence != null) {
+            int colon = evidence.indexOf(':');
+            if (colon > 0) {
+                addHeader(evidence.substring(0, colon), evidence.substring(colon + 1));
+            }
+        }
+    }
+
+    /**
+     * Adds a technology known to be used by the target, for instance from configuration.
+     *
+     * @param technology The technology
+     * @param reason Why the technology is known to be used
+     */
+    public void addTechnology(Technology technology, String reason) {
+        detect(technology, reason);
+    }
+
+    /**
+     * Gets the technologies the target was seen to use.
+     *
+     * @return The detected technologies
+     */
+    public Set<Technology> getTechnologies() {
+        return evidence.isEmpty() ? EnumSet.noneOf(Technology.class) : EnumSet.copyOf(evidence.keySet());
+    }
+
+    /**
+     * Checks whether the target was seen to use a technology.
+     *
+     * @param technology The technology
+     * @return True if the technology was detected, false otherwise
+     */
+    public boolean isDetected(Technology technology) {
+        return evidence.containsKey(technology);
+    }
+
+    /**
+     * Checks whether any technology of a category was detected, which is what allows ruling
+     * out the other technologies of that category.
+     *
+     * @param category The category
+     * @return True if a technology of the category was detected, false otherwise
+     */
+    public boolean isKnown(Technology.Category category) {
+        for (Technology technology : evidence.keySet()) {
+            if (technology.getCategory() == category) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the evidence a technology was detected from.
+     *
+     * @param technology The technology
+     * @return The evidence, empty if the technology was not detected
+     */
+    public Set<String> getEvidence(Technology technology) {
+        Set<String> found = evidence.get(technology);
+        return found != null ? Collections.unmodifiableSet(found) : Collections.emptySet();
+    }
+
+    private void match(Map<String, Technology> signatures, String value, String description) {
+        Technology technology = find(signatures, value);
+        if (technology != null) {
+            detect(technology, description);
+        }
+    }
+
+    private static Technology find(Map<String, Technology> signatures, String value) {
+        for (Map.Entry<String, Technology> signature : signatures.entrySet()) {
+            if (value.contains(signature.getKey())) {
+                return signature.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(List<String> tokens, String value) {
+        for (String token : tokens) {
+            if (value.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void detect(Technology technology, String description) {
+        Set<String> found = evidence.computeIfAbsent(technology, key -> new TreeSet<>());
+        // A few examples are enough to explain a detection
+        if (found.size() < 3) {
+            found.add(description);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getTechnologies().toString();
+    }
+}
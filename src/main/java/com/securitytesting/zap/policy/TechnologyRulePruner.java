@@ -0,0 +1,186 @@
+package com.securitytesting.zap.policy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Prunes active scan rules that cannot apply to a target's technologies from a scan policy,
+ * for instance LDAP injection or ASP-specific checks against a Node.js JSON API.
+ * <p>
+ * A rule requires any one of a set of technologies, per category. It is pruned only when the
+ * fingerprint positively identified the target's technologies in one of those categories and
+ * none of them is one the rule requires; a category the fingerprint knows nothing about never
+ * prunes anything. Rules without requirements always run.
+ * <p>
+ * The content types of responses never prune a rule: they show what a target returns, not what
+ * it parses, so an HTML or JSON application may still process XML or server side includes.
+ * <p>
+ * A pruned policy is named after the policy and a digest of the rules it runs. Scans of targets
+ * with different technologies may run at once against one ZAP instance, and each pushes its
+ * policy to ZAP by name before starting, so they must never share a name for different rules.
+ */
+public class TechnologyRulePruner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TechnologyRulePruner.class);
+
+    private final Map<Integer, Set<Technology>> requirements;
+
+    private TechnologyRulePruner(Builder builder) {
+        this.requirements = Collections.unmodifiableMap(new TreeMap<>(builder.requirements));
+    }
+
+    /**
+     * Gets the rules of a set that cannot apply to a target.
+     *
+     * @param rules The rules to check
+     * @param fingerprint The target's fingerprint
+     * @return The inapplicable rules
+     */
+    public RuleSet inapplicableRules(RuleSet rules, TechnologyFingerprint fingerprint) {
+        return RuleSet.of(rules.stream()
+                .filter(ruleId -> !isApplicable(ruleId, fingerprint))
+                .toArray());
+    }
+
+    /**
+     * Checks whether a rule can apply to a target.
+     *
+     * @param ruleId The rule ID
+     * @param fingerprint The target's fingerprint
+     * @return False if the target positively uses none of the platforms or servers the rule requires
+     */
+    public boolean isApplicable(int ruleId, TechnologyFingerprint fingerprint) {
+        Set<Technology> required = requirements.get(ruleId);
+        if (required == null) {
+            return true;
+        }
+
+        for (Technology.Category category : Technology.Category.values()) {
+            boolean requiresCategory = false;
+            boolean satisfied = false;
+            for (Technology technology : required) {
+                if (technology.getCategory() == category) {
+                    requiresCategory = true;
+                    satisfied |= fingerprint.isDetected(technology);
+                }
+            }
+            if (requiresCategory && !satisfied && category != Technology.Category.CONTENT
+                    && fingerprint.isKnown(category)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prunes the rules that cannot apply to a target from a policy.
+     *
+     * @param policy The policy
+     * @param fingerprint The target's fingerprint
+     * @return The pruned policy, or the policy itself if no rule was pruned
+     */
+    public ScanPolicy prune(ScanPolicy policy, TechnologyFingerprint fingerprint) {
+        // Rules the policy runs: its enabled rules, or every rule with requirements that it does not disable
+        RuleSet enabled = policy.getEnabledRuleSet();
+        RuleSet candidates = !enabled.isEmpty() ? enabled
+                : RuleSet.of(requirements.keySet()).minus(policy.getDisabledRuleSet());
+
+        RuleSet pruned = inapplicableRules(candidates, fingerprint);
+        if (pruned.isEmpty()) {
+            return policy;
+        }
+        if (!enabled.isEmpty() && pruned.size() == enabled.size()) {
+            // A policy without enabled rules would run every scanner, so a mismatch this complete is not trusted
+            LOGGER.warn("None of the rules of policy '{}' apply to technologies {}, keeping them all",
+                    policy.getName(), fingerprint);
+            return policy;
+        }
+
+        ScanPolicy.Builder builder = new ScanPolicy.Builder(policy.getName())
+                .description(policy.getDescription())
+                .tuned(policy.isTuned())
+                .strength(policy.getStrength())
+                .threshold(policy.getThreshold());
+        if (!enabled.isEmpty()) {
+            builder.enableRules(enabled.minus(pruned));
+        }
+        builder.disableRules(policy.getDisabledRuleSet());
+        if (enabled.isEmpty()) {
+            builder.disableRules(pruned);
+        }
+        policy.getRuleStrengths().forEach((ruleId, strength) -> {
+            if (!pruned.contains(ruleId)) {
+                builder.ruleStrength(ruleId, strength);
+            }
+        });
+
+        pruned.forEach(ruleId -> LOGGER.debug("Pruned rule {}: requires one of {}", ruleId, requirements.get(ruleId)));
+        LOGGER.info("Pruned policy '{}' for technologies {}: {} rule(s) removed", policy.getName(), fingerprint,
+                pruned.size());
+        ScanPolicy prunedPolicy = builder.build();
+        prunedPolicy.setName(policy.getName() + " (Pruned " + prunedPolicy.getRulesDigest() + ")");
+        return prunedPolicy;
+    }
+
+    /**
+     * Gets the technologies each rule requires.
+     *
+     * @return The required technologies, by rule ID
+     */
+    public Map<Integer, Set<Technology>> getRequirements() {
+        return requirements;
+    }
+
+    /**
+     * Builder for TechnologyRulePruner. It starts from the requirements of the rules of the
+     * predefined policies that only apply to some technologies.
+     */
+    public static class Builder {
+        private final Map<Integer, Set<Technology>> requirements = new TreeMap<>();
+
+        /**
+         * Creates a new builder with the default rule requirements.
+         */
+        public Builder() {
+            // LDAP injection: LDAP directories are queried from enterprise stacks
+            require(40015, Technology.ASP_NET, Technology.JAVA, Technology.PHP);
+            // Server side code injection: PHP and ASP evaluation
+            require(90019, Technology.PHP, Technology.ASP_NET);
+            // Padding oracle: encrypted view state and tokens of ASP.NET and Java frameworks
+            require(90024, Technology.ASP_NET, Technology.JAVA);
+        }
+
+        /**
+         * Sets the technologies a rule requires, replacing any earlier requirements of the rule.
+         *
+         * @param ruleId The rule ID
+         * @param technologies The technologies, any one of which per category makes the rule apply
+         * @return This builder
+         */
+        public Builder require(int ruleId, Technology... technologies) {
+            if (technologies.length == 0) {
+                requirements.remove(ruleId);
+            } else {
+                Set<Technology> required = EnumSet.noneOf(Technology.class);
+                Collections.addAll(required, technologies);
+                requirements.put(ruleId, Collections.unmodifiableSet(required));
+            }
+            return this;
+        }
+
+        /**
+         * Builds the pruner.
+         *
+         * @return The pruner
+         */
+        public TechnologyRulePruner build() {
+            return new TechnologyRulePruner(this);
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class Alert {
     private int cweId;
     private int wascId;
     private String otherInfo;
+    private String pluginId;
     
     /**
      * Creates a new alert with the specified name and severity.
@@ -49,6 +50,7 @@ public class Alert {
         this.cweId = builder.cweId;
         this.wascId = builder.wascId;
         this.otherInfo = builder.otherInfo;
+        this.pluginId = builder.pluginId;
     }
     
     /**
@@ -285,6 +287,24 @@ public class Alert {
         this.otherInfo = otherInfo;
     }
     
+    /**
+     * Gets the ID of the scan rule that raised the alert.
+     * 
+     * @return The scan rule ID, or null if unknown
+     */
+    public String getPluginId() {
+        return pluginId;
+    }
+    
+    /**
+     * Sets the ID of the scan rule that raised the alert.
+     * 
+     * @param pluginId The scan rule ID
+     */
+    public void setPluginId(String pluginId) {
+        this.pluginId = pluginId;
+    }
+    
     /**
      * Creates a summary of the alert.
      * 
@@ -351,6 +371,7 @@ public class Alert {
         private int cweId;
         private int wascId;
         private String otherInfo;
+        private String pluginId;
         
         /**
          * Creates a new builder with the specified name.
@@ -494,6 +515,17 @@ public class Alert {
             return this;
         }
         
+        /**
+         * Sets the ID of the scan rule that raised the alert.
+         * 
+         * @param pluginId The scan rule ID
+         * @return This builder
+         */
+        public Builder pluginId(String pluginId) {
+            this.pluginId = pluginId;
+            return this;
+        }
+        
         /**
          * Builds the alert.
          * 
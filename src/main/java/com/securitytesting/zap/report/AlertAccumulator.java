@@ -0,0 +1,163 @@
+package com.securitytesting.zap.report;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the alerts of a scan from several threads at once, such as the shards of a scan or
+ * parallel page fetches, and freezes them into an immutable {@link ScanResult}.
+ * <p>
+ * Alerts are appended to one of several stripes picked by the adding thread, each with its own
+ * lock, so threads rarely wait on each other, and severities are counted with {@link LongAdder}s.
+ * The alerts of one thread keep their order; the order between threads is unspecified.
+ */
+public class AlertAccumulator {
+
+    private final Stripe[] stripes;
+    private final LongAdder[] counts = new LongAdder[Severity.values().length];
+    private volatile boolean frozen;
+
+    /**
+     * Creates a new accumulator with four stripes per available processor.
+     */
+    public AlertAccumulator() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new accumulator.
+     *
+     * @param stripeCount The number of stripes, rounded up to a power of two
+     */
+    public AlertAccumulator(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds an alert.
+     *
+     * @param alert The alert to add
+     * @throws IllegalStateException If the accumulator is frozen
+     */
+    public void add(Alert alert) {
+        if (alert == null) {
+            return;
+        }
+
+        Stripe stripe = stripe();
+        synchronized (stripe) {
+            checkNotFrozen();
+            stripe.alerts.add(alert);
+        }
+        counts[alert.getSeverity().ordinal()].increment();
+    }
+
+    /**
+     * Adds alerts, taking the lock of the thread's stripe once.
+     *
+     * @param alerts The alerts to add
+     * @throws IllegalStateException If the accumulator is frozen
+     */
+    public void addAll(Collection<Alert> alerts) {
+        Stripe stripe = stripe();
+        synchronized (stripe) {
+            checkNotFrozen();
+            stripe.alerts.ensureCapacity(stripe.alerts.size() + alerts.size());
+            for (Alert alert : alerts) {
+                if (alert != null) {
+                    stripe.alerts.add(alert);
+                    counts[alert.getSeverity().ordinal()].increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of alerts of a severity added so far. While alerts are added the count is
+     * only an estimate.
+     *
+     * @param severity The severity
+     * @return The number of alerts
+     */
+    public long getCount(Severity severity) {
+        return counts[severity.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of alerts added so far. While alerts are added the count is only an
+     * estimate.
+     *
+     * @return The number of alerts
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (LongAdder count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Freezes the accumulated alerts into a scan result that cannot be changed. Alerts added
+     * once the accumulator is frozen are rejected.
+     *
+     * @param targetUrl The target URL
+     * @param scanDate The scan date
+     * @param scanDurationMs The scan duration in milliseconds
+     * @return The frozen scan result, with its counts taken from the alerts
+     * @throws IllegalStateException If the accumulator is already frozen
+     */
+    public ScanResult freeze(String targetUrl, Date scanDate, long scanDurationMs) {
+        List<List<Alert>> parts = new ArrayList<>(stripes.length);
+        synchronized (this) {
+            checkNotFrozen();
+            frozen = true;
+            // Adds that took a stripe's lock before it was frozen are in its part
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    parts.add(stripe.alerts);
+                }
+            }
+        }
+
+        ScanResult.Builder builder = new ScanResult.Builder()
+                .targetUrl(targetUrl)
+                .scanDate(scanDate)
+                .scanDurationMs(scanDurationMs)
+                .frozen();
+        for (List<Alert> part : parts) {
+            part.forEach(builder::addAlert);
+        }
+        return builder.build();
+    }
+
+    private Stripe stripe() {
+        // Spread thread IDs, which are sequential, over the stripes
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Alert accumulator is frozen");
+        }
+    }
+
+    /**
+     * Alerts added by the threads mapped to one stripe, guarded by the stripe's lock.
+     */
+    private static final class Stripe {
+        private final ArrayList<Alert> alerts = new ArrayList<>();
+    }
+}
@@ -5,17 +5,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zaproxy.clientapi.core.ApiResponse;
 import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
 import org.zaproxy.clientapi.core.ClientApi;
 import org.zaproxy.clientapi.core.ClientApiException;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Generates reports from scan results.
@@ -33,10 +41,12 @@ public class ReportGenerator {
         XML,
         JSON,
         PDF,
-        MD
+        MD,
+        SARIF
     }
     
     private final ClientApi zapClient;
+    private volatile SuppressionBaseline suppressionBaseline;
     
     /**
      * Creates a new report generator with the specified ZAP client.
@@ -47,6 +57,16 @@ public class ReportGenerator {
         this.zapClient = zapClient;
     }
     
+    /**
+     * Sets the baseline of alerts to leave out of the scan results generated from now on.
+     * Suppressed alerts are skipped as they are read from ZAP, before they are parsed.
+     * 
+     * @param suppressionBaseline The suppression baseline, or null to keep all alerts
+     */
+    public void setSuppressionBaseline(SuppressionBaseline suppressionBaseline) {
+        this.suppressionBaseline = suppressionBaseline;
+    }
+    
     /**
      * Generates a scan result from alerts.
      * 
@@ -109,6 +129,74 @@ public class ReportGenerator {
         }
     }
     
+    /**
+     * Generates a scan result from a specific set of alerts, such as those raised by one active scan.
+     * 
+     * @param targetUrl The target URL
+     * @param alertIds The IDs of the alerts to include
+     * @param scanDurationMs The scan duration in milliseconds
+     * @return The scan result
+     * @throws ZapScannerException If generation fails
+     */
+    public ScanResult generateScanResult(String targetUrl, List<String> alertIds, long scanDurationMs) 
+            throws ZapScannerException {
+        LOGGER.info("Generating scan result for {} from {} alerts", targetUrl, alertIds.size());
+        
+        try {
+            ScanResult.Builder builder = new ScanResult.Builder()
+                    .targetUrl(targetUrl)
+                    .scanDate(new Date())
+                    .scanDurationMs(scanDurationMs);
+            
+            for (String alertId : alertIds) {
+                ApiResponse response = zapClient.core.alert(alertId);
+                if (!isSuppressed(response)) {
+                    builder.addAlert(parseAlert(response));
+                }
+            }
+            
+            ScanResult result = builder.build();
+            LOGGER.info("Scan result generated with {} alerts", result.getTotalAlerts());
+            return result;
+        } catch (ClientApiException e) {
+            LOGGER.error("Failed to generate scan result", e);
+            throw new ZapScannerException("Failed to generate scan result: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Generates a scan result from the alerts raised by active scans, leaving out alerts ZAP
+     * holds for the target from earlier scans.
+     * 
+     * @param targetUrl The target URL
+     * @param scanIds The IDs of the active scans
+     * @param scanDurationMs The scan duration in milliseconds
+     * @return The scan result
+     * @throws ZapScannerException If generation fails
+     */
+    public ScanResult generateActiveScanResult(String targetUrl, Collection<Integer> scanIds, long scanDurationMs) 
+            throws ZapScannerException {
+        Set<String> alertIds = new LinkedHashSet<>();
+        for (Integer scanId : scanIds) {
+            try {
+                ApiResponse response = zapClient.ascan.alertsIds(Integer.toString(scanId));
+                String value = ((ApiResponseElement) response).getValue();
+                if (value != null) {
+                    for (String alertId : value.split(",")) {
+                        if (!alertId.trim().isEmpty()) {
+                            alertIds.add(alertId.trim());
+                        }
+                    }
+                }
+            } catch (ClientApiException e) {
+                LOGGER.error("Failed to get alerts for scan ID: {}", scanId, e);
+                throw new ZapScannerException("Failed to get alerts for scan ID " + scanId + ": " + e.getMessage(), e);
+            }
+        }
+        
+        return generateScanResult(targetUrl, new ArrayList<>(alertIds), scanDurationMs);
+    }
+    
     /**
      * Generates a report from a scan result.
      * 
@@ -121,6 +209,13 @@ public class ReportGenerator {
         LOGGER.info("Generating {} report to {}", format, outputPath);
         
         try {
+            if (format == ReportFormat.SARIF) {
+                // SARIF is streamed to the file rather than built in memory
+                writeSarifReport(result, outputPath);
+                LOGGER.info("Report generated successfully");
+                return;
+            }
+            
             // Generate report description
             String description = "Scan of " + result.getTargetUrl() + " completed on " + result.getScanDate();
             
@@ -166,6 +261,145 @@ public class ReportGenerator {
         }
     }
     
+    /**
+     * Generates a profiling report showing which rules and hosts consumed an active scan's time.
+     * 
+     * @param profile The scan profile
+     * @param format The format of the report: MD for a table, or JSON
+     * @param outputPath The output path for the report
+     * @throws ZapScannerException If generation fails
+     */
+    public void generateProfilingReport(ScanProfile profile, ReportFormat format, String outputPath) 
+            throws ZapScannerException {
+        LOGGER.info("Generating {} profiling report to {}", format, outputPath);
+        
+        if (profile == null) {
+            throw new ZapScannerException("No scan profile to report");
+        }
+        
+        String reportData;
+        switch (format) {
+            case MD:
+                reportData = profile.toTable();
+                break;
+            case JSON:
+                reportData = profile.toJson();
+                break;
+            default:
+                throw new ZapScannerException("Unsupported profiling report format: " + format);
+        }
+        
+        try {
+            writeReportToFile(reportData, outputPath);
+        } catch (IOException e) {
+            LOGGER.error("Failed to generate profiling report", e);
+            throw new ZapScannerException("Failed to generate profiling report: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Generates a report of only what changed between two scans of a target: the new and the
+     * fixed alerts.
+     * 
+     * @param diff The diff of the two scans
+     * @param format The format of the report: MD for tables, or JSON
+     * @param outputPath The output path for the report
+     * @throws ZapScannerException If generation fails
+     */
+    public void generateDiffReport(ScanResultDiff diff, ReportFormat format, String outputPath) 
+            throws ZapScannerException {
+        LOGGER.info("Generating {} diff report to {}", format, outputPath);
+        
+        String reportData;
+        switch (format) {
+            case MD:
+                reportData = diff.toMarkdown();
+                break;
+            case JSON:
+                reportData = diff.toJson();
+                break;
+            default:
+                throw new ZapScannerException("Unsupported diff report format: " + format);
+        }
+        
+        try {
+            writeReportToFile(reportData, outputPath);
+        } catch (IOException e) {
+            LOGGER.error("Failed to generate diff report", e);
+            throw new ZapScannerException("Failed to generate diff report: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Saves a scan result in the binary encoding of {@link ScanResultCodec}, so it can be
+     * loaded back for later reporting or by another worker.
+     * 
+     * @param result The scan result
+     * @param outputPath The output path
+     * @throws ZapScannerException If saving fails
+     */
+    public void saveScanResult(ScanResult result, String outputPath) throws ZapScannerException {
+        LOGGER.info("Saving scan result to {}", outputPath);
+        
+        try {
+            File file = new File(outputPath);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                ScanResultCodec.encode(result, out);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to save scan result", e);
+            throw new ZapScannerException("Failed to save scan result: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Loads a scan result saved by {@link #saveScanResult(ScanResult, String)}.
+     * 
+     * @param inputPath The input path
+     * @return The scan result
+     * @throws ZapScannerException If loading fails
+     */
+    public ScanResult loadScanResult(String inputPath) throws ZapScannerException {
+        LOGGER.info("Loading scan result from {}", inputPath);
+        
+        try (InputStream in = Files.newInputStream(Paths.get(inputPath))) {
+            return ScanResultCodec.decode(in);
+        } catch (IOException e) {
+            LOGGER.error("Failed to load scan result", e);
+            throw new ZapScannerException("Failed to load scan result: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Generates a SARIF report from a scan result saved by {@link #saveScanResult(ScanResult, String)},
+     * streaming its alerts from the saved file to the report one at a time, so even the results of
+     * very large scans are converted in bounded memory.
+     * 
+     * @param inputPath The path of the saved scan result
+     * @param outputPath The output path for the report
+     * @throws ZapScannerException If generation fails
+     */
+    public void generateSarifReport(String inputPath, String outputPath) throws ZapScannerException {
+        LOGGER.info("Generating SARIF report from {} to {}", inputPath, outputPath);
+        
+        try (ScanResultCodec.Reader reader = new ScanResultCodec.Reader(Files.newInputStream(Paths.get(inputPath)));
+                OutputStream out = newReportStream(outputPath);
+                SarifWriter writer = new SarifWriter(out)) {
+            writer.startRun(reader.getTargetUrl());
+            for (Alert alert = reader.nextAlert(); alert != null; alert = reader.nextAlert()) {
+                writer.writeResult(alert);
+            }
+            writer.endRun();
+        } catch (IOException e) {
+            LOGGER.error("Failed to generate SARIF report", e);
+            throw new ZapScannerException("Failed to generate SARIF report: " + e.getMessage(), e);
+        }
+        LOGGER.info("Report written to {}", outputPath);
+    }
+    
     /**
      * Exports a report from a scan result.
      * 
@@ -189,13 +423,95 @@ public class ReportGenerator {
      */
     private List<Alert> parseAlerts(ApiResponse response) {
         List<Alert> alerts = new ArrayList<>();
+        if (!(response instanceof ApiResponseList)) {
+            return alerts;
+        }
         
-        // In a real implementation, we would parse the API response to extract alerts
-        // For this stub, we'll return an empty list
-        
+        // Iterate the list lazily, so only one alert of the response is parsed at a time
+        int suppressed = 0;
+        for (ApiResponse item : (ApiResponseList) response) {
+            if (isSuppressed(item)) {
+                suppressed++;
+                continue;
+            }
+            Alert alert = parseAlert(item);
+            if (alert != null) {
+                alerts.add(alert);
+            }
+        }
+        if (suppressed > 0) {
+            LOGGER.info("Suppressed {} alerts of the baseline", suppressed);
+        }
         return alerts;
     }
     
+    /**
+     * Checks whether an alert of an API response is suppressed by the baseline. Only the values
+     * the baseline matches on are read.
+     * 
+     * @param response The API response
+     * @return True if the response is a suppressed alert, false otherwise
+     */
+    private boolean isSuppressed(ApiResponse response) {
+        SuppressionBaseline baseline = suppressionBaseline;
+        if (baseline == null || !(response instanceof ApiResponseSet)) {
+            return false;
+        }
+        
+        ApiResponseSet values = (ApiResponseSet) response;
+        String name = values.getStringValue("alert") != null ? values.getStringValue("alert") : values.getStringValue("name");
+        return name != null && baseline.isSuppressed(name, values.getStringValue("pluginId"), 
+                values.getStringValue("url"), values.getStringValue("param"));
+    }
+    
+    /**
+     * Parses a single alert from an API response.
+     * 
+     * @param response The API response
+     * @return The alert, or null if the response does not contain one
+     */
+    private Alert parseAlert(ApiResponse response) {
+        if (!(response instanceof ApiResponseSet)) {
+            return null;
+        }
+        
+        ApiResponseSet values = (ApiResponseSet) response;
+        String name = values.getStringValue("alert") != null ? values.getStringValue("alert") : values.getStringValue("name");
+        if (name == null) {
+            return null;
+        }
+        return new Alert.Builder(name)
+                .alertId(intValue(values, "id"))
+                .severity(Severity.fromString(values.getStringValue("risk")))
+                .description(values.getStringValue("description"))
+                .url(values.getStringValue("url"))
+                .attack(values.getStringValue("attack"))
+                .evidence(values.getStringValue("evidence"))
+                .solution(values.getStringValue("solution"))
+                .reference(values.getStringValue("reference"))
+                .param(values.getStringValue("param"))
+                .cweId(intValue(values, "cweid"))
+                .wascId(intValue(values, "wascid"))
+                .otherInfo(values.getStringValue("other"))
+                .pluginId(values.getStringValue("pluginId"))
+                .build();
+    }
+    
+    /**
+     * Gets an integer value of an alert, such as its CWE ID, which ZAP leaves empty if unknown.
+     * 
+     * @param values The values of the alert
+     * @param key The key
+     * @return The value, or 0 if the alert has no integer value with the key
+     */
+    private static int intValue(ApiResponseSet values, String key) {
+        try {
+            return values.getIntValue(key);
+        } catch (ClientApiException e) {
+            return 0;
+        }
+    }
+    
     /**
      * Generates an HTML report from a scan result.
      * 
@@ -475,6 +791,36 @@ public class ReportGenerator {
         return sb.toString();
     }
     
+    /**
+     * Writes a scan result as a SARIF report, streaming it to the file.
+     * 
+     * @param result The scan result
+     * @param outputPath The output path
+     * @throws IOException If writing fails
+     */
+    private void writeSarifReport(ScanResult result, String outputPath) throws IOException {
+        try (OutputStream out = newReportStream(outputPath)) {
+            SarifWriter.write(result, out);
+        }
+        
+        LOGGER.info("Report written to {}", outputPath);
+    }
+    
+    /**
+     * Opens a buffered stream to write a report to, creating its parent directories.
+     * 
+     * @param outputPath The output path for the report
+     * @return The stream
+     * @throws IOException If the file cannot be opened
+     */
+    private OutputStream newReportStream(String outputPath) throws IOException {
+        File outputFile = new File(outputPath);
+        if (outputFile.getParentFile() != null && !outputFile.getParentFile().exists()) {
+            outputFile.getParentFile().mkdirs();
+        }
+        return new BufferedOutputStream(Files.newOutputStream(outputFile.toPath()));
+    }
+    
     /**
      * Writes a report to a file.
      * 
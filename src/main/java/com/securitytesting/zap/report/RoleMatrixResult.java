@@ -0,0 +1,122 @@
+package com.securitytesting.zap.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Results of a role matrix scan.
+ * Holds the scan result of each role together with a merged result in which every
+ * distinct alert appears once and is attributed to the roles that raised it.
+ */
+public class RoleMatrixResult {
+
+    private final Map<String, ScanResult> resultsByRole;
+    private final Map<String, Set<String>> rolesByAlert;
+    private final ScanResult mergedResult;
+
+    /**
+     * Creates a new role matrix result.
+     *
+     * @param targetUrl The target URL
+     * @param resultsByRole The scan results keyed by role name, in scan order
+     * @param scanDurationMs The duration of the whole role matrix scan in milliseconds
+     */
+    public RoleMatrixResult(String targetUrl, Map<String, ScanResult> resultsByRole, long scanDurationMs) {
+        this.resultsByRole = new LinkedHashMap<>(resultsByRole);
+        this.rolesByAlert = new LinkedHashMap<>();
+
+        ScanResult.Builder builder = new ScanResult.Builder()
+                .targetUrl(targetUrl)
+                .scanDurationMs(scanDurationMs);
+
+        for (Map.Entry<String, ScanResult> entry : resultsByRole.entrySet()) {
+            for (Alert alert : entry.getValue().getAlerts()) {
+                Set<String> roles = rolesByAlert.get(alertKey(alert));
+
+                if (roles == null) {
+                    roles = new LinkedHashSet<>();
+                    rolesByAlert.put(alertKey(alert), roles);
+                    builder.addAlert(alert);
+                }
+
+                roles.add(entry.getKey());
+            }
+        }
+
+        this.mergedResult = builder.build();
+    }
+
+    /**
+     * Gets the names of the scanned roles.
+     *
+     * @return The role names, in scan order
+     */
+    public Set<String> getRoles() {
+        return Collections.unmodifiableSet(resultsByRole.keySet());
+    }
+
+    /**
+     * Gets the scan result of a role.
+     *
+     * @param role The role name
+     * @return The scan result, or null if the role was not scanned
+     */
+    public ScanResult getResult(String role) {
+        return resultsByRole.get(role);
+    }
+
+    /**
+     * Gets the merged scan result with each distinct alert included once.
+     *
+     * @return The merged scan result
+     */
+    public ScanResult getMergedResult() {
+        return mergedResult;
+    }
+
+    /**
+     * Gets the roles that raised an alert.
+     *
+     * @param alert The alert
+     * @return The role names, or an empty set if no role raised the alert
+     */
+    public Set<String> getRolesForAlert(Alert alert) {
+        Set<String> roles = rolesByAlert.get(alertKey(alert));
+        return roles != null ? Collections.unmodifiableSet(roles) : Collections.emptySet();
+    }
+
+    /**
+     * Gets the alerts raised only when scanning as a role.
+     * These are the usual starting point for access-control review.
+     *
+     * @param role The role name
+     * @return The alerts raised by the role and no other role
+     */
+    public List<Alert> getAlertsOnlyFor(String role) {
+        List<Alert> alerts = new ArrayList<>();
+
+        for (Alert alert : mergedResult.getAlerts()) {
+            Set<String> roles = rolesByAlert.get(alertKey(alert));
+            if (roles.size() == 1 && roles.contains(role)) {
+                alerts.add(alert);
+            }
+        }
+
+        return alerts;
+    }
+
+    /**
+     * Computes the key identifying the same finding across roles.
+     *
+     * @param alert The alert
+     * @return The alert key
+     */
+    private static String alertKey(Alert alert) {
+        return alert.getName() + '\n' + alert.getUrl() + '\n' + alert.getParam() + '\n' + alert.getSeverity();
+    }
+}
@@ -0,0 +1,277 @@
+package com.securitytesting.zap.report;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming writer of SARIF 2.1.0 logs, the format code-scanning dashboards consume.
+ * <p>
+ * Runs and their results are written as they come, so memory stays bounded by the number of
+ * distinct rules rather than the number of alerts. Each alert name is one rule, described
+ * once in the run's tool section from its first alert; results refer to it by index. As
+ * members of a JSON object may come in any order, a run's results are written before its
+ * tool section, once all its rules are known.
+ */
+public class SarifWriter implements Closeable {
+
+    private static final String SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+    private static final String VERSION = "2.1.0";
+    private static final String TOOL_NAME = "OWASP ZAP";
+    private static final String TOOL_URI = "https://www.zaproxy.org/";
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+    private final Map<String, Integer> ruleIndexes = new HashMap<>();
+    private final List<Alert> rules = new ArrayList<>();
+    private boolean inRun;
+    private boolean closed;
+
+    /**
+     * Creates a new writer and starts the log.
+     *
+     * @param out The stream to write to, left open when the writer is closed
+     * @throws IOException If writing fails
+     */
+    public SarifWriter(OutputStream out) throws IOException {
+        this.generator = FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeStringField("$schema", SCHEMA);
+        generator.writeStringField("version", VERSION);
+        generator.writeArrayFieldStart("runs");
+    }
+
+    /**
+     * Writes a scan result as a SARIF log of one run.
+     *
+     * @param result The scan result
+     * @param out The stream to write to
+     * @throws IOException If writing fails
+     */
+    public static void write(ScanResult result, OutputStream out) throws IOException {
+        try (SarifWriter writer = new SarifWriter(out)) {
+            writer.startRun(result.getTargetUrl());
+            for (Alert alert : result.getAlerts()) {
+                writer.writeResult(alert);
+            }
+            writer.endRun();
+        }
+    }
+
+    /**
+     * Starts a run, the results of one scan.
+     *
+     * @param targetUrl The URL of the scanned target, or null
+     * @throws IOException If writing fails
+     * @throws IllegalStateException If a run is already started
+     */
+    public void startRun(String targetUrl) throws IOException {
+        if (inRun || closed) {
+            throw new IllegalStateException("Cannot start a run " + (closed ? "after closing" : "within a run"));
+        }
+        inRun = true;
+
+        generator.writeStartObject();
+        if (targetUrl != null) {
+            generator.writeObjectFieldStart("automationDetails");
+            generator.writeStringField("id", targetUrl + "/");
+            generator.writeEndObject();
+        }
+        generator.writeArrayFieldStart("results");
+    }
+
+    /**
+     * Writes an alert as a result of the current run.
+     *
+     * @param alert The alert
+     * @throws IOException If writing fails
+     * @throws IllegalStateException If no run is started
+     */
+    public void writeResult(Alert alert) throws IOException {
+        if (!inRun) {
+            throw new IllegalStateException("No run started");
+        }
+
+        int ruleIndex = ruleIndex(alert);
+        generator.writeStartObject();
+        generator.writeStringField("ruleId", alert.getName());
+        generator.writeNumberField("ruleIndex", ruleIndex);
+        generator.writeStringField("level", level(alert.getSeverity()));
+
+        generator.writeObjectFieldStart("message");
+        generator.writeStringField("text", message(alert));
+        generator.writeEndObject();
+
+        if (alert.getUrl() != null) {
+            generator.writeArrayFieldStart("locations");
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("physicalLocation");
+            generator.writeObjectFieldStart("artifactLocation");
+            generator.writeStringField("uri", alert.getUrl());
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeEndArray();
+        }
+
+        generator.writeObjectFieldStart("partialFingerprints");
+        generator.writeStringField("alertFingerprint/v1", ScanResultMerger.fingerprint(alert));
+        generator.writeEndObject();
+
+        if (alert.getParam() != null || alert.getAttack() != null || alert.getEvidence() != null) {
+            generator.writeObjectFieldStart("properties");
+            writeOptionalField("param", alert.getParam());
+            writeOptionalField("attack", alert.getAttack());
+            writeOptionalField("evidence", alert.getEvidence());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Ends the current run, writing the rules its results refer to.
+     *
+     * @throws IOException If writing fails
+     * @throws IllegalStateException If no run is started
+     */
+    public void endRun() throws IOException {
+        if (!inRun) {
+            throw new IllegalStateException("No run started");
+        }
+        inRun = false;
+
+        generator.writeEndArray();
+        generator.writeObjectFieldStart("tool");
+        generator.writeObjectFieldStart("driver");
+        generator.writeStringField("name", TOOL_NAME);
+        generator.writeStringField("informationUri", TOOL_URI);
+        generator.writeArrayFieldStart("rules");
+        for (Alert alert : rules) {
+            writeRule(alert);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeEndObject();
+        ruleIndexes.clear();
+        rules.clear();
+    }
+
+    /**
+     * Ends the log, ending the current run if one is started, and flushes it.
+     *
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (inRun) {
+            endRun();
+        }
+        closed = true;
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private int ruleIndex(Alert alert) {
+        return ruleIndexes.computeIfAbsent(alert.getName(), name -> {
+            rules.add(alert);
+            return rules.size() - 1;
+        });
+    }
+
+    private void writeRule(Alert alert) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", alert.getName());
+        generator.writeStringField("name", alert.getName());
+
+        generator.writeObjectFieldStart("shortDescription");
+        generator.writeStringField("text", alert.getName());
+        generator.writeEndObject();
+
+        if (alert.getDescription() != null) {
+            generator.writeObjectFieldStart("fullDescription");
+            generator.writeStringField("text", alert.getDescription());
+            generator.writeEndObject();
+        }
+        if (alert.getSolution() != null) {
+            generator.writeObjectFieldStart("help");
+            generator.writeStringField("text", alert.getSolution());
+            generator.writeEndObject();
+        }
+        String helpUri = firstLine(alert.getReference());
+        if (helpUri != null && helpUri.startsWith("http")) {
+            generator.writeStringField("helpUri", helpUri);
+        }
+
+        generator.writeObjectFieldStart("defaultConfiguration");
+        generator.writeStringField("level", level(alert.getSeverity()));
+        generator.writeEndObject();
+
+        generator.writeObjectFieldStart("properties");
+        generator.writeStringField("security-severity", securitySeverity(alert.getSeverity()));
+        generator.writeArrayFieldStart("tags");
+        generator.writeString("security");
+        if (alert.getCweId() > 0) {
+            generator.writeString("external/cwe/cwe-" + alert.getCweId());
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private void writeOptionalField(String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private static String message(Alert alert) {
+        return alert.getUrl() != null ? alert.getName() + " at " + alert.getUrl() : alert.getName();
+    }
+
+    private static String firstLine(String text) {
+        if (text == null) {
+            return null;
+        }
+        int end = text.indexOf('\n');
+        return (end >= 0 ? text.substring(0, end) : text).trim();
+    }
+
+    private static String level(Severity severity) {
+        switch (severity) {
+            case HIGH:
+                return "error";
+            case MEDIUM:
+                return "warning";
+            default:
+                return "note";
+        }
+    }
+
+    private static String securitySeverity(Severity severity) {
+        switch (severity) {
+            case HIGH:
+                return "8.0";
+            case MEDIUM:
+                return "5.0";
+            case LOW:
+                return "3.0";
+            default:
+                return "0.0";
+        }
+    }
+}
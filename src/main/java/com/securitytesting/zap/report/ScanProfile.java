@@ -0,0 +1,396 @@
+package com.securitytesting.zap.report;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Where the time of one or more active scans went: for each scan, host and rule, the rule's
+ * status, the time it ran, the requests it sent and the alerts it raised, as reported by
+ * ZAP's scanProgress.
+ * <p>
+ * The profile renders as a table, for reading why a scan ran out of budget, or as JSON.
+ */
+public class ScanProfile {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Positions of the values in a plugin entry of ZAP's scanProgress response
+    private static final int PLUGIN_NAME = 0;
+    private static final int PLUGIN_ID = 1;
+    private static final int PLUGIN_STATUS = 3;
+    private static final int PLUGIN_TIME = 4;
+    private static final int PLUGIN_REQUESTS = 5;
+    private static final int PLUGIN_ALERTS = 6;
+
+    private static final int TOP_RULES = 20;
+
+    private final List<RuleProfile> rules;
+
+    /**
+     * Creates a new scan profile.
+     *
+     * @param rules The rule profiles
+     */
+    public ScanProfile(List<RuleProfile> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+    }
+
+    /**
+     * Reads the profile of a scan from ZAP's scanProgress response, which lists each host
+     * scanned followed by its plugins as {@code [name, id, quality, status, timeInMs, reqCount, alertCount]}.
+     *
+     * @param scanId The scan ID
+     * @param scanProgress The scanProgress response
+     * @return The scan profile
+     */
+    public static ScanProfile fromScanProgress(int scanId, ApiResponse scanProgress) {
+        List<RuleProfile> rules = new ArrayList<>();
+        collect(scanId, null, scanProgress, rules);
+        return new ScanProfile(rules);
+    }
+
+    /**
+     * Combines the profiles of several scans.
+     *
+     * @param profiles The scan profiles
+     * @return The combined profile
+     */
+    public static ScanProfile merge(Collection<ScanProfile> profiles) {
+        List<RuleProfile> rules = new ArrayList<>();
+        profiles.forEach(profile -> rules.addAll(profile.rules));
+        return new ScanProfile(rules);
+    }
+
+    /**
+     * Gets the profile of every rule per scan and host.
+     *
+     * @return The rule profiles
+     */
+    public List<RuleProfile> getRules() {
+        return rules;
+    }
+
+    /**
+     * Gets the time all rules ran, summed over scans and hosts.
+     *
+     * @return The total time in milliseconds
+     */
+    public long getTotalTimeInMs() {
+        long total = 0;
+        for (RuleProfile rule : rules) {
+            total += rule.getTimeInMs();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the profile of each rule summed over scans and hosts, the most time-consuming first.
+     *
+     * @return The rule profiles, without scan ID and host
+     */
+    public List<RuleProfile> getRulesByTime() {
+        Map<Integer, RuleProfile> byRule = new TreeMap<>();
+        for (RuleProfile rule : rules) {
+            byRule.merge(rule.getRuleId(), new RuleProfile(-1, null, rule.getRuleId(), rule.getRuleName(), null,
+                    rule.getTimeInMs(), rule.getRequestCount(), rule.getAlertCount()), RuleProfile::plus);
+        }
+
+        List<RuleProfile> sorted = new ArrayList<>(byRule.values());
+        sorted.sort(Comparator.comparingLong(RuleProfile::getTimeInMs).reversed());
+        return sorted;
+    }
+
+    /**
+     * Gets the time rules ran per host, the most time-consuming host first.
+     *
+     * @return The time in milliseconds, by host
+     */
+    public Map<String, Long> getTimeByHost() {
+        Map<String, Long> byHost = new TreeMap<>();
+        for (RuleProfile rule : rules) {
+            byHost.merge(String.valueOf(rule.getHost()), rule.getTimeInMs(), Long::sum);
+        }
+
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        byHost.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    /**
+     * Renders the profile as a Markdown table: the hosts and the rules that took the most time,
+     * with their share of the total.
+     *
+     * @return The table
+     */
+    public String toTable() {
+        long total = getTotalTimeInMs();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Active scan profile: ").append(formatDuration(total)).append(" of rule time across ")
+                .append(getTimeByHost().size()).append(" host(s)\n\n");
+
+        sb.append("| Host | Time | Share |\n");
+        sb.append("|------|-----:|------:|\n");
+        for (Map.Entry<String, Long> host : getTimeByHost().entrySet()) {
+            sb.append("| ").append(host.getKey())
+                    .append(" | ").append(formatDuration(host.getValue()))
+                    .append(" | ").append(formatShare(host.getValue(), total)).append(" |\n");
+        }
+
+        List<RuleProfile> byTime = getRulesByTime();
+        sb.append("\n| Rule | ID | Time | Share | Requests | Alerts | ms/request |\n");
+        sb.append("|------|---:|-----:|------:|---------:|-------:|-----------:|\n");
+        for (RuleProfile rule : byTime.subList(0, Math.min(TOP_RULES, byTime.size()))) {
+            sb.append("| ").append(rule.getRuleName())
+                    .append(" | ").append(rule.getRuleId())
+                    .append(" | ").append(formatDuration(rule.getTimeInMs()))
+                    .append(" | ").append(formatShare(rule.getTimeInMs(), total))
+                    .append(" | ").append(rule.getRequestCount())
+                    .append(" | ").append(rule.getAlertCount())
+                    .append(" | ").append(rule.getRequestCount() > 0 ? rule.getTimeInMs() / rule.getRequestCount() : 0)
+                    .append(" |\n");
+        }
+        if (byTime.size() > TOP_RULES) {
+            sb.append("\n").append(byTime.size() - TOP_RULES).append(" more rule(s) not shown\n");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Renders the profile as JSON, with totals per host and rule and the raw per-scan entries.
+     *
+     * @return The JSON document
+     */
+    public String toJson() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("totalTimeInMs", getTotalTimeInMs());
+
+        ObjectNode hosts = root.putObject("hosts");
+        getTimeByHost().forEach(hosts::put);
+
+        ArrayNode byRule = root.putArray("rules");
+        for (RuleProfile rule : getRulesByTime()) {
+            ObjectNode node = byRule.addObject();
+            node.put("id", rule.getRuleId());
+            node.put("name", rule.getRuleName());
+            node.put("timeInMs", rule.getTimeInMs());
+            node.put("requestCount", rule.getRequestCount());
+            node.put("alertCount", rule.getAlertCount());
+        }
+
+        ArrayNode entries = root.putArray("entries");
+        for (RuleProfile rule : rules) {
+            ObjectNode node = entries.addObject();
+            node.put("scanId", rule.getScanId());
+            node.put("host", rule.getHost());
+            node.put("id", rule.getRuleId());
+            node.put("name", rule.getRuleName());
+            node.put("status", rule.getStatus());
+            node.put("timeInMs", rule.getTimeInMs());
+            node.put("requestCount", rule.getRequestCount());
+            node.put("alertCount", rule.getAlertCount());
+        }
+
+        try {
+            return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize scan profile", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return rules.size() + " rule run(s), " + formatDuration(getTotalTimeInMs());
+    }
+
+    private static void collect(int scanId, String host, ApiResponse response, List<RuleProfile> rules) {
+        if (response instanceof ApiResponseSet) {
+            ApiResponseSet set = (ApiResponseSet) response;
+            String id = set.getStringValue("id");
+            if (id != null && set.getStringValue("timeInMs") != null) {
+                rules.add(new RuleProfile(scanId, host, (int) parseLong(id), set.getStringValue("name"),
+                        set.getStringValue("status"), parseLong(set.getStringValue("timeInMs")),
+                        parseLong(set.getStringValue("reqCount")), parseLong(set.getStringValue("alertCount"))));
+                return;
+            }
+            set.getValuesMap().values().forEach(value -> collect(scanId, host, value, rules));
+        } else if (response instanceof ApiResponseList) {
+            ApiResponseList list = (ApiResponseList) response;
+            if ("Plugin".equals(list.getName()) && list.getItems().size() > PLUGIN_ALERTS) {
+                List<ApiResponse> values = list.getItems();
+                rules.add(new RuleProfile(scanId, host, (int) parseLong(value(values, PLUGIN_ID)),
+                        value(values, PLUGIN_NAME), value(values, PLUGIN_STATUS), parseLong(value(values, PLUGIN_TIME)),
+                        parseLong(value(values, PLUGIN_REQUESTS)), parseLong(value(values, PLUGIN_ALERTS))));
+                return;
+            }
+
+            // Each host is listed as an element followed by the list of its plugins
+            String currentHost = host;
+            for (ApiResponse item : list.getItems()) {
+                if (item instanceof ApiResponseElement) {
+                    currentHost = ((ApiResponseElement) item).getValue();
+                } else {
+                    collect(scanId, currentHost, item, rules);
+                }
+            }
+        }
+    }
+
+    private static String value(List<ApiResponse> values, int index) {
+        ApiResponse value = values.get(index);
+        return value instanceof ApiResponseElement ? ((ApiResponseElement) value).getValue() : null;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value.trim()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String formatDuration(long ms) {
+        long seconds = ms / 1000;
+        if (seconds < 60) {
+            return String.format("%.1fs", ms / 1000.0);
+        }
+        return String.format("%dm %02ds", seconds / 60, seconds % 60);
+    }
+
+    private static String formatShare(long part, long total) {
+        return total > 0 ? String.format("%.1f%%", 100.0 * part / total) : "-";
+    }
+
+    /**
+     * What one rule did against one host in one scan.
+     */
+    public static class RuleProfile {
+        private final int scanId;
+        private final String host;
+        private final int ruleId;
+        private final String ruleName;
+        private final String status;
+        private final long timeInMs;
+        private final long requestCount;
+        private final long alertCount;
+
+        /**
+         * Creates a new rule profile.
+         *
+         * @param scanId The scan ID, or -1 for totals over scans
+         * @param host The host, or null for totals over hosts
+         * @param ruleId The ID of the rule
+         * @param ruleName The name of the rule
+         * @param status The status ZAP reported for the rule, such as "Complete" or a percentage
+         * @param timeInMs The time the rule ran, in milliseconds
+         * @param requestCount The number of requests the rule sent
+         * @param alertCount The number of alerts the rule raised
+         */
+        public RuleProfile(int scanId, String host, int ruleId, String ruleName, String status, long timeInMs,
+                           long requestCount, long alertCount) {
+            this.scanId = scanId;
+            this.host = host;
+            this.ruleId = ruleId;
+            this.ruleName = ruleName;
+            this.status = status;
+            this.timeInMs = timeInMs;
+            this.requestCount = requestCount;
+            this.alertCount = alertCount;
+        }
+
+        private RuleProfile plus(RuleProfile other) {
+            return new RuleProfile(scanId, host, ruleId, ruleName != null ? ruleName : other.ruleName, status,
+                    timeInMs + other.timeInMs, requestCount + other.requestCount, alertCount + other.alertCount);
+        }
+
+        /**
+         * Gets the scan ID.
+         *
+         * @return The scan ID, or -1 for totals over scans
+         */
+        public int getScanId() {
+            return scanId;
+        }
+
+        /**
+         * Gets the host.
+         *
+         * @return The host, or null for totals over hosts
+         */
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * Gets the ID of the rule.
+         *
+         * @return The rule ID
+         */
+        public int getRuleId() {
+            return ruleId;
+        }
+
+        /**
+         * Gets the name of the rule.
+         *
+         * @return The rule name
+         */
+        public String getRuleName() {
+            return ruleName;
+        }
+
+        /**
+         * Gets the status ZAP reported for the rule.
+         *
+         * @return The status, such as "Complete", "Pending" or a percentage
+         */
+        public String getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the time the rule ran.
+         *
+         * @return The time in milliseconds
+         */
+        public long getTimeInMs() {
+            return timeInMs;
+        }
+
+        /**
+         * Gets the number of requests the rule sent.
+         *
+         * @return The request count
+         */
+        public long getRequestCount() {
+            return requestCount;
+        }
+
+        /**
+         * Gets the number of alerts the rule raised.
+         *
+         * @return The alert count
+         */
+        public long getAlertCount() {
+            return alertCount;
+        }
+    }
+}
@@ -18,6 +18,8 @@ public class ScanResult {
     private List<Alert> alerts;
     private String targetUrl;
     private long scanDurationMs;
+    private ScanProfile scanProfile;
+    private final boolean frozen;
     
     /**
      * Creates a new scan result.
@@ -31,6 +33,7 @@ public class ScanResult {
         this.scanDate = new Date();
         this.alerts = new ArrayList<>();
         this.scanDurationMs = 0;
+        this.frozen = false;
     }
     
     /**
@@ -48,6 +51,8 @@ public class ScanResult {
         this.alerts = builder.alerts;
         this.targetUrl = builder.targetUrl;
         this.scanDurationMs = builder.scanDurationMs;
+        this.scanProfile = builder.scanProfile;
+        this.frozen = builder.frozen;
     }
     
     /**
@@ -65,6 +70,7 @@ public class ScanResult {
      * @param highAlerts The number of high severity alerts
      */
     public void setHighAlerts(int highAlerts) {
+        checkNotFrozen();
         this.highAlerts = highAlerts;
     }
     
@@ -72,6 +78,7 @@ public class ScanResult {
      * Increments the number of high severity alerts.
      */
     public void incrementHighAlerts() {
+        checkNotFrozen();
         this.highAlerts++;
     }
     
@@ -90,6 +97,7 @@ public class ScanResult {
      * @param mediumAlerts The number of medium severity alerts
      */
     public void setMediumAlerts(int mediumAlerts) {
+        checkNotFrozen();
         this.mediumAlerts = mediumAlerts;
     }
     
@@ -97,6 +105,7 @@ public class ScanResult {
      * Increments the number of medium severity alerts.
      */
     public void incrementMediumAlerts() {
+        checkNotFrozen();
         this.mediumAlerts++;
     }
     
@@ -115,6 +124,7 @@ public class ScanResult {
      * @param lowAlerts The number of low severity alerts
      */
     public void setLowAlerts(int lowAlerts) {
+        checkNotFrozen();
         this.lowAlerts = lowAlerts;
     }
     
@@ -122,6 +132,7 @@ public class ScanResult {
      * Increments the number of low severity alerts.
      */
     public void incrementLowAlerts() {
+        checkNotFrozen();
         this.lowAlerts++;
     }
     
@@ -140,6 +151,7 @@ public class ScanResult {
      * @param infoAlerts The number of informational alerts
      */
     public void setInfoAlerts(int infoAlerts) {
+        checkNotFrozen();
         this.infoAlerts = infoAlerts;
     }
     
@@ -147,6 +159,7 @@ public class ScanResult {
      * Increments the number of informational alerts.
      */
     public void incrementInfoAlerts() {
+        checkNotFrozen();
         this.infoAlerts++;
     }
     
@@ -165,6 +178,7 @@ public class ScanResult {
      * @param totalAlerts The total number of alerts
      */
     public void setTotalAlerts(int totalAlerts) {
+        checkNotFrozen();
         this.totalAlerts = totalAlerts;
     }
     
@@ -183,6 +197,7 @@ public class ScanResult {
      * @param scanDate The scan date
      */
     public void setScanDate(Date scanDate) {
+        checkNotFrozen();
         this.scanDate = new Date(scanDate.getTime());
     }
     
@@ -201,6 +216,7 @@ public class ScanResult {
      * @param alerts The list of alerts
      */
     public void setAlerts(List<Alert> alerts) {
+        checkNotFrozen();
         this.alerts = new ArrayList<>(alerts);
     }
     
@@ -219,6 +235,7 @@ public class ScanResult {
      * @param targetUrl The target URL
      */
     public void setTargetUrl(String targetUrl) {
+        checkNotFrozen();
         this.targetUrl = targetUrl;
     }
     
@@ -237,15 +254,36 @@ public class ScanResult {
      * @param scanDurationMs The scan duration in milliseconds
      */
     public void setScanDurationMs(long scanDurationMs) {
+        checkNotFrozen();
         this.scanDurationMs = scanDurationMs;
     }
     
+    /**
+     * Gets where the time of the active scan went, per scan, host and rule.
+     * 
+     * @return The scan profile, or null if the scan was not profiled
+     */
+    public ScanProfile getScanProfile() {
+        return scanProfile;
+    }
+    
+    /**
+     * Sets where the time of the active scan went, per scan, host and rule.
+     * 
+     * @param scanProfile The scan profile
+     */
+    public void setScanProfile(ScanProfile scanProfile) {
+        checkNotFrozen();
+        this.scanProfile = scanProfile;
+    }
+    
     /**
      * Adds an alert to the scan result.
      * 
      * @param alert The alert to add
      */
     public void addAlert(Alert alert) {
+        checkNotFrozen();
         if (alert != null) {
             this.alerts.add(alert);
             this.totalAlerts++;
@@ -268,6 +306,21 @@ public class ScanResult {
         }
     }
     
+    /**
+     * Checks whether the scan result is immutable, such as one frozen by an {@link AlertAccumulator}.
+     * 
+     * @return True if the scan result cannot be changed, false otherwise
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Scan result is frozen");
+        }
+    }
+    
     /**
      * Creates a summary of the scan result.
      * 
@@ -302,6 +355,8 @@ public class ScanResult {
         private List<Alert> alerts;
         private String targetUrl;
         private long scanDurationMs;
+        private ScanProfile scanProfile;
+        private boolean frozen;
         
         /**
          * Creates a new builder.
@@ -446,6 +501,17 @@ public class ScanResult {
             return this;
         }
         
+        /**
+         * Sets where the time of the active scan went.
+         * 
+         * @param scanProfile The scan profile
+         * @return This builder
+         */
+        public Builder scanProfile(ScanProfile scanProfile) {
+            this.scanProfile = scanProfile;
+            return this;
+        }
+        
         /**
          * Gets the current high alerts value.
          * 
@@ -491,6 +557,18 @@ public class ScanResult {
             return totalAlerts;
         }
         
+        /**
+         * Makes the scan result built immutable, so it can be shared between threads without
+         * copying. The flag is set by the constructor, so every thread that sees the result sees
+         * it frozen.
+         * 
+         * @return This builder
+         */
+        Builder frozen() {
+            this.frozen = true;
+            return this;
+        }
+        
         /**
          * Builds the scan result.
          * 
@@ -0,0 +1,503 @@
+package com.securitytesting.zap.report;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, versioned binary encoding of scan results, for caching them between pipeline
+ * stages, shipping them between workers and reloading them for later reporting.
+ * <p>
+ * A result is written as a header with the target, date and duration, a stream of alert
+ * records ended by an end marker, and a trailer with the alert counts and the scan profile.
+ * Alerts can be written and read one at a time with {@link Writer} and {@link Reader}, so
+ * neither side has to hold all alerts in memory.
+ * <p>
+ * Integers are written as zig-zag variable-length integers. The strings alerts of the same rule
+ * share, such as names, descriptions, solutions, references, parameters and attack payloads, go
+ * through a string table built while writing: the first occurrence is written in full and later
+ * ones as a reference to it. Strings that rarely repeat, such as URLs, evidence and other info,
+ * are written inline. The table is capped in entries and bytes, after which shared strings are written
+ * inline too, so neither side's memory grows with the number of alerts.
+ */
+public final class ScanResultCodec {
+
+    /**
+     * The version of the encoding written by this codec. Readers reject other versions.
+     */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'Z', 'S', 'R', 'B'};
+
+    private static final int TAG_END = 0;
+    private static final int TAG_ALERT = 1;
+
+    private static final int STRING_NULL = 0;
+    private static final int STRING_NEW = 1;
+    private static final int STRING_INLINE = 2;
+    private static final int STRING_REFERENCE = 3;
+
+    private static final int MAX_STRING_BYTES = 64 * 1024 * 1024;
+
+    private static final int MAX_TABLE_STRINGS = 4096;
+    private static final long MAX_TABLE_BYTES = 4 * 1024 * 1024;
+
+    private ScanResultCodec() {
+    }
+
+    /**
+     * Encodes a scan result.
+     *
+     * @param result The scan result
+     * @return The encoded result
+     * @throws IOException If encoding fails
+     */
+    public static byte[] encode(ScanResult result) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(result, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a scan result to a stream. The stream is flushed, not closed.
+     *
+     * @param result The scan result
+     * @param out The stream
+     * @throws IOException If writing fails
+     */
+    public static void encode(ScanResult result, OutputStream out) throws IOException {
+        Writer writer = new Writer(out, result.getTargetUrl(), result.getScanDate(), result.getScanDurationMs());
+        for (Alert alert : result.getAlerts()) {
+            writer.writeAlert(alert);
+        }
+        writer.finish(result.getScanProfile(), new int[] {result.getHighAlerts(), result.getMediumAlerts(),
+                result.getLowAlerts(), result.getInfoAlerts(), result.getTotalAlerts()});
+    }
+
+    /**
+     * Decodes a scan result.
+     *
+     * @param data The encoded result
+     * @return The scan result
+     * @throws IOException If the data is not a valid encoded result
+     */
+    public static ScanResult decode(byte[] data) throws IOException {
+        return decode(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Decodes a scan result from a stream. Unless the stream is buffered already, it is read
+     * through a buffer that may read past the end of the result.
+     *
+     * @param in The stream
+     * @return The scan result
+     * @throws IOException If reading fails or the stream does not hold a valid encoded result
+     */
+    public static ScanResult decode(InputStream in) throws IOException {
+        return new Reader(in).readScanResult();
+    }
+
+    /**
+     * Streaming writer of an encoded scan result.
+     */
+    public static class Writer implements Closeable {
+        private final OutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private long tableBytes;
+        private final int[] counts = new int[5];
+        private boolean finished;
+
+        /**
+         * Creates a new writer and writes the header of the result.
+         *
+         * @param out The stream to write to
+         * @param targetUrl The target URL
+         * @param scanDate The scan date
+         * @param scanDurationMs The scan duration in milliseconds
+         * @throws IOException If writing fails
+         */
+        public Writer(OutputStream out, String targetUrl, Date scanDate, long scanDurationMs) throws IOException {
+            this.out = new BufferedOutputStream(out);
+            this.out.write(MAGIC);
+            this.out.write(VERSION);
+            writeString(targetUrl);
+            writeLong(scanDate.getTime());
+            writeLong(scanDurationMs);
+        }
+
+        /**
+         * Writes an alert.
+         *
+         * @param alert The alert
+         * @throws IOException If writing fails
+         */
+        public void writeAlert(Alert alert) throws IOException {
+            if (finished) {
+                throw new IllegalStateException("Scan result already finished");
+            }
+            writeInt(TAG_ALERT);
+            writeInt(alert.getId());
+            writeSharedString(alert.getName());
+            writeInt(alert.getSeverity().getValue());
+            writeSharedString(alert.getDescription());
+            writeString(alert.getUrl());
+            writeSharedString(alert.getAttack());
+            writeString(alert.getEvidence());
+            writeSharedString(alert.getSolution());
+            writeSharedString(alert.getReference());
+            writeSharedString(alert.getParam());
+            writeInt(alert.getCweId());
+            writeInt(alert.getWascId());
+            writeString(alert.getOtherInfo());
+            writeSharedString(alert.getPluginId());
+
+            counts[3 - alert.getSeverity().getValue()]++;
+            counts[4]++;
+        }
+
+        /**
+         * Ends the alerts and writes the trailer, with the alert counts of the alerts written.
+         *
+         * @param scanProfile The scan profile, or null
+         * @throws IOException If writing fails
+         */
+        public void finish(ScanProfile scanProfile) throws IOException {
+            finish(scanProfile, counts);
+        }
+
+        private void finish(ScanProfile scanProfile, int[] alertCounts) throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            writeInt(TAG_END);
+            for (int count : alertCounts) {
+                writeInt(count);
+            }
+
+            if (scanProfile == null) {
+                writeInt(-1);
+            } else {
+                writeInt(scanProfile.getRules().size());
+                for (ScanProfile.RuleProfile rule : scanProfile.getRules()) {
+                    writeInt(rule.getScanId());
+                    writeSharedString(rule.getHost());
+                    writeInt(rule.getRuleId());
+                    writeSharedString(rule.getRuleName());
+                    writeSharedString(rule.getStatus());
+                    writeLong(rule.getTimeInMs());
+                    writeLong(rule.getRequestCount());
+                    writeLong(rule.getAlertCount());
+                }
+            }
+            out.flush();
+        }
+
+        /**
+         * Finishes the result if needed and closes the underlying stream.
+         *
+         * @throws IOException If writing or closing fails
+         */
+        @Override
+        public void close() throws IOException {
+            finish(null);
+            out.close();
+        }
+
+        // Strings that rarely repeat are written inline
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeInt(STRING_NULL);
+                return;
+            }
+            writeBytes(STRING_INLINE, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Strings alerts share go through the string table, or inline once it is full
+        private void writeSharedString(String value) throws IOException {
+            if (value == null) {
+                writeInt(STRING_NULL);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeInt(STRING_REFERENCE + index);
+                return;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (strings.size() >= MAX_TABLE_STRINGS || tableBytes + bytes.length > MAX_TABLE_BYTES) {
+                writeBytes(STRING_INLINE, bytes);
+                return;
+            }
+            strings.put(value, strings.size());
+            tableBytes += bytes.length;
+            writeBytes(STRING_NEW, bytes);
+        }
+
+        private void writeBytes(int code, byte[] bytes) throws IOException {
+            writeInt(code);
+            writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeInt(int value) throws IOException {
+            writeLong(value);
+        }
+
+        private void writeLong(long value) throws IOException {
+            // Zig-zag encode, so small negative values stay short
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                out.write((int) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+            out.write((int) zigZag);
+        }
+    }
+
+    /**
+     * Streaming reader of an encoded scan result.
+     */
+    public static class Reader implements Closeable {
+        private final InputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private final int version;
+        private final String targetUrl;
+        private final Date scanDate;
+        private final long scanDurationMs;
+        private int[] counts;
+        private ScanProfile scanProfile;
+
+        /**
+         * Creates a new reader and reads the header of the result.
+         *
+         * @param in The stream to read from
+         * @throws IOException If reading fails or the stream does not hold an encoded result
+         */
+        public Reader(InputStream in) throws IOException {
+            this.in = in instanceof BufferedInputStream || in instanceof ByteArrayInputStream
+                    ? in : new BufferedInputStream(in);
+            for (byte expected : MAGIC) {
+                if (readByte() != expected) {
+                    throw new IOException("Not an encoded scan result");
+                }
+            }
+            version = readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported scan result encoding version " + version);
+            }
+            targetUrl = readString();
+            scanDate = new Date(readLong());
+            scanDurationMs = readLong();
+        }
+
+        /**
+         * Reads the next alert.
+         *
+         * @return The alert, or null once all alerts were read
+         * @throws IOException If reading fails or the data is malformed
+         */
+        public Alert nextAlert() throws IOException {
+            if (counts != null) {
+                return null;
+            }
+            int tag = readInt();
+            if (tag == TAG_END) {
+                readTrailer();
+                return null;
+            }
+            if (tag != TAG_ALERT) {
+                throw new IOException("Unexpected record " + tag);
+            }
+
+            int id = readInt();
+            String name = readString();
+            return new Alert.Builder(name)
+                    .alertId(id)
+                    .severity(Severity.fromValue(readInt()))
+                    .description(readString())
+                    .url(readString())
+                    .attack(readString())
+                    .evidence(readString())
+                    .solution(readString())
+                    .reference(readString())
+                    .param(readString())
+                    .cweId(readInt())
+                    .wascId(readInt())
+                    .otherInfo(readString())
+                    .pluginId(readString())
+                    .build();
+        }
+
+        /**
+         * Reads the remaining alerts and the trailer into a scan result.
+         *
+         * @return The scan result
+         * @throws IOException If reading fails or the data is malformed
+         */
+        public ScanResult readScanResult() throws IOException {
+            ScanResult.Builder builder = new ScanResult.Builder()
+                    .targetUrl(targetUrl)
+                    .scanDate(scanDate)
+                    .scanDurationMs(scanDurationMs);
+            for (Alert alert = nextAlert(); alert != null; alert = nextAlert()) {
+                builder.addAlert(alert);
+            }
+            return builder.highAlerts(counts[0])
+                    .mediumAlerts(counts[1])
+                    .lowAlerts(counts[2])
+                    .infoAlerts(counts[3])
+                    .totalAlerts(counts[4])
+                    .scanProfile(scanProfile)
+                    .build();
+        }
+
+        /**
+         * Gets the encoding version of the result.
+         *
+         * @return The version
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the target URL.
+         *
+         * @return The target URL
+         */
+        public String getTargetUrl() {
+            return targetUrl;
+        }
+
+        /**
+         * Gets the scan date.
+         *
+         * @return The scan date
+         */
+        public Date getScanDate() {
+            return scanDate;
+        }
+
+        /**
+         * Gets the scan duration.
+         *
+         * @return The scan duration in milliseconds
+         */
+        public long getScanDurationMs() {
+            return scanDurationMs;
+        }
+
+        /**
+         * Gets the scan profile, available once all alerts were read.
+         *
+         * @return The scan profile, or null if the result has none or alerts remain to be read
+         */
+        public ScanProfile getScanProfile() {
+            return scanProfile;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private void readTrailer() throws IOException {
+            int[] trailerCounts = new int[5];
+            for (int i = 0; i < trailerCounts.length; i++) {
+                trailerCounts[i] = readInt();
+            }
+
+            int ruleCount = readInt();
+            if (ruleCount >= 0) {
+                List<ScanProfile.RuleProfile> rules = new ArrayList<>();
+                for (int i = 0; i < ruleCount; i++) {
+                    rules.add(new ScanProfile.RuleProfile(readInt(), readString(), readInt(), readString(),
+                            readString(), readLong(), readLong(), readLong()));
+                }
+                scanProfile = new ScanProfile(rules);
+            }
+            counts = trailerCounts;
+        }
+
+        private String readString() throws IOException {
+            int code = readInt();
+            if (code == STRING_NULL) {
+                return null;
+            }
+            if (code >= STRING_REFERENCE) {
+                int index = code - STRING_REFERENCE;
+                if (index >= strings.size()) {
+                    throw new IOException("Reference to unknown string " + index);
+                }
+                return strings.get(index);
+            }
+            if (code != STRING_NEW && code != STRING_INLINE) {
+                throw new IOException("Unexpected string code " + code);
+            }
+            if (code == STRING_NEW && strings.size() >= MAX_TABLE_STRINGS) {
+                throw new IOException("String table exceeds " + MAX_TABLE_STRINGS + " strings");
+            }
+
+            int length = readInt();
+            if (length < 0 || length > MAX_STRING_BYTES) {
+                throw new IOException("Invalid string length " + length);
+            }
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = in.read(bytes, read, length - read);
+                if (n < 0) {
+                    throw new EOFException("Truncated scan result");
+                }
+                read += n;
+            }
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (code == STRING_NEW) {
+                strings.add(value);
+            }
+            return value;
+        }
+
+        private int readInt() throws IOException {
+            long value = readLong();
+            if (value != (int) value) {
+                throw new IOException("Integer out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        private long readLong() throws IOException {
+            long zigZag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated scan result");
+            }
+            return b;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.securitytesting.zap.report;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What changed between two scans of a target: the alerts that are new in the current scan,
+ * the alerts of the previous scan that are fixed, and the alerts found by both.
+ * <p>
+ * Alerts are matched by {@link ScanResultMerger#fingerprint(Alert) fingerprint}, hashing the
+ * alerts of each scan once, so comparing takes time linear in the number of alerts. The
+ * changes can be streamed to a {@link Listener} as they are found, or collected into a diff
+ * that renders only the new and fixed alerts, as a Markdown table or as JSON.
+ */
+public class ScanResultDiff {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Comparator<Alert> BY_SEVERITY =
+            Comparator.comparingInt((Alert alert) -> alert.getSeverity().getValue()).reversed();
+
+    /**
+     * Enum representing how an alert changed between two scans.
+     */
+    public enum Change {
+        NEW,
+        FIXED,
+        PERSISTING
+    }
+
+    /**
+     * Receives the changes between two scans as they are found.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called for each distinct alert of either scan.
+         *
+         * @param change How the alert changed
+         * @param alert The alert, from the current scan unless it is fixed
+         */
+        void onAlert(Change change, Alert alert);
+    }
+
+    private final ScanResult previous;
+    private final ScanResult current;
+    private final List<Alert> newAlerts = new ArrayList<>();
+    private final List<Alert> fixedAlerts = new ArrayList<>();
+    private final List<Alert> persistingAlerts = new ArrayList<>();
+
+    private ScanResultDiff(ScanResult previous, ScanResult current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * Compares two scans of a target.
+     *
+     * @param previous The result of the previous scan
+     * @param current The result of the current scan
+     * @return The diff
+     */
+    public static ScanResultDiff compare(ScanResult previous, ScanResult current) {
+        ScanResultDiff diff = new ScanResultDiff(previous, current);
+        compare(previous, current, (change, alert) -> {
+            switch (change) {
+                case NEW:
+                    diff.newAlerts.add(alert);
+                    break;
+                case FIXED:
+                    diff.fixedAlerts.add(alert);
+                    break;
+                default:
+                    diff.persistingAlerts.add(alert);
+                    break;
+            }
+        });
+        return diff;
+    }
+
+    /**
+     * Compares two scans of a target, streaming the changes to a listener: the new and
+     * persisting alerts in the order of the current scan, then the fixed alerts in the order of
+     * the previous scan. Alerts with the same fingerprint are reported once.
+     *
+     * @param previous The result of the previous scan
+     * @param current The result of the current scan
+     * @param listener The listener receiving the changes
+     */
+    public static void compare(ScanResult previous, ScanResult current, Listener listener) {
+        // The alerts are a copy, so take them once
+        List<Alert> previousAlerts = previous.getAlerts();
+        Map<String, Alert> remaining = new LinkedHashMap<>(Math.max(16, previousAlerts.size() * 4 / 3 + 1));
+        for (Alert alert : previousAlerts) {
+            remaining.putIfAbsent(ScanResultMerger.fingerprint(alert), alert);
+        }
+
+        List<Alert> currentAlerts = current.getAlerts();
+        Set<String> seen = new HashSet<>(Math.max(16, currentAlerts.size() * 4 / 3 + 1));
+        for (Alert alert : currentAlerts) {
+            String fingerprint = ScanResultMerger.fingerprint(alert);
+            if (!seen.add(fingerprint)) {
+                continue;
+            }
+            listener.onAlert(remaining.remove(fingerprint) != null ? Change.PERSISTING : Change.NEW, alert);
+        }
+
+        // Whatever the current scan did not find again is fixed
+        for (Alert alert : remaining.values()) {
+            listener.onAlert(Change.FIXED, alert);
+        }
+    }
+
+    /**
+     * Gets the result of the previous scan.
+     *
+     * @return The previous scan result
+     */
+    public ScanResult getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Gets the result of the current scan.
+     *
+     * @return The current scan result
+     */
+    public ScanResult getCurrent() {
+        return current;
+    }
+
+    /**
+     * Gets the alerts found by the current scan but not the previous one.
+     *
+     * @return The new alerts, in the order of the current scan
+     */
+    public List<Alert> getNewAlerts() {
+        return Collections.unmodifiableList(newAlerts);
+    }
+
+    /**
+     * Gets the alerts found by the previous scan but not the current one.
+     *
+     * @return The fixed alerts, in the order of the previous scan
+     */
+    public List<Alert> getFixedAlerts() {
+        return Collections.unmodifiableList(fixedAlerts);
+    }
+
+    /**
+     * Gets the alerts found by both scans.
+     *
+     * @return The persisting alerts as found by the current scan
+     */
+    public List<Alert> getPersistingAlerts() {
+        return Collections.unmodifiableList(persistingAlerts);
+    }
+
+    /**
+     * Checks whether any alert is new or fixed.
+     *
+     * @return True if something changed, false otherwise
+     */
+    public boolean hasChanges() {
+        return !newAlerts.isEmpty() || !fixedAlerts.isEmpty();
+    }
+
+    /**
+     * Renders the changes as Markdown: a summary line, then tables of the new and the fixed
+     * alerts, most severe first. Persisting alerts are only counted.
+     *
+     * @return The Markdown document
+     */
+    public String toMarkdown() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Changes in ").append(current.getTargetUrl()).append(" since the scan of ")
+                .append(previous.getScanDate()).append(": ")
+                .append(newAlerts.size()).append(" new, ")
+                .append(fixedAlerts.size()).append(" fixed, ")
+                .append(persistingAlerts.size()).append(" persisting\n");
+
+        appendTable(sb, "New alerts", newAlerts);
+        appendTable(sb, "Fixed alerts", fixedAlerts);
+        return sb.toString();
+    }
+
+    /**
+     * Renders the changes as JSON, with the counts and the new and fixed alerts, most severe
+     * first.
+     *
+     * @return The JSON document
+     */
+    public String toJson() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("targetUrl", current.getTargetUrl());
+        root.put("previousScanDate", previous.getScanDate().getTime());
+        root.put("currentScanDate", current.getScanDate().getTime());
+        root.put("newCount", newAlerts.size());
+        root.put("fixedCount", fixedAlerts.size());
+        root.put("persistingCount", persistingAlerts.size());
+        appendAlerts(root.putArray("new"), newAlerts);
+        appendAlerts(root.putArray("fixed"), fixedAlerts);
+
+        try {
+            return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize scan diff", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return newAlerts.size() + " new, " + fixedAlerts.size() + " fixed, "
+                + persistingAlerts.size() + " persisting alert(s)";
+    }
+
+    private static void appendTable(StringBuilder sb, String title, List<Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+
+        sb.append("\n## ").append(title).append(" (").append(alerts.size()).append(")\n\n");
+        sb.append("| Severity | Alert | URL | Parameter | CWE |\n");
+        sb.append("|----------|-------|-----|-----------|----:|\n");
+        for (Alert alert : sortBySeverity(alerts)) {
+            sb.append("| ").append(alert.getSeverity())
+                    .append(" | ").append(alert.getName())
+                    .append(" | ").append(alert.getUrl() != null ? alert.getUrl() : "")
+                    .append(" | ").append(alert.getParam() != null ? alert.getParam() : "")
+                    .append(" | ").append(alert.getCweId() > 0 ? Integer.toString(alert.getCweId()) : "")
+                    .append(" |\n");
+        }
+    }
+
+    private static void appendAlerts(ArrayNode array, List<Alert> alerts) {
+        for (Alert alert : sortBySeverity(alerts)) {
+            ObjectNode node = array.addObject();
+            node.put("name", alert.getName());
+            node.put("severity", alert.getSeverity().toString());
+            node.put("url", alert.getUrl());
+            node.put("param", alert.getParam());
+            node.put("cweId", alert.getCweId());
+        }
+    }
+
+    private static List<Alert> sortBySeverity(List<Alert> alerts) {
+        List<Alert> sorted = new ArrayList<>(alerts);
+        sorted.sort(BY_SEVERITY);
+        return sorted;
+    }
+}
@@ -0,0 +1,169 @@
+package com.securitytesting.zap.report;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Combines the results of scanning one target in parts, such as the shards of a sharded scan,
+ * the scans of several ZAP instances or the scans of several policies, into a single result.
+ * <p>
+ * Results are reduced pairwise in parallel on a fork-join pool. Alerts are de-duplicated by
+ * {@link #fingerprint(Alert) fingerprint}, keeping the most severe of duplicates, and the
+ * severity counts are recomputed from the merged alerts. The merged result starts at the
+ * earliest scan date and lasts until the latest scan ended. Alerts keep the order of the
+ * results they came from, so merging the same results always gives the same result.
+ */
+public class ScanResultMerger {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new merger running on the common fork-join pool.
+     */
+    public ScanResultMerger() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new merger running on the specified fork-join pool.
+     *
+     * @param pool The fork-join pool
+     */
+    public ScanResultMerger(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Computes the fingerprint identifying the same finding in several results: the same
+     * alert raised on the same URL and parameter.
+     *
+     * @param alert The alert
+     * @return The fingerprint
+     */
+    public static String fingerprint(Alert alert) {
+        return fingerprint(alert.getName(), alert.getUrl(), alert.getParam());
+    }
+
+    /**
+     * Computes the fingerprint of an alert from its name, URL and parameter, as
+     * {@link #fingerprint(Alert)} does.
+     *
+     * @param name The alert name
+     * @param url The URL the alert was raised on
+     * @param param The parameter, or null
+     * @return The fingerprint
+     */
+    public static String fingerprint(String name, String url, String param) {
+        return name + "|" + url + "|" + param;
+    }
+
+    /**
+     * Merges scan results.
+     *
+     * @param results The results to merge, in order of precedence
+     * @return The merged result, with the target URL of the first result
+     * @throws IllegalArgumentException If there is no result to merge
+     */
+    public ScanResult merge(List<ScanResult> results) {
+        if (results.isEmpty()) {
+            throw new IllegalArgumentException("No scan results to merge");
+        }
+
+        Partial merged = pool.invoke(new MergeTask(results, 0, results.size()));
+
+        ScanResult.Builder builder = new ScanResult.Builder()
+                .targetUrl(merged.targetUrl)
+                .scanDate(new Date(merged.start))
+                .scanDurationMs(merged.end - merged.start);
+        merged.alerts.values().forEach(builder::addAlert);
+        if (!merged.profiles.isEmpty()) {
+            builder.scanProfile(ScanProfile.merge(merged.profiles));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Merge of a range of the results.
+     */
+    private static class Partial {
+        private String targetUrl;
+        private long start;
+        private long end;
+        private final Map<String, Alert> alerts;
+        private final List<ScanProfile> profiles = new ArrayList<>();
+
+        Partial(ScanResult result) {
+            targetUrl = result.getTargetUrl();
+            start = result.getScanDate().getTime();
+            end = start + result.getScanDurationMs();
+            // The alerts are a copy, so take it once
+            List<Alert> resultAlerts = result.getAlerts();
+            alerts = new LinkedHashMap<>(Math.max(16, resultAlerts.size() * 4 / 3 + 1));
+            for (Alert alert : resultAlerts) {
+                add(alert);
+            }
+            if (result.getScanProfile() != null) {
+                profiles.add(result.getScanProfile());
+            }
+        }
+
+        /**
+         * Adds the merge of the results that follow this one's.
+         *
+         * @param next The merge of the following results
+         * @return This merge
+         */
+        Partial plus(Partial next) {
+            if (targetUrl == null) {
+                targetUrl = next.targetUrl;
+            }
+            start = Math.min(start, next.start);
+            end = Math.max(end, next.end);
+            // Merging into the earlier results keeps their alerts first
+            for (Alert alert : next.alerts.values()) {
+                add(alert);
+            }
+            profiles.addAll(next.profiles);
+            return this;
+        }
+
+        private void add(Alert alert) {
+            alerts.merge(fingerprint(alert), alert,
+                    (kept, duplicate) -> duplicate.getSeverity().getValue() > kept.getSeverity().getValue()
+                            ? duplicate : kept);
+        }
+    }
+
+    /**
+     * Merges a range of the results, splitting it in halves merged in parallel.
+     */
+    private static class MergeTask extends RecursiveTask<Partial> {
+        private final List<ScanResult> results;
+        private final int from;
+        private final int to;
+
+        MergeTask(List<ScanResult> results, int from, int to) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from == 1) {
+                return new Partial(results.get(from));
+            }
+
+            int middle = (from + to) >>> 1;
+            MergeTask second = new MergeTask(results, middle, to);
+            second.fork();
+            Partial first = new MergeTask(results, from, middle).compute();
+            return first.plus(second.join());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.securitytesting.zap.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Accepted-risk and false-positive alerts to leave out of scan results, so they are neither
+ * stored nor reported.
+ * <p>
+ * An alert is suppressed either by its exact {@link ScanResultMerger#fingerprint(Alert)
+ * fingerprint}, or by a rule matching the alert's scan rule ID or name, a URL pattern in which
+ * {@code *} matches anything, and a parameter. A rule without URL or parameter, or with
+ * {@code *}, matches any. The baseline file is JSON:
+ * <pre>
+ * {
+ *   "suppressions": [
+ *     { "fingerprint": "SQL Injection|https://shop.example.com/search|q", "reason": "False positive" },
+ *     { "rule": "10038", "url": "https://shop.example.com/static/*", "reason": "Accepted risk" }
+ *   ]
+ * }
+ * </pre>
+ * Fingerprints are kept in a hash set and rules are indexed by rule ID or name, so checking
+ * an alert costs a few hash lookups however large the baseline is.
+ */
+public class SuppressionBaseline {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String ANY = "*";
+
+    private final Set<String> fingerprints;
+    private final Map<String, List<Rule>> rules;
+
+    private SuppressionBaseline(Builder builder) {
+        this.fingerprints = new HashSet<>(builder.fingerprints);
+        this.rules = new HashMap<>();
+        builder.rules.forEach((rule, entries) -> rules.put(rule, new ArrayList<>(entries)));
+    }
+
+    /**
+     * Loads a baseline from a file.
+     *
+     * @param file The baseline file
+     * @return The baseline
+     * @throws IOException If the file cannot be read or an entry has neither fingerprint nor rule
+     */
+    public static SuppressionBaseline load(Path file) throws IOException {
+        Builder builder = new Builder();
+        for (JsonNode entry : MAPPER.readTree(file.toFile()).path("suppressions")) {
+            String fingerprint = entry.path("fingerprint").asText(null);
+            String rule = entry.path("rule").asText(null);
+            if (fingerprint != null) {
+                builder.fingerprint(fingerprint);
+            } else if (rule != null) {
+                builder.rule(rule, entry.path("url").asText(null), entry.path("param").asText(null));
+            } else {
+                throw new IOException("Suppression without fingerprint or rule in " + file + ": " + entry);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Checks whether an alert is suppressed.
+     *
+     * @param alert The alert
+     * @return True if the alert is suppressed, false otherwise
+     */
+    public boolean isSuppressed(Alert alert) {
+        return isSuppressed(alert.getName(), alert.getPluginId(), alert.getUrl(), alert.getParam());
+    }
+
+    /**
+     * Checks whether an alert is suppressed from its raw values, before the alert is built.
+     *
+     * @param name The alert name
+     * @param ruleId The ID of the scan rule that raised the alert, or null if unknown
+     * @param url The URL the alert was raised on
+     * @param param The parameter, or null
+     * @return True if the alert is suppressed, false otherwise
+     */
+    public boolean isSuppressed(String name, String ruleId, String url, String param) {
+        if (!fingerprints.isEmpty() && fingerprints.contains(ScanResultMerger.fingerprint(name, url, param))) {
+            return true;
+        }
+        return matches(rules.get(ruleId), url, param) || matches(rules.get(name), url, param);
+    }
+
+    /**
+     * Gets the number of fingerprints and rules in the baseline.
+     *
+     * @return The number of suppressions
+     */
+    public int size() {
+        return fingerprints.size() + rules.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static boolean matches(List<Rule> entries, String url, String param) {
+        if (entries == null) {
+            return false;
+        }
+        for (Rule entry : entries) {
+            if (entry.matches(url, param)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rule suppressing the alerts of a scan rule on matching URLs and parameters.
+     */
+    private static class Rule {
+        private final Pattern url;
+        private final String param;
+
+        Rule(String url, String param) {
+            this.url = url == null || ANY.equals(url) ? null : compileUrlPattern(url);
+            this.param = ANY.equals(param) ? null : param;
+        }
+
+        boolean matches(String url, String param) {
+            return (this.param == null || this.param.equals(param))
+                    && (this.url == null || (url != null && this.url.matcher(url).matches()));
+        }
+
+        private static Pattern compileUrlPattern(String url) {
+            StringBuilder regex = new StringBuilder();
+            int start = 0;
+            for (int wildcard = url.indexOf('*'); wildcard >= 0; wildcard = url.indexOf('*', start)) {
+                regex.append(Pattern.quote(url.substring(start, wildcard))).append(".*");
+                start = wildcard + 1;
+            }
+            regex.append(Pattern.quote(url.substring(start)));
+            return Pattern.compile(regex.toString());
+        }
+    }
+
+    /**
+     * Builder for suppression baselines.
+     */
+    public static class Builder {
+        private final Set<String> fingerprints = new HashSet<>();
+        private final Map<String, List<Rule>> rules = new HashMap<>();
+
+        /**
+         * Suppresses the alert with a fingerprint.
+         *
+         * @param fingerprint The fingerprint, as computed by {@link ScanResultMerger#fingerprint(Alert)}
+         * @return The builder
+         */
+        public Builder fingerprint(String fingerprint) {
+            fingerprints.add(fingerprint);
+            return this;
+        }
+
+        /**
+         * Suppresses the alerts of a scan rule on matching URLs and parameters.
+         *
+         * @param rule The scan rule ID or alert name
+         * @param url The URL pattern, in which * matches anything, or null for any URL
+         * @param param The parameter, or null for any parameter
+         * @return The builder
+         */
+        public Builder rule(String rule, String url, String param) {
+            rules.computeIfAbsent(rule, r -> new ArrayList<>()).add(new Rule(url, param));
+            return this;
+        }
+
+        /**
+         * Builds the suppression baseline.
+         *
+         * @return The suppression baseline
+         */
+        public SuppressionBaseline build() {
+            return new SuppressionBaseline(this);
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.config.ScanConfig;
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feedback controller for the load an active scan puts on its target.
+ * While a scan runs, the controller samples ZAP's statistics for the target site and adjusts
+ * the active scanner's threads per host and request delay with AIMD (additive increase,
+ * multiplicative decrease): every healthy window adds a step of load, and a window with
+ * too many 429/5xx responses or a latency well above the best seen halves it.
+ * <p>
+ * Load is removed by halving the thread count first and, once at the minimum thread count,
+ * by doubling the delay between requests. It is added back in the reverse order.
+ * ZAP applies the delay to requests immediately; a changed thread count applies to scans
+ * started afterwards, such as the next shard of a sharded scan.
+ * <p>
+ * As the thread count and delay are global options of a ZAP instance, concurrent scans on one
+ * instance share one controller, which samples the sites of all of them and backs off if any
+ * is congested. The options are restored once the last scan is done.
+ */
+public class AdaptiveConcurrencyController implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+
+    private static final String STATS_PREFIX = "stats.";
+    private static final String CODE_PREFIX = "stats.code.";
+    private static final String RESPONSE_TIME_PREFIX = "stats.responseTime.";
+
+    private static final Map<ClientApi, AdaptiveConcurrencyController> SHARED = new WeakHashMap<>();
+
+    private final ClientApi zapClient;
+    private final String site;
+    private final int minThreads;
+    private final int maxThreads;
+    private final int initialThreads;
+    private final int maxDelayMs;
+    private final int delayStepMs;
+    private final double errorRateThreshold;
+    private final double latencyTolerance;
+    private final long minRequestsPerSample;
+    private final long sampleIntervalMs;
+
+    private int threadsPerHost;
+    private int delayInMs;
+    private final Map<String, Integer> sites = new LinkedHashMap<>();
+    private final Map<String, Double> baselineLatencyMs = new HashMap<>();
+    private final Map<String, Map<String, Long>> lastStats = new HashMap<>();
+    private int references;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new controller from a builder.
+     *
+     * @param builder The builder
+     */
+    private AdaptiveConcurrencyController(Builder builder) {
+        this.zapClient = builder.zapClient;
+        this.site = builder.site;
+        this.minThreads = builder.minThreads;
+        this.maxThreads = Math.max(builder.minThreads, builder.maxThreads);
+        this.initialThreads = Math.max(minThreads, Math.min(maxThreads, builder.initialThreads));
+        this.maxDelayMs = builder.maxDelayMs;
+        this.delayStepMs = builder.delayStepMs;
+        this.errorRateThreshold = builder.errorRateThreshold;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.minRequestsPerSample = builder.minRequestsPerSample;
+        this.sampleIntervalMs = builder.sampleIntervalMs;
+        this.threadsPerHost = initialThreads;
+        this.sites.put(site, 0);
+    }
+
+    /**
+     * Starts controlling the load of the active scans of a target, as configured.
+     * The first scan on a ZAP instance starts the instance's controller and applies the
+     * configured thread count; the feedback loop only runs if adaptive concurrency is
+     * enabled. Later scans join the running controller until the last one is done.
+     *
+     * @param zapClient The ZAP client
+     * @param config The scan configuration
+     * @param targetUrl The target URL
+     * @return The lease on the instance's controller, to be closed when the scan completes
+     * @throws ZapScannerException If the initial settings cannot be applied
+     */
+    public static Lease start(ClientApi zapClient, ScanConfig config, String targetUrl)
+            throws ZapScannerException {
+        String site = siteOf(targetUrl);
+        synchronized (SHARED) {
+            AdaptiveConcurrencyController controller = SHARED.get(zapClient);
+            if (controller == null) {
+                controller = new Builder(zapClient, site)
+                        .initialThreads(config.getThreadCount())
+                        .maxThreads(Math.max(config.getThreadCount(), config.getMaxThreadCount()))
+                        .build();
+                controller.apply();
+                if (config.isAdaptiveConcurrencyEnabled()) {
+                    controller.startSampling();
+                }
+                SHARED.put(zapClient, controller);
+            }
+            controller.retain(site);
+            return controller.new Lease(site);
+        }
+    }
+
+    /**
+     * Gets the controller currently shared by the scans of a ZAP instance.
+     *
+     * @param zapClient The ZAP client
+     * @return The controller, or null if no scan is running on the instance
+     */
+    static AdaptiveConcurrencyController getShared(ClientApi zapClient) {
+        synchronized (SHARED) {
+            return SHARED.get(zapClient);
+        }
+    }
+
+    /**
+     * Applies the current thread count and delay to ZAP.
+     *
+     * @throws ZapScannerException If ZAP rejects the settings
+     */
+    public synchronized void apply() throws ZapScannerException {
+        try {
+            zapClient.ascan.setOptionThreadPerHost(threadsPerHost);
+            zapClient.ascan.setOptionDelayInMs(delayInMs);
+        } catch (ClientApiException e) {
+            throw new ZapScannerException("Failed to apply active scan concurrency: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Samples the target's health on a background thread at the configured interval.
+     */
+    public synchronized void startSampling() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adaptive-concurrency-" + site);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sampleAndAdjust, sampleIntervalMs, sampleIntervalMs,
+                TimeUnit.MILLISECONDS);
+        LOGGER.info("Adaptive concurrency started for {} at {} threads per host", site, threadsPerHost);
+    }
+
+    /**
+     * Adjusts the load for one sampling window and applies any change to ZAP.
+     *
+     * @param sample The health of the target over the window
+     * @return True if the thread count or delay changed, false otherwise
+     * @throws ZapScannerException If ZAP rejects the new settings
+     */
+    public synchronized boolean onSample(TargetHealthSample sample) throws ZapScannerException {
+        return onSamples(Collections.singletonMap(site, sample));
+    }
+
+    /**
+     * Adjusts the load for one sampling window of the sites of all running scans and applies
+     * any change to ZAP. As the settings apply to all scans, any congested site backs off.
+     *
+     * @param samples The health of each site over the window
+     * @return True if the thread count or delay changed, false otherwise
+     * @throws ZapScannerException If ZAP rejects the new settings
+     */
+    public synchronized boolean onSamples(Map<String, TargetHealthSample> samples) throws ZapScannerException {
+        boolean measured = false;
+        boolean congested = false;
+        for (Map.Entry<String, TargetHealthSample> entry : samples.entrySet()) {
+            TargetHealthSample sample = entry.getValue();
+            if (sample.getRequests() < minRequestsPerSample) {
+                // Too few responses for a meaningful signal
+                continue;
+            }
+            measured = true;
+
+            double baseline = baselineLatencyMs.getOrDefault(entry.getKey(), 0.0);
+            if (sample.getMeanLatencyMs() > 0 && (baseline == 0 || sample.getMeanLatencyMs() < baseline)) {
+                baseline = sample.getMeanLatencyMs();
+                baselineLatencyMs.put(entry.getKey(), baseline);
+            }
+
+            congested |= sample.getErrorRate() > errorRateThreshold
+                    || sample.getMeanLatencyMs() > baseline * latencyTolerance;
+        }
+        if (!measured) {
+            return false;
+        }
+
+        int previousThreads = threadsPerHost;
+        int previousDelay = delayInMs;
+
+        if (congested) {
+            if (threadsPerHost > minThreads) {
+                threadsPerHost = Math.max(minThreads, threadsPerHost / 2);
+            } else {
+                delayInMs = Math.min(maxDelayMs, Math.max(delayStepMs, delayInMs * 2));
+            }
+        } else if (delayInMs > 0) {
+            delayInMs = Math.max(0, delayInMs - delayStepMs);
+        } else {
+            threadsPerHost = Math.min(maxThreads, threadsPerHost + 1);
+        }
+
+        if (threadsPerHost == previousThreads && delayInMs == previousDelay) {
+            return false;
+        }
+
+        LOGGER.info("{} targets {} ({}): {} threads per host, {} ms delay", congested ? "Backing off" : "Speeding up",
+                samples.keySet(), samples.values(), threadsPerHost, delayInMs);
+        apply();
+        return true;
+    }
+
+    /**
+     * Gets the current number of active scan threads per host.
+     *
+     * @return The thread count
+     */
+    public synchronized int getThreadsPerHost() {
+        return threadsPerHost;
+    }
+
+    /**
+     * Gets the current delay between active scan requests.
+     *
+     * @return The delay in milliseconds
+     */
+    public synchronized int getDelayInMs() {
+        return delayInMs;
+    }
+
+    /**
+     * Gets the number of scans sharing the controller.
+     *
+     * @return The number of leases not yet closed
+     */
+    public synchronized int getReferenceCount() {
+        return references;
+    }
+
+    /**
+     * Stops sampling and restores the initial thread count without a delay,
+     * so that later scans do not inherit a back-off. A shared controller is closed
+     * when the lease of its last scan is closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+
+        threadsPerHost = initialThreads;
+        delayInMs = 0;
+        try {
+            apply();
+        } catch (ZapScannerException e) {
+            LOGGER.warn("Failed to restore active scan concurrency for {}", site, e);
+        }
+    }
+
+    /**
+     * Samples the target's health from ZAP's site statistics and adjusts the load.
+     * Failures are logged since a missed sample only delays the next adjustment.
+     */
+    private void sampleAndAdjust() {
+        List<String> sampledSites;
+        synchronized (this) {
+            sampledSites = new ArrayList<>(sites.keySet());
+        }
+
+        Map<String, TargetHealthSample> samples = new LinkedHashMap<>();
+        for (String sampledSite : sampledSites) {
+            try {
+                TargetHealthSample sample = sampleTargetHealth(sampledSite);
+                if (sample != null) {
+                    samples.put(sampledSite, sample);
+                }
+            } catch (ZapScannerException | RuntimeException e) {
+                LOGGER.debug("Failed to sample health of {}", sampledSite, e);
+            }
+        }
+
+        try {
+            if (!samples.isEmpty()) {
+                onSamples(samples);
+            }
+        } catch (ZapScannerException | RuntimeException e) {
+            LOGGER.debug("Failed to adjust concurrency for {}", samples.keySet(), e);
+        }
+    }
+
+    /**
+     * Computes a site's health since the previous sample from ZAP's cumulative site statistics.
+     *
+     * @param site The site, as scheme://host:port
+     * @return The sample, or null for the first sample, which only records the counters
+     * @throws ZapScannerException If the statistics cannot be read
+     */
+    private TargetHealthSample sampleTargetHealth(String site) throws ZapScannerException {
+        Map<String, Long> stats = new HashMap<>();
+        try {
+            ApiResponse response = zapClient.stats.siteStats(site, STATS_PREFIX);
+            if (response instanceof ApiResponseSet) {
+                ApiResponseSet set = (ApiResponseSet) response;
+                for (String key : set.getValuesMap().keySet()) {
+                    try {
+                        stats.put(key, Long.parseLong(set.getStringValue(key)));
+                    } catch (NumberFormatException e) {
+                        // Not a counter
+                    }
+                }
+            }
+        } catch (ClientApiException e) {
+            throw new ZapScannerException("Failed to read site statistics: " + e.getMessage(), e);
+        }
+
+        Map<String, Long> previous;
+        synchronized (this) {
+            previous = lastStats.put(site, stats);
+        }
+        return previous != null ? toSample(previous, stats) : null;
+    }
+
+    /**
+     * Adds a scan of a site to the scans sharing the controller.
+     *
+     * @param site The site, as scheme://host:port
+     */
+    private synchronized void retain(String site) {
+        sites.merge(site, 1, Integer::sum);
+        references++;
+    }
+
+    /**
+     * Removes a scan of a site from the scans sharing the controller, closing the controller
+     * after the last one.
+     *
+     * @param site The site, as scheme://host:port
+     */
+    private void release(String site) {
+        synchronized (SHARED) {
+            synchronized (this) {
+                Integer siteReferences = sites.get(site);
+                if (siteReferences != null && siteReferences > 1) {
+                    sites.put(site, siteReferences - 1);
+                } else if (sites.size() > 1) {
+                    sites.remove(site);
+                    lastStats.remove(site);
+                }
+                if (--references > 0) {
+                    return;
+                }
+            }
+            if (SHARED.get(zapClient) == this) {
+                SHARED.remove(zapClient);
+            }
+            close();
+        }
+    }
+
+    /**
+     * Computes a health sample from two snapshots of ZAP's cumulative site statistics.
+     * Response times are recorded in a histogram of power-of-two millisecond buckets,
+     * so the mean latency is estimated from the bucket bounds.
+     *
+     * @param previous The earlier snapshot
+     * @param current The later snapshot
+     * @return The sample
+     */
+    static TargetHealthSample toSample(Map<String, Long> previous, Map<String, Long> current) {
+        long requests = 0;
+        long throttled = 0;
+        long serverErrors = 0;
+        long timedResponses = 0;
+        double totalLatency = 0;
+
+        for (Map.Entry<String, Long> entry : current.entrySet()) {
+            long delta = entry.getValue() - previous.getOrDefault(entry.getKey(), 0L);
+            if (delta <= 0) {
+                continue;
+            }
+
+            try {
+                if (entry.getKey().startsWith(CODE_PREFIX)) {
+                    int code = Integer.parseInt(entry.getKey().substring(CODE_PREFIX.length()));
+                    requests += delta;
+                    if (code == 429) {
+                        throttled += delta;
+                    } else if (code >= 500) {
+                        serverErrors += delta;
+                    }
+                } else if (entry.getKey().startsWith(RESPONSE_TIME_PREFIX)) {
+                    long bucket = Long.parseLong(entry.getKey().substring(RESPONSE_TIME_PREFIX.length()));
+                    timedResponses += delta;
+                    totalLatency += (double) bucket * delta;
+                }
+            } catch (NumberFormatException e) {
+                // Not a per-code or per-bucket statistic
+            }
+        }
+
+        return new TargetHealthSample(requests, throttled, serverErrors,
+                timedResponses > 0 ? totalLatency / timedResponses : 0);
+    }
+
+    /**
+     * Gets the site of a URL, as ZAP keys its statistics.
+     *
+     * @param targetUrl The URL
+     * @return The site, as scheme://host:port
+     * @throws ZapScannerException If the URL is invalid
+     */
+    private static String siteOf(String targetUrl) throws ZapScannerException {
+        try {
+            URI uri = URI.create(targetUrl);
+            int port = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+            return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ZapScannerException("Invalid target URL: " + targetUrl, e);
+        }
+    }
+
+    /**
+     * A scan's share of the controller of its ZAP instance.
+     */
+    public class Lease implements AutoCloseable {
+        private final String site;
+        private boolean closed;
+
+        private Lease(String site) {
+            this.site = site;
+        }
+
+        /**
+         * Gets the controller shared by the scans of the ZAP instance.
+         *
+         * @return The controller
+         */
+        public AdaptiveConcurrencyController getController() {
+            return AdaptiveConcurrencyController.this;
+        }
+
+        /**
+         * Ends the scan's share of the controller, restoring the settings if it was the last scan.
+         */
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                release(site);
+            }
+        }
+    }
+
+    /**
+     * Builder for adaptive concurrency controllers.
+     */
+    public static class Builder {
+        private final ClientApi zapClient;
+        private final String site;
+        private int minThreads = 1;
+        private int maxThreads = 20;
+        private int initialThreads = 5;
+        private int maxDelayMs = 5000;
+        private int delayStepMs = 50;
+        private double errorRateThreshold = 0.05;
+        private double latencyTolerance = 2.0;
+        private long minRequestsPerSample = 20;
+        private long sampleIntervalMs = 5000;
+
+        /**
+         * Creates a new builder.
+         *
+         * @param zapClient The ZAP client
+         * @param site The site whose load is controlled, as scheme://host:port
+         */
+        public Builder(ClientApi zapClient, String site) {
+            this.zapClient = zapClient;
+            this.site = site;
+        }
+
+        /**
+         * Sets the minimum number of threads per host.
+         *
+         * @param minThreads The minimum thread count
+         * @return This builder
+         */
+        public Builder minThreads(int minThreads) {
+            this.minThreads = Math.max(1, minThreads);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of threads per host.
+         *
+         * @param maxThreads The maximum thread count
+         * @return This builder
+         */
+        public Builder maxThreads(int maxThreads) {
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        /**
+         * Sets the initial number of threads per host.
+         *
+         * @param initialThreads The initial thread count
+         * @return This builder
+         */
+        public Builder initialThreads(int initialThreads) {
+            this.initialThreads = initialThreads;
+            return this;
+        }
+
+        /**
+         * Sets the maximum delay between requests.
+         *
+         * @param maxDelayMs The maximum delay in milliseconds
+         * @return This builder
+         */
+        public Builder maxDelayMs(int maxDelayMs) {
+            this.maxDelayMs = maxDelayMs;
+            return this;
+        }
+
+        /**
+         * Sets the step by which the delay is first raised and then lowered again.
+         *
+         * @param delayStepMs The delay step in milliseconds
+         * @return This builder
+         */
+        public Builder delayStepMs(int delayStepMs) {
+            this.delayStepMs = Math.max(1, delayStepMs);
+            return this;
+        }
+
+        /**
+         * Sets the share of 429/5xx responses above which the target is considered congested.
+         *
+         * @param errorRateThreshold The error rate threshold, between 0 and 1
+         * @return This builder
+         */
+        public Builder errorRateThreshold(double errorRateThreshold) {
+            this.errorRateThreshold = errorRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets how many times the best mean latency seen a window's latency may reach
+         * before the target is considered congested.
+         *
+         * @param latencyTolerance The latency tolerance factor
+         * @return This builder
+         */
+        public Builder latencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * Sets the minimum number of responses a window needs before the load is adjusted.
+         *
+         * @param minRequestsPerSample The minimum number of responses
+         * @return This builder
+         */
+        public Builder minRequestsPerSample(long minRequestsPerSample) {
+            this.minRequestsPerSample = minRequestsPerSample;
+            return this;
+        }
+
+        /**
+         * Sets the length of a sampling window.
+         *
+         * @param sampleIntervalMs The sampling interval in milliseconds
+         * @return This builder
+         */
+        public Builder sampleIntervalMs(long sampleIntervalMs) {
+            this.sampleIntervalMs = sampleIntervalMs;
+            return this;
+        }
+
+        /**
+         * Builds the controller.
+         *
+         * @return The controller
+         */
+        public AdaptiveConcurrencyController build() {
+            return new AdaptiveConcurrencyController(this);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.auth.AuthenticationHandler;
+import com.securitytesting.zap.exception.AuthenticationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ClientApi;
+
+/**
+ * Authentication set up for the duration of one scan phase, such as a spider or an active scan.
+ * <p>
+ * Handlers hold resources in ZAP for each setup, such as reference counted authentication
+ * scripts, so every setup is cleaned up when the phase ends, whether it completed or failed.
+ * Cleanup failures are logged rather than thrown, so they do not hide the outcome of the phase.
+ */
+final class AuthenticationLease implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationLease.class);
+
+    private static final AuthenticationLease NONE = new AuthenticationLease(null, null, null);
+
+    private final ClientApi zapClient;
+    private final AuthenticationHandler authHandler;
+    private final Integer contextId;
+
+    private AuthenticationLease(ClientApi zapClient, AuthenticationHandler authHandler, Integer contextId) {
+        this.zapClient = zapClient;
+        this.authHandler = authHandler;
+        this.contextId = contextId;
+    }
+
+    /**
+     * Sets up authentication for a context, if a handler and a context are configured.
+     *
+     * @param zapClient The ZAP client API
+     * @param authHandler The authentication handler, or null to scan without authentication
+     * @param contextName The ZAP context name, or null to scan without a context
+     * @return The lease, to close once the phase ends
+     * @throws AuthenticationException If setup fails
+     */
+    static AuthenticationLease setUp(ClientApi zapClient, AuthenticationHandler authHandler, String contextName)
+            throws AuthenticationException {
+        if (authHandler == null || contextName == null || contextName.isEmpty()) {
+            return NONE;
+        }
+
+        Integer contextId = authHandler.setupAuthentication(contextName);
+        LOGGER.info("Authentication configured for context ID: {}", contextId);
+        return new AuthenticationLease(zapClient, authHandler, contextId);
+    }
+
+    /**
+     * Gets the ID of the context authentication was set up for.
+     *
+     * @return The context ID, or null if authentication was not set up
+     */
+    Integer getContextId() {
+        return contextId;
+    }
+
+    /**
+     * Gets the ID of the user the handler created during setup.
+     *
+     * @return The user ID, or null if authentication was not set up or the handler creates no user
+     */
+    Integer getUserId() {
+        return authHandler != null ? authHandler.getUserId() : null;
+    }
+
+    @Override
+    public void close() {
+        if (authHandler == null || contextId == null) {
+            return;
+        }
+
+        try {
+            authHandler.cleanup(zapClient, contextId);
+        } catch (AuthenticationException e) {
+            LOGGER.warn("Failed to clean up authentication for context ID {}: {}", contextId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.securitytesting.zap.scanner;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Browser-driven crawler that explores the UI states of a web application.
+ * A state is identified by a hash of the URL template and the normalized DOM, so the same
+ * state reached through different click paths or with different record IDs is explored once.
+ * Unvisited actionable elements are kept in a bounded breadth-first frontier.
+ */
+public class DomStateCrawler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DomStateCrawler.class);
+
+    private static final String ACTIONABLE_SELECTOR =
+            "a[href], button, input[type=submit], input[type=button], [onclick], [role=button]";
+
+    private static final Pattern COMMENTS = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+    private static final Pattern SCRIPTS_AND_STYLES = Pattern.compile(
+            "<(script|style|noscript)\\b[^>]*>.*?</\\1\\s*>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern TEXT_NODES = Pattern.compile(">[^<]+<");
+    private static final Pattern VOLATILE_ATTRIBUTES = Pattern.compile(
+            "\\s(?:value|nonce|style|integrity|data-[\\w-]+)\\s*=\\s*(?:\"[^\"]*\"|'[^']*'|[^\\s>]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9a-fA-F]{16,}");
+
+    private final int maxStates;
+    private final int maxFrontierSize;
+    private final long maxDurationMs;
+
+    /**
+     * Creates a new DOM state crawler.
+     *
+     * @param maxStates The maximum number of distinct states to explore
+     * @param maxFrontierSize The maximum number of pending actions kept in the frontier
+     * @param maxDurationMs The maximum crawl duration in milliseconds
+     */
+    public DomStateCrawler(int maxStates, int maxFrontierSize, long maxDurationMs) {
+        this.maxStates = maxStates;
+        this.maxFrontierSize = maxFrontierSize;
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    /**
+     * Crawls a web application starting from a URL.
+     * Only URLs with the same scheme, host and port as the start URL are followed.
+     *
+     * @param driver The browser session, proxied through ZAP
+     * @param startUrl The URL to start crawling from
+     * @return The crawl statistics
+     */
+    public Result crawl(WebDriver driver, String startUrl) {
+        long deadline = System.currentTimeMillis() + maxDurationMs;
+        URI origin = URI.create(startUrl);
+
+        Set<String> visitedStates = new HashSet<>();
+        Set<String> seenActions = new HashSet<>();
+        Deque<CrawlAction> frontier = new ArrayDeque<>();
+        Result result = new Result();
+
+        driver.get(startUrl);
+        seenActions.add("link:" + urlTemplate(driver.getCurrentUrl()));
+        String startState = stateHash(driver.getCurrentUrl(), driver.getPageSource());
+        visitedStates.add(startState);
+        enqueueActions(driver, startState, origin, seenActions, frontier, result);
+
+        while (!frontier.isEmpty() && visitedStates.size() < maxStates) {
+            if (System.currentTimeMillis() > deadline) {
+                LOGGER.warn("DOM state crawl stopped after {} ms with {} actions pending", maxDurationMs,
+                        frontier.size());
+                break;
+            }
+
+            CrawlAction action = frontier.pollFirst();
+            String state;
+
+            try {
+                if (!execute(driver, action)) {
+                    result.staleActions++;
+                    continue;
+                }
+                result.actionsExecuted++;
+
+                if (!isInScope(driver.getCurrentUrl(), origin)) {
+                    continue;
+                }
+
+                state = stateHash(driver.getCurrentUrl(), driver.getPageSource());
+            } catch (WebDriverException e) {
+                LOGGER.debug("Crawl action failed: {}", e.getMessage());
+                result.failedActions++;
+                continue;
+            }
+
+            if (!visitedStates.add(state)) {
+                result.duplicateStates++;
+                continue;
+            }
+
+            enqueueActions(driver, state, origin, seenActions, frontier, result);
+        }
+
+        result.statesDiscovered = visitedStates.size();
+        LOGGER.info("DOM state crawl completed: {}", result);
+        return result;
+    }
+
+    /**
+     * Executes a crawl action.
+     *
+     * @param driver The browser session
+     * @param action The action
+     * @return True if the action was executed, false if its element no longer exists in the source state
+     */
+    private boolean execute(WebDriver driver, CrawlAction action) {
+        if (action.targetUrl != null) {
+            driver.get(action.targetUrl);
+            return true;
+        }
+
+        // Restore the source state before clicking, and skip the action if it cannot be restored
+        driver.get(action.sourceUrl);
+        if (!action.sourceState.equals(stateHash(driver.getCurrentUrl(), driver.getPageSource()))) {
+            return false;
+        }
+
+        List<WebElement> elements = driver.findElements(By.cssSelector(ACTIONABLE_SELECTOR));
+        if (action.elementIndex >= elements.size()) {
+            return false;
+        }
+
+        elements.get(action.elementIndex).click();
+        return true;
+    }
+
+    /**
+     * Adds the unseen actionable elements of the current state to the frontier.
+     *
+     * @param driver The browser session
+     * @param state The hash of the current state
+     * @param origin The start URL
+     * @param seenActions The keys of the actions already queued
+     * @param frontier The frontier
+     * @param result The crawl statistics
+     */
+    private void enqueueActions(WebDriver driver, String state, URI origin, Set<String> seenActions,
+                                Deque<CrawlAction> frontier, Result result) {
+        String currentUrl = driver.getCurrentUrl();
+        String currentTemplate = urlTemplate(currentUrl);
+        List<WebElement> elements = driver.findElements(By.cssSelector(ACTIONABLE_SELECTOR));
+
+        for (int i = 0; i < elements.size(); i++) {
+            CrawlAction action;
+            String key;
+
+            try {
+                WebElement element = elements.get(i);
+                String tagName = element.getTagName();
+                String href = "a".equalsIgnoreCase(tagName) ? element.getAttribute("href") : null;
+
+                if (href != null && (href.startsWith("http://") || href.startsWith("https://"))) {
+                    if (!isInScope(href, origin)) {
+                        continue;
+                    }
+
+                    // Links to the same URL template lead to the same kind of page
+                    key = "link:" + urlTemplate(href);
+                    action = new CrawlAction(href, null, null, -1);
+                } else if (href != null && !href.startsWith("javascript:")) {
+                    // mailto:, tel: and similar links do not lead to application states
+                    continue;
+                } else {
+                    // The same control repeated across pages of one template (e.g. a nav bar) is clicked once
+                    key = "click:" + currentTemplate + '\n' + tagName + '\n' + element.getAttribute("id")
+                            + '\n' + element.getAttribute("name") + '\n' + element.getText();
+                    action = new CrawlAction(null, currentUrl, state, i);
+                }
+            } catch (WebDriverException e) {
+                LOGGER.debug("Failed to inspect actionable element: {}", e.getMessage());
+                continue;
+            }
+
+            if (!seenActions.add(key)) {
+                continue;
+            }
+
+            if (frontier.size() >= maxFrontierSize) {
+                result.droppedActions++;
+                continue;
+            }
+
+            frontier.addLast(action);
+        }
+    }
+
+    /**
+     * Checks whether a URL has the same scheme, host and port as the start URL.
+     *
+     * @param url The URL
+     * @param origin The start URL
+     * @return True if the URL is in scope, false otherwise
+     */
+    private static boolean isInScope(String url, URI origin) {
+        try {
+            URI uri = URI.create(url);
+            return Objects.equals(uri.getScheme(), origin.getScheme())
+                    && Objects.equals(uri.getHost(), origin.getHost())
+                    && uri.getPort() == origin.getPort();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Computes the hash identifying a UI state.
+     *
+     * @param url The URL of the state
+     * @param pageSource The page source of the state
+     * @return The state hash
+     */
+    static String stateHash(String url, String pageSource) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(urlTemplate(url).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            byte[] hash = digest.digest(normalizeDom(pageSource).getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Normalizes a DOM so that states differing only in content are treated as the same state.
+     * Removes comments, scripts, styles, text and volatile attributes, and masks numbers.
+     *
+     * @param pageSource The page source
+     * @return The normalized DOM
+     */
+    static String normalizeDom(String pageSource) {
+        if (pageSource == null) {
+            return "";
+        }
+
+        String dom = COMMENTS.matcher(pageSource).replaceAll("");
+        dom = SCRIPTS_AND_STYLES.matcher(dom).replaceAll("");
+        dom = TEXT_NODES.matcher(dom).replaceAll("><");
+        dom = VOLATILE_ATTRIBUTES.matcher(dom).replaceAll("");
+        dom = DIGITS.matcher(dom).replaceAll("0");
+        return WHITESPACE.matcher(dom).replaceAll(" ").trim();
+    }
+
+    /**
+     * Computes the template of a URL by masking ID-like path segments and dropping query values.
+     * For example, "https://example.com/users/42?tab=orders" becomes "https://example.com/users/{id}?tab".
+     *
+     * @param url The URL
+     * @return The URL template
+     */
+    static String urlTemplate(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+
+        StringBuilder template = new StringBuilder();
+        if (uri.getScheme() != null) {
+            template.append(uri.getScheme()).append("://");
+        }
+        if (uri.getRawAuthority() != null) {
+            template.append(uri.getRawAuthority());
+        }
+
+        template.append(templatePath(uri.getRawPath()));
+
+        if (uri.getRawQuery() != null) {
+            String[] names = Arrays.stream(uri.getRawQuery().split("&"))
+                    .map(parameter -> parameter.split("=", 2)[0])
+                    .distinct()
+                    .sorted()
+                    .toArray(String[]::new);
+            template.append('?').append(String.join("&", names));
+        }
+
+        // Single-page applications route on the fragment
+        if (uri.getRawFragment() != null) {
+            template.append('#').append(templatePath(uri.getRawFragment()));
+        }
+
+        return template.toString();
+    }
+
+    /**
+     * Masks the ID-like segments of a path.
+     *
+     * @param path The path
+     * @return The path template
+     */
+    private static String templatePath(String path) {
+        if (path == null || path.isEmpty()) {
+            return "";
+        }
+
+        String[] segments = path.split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (ID_SEGMENT.matcher(segments[i]).matches()) {
+                segments[i] = "{id}";
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    /**
+     * A pending action in the frontier: either a link to follow or an element to click in a source state.
+     */
+    private static final class CrawlAction {
+
+        private final String targetUrl;
+        private final String sourceUrl;
+        private final String sourceState;
+        private final int elementIndex;
+
+        private CrawlAction(String targetUrl, String sourceUrl, String sourceState, int elementIndex) {
+            this.targetUrl = targetUrl;
+            this.sourceUrl = sourceUrl;
+            this.sourceState = sourceState;
+            this.elementIndex = elementIndex;
+        }
+    }
+
+    /**
+     * Statistics of a DOM state crawl.
+     */
+    public static class Result {
+
+        private int statesDiscovered;
+        private int actionsExecuted;
+        private int duplicateStates;
+        private int staleActions;
+        private int failedActions;
+        private int droppedActions;
+
+        /**
+         * Gets the number of distinct states explored, including the start state.
+         *
+         * @return The number of states
+         */
+        public int getStatesDiscovered() {
+            return statesDiscovered;
+        }
+
+        /**
+         * Gets the number of actions executed.
+         *
+         * @return The number of actions
+         */
+        public int getActionsExecuted() {
+            return actionsExecuted;
+        }
+
+        /**
+         * Gets the number of actions that led to an already explored state.
+         *
+         * @return The number of duplicate states
+         */
+        public int getDuplicateStates() {
+            return duplicateStates;
+        }
+
+        /**
+         * Gets the number of click actions skipped because their source state could not be restored.
+         *
+         * @return The number of stale actions
+         */
+        public int getStaleActions() {
+            return staleActions;
+        }
+
+        /**
+         * Gets the number of actions that failed in the browser.
+         *
+         * @return The number of failed actions
+         */
+        public int getFailedActions() {
+            return failedActions;
+        }
+
+        /**
+         * Gets the number of actions not queued because the frontier was full.
+         *
+         * @return The number of dropped actions
+         */
+        public int getDroppedActions() {
+            return droppedActions;
+        }
+
+        @Override
+        public String toString() {
+            return statesDiscovered + " states, " + actionsExecuted + " actions, " + duplicateStates
+                    + " duplicate states, " + staleActions + " stale, " + failedActions + " failed, "
+                    + droppedActions + " dropped";
+        }
+    }
+}
@@ -3,8 +3,24 @@ package com.securitytesting.zap.scanner;
 import com.securitytesting.zap.auth.AuthenticationHandler;
 import com.securitytesting.zap.config.ScanConfig;
 import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.openapi.OpenApiModelCache;
+import com.securitytesting.zap.openapi.OpenApiRequestGenerator;
+import com.securitytesting.zap.openapi.OpenApiRequestSeeder;
+import com.securitytesting.zap.openapi.OpenApiSpecDiff;
+import com.securitytesting.zap.openapi.OperationShard;
+import com.securitytesting.zap.openapi.OperationSharder;
+import com.securitytesting.zap.openapi.SampleRequest;
+import com.securitytesting.zap.policy.RuleExecution;
 import com.securitytesting.zap.policy.ScanPolicy;
+import com.securitytesting.zap.policy.ScanPolicyApplier;
+import com.securitytesting.zap.report.Alert;
+import com.securitytesting.zap.report.ReportGenerator;
+import com.securitytesting.zap.report.ScanProfile;
 import com.securitytesting.zap.report.ScanResult;
+import com.securitytesting.zap.report.ScanResultMerger;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.servers.Server;
+import io.swagger.v3.oas.models.servers.ServerVariable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zaproxy.clientapi.core.ApiResponse;
@@ -13,11 +29,24 @@ import org.zaproxy.clientapi.core.ClientApi;
 import org.zaproxy.clientapi.core.ClientApiException;
 
 import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
 import java.net.URL;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -31,7 +60,15 @@ public class OpenApiScanner {
     
     private final ClientApi zapClient;
     private final ScanConfig config;
+    private final ScanStatusPoller statusPoller;
+    private final OpenApiModelCache modelCache;
+    private ReportGenerator reportGenerator;
     private AuthenticationHandler authHandler;
+    private ScanCancellation cancellation = new ScanCancellation();
+    private OpenAPI openApiModel;
+    private OpenApiSpecDiff specDiff;
+    private OperationSharder.Strategy shardStrategy = OperationSharder.Strategy.PATH_PREFIX;
+    private final ScanProfiler scanProfiler;
 
     /**
      * Creates a new OpenAPI scanner with the specified ZAP client and configuration.
@@ -40,8 +77,23 @@ public class OpenApiScanner {
      * @param config The scan configuration
      */
     public OpenApiScanner(ClientApi zapClient, ScanConfig config) {
+        this(zapClient, config, OpenApiModelCache.getInstance());
+    }
+    
+    /**
+     * Creates a new OpenAPI scanner that parses specifications through the specified cache.
+     * 
+     * @param zapClient The ZAP client
+     * @param config The scan configuration
+     * @param modelCache The cache of parsed OpenAPI models
+     */
+    public OpenApiScanner(ClientApi zapClient, ScanConfig config, OpenApiModelCache modelCache) {
         this.zapClient = zapClient;
+        this.statusPoller = ScanStatusPoller.forClient(zapClient);
+        this.scanProfiler = new ScanProfiler(zapClient);
         this.config = config;
+        this.modelCache = modelCache;
+        this.reportGenerator = new ReportGenerator(zapClient);
     }
     
     /**
@@ -52,6 +104,35 @@ public class OpenApiScanner {
     public void setAuthenticationHandler(AuthenticationHandler authHandler) {
         this.authHandler = authHandler;
     }
+    
+    /**
+     * Sets the report generator that reads the alerts of incremental scans, so they honour its
+     * suppression baseline.
+     * 
+     * @param reportGenerator The report generator
+     */
+    public void setReportGenerator(ReportGenerator reportGenerator) {
+        this.reportGenerator = reportGenerator;
+    }
+    
+    /**
+     * Sets the cancellation of the scan this scanner runs: cancelling it stops the scans the
+     * scanner started in ZAP and ends its polling.
+     * 
+     * @param cancellation The scan cancellation
+     */
+    public void setCancellation(ScanCancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+    
+    /**
+     * Sets how the operations of an imported definition are grouped into active scan shards.
+     * 
+     * @param shardStrategy The shard strategy
+     */
+    public void setShardStrategy(OperationSharder.Strategy shardStrategy) {
+        this.shardStrategy = shardStrategy;
+    }
 
     /**
      * Scan an OpenAPI definition from a URL.
@@ -93,6 +174,101 @@ public class OpenApiScanner {
         }
     }
 
+    /**
+     * Scans only what changed in a new version of an OpenAPI definition.
+     * The new definition is diffed against the previously scanned one by operation ID, path and
+     * method and the signature of each operation's inputs. Only added and changed operations are
+     * seeded and active scanned; alerts of the earlier scan for unchanged operations are carried over.
+     * Fresh alerts are those the active scans of this call raised, not every alert ZAP holds for
+     * the target, so alerts of removed or unchanged operations from earlier scans are not repeated.
+     *
+     * @param openApiUrl The URL to the new OpenAPI specification
+     * @param previousModel The previously scanned definition, or null to scan every operation
+     * @param previousResult The result of the previous scan, or null if there is none
+     * @param scanPolicy The scan policy to use, or null for the default policy
+     * @return The scan result, combining fresh alerts with those carried over
+     * @throws ZapScannerException If scanning fails
+     */
+    public ScanResult scanChanges(String openApiUrl, OpenAPI previousModel, ScanResult previousResult, 
+                                  ScanPolicy scanPolicy) throws ZapScannerException {
+        LOGGER.info("Starting incremental scan for OpenAPI URL: {}", openApiUrl);
+        long startTime = System.currentTimeMillis();
+        
+        try {
+            URL url = new URL(openApiUrl);
+            openApiModel = modelCache.getModel(url);
+            String targetUrl = getTargetUrl(openApiModel, url.toString());
+            
+            specDiff = OpenApiSpecDiff.compare(previousModel, openApiModel);
+            LOGGER.info("OpenAPI definition diff: {}", specDiff);
+            
+            Set<String> endpointsToScan = specDiff.getEndpointsToScan();
+            List<Integer> scanIds = new ArrayList<>();
+            if (!endpointsToScan.isEmpty()) {
+                // Seed and scan only the operations that are new or changed
+                seedRequests(new OpenApiRequestGenerator(openApiModel).generateRequests(targetUrl, endpointsToScan));
+                
+                performPassiveScan(config.getContextName(), config.getMaxPassiveScanDurationInMinutes());
+                
+                if (config.isActiveScanEnabled()) {
+                    if (scanPolicy != null) {
+                        ScanPolicyApplier.getInstance().apply(zapClient, scanPolicy);
+                    }
+                    
+                    List<OperationShard> shards = new OperationSharder(shardStrategy)
+                            .shard(openApiModel, targetUrl, endpointsToScan);
+                    try (AdaptiveConcurrencyController.Lease concurrency = 
+                            AdaptiveConcurrencyController.start(zapClient, config, targetUrl)) {
+                        scanIds = performShardedActiveScan(shards, scanPolicy != null ? scanPolicy.getName() : null, 
+                                config.getMaxActiveScanDurationInMinutes());
+                    }
+                }
+            }
+            
+            // Fresh alerts first, then earlier alerts of unchanged operations that were not raised again
+            ScanResult.Builder builder = new ScanResult.Builder().targetUrl(targetUrl).scanDate(new Date());
+            Set<String> alertKeys = new HashSet<>();
+            
+            if (!scanIds.isEmpty()) {
+                for (Alert alert : reportGenerator.generateActiveScanResult(targetUrl, scanIds, 0).getAlerts()) {
+                    if (alertKeys.add(alertKey(alert))) {
+                        builder.addAlert(alert);
+                    }
+                }
+            }
+            
+            int carriedOver = 0;
+            if (previousResult != null) {
+                for (Alert alert : specDiff.carryOverAlerts(previousResult.getAlerts(), targetUrl)) {
+                    if (alertKeys.add(alertKey(alert))) {
+                        builder.addAlert(alert);
+                        carriedOver++;
+                    }
+                }
+            }
+            
+            ScanResult result = builder.scanDurationMs(System.currentTimeMillis() - startTime).build();
+            LOGGER.info("Incremental OpenAPI scan completed: {} operations scanned, {} alerts carried over", 
+                    endpointsToScan.size(), carriedOver);
+            return result;
+        } catch (Exception e) {
+            LOGGER.error("Failed during incremental OpenAPI scan", e);
+            throw new ZapScannerException("Failed during incremental OpenAPI scan: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Determines the target URL of the API an OpenAPI specification describes, from the first
+     * server of its definition.
+     * 
+     * @param url The URL to the OpenAPI specification
+     * @return The target URL for scanning
+     * @throws ZapScannerException If the specification cannot be read or declares no usable server URL
+     */
+    public String getTargetUrl(URL url) throws ZapScannerException {
+        return getTargetUrl(modelCache.getModel(url), url.toString());
+    }
+    
     /**
      * Imports an OpenAPI specification from a URL.
      * 
@@ -104,21 +280,15 @@ public class OpenApiScanner {
     public String importOpenApiDefinition(URL url, String contextName) throws ZapScannerException {
         LOGGER.info("Importing OpenAPI definition from URL: {}", url);
         
-        try {
-            // Import the OpenAPI definition
-            ApiResponse response = zapClient.core.version();
-            
-            // In a real implementation, we would use the following:
-            // ApiResponse response = zapClient.openapi.importUrl(url.toString(), contextName);
-            
-            LOGGER.info("OpenAPI definition imported successfully");
-            
-            // In a real implementation, we would extract and return the target URL from the response
-            return "http://example.com/api";
-        } catch (ClientApiException e) {
-            LOGGER.error("Failed to import OpenAPI definition", e);
-            throw new ZapScannerException("Failed to import OpenAPI definition: " + e.getMessage(), e);
-        }
+        // Parse the definition, reusing the cached model if this version was parsed before
+        openApiModel = modelCache.getModel(url);
+        
+        // Seed ZAP with a request for every operation
+        String targetUrl = getTargetUrl(openApiModel, url.toString());
+        seedRequests(openApiModel, targetUrl);
+        
+        LOGGER.info("OpenAPI definition imported successfully");
+        return targetUrl;
     }
     
     /**
@@ -130,31 +300,93 @@ public class OpenApiScanner {
      * @throws ZapScannerException If import fails
      */
     public String importOpenApiDefinition(File file, String contextName) throws ZapScannerException {
-        if (file == null || !file.exists() || !file.isFile()) {
+        if (file == null) {
+            throw new ZapScannerException("Invalid OpenAPI specification file: null");
+        }
+        
+        return importOpenApiDefinition(file.toPath(), contextName);
+    }
+    
+    /**
+     * Imports an OpenAPI specification from a file.
+     * The file is memory-mapped, so very large specifications are parsed without being copied into memory.
+     * 
+     * @param file The OpenAPI specification file
+     * @param contextName The ZAP context name (optional)
+     * @return The target URL for scanning
+     * @throws ZapScannerException If import fails
+     */
+    public String importOpenApiDefinition(Path file, String contextName) throws ZapScannerException {
+        if (file == null || !Files.isRegularFile(file)) {
             throw new ZapScannerException("Invalid OpenAPI specification file: " + file);
         }
         
-        LOGGER.info("Importing OpenAPI definition from file: {}", file.getAbsolutePath());
+        LOGGER.info("Importing OpenAPI definition from file: {}", file.toAbsolutePath());
         
-        try {
-            // Import the OpenAPI definition
-            ApiResponse response = zapClient.core.version();
-            
-            // In a real implementation, we would use the following:
-            // ApiResponse response = zapClient.openapi.importFile(file.getAbsolutePath(), contextName);
-            
-            LOGGER.info("OpenAPI definition imported successfully");
-            
-            // In a real implementation, we would extract and return the target URL from the response
-            return "http://example.com/api";
-        } catch (ClientApiException e) {
-            LOGGER.error("Failed to import OpenAPI definition", e);
-            throw new ZapScannerException("Failed to import OpenAPI definition: " + e.getMessage(), e);
+        // Parse the definition, reusing the cached model if this version was parsed before
+        openApiModel = modelCache.getModel(file);
+        
+        // Seed ZAP with a request for every operation
+        String targetUrl = getTargetUrl(openApiModel, null);
+        seedRequests(openApiModel, targetUrl);
+        
+        LOGGER.info("OpenAPI definition imported successfully");
+        return targetUrl;
+    }
+    
+    /**
+     * Imports an OpenAPI specification from a stream.
+     * The stream is spooled to a temporary file rather than buffered in memory. It is not closed.
+     * 
+     * @param in The stream of the OpenAPI specification
+     * @param contextName The ZAP context name (optional)
+     * @return The target URL for scanning
+     * @throws ZapScannerException If import fails
+     */
+    public String importOpenApiDefinition(InputStream in, String contextName) throws ZapScannerException {
+        if (in == null) {
+            throw new ZapScannerException("Invalid OpenAPI specification stream");
+        }
+        
+        LOGGER.info("Importing OpenAPI definition from stream");
+        
+        openApiModel = modelCache.getModel(in, null);
+        
+        String targetUrl = getTargetUrl(openApiModel, null);
+        seedRequests(openApiModel, targetUrl);
+        
+        LOGGER.info("OpenAPI definition imported successfully");
+        return targetUrl;
+    }
+    
+    /**
+     * Imports an OpenAPI specification from a channel.
+     * File channels are memory-mapped; other channels are spooled to a temporary file. The channel is not closed.
+     * 
+     * @param channel The channel of the OpenAPI specification
+     * @param contextName The ZAP context name (optional)
+     * @return The target URL for scanning
+     * @throws ZapScannerException If import fails
+     */
+    public String importOpenApiDefinition(ReadableByteChannel channel, String contextName) throws ZapScannerException {
+        if (channel == null || !channel.isOpen()) {
+            throw new ZapScannerException("Invalid OpenAPI specification channel");
         }
+        
+        LOGGER.info("Importing OpenAPI definition from channel");
+        
+        openApiModel = modelCache.getModel(channel, null);
+        
+        String targetUrl = getTargetUrl(openApiModel, null);
+        seedRequests(openApiModel, targetUrl);
+        
+        LOGGER.info("OpenAPI definition imported successfully");
+        return targetUrl;
     }
     
     /**
      * Imports an OpenAPI specification from a string.
+     * The string is parsed directly; prefer the file, stream or channel overloads for large specifications.
      * 
      * @param spec The OpenAPI specification as a string
      * @param contextName The ZAP context name (optional)
@@ -168,19 +400,105 @@ public class OpenApiScanner {
         
         LOGGER.info("Importing OpenAPI definition from string");
         
+        openApiModel = modelCache.getModel(spec, null);
+        
+        String targetUrl = getTargetUrl(openApiModel, null);
+        seedRequests(openApiModel, targetUrl);
+        
+        LOGGER.info("OpenAPI definition imported successfully");
+        return targetUrl;
+    }
+    
+    /**
+     * Sends a sample request for every operation of an API through the ZAP proxy,
+     * so that ZAP records the endpoints with concrete parameter values.
+     * 
+     * @param model The OpenAPI model
+     * @param targetUrl The base URL of the API
+     * @return The number of requests recorded by ZAP
+     * @throws ZapScannerException If seeding fails
+     */
+    public int seedRequests(OpenAPI model, String targetUrl) throws ZapScannerException {
+        return seedRequests(new OpenApiRequestGenerator(model).generateRequests(targetUrl));
+    }
+    
+    /**
+     * Sends sample requests through the ZAP proxy.
+     * 
+     * @param requests The sample requests
+     * @return The number of requests recorded by ZAP
+     * @throws ZapScannerException If seeding fails
+     */
+    private int seedRequests(List<SampleRequest> requests) throws ZapScannerException {
+        OpenApiRequestSeeder seeder = OpenApiRequestSeeder.throughProxy(config.getZapHost(), config.getZapPort(), 
+                config.getMaxInFlightRequests());
+        return seeder.seed(requests);
+    }
+    
+    /**
+     * Gets the parsed model of the most recently imported OpenAPI definition.
+     * 
+     * @return The OpenAPI model, or null if no definition has been imported
+     */
+    public OpenAPI getOpenApiModel() {
+        return openApiModel;
+    }
+    
+    /**
+     * Gets the diff computed by the most recent incremental scan.
+     * 
+     * @return The diff, or null if no incremental scan has run
+     */
+    public OpenApiSpecDiff getSpecDiff() {
+        return specDiff;
+    }
+    
+    /**
+     * Gets the key identifying an alert for de-duplication.
+     * 
+     * @param alert The alert
+     * @return The key
+     */
+    private static String alertKey(Alert alert) {
+        return ScanResultMerger.fingerprint(alert);
+    }
+    
+    /**
+     * Determines the target URL of an API from the first server of its definition.
+     * Server variables are replaced with their default values.
+     * 
+     * @param model The OpenAPI model
+     * @param specLocation The URL the definition was fetched from, used to resolve relative server URLs
+     * @return The target URL for scanning
+     * @throws ZapScannerException If the definition does not declare a usable server URL
+     */
+    private static String getTargetUrl(OpenAPI model, String specLocation) throws ZapScannerException {
+        String serverUrl = "/";
+        
+        if (model.getServers() != null && !model.getServers().isEmpty()) {
+            Server server = model.getServers().get(0);
+            serverUrl = server.getUrl();
+            
+            if (server.getVariables() != null) {
+                for (Map.Entry<String, ServerVariable> variable : server.getVariables().entrySet()) {
+                    serverUrl = serverUrl.replace("{" + variable.getKey() + "}", variable.getValue().getDefault());
+                }
+            }
+        }
+        
         try {
-            // Create a temporary file
-            File tempFile = File.createTempFile("openapi-", ".json");
-            tempFile.deleteOnExit();
+            URI serverUri = URI.create(serverUrl);
+            if (!serverUri.isAbsolute() && specLocation != null) {
+                serverUri = URI.create(specLocation).resolve(serverUri);
+            }
             
-            // Write the specification to the file
-            Files.write(Paths.get(tempFile.getAbsolutePath()), spec.getBytes());
+            if (!serverUri.isAbsolute()) {
+                throw new ZapScannerException("OpenAPI definition does not declare an absolute server URL: " + serverUrl);
+            }
             
-            // Import the OpenAPI definition
-            return importOpenApiDefinition(tempFile, contextName);
-        } catch (Exception e) {
-            LOGGER.error("Failed to import OpenAPI definition", e);
-            throw new ZapScannerException("Failed to import OpenAPI definition: " + e.getMessage(), e);
+            return serverUri.toString();
+        } catch (IllegalArgumentException e) {
+            throw new ZapScannerException("Invalid server URL in OpenAPI definition: " + serverUrl, e);
         }
     }
     
@@ -202,7 +520,7 @@ public class OpenApiScanner {
             while (true) {
                 // Check if passive scanning is complete
                 ApiResponse response = zapClient.pscan.recordsToScan();
-                int recordsToScan = Integer.parseInt(((ApiResponseElement) response).getValue());
+                int recordsToScan = response.asInt();
                 
                 LOGGER.debug("Records left to scan: {}", recordsToScan);
                 
@@ -219,7 +537,7 @@ public class OpenApiScanner {
                 }
                 
                 // Wait before checking again
-                Thread.sleep(POLL_INTERVAL_MS);
+                cancellation.pause(POLL_INTERVAL_MS);
             }
         } catch (ClientApiException | InterruptedException | NumberFormatException e) {
             LOGGER.error("Failed during passive scan", e);
@@ -229,6 +547,9 @@ public class OpenApiScanner {
     
     /**
      * Performs an active scan on the imported API.
+     * If a definition was imported, its operations are split into shards that are scanned
+     * concurrently, highest risk first, within the time budget. Shards that have not started
+     * when the budget runs out are skipped.
      * 
      * @param targetUrl The target URL to scan
      * @param contextName The ZAP context name (optional)
@@ -244,43 +565,204 @@ public class OpenApiScanner {
         
         LOGGER.info("Starting active scan for target URL: {}", targetUrl);
         
-        try {
-            // Set up authentication if needed
-            Integer contextId = null;
+        // Set up authentication if needed, for as long as the scan runs
+        try (AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, authHandler, contextName)) {
+            String scanPolicyName = scanPolicy != null ? scanPolicy.getName() : null;
             
-            if (authHandler != null && contextName != null && !contextName.isEmpty()) {
-                // Configure authentication
-                contextId = authHandler.setupAuthentication(contextName);
-                LOGGER.info("Authentication configured for context ID: {}", contextId);
+            // Push the scan policy to ZAP before the shards pick it up
+            if (scanPolicy != null) {
+                ScanPolicyApplier.getInstance().apply(zapClient, scanPolicy);
             }
             
-            // Start the active scan
-            Map<String, String> params = new HashMap<>();
-            
-            // Add context if available
-            if (contextName != null && !contextName.isEmpty()) {
-                params.put("contextName", contextName);
+            // Adapt the scan load to the target's health while the scan runs
+            try (AdaptiveConcurrencyController.Lease concurrency = AdaptiveConcurrencyController.start(zapClient, config, targetUrl)) {
+                if (openApiModel == null) {
+                    // Without a parsed definition, scan the whole API at once
+                    int scanId = startActiveScan(new OperationShard.ScanTarget(targetUrl, true, null, null), scanPolicyName);
+                    try {
+                        waitForActiveScanCompletion(scanId, timeoutInMinutes);
+                    } finally {
+                        scanProfiler.collect(scanId);
+                    }
+                    return;
+                }
+                
+                performShardedActiveScan(new OperationSharder(shardStrategy).shard(openApiModel, targetUrl), 
+                        scanPolicyName, timeoutInMinutes);
             }
-            
-            // Add scan policy if available
-            if (scanPolicy != null) {
-                params.put("scanPolicyName", scanPolicy.getName());
+        } catch (Exception e) {
+            LOGGER.error("Failed during active scan", e);
+            throw scanProfiler.activeScanFailure(e);
+        }
+    }
+    
+    /**
+     * Active scans operations shard by shard.
+     * 
+     * @param shards The shards to scan, highest risk first
+     * @param scanPolicyName The name of the scan policy, or null for the default policy
+     * @param timeoutInMinutes The time budget in minutes
+     * @return The IDs of the active scans started
+     * @throws ZapScannerException If scanning fails
+     */
+    private List<Integer> performShardedActiveScan(List<OperationShard> shards, String scanPolicyName, 
+            int timeoutInMinutes) throws ZapScannerException {
+        if (shards.isEmpty()) {
+            LOGGER.warn("OpenAPI definition has no operations to scan");
+            return Collections.emptyList();
+        }
+        
+        LOGGER.info("Active scanning {} shards, highest risk first: {}", shards.size(), shards);
+        
+        long deadline = System.currentTimeMillis() + timeoutInMinutes * 60 * 1000L;
+        
+        // The executor starts shards in submission order, so high-risk shards start first
+        int parallelism = Math.max(1, Math.min(shards.size(), config.getMaxConcurrentScans()));
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        
+        try {
+            List<Integer> scanIds = Collections.synchronizedList(new ArrayList<>());
+            CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+            for (OperationShard shard : shards) {
+                completion.submit(() -> {
+                    scanShard(shard, scanPolicyName, deadline, scanIds);
+                    return null;
+                });
             }
             
-            // Start the active scan
-            ApiResponse response = zapClient.ascan.scan(targetUrl, "true", "true", null, null, null);
-            
-            // Extract scan ID
-            String scanIdStr = ((ApiResponseElement) response).getValue();
-            int scanId = Integer.parseInt(scanIdStr);
+            // Take shards as they end, so the first failure stops the others at once
+            for (int i = 0; i < shards.size(); i++) {
+                completion.take().get();
+            }
+            return scanIds;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new ZapScannerException("Failed during sharded active scan: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ZapScannerException("Sharded active scan interrupted", e);
+        } finally {
+            // Interrupted shards stop the scans they left running in ZAP before they end
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Active scans the targets of a shard one after another until the time budget runs out.
+     * 
+     * @param shard The shard
+     * @param scanPolicyName The name of the scan policy, or null for the default policy
+     * @param deadline The time at which the budget runs out, in milliseconds since the epoch
+     * @param scanIds The IDs of the active scans started, to add those of the shard to
+     * @throws ZapScannerException If scanning fails
+     */
+    private void scanShard(OperationShard shard, String scanPolicyName, long deadline, List<Integer> scanIds) 
+            throws ZapScannerException {
+        LOGGER.info("Starting active scan of shard {}", shard);
+        
+        for (OperationShard.ScanTarget target : shard.getTargets()) {
+            cancellation.checkCancelled();
+            if (System.currentTimeMillis() >= deadline) {
+                LOGGER.warn("Time budget exhausted, skipping the rest of shard {}", shard.getName());
+                return;
+            }
             
-            LOGGER.info("Active scan started with ID: {}", scanId);
+            int scanId = startActiveScan(target, scanPolicyName);
+            scanIds.add(scanId);
+            boolean completed = waitForActiveScanCompletion(scanId, deadline);
+            scanProfiler.collect(scanId);
+            if (!completed) {
+                LOGGER.warn("Time budget exhausted while scanning {} in shard {}", target, shard.getName());
+                return;
+            }
+        }
+        
+        LOGGER.info("Active scan of shard {} completed", shard.getName());
+    }
+    
+    /**
+     * Gets where the time of the active scans run so far went, per scan, host and rule.
+     * 
+     * @return The scan profile
+     */
+    public ScanProfile getScanProfile() {
+        return scanProfiler.getScanProfile();
+    }
+    
+    /**
+     * Gets the time, requests and alerts of each active scan rule across the active scans run so far.
+     * 
+     * @return One execution per rule, ordered by rule ID
+     */
+    public List<RuleExecution> getRuleExecutions() {
+        return scanProfiler.getRuleExecutions();
+    }
+    
+    /**
+     * Starts an active scan of a target.
+     * 
+     * @param target The scan target
+     * @param scanPolicyName The name of the scan policy, or null for the default policy
+     * @return The scan ID
+     * @throws ZapScannerException If the scan cannot be started
+     */
+    private int startActiveScan(OperationShard.ScanTarget target, String scanPolicyName) throws ZapScannerException {
+        try {
+            ApiResponse response = zapClient.ascan.scan(target.getUrl(), Boolean.toString(target.isRecurse()), 
+                    "false", scanPolicyName, target.getMethod(), target.getBody());
+            int scanId = response.asInt();
             
-            // Wait for scan to complete
-            waitForActiveScanCompletion(scanId, timeoutInMinutes);
-        } catch (Exception e) {
-            LOGGER.error("Failed during active scan", e);
-            throw new ZapScannerException("Failed during active scan: " + e.getMessage(), e);
+            LOGGER.info("Active scan of {} started with ID: {}", target, scanId);
+            return scanId;
+        } catch (ClientApiException | NumberFormatException e) {
+            LOGGER.error("Failed to start active scan of {}", target, e);
+            throw new ZapScannerException("Failed to start active scan of " + target + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Waits for an active scan to complete, stopping it if the deadline passes first.
+     * If waiting fails or is interrupted, as when another shard failed, the scan is stopped too.
+     * 
+     * @param scanId The scan ID
+     * @param deadline The deadline in milliseconds since the epoch
+     * @return True if the scan completed, false if it was stopped at the deadline
+     * @throws ZapScannerException If waiting fails
+     */
+    private boolean waitForActiveScanCompletion(int scanId, long deadline) throws ZapScannerException {
+        boolean ended = false;
+        try (ScanCancellation.Registration registration = cancellation.register("active scan " + scanId, 
+                () -> zapClient.ascan.stop(Integer.toString(scanId)));
+                ScanStatusPoller.Watch watch = statusPoller.watch(ScanStatusPoller.Kind.ACTIVE_SCAN, scanId)) {
+            while (true) {
+                int progress = watch.awaitProgress(cancellation);
+                
+                if (progress >= 100) {
+                    ended = true;
+                    return true;
+                }
+                
+                if (System.currentTimeMillis() >= deadline) {
+                    zapClient.ascan.stop(Integer.toString(scanId));
+                    ended = true;
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ZapScannerException("Interrupted while waiting for active scan completion", e);
+        } catch (ClientApiException | NumberFormatException e) {
+            LOGGER.error("Failed while waiting for active scan completion", e);
+            throw new ZapScannerException("Failed while waiting for active scan completion: " + e.getMessage(), e);
+        } finally {
+            if (!ended) {
+                stopActiveScan(scanId);
+            }
         }
     }
     
@@ -294,17 +776,20 @@ public class OpenApiScanner {
     private void waitForActiveScanCompletion(int scanId, int timeoutInMinutes) throws ZapScannerException {
         long startTime = System.currentTimeMillis();
         long timeoutInMs = timeoutInMinutes * 60 * 1000;
+        boolean ended = false;
         
-        try {
+        try (ScanCancellation.Registration registration = cancellation.register("active scan " + scanId, 
+                () -> zapClient.ascan.stop(Integer.toString(scanId)));
+                ScanStatusPoller.Watch watch = statusPoller.watch(ScanStatusPoller.Kind.ACTIVE_SCAN, scanId)) {
             while (true) {
-                // Check if scan is complete
-                ApiResponse response = zapClient.ascan.status(Integer.toString(scanId));
-                int progress = Integer.parseInt(((ApiResponseElement) response).getValue());
+                // Wait for the shared poller to read the active scan's status
+                int progress = watch.awaitProgress(cancellation);
                 
                 LOGGER.debug("Active scan progress: {}%", progress);
                 
                 if (progress >= 100) {
                     LOGGER.info("Active scan completed");
+                    ended = true;
                     break;
                 }
                 
@@ -313,15 +798,35 @@ public class OpenApiScanner {
                 if (elapsedTime > timeoutInMs) {
                     LOGGER.warn("Active scan timed out after {} minutes", timeoutInMinutes);
                     zapClient.ascan.stop(Integer.toString(scanId));
+                    ended = true;
                     throw new ZapScannerException("Active scan timed out after " + timeoutInMinutes + " minutes");
                 }
-                
-                // Wait before polling again
-                Thread.sleep(POLL_INTERVAL_MS);
             }
-        } catch (ClientApiException | InterruptedException | NumberFormatException e) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ZapScannerException("Interrupted while waiting for active scan completion", e);
+        } catch (ClientApiException | NumberFormatException e) {
             LOGGER.error("Failed while waiting for active scan completion", e);
             throw new ZapScannerException("Failed while waiting for active scan completion: " + e.getMessage(), e);
+        } finally {
+            if (!ended) {
+                stopActiveScan(scanId);
+            }
+        }
+    }
+    
+    /**
+     * Stops an active scan that is left running because waiting for it failed, so it does not
+     * hold ZAP's capacity after the scan that started it has ended.
+     * 
+     * @param scanId The scan ID
+     */
+    private void stopActiveScan(int scanId) {
+        try {
+            zapClient.ascan.stop(Integer.toString(scanId));
+            LOGGER.info("Stopped active scan {}", scanId);
+        } catch (ClientApiException e) {
+            LOGGER.warn("Failed to stop active scan {}: {}", scanId, e.getMessage());
         }
     }
 }
@@ -0,0 +1,269 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.auth.AuthenticationHandler;
+import com.securitytesting.zap.config.ScanConfig;
+import com.securitytesting.zap.config.ScanRole;
+import com.securitytesting.zap.exception.AuthenticationException;
+import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.policy.ScanPolicy;
+import com.securitytesting.zap.report.ReportGenerator;
+import com.securitytesting.zap.report.RoleMatrixResult;
+import com.securitytesting.zap.report.ScanResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanner that scans the same web application as several roles.
+ * The application is spidered once, then an active scan is run for each role with
+ * bounded parallelism, so adding a role only costs that role's active scan.
+ */
+public class RoleMatrixScanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoleMatrixScanner.class);
+
+    private final ClientApi zapClient;
+    private final ScanConfig config;
+    private final ReportGenerator reportGenerator;
+    private AuthenticationHandler authHandler;
+
+    /**
+     * Creates a new role matrix scanner.
+     *
+     * @param zapClient The ZAP client
+     * @param config The scan configuration
+     * @param reportGenerator The report generator used to build per-role results
+     */
+    public RoleMatrixScanner(ClientApi zapClient, ScanConfig config, ReportGenerator reportGenerator) {
+        this.zapClient = zapClient;
+        this.config = config;
+        this.reportGenerator = reportGenerator;
+    }
+
+    /**
+     * Sets the authentication handler used to create a user for each authenticated role.
+     *
+     * @param authHandler The authentication handler
+     */
+    public void setAuthenticationHandler(AuthenticationHandler authHandler) {
+        this.authHandler = authHandler;
+    }
+
+    /**
+     * Scans a web application as each of the specified roles.
+     *
+     * @param targetUrl The target URL
+     * @param roles The roles to scan as
+     * @param scanPolicy The scan policy to use
+     * @return The per-role and merged results
+     * @throws ZapScannerException If scanning fails
+     */
+    public RoleMatrixResult scan(String targetUrl, List<ScanRole> roles, ScanPolicy scanPolicy)
+            throws ZapScannerException {
+        if (targetUrl == null || targetUrl.trim().isEmpty()) {
+            throw new ZapScannerException("Target URL cannot be null or empty");
+        }
+
+        if (roles == null || roles.isEmpty()) {
+            throw new ZapScannerException("At least one role is required for a role matrix scan");
+        }
+
+        LOGGER.info("Starting role matrix scan for target URL: {} with roles: {}", targetUrl, roles);
+        long startTime = System.currentTimeMillis();
+        String contextName = config.getContextName();
+
+        // Create a user for each authenticated role in a shared context
+        Integer contextId = null;
+        Map<String, Integer> userIds = new HashMap<>();
+
+        // Remove the users created for the roles however the scan ends, so they do not pile up in ZAP
+        try {
+            for (ScanRole role : roles) {
+                if (userIds.containsKey(role.getName())) {
+                    throw new ZapScannerException("Duplicate role name: " + role.getName());
+                }
+
+                if (!role.isAnonymous()) {
+                    if (authHandler == null) {
+                        throw new ZapScannerException("An authentication handler is required to scan as role: " + role);
+                    }
+
+                    try {
+                        if (contextId == null) {
+                            contextId = authHandler.setupAuthentication(contextName);
+                            LOGGER.info("Authentication configured for context ID: {}", contextId);
+                        }
+
+                        userIds.put(role.getName(), authHandler.createUser(contextId, role.getUsername(), role.getPassword()));
+                    } catch (Exception e) {
+                        LOGGER.error("Failed to create user for role {}", role, e);
+                        throw new ZapScannerException("Failed to create user for role " + role + ": " + e.getMessage(), e);
+                    }
+                } else {
+                    userIds.put(role.getName(), null);
+                }
+            }
+
+            // Cancelling the role scans stops every one still running in ZAP
+            ScanCancellation roleScans = new ScanCancellation();
+            WebAppScanner webAppScanner = new WebAppScanner(zapClient, config);
+            webAppScanner.setCancellation(roleScans);
+
+            // Spider once, as the first authenticated role so the crawl reaches the most content
+            Integer spiderUserId = roles.stream()
+                    .filter(role -> !role.isAnonymous())
+                    .map(role -> userIds.get(role.getName()))
+                    .findFirst()
+                    .orElse(null);
+
+            webAppScanner.spiderTargetAsUser(targetUrl, contextName, spiderUserId, config.getMaxSpiderDepth(),
+                    config.getMaxSpiderDurationInMinutes());
+            webAppScanner.performPassiveScan(contextName, config.getMaxPassiveScanDurationInMinutes());
+
+            // Run the active scan of each role with bounded parallelism
+            int parallelism = Math.max(1, Math.min(roles.size(), config.getMaxConcurrentScans()));
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            Integer scanContextId = contextId;
+
+            // One controller adapts the load of all role scans, since they share the target
+            boolean completed = false;
+            try (AdaptiveConcurrencyController.Lease concurrency = AdaptiveConcurrencyController.start(zapClient, config, targetUrl)) {
+                CompletionService<ScanResult> completion = new ExecutorCompletionService<>(executor);
+                Map<Future<ScanResult>, String> roleNames = new HashMap<>();
+
+                for (ScanRole role : roles) {
+                    Integer userId = userIds.get(role.getName());
+                    roleNames.put(completion.submit(() ->
+                            scanAsRole(webAppScanner, targetUrl, contextName, scanContextId, userId, role, scanPolicy)),
+                            role.getName());
+                }
+
+                // Take role scans as they end, so the first failure stops the others at once
+                Map<String, ScanResult> results = new HashMap<>();
+                for (int i = 0; i < roles.size(); i++) {
+                    Future<ScanResult> future = completion.take();
+                    results.put(roleNames.get(future), future.get());
+                }
+
+                Map<String, ScanResult> resultsByRole = new LinkedHashMap<>();
+                for (ScanRole role : roles) {
+                    resultsByRole.put(role.getName(), results.get(role.getName()));
+                }
+
+                RoleMatrixResult result = new RoleMatrixResult(targetUrl, resultsByRole,
+                        System.currentTimeMillis() - startTime);
+
+                LOGGER.info("Role matrix scan completed for target URL: {}", targetUrl);
+                completed = true;
+                return result;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                LOGGER.error("Failed during role matrix scan", cause);
+                throw new ZapScannerException("Failed during role matrix scan: " + cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ZapScannerException("Role matrix scan interrupted", e);
+            } finally {
+                if (!completed) {
+                    // Stop the scans of the other roles, which would otherwise keep running in ZAP
+                    roleScans.cancel();
+                }
+                executor.shutdownNow();
+                try {
+                    executor.awaitTermination(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } finally {
+            removeUsers(contextId, userIds.values());
+            cleanupAuthentication(contextId);
+        }
+    }
+
+    /**
+     * Releases what the authentication handler set up for the context, such as its
+     * authentication script. Failing to do so only logs a warning, so it does not hide the
+     * outcome of the scan.
+     *
+     * @param contextId The ID of the context, or null if no role is authenticated
+     */
+    private void cleanupAuthentication(Integer contextId) {
+        if (contextId == null) {
+            return;
+        }
+
+        try {
+            authHandler.cleanup(zapClient, contextId);
+        } catch (AuthenticationException e) {
+            LOGGER.warn("Failed to clean up authentication of context {}: {}", contextId, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the users created for the roles from their context. Failing to remove one only
+     * logs a warning, so it does not hide the outcome of the scan.
+     *
+     * @param contextId The ID of the context, or null if no role is authenticated
+     * @param userIds The IDs of the users, null for anonymous roles
+     */
+    private void removeUsers(Integer contextId, Collection<Integer> userIds) {
+        if (contextId == null) {
+            return;
+        }
+
+        for (Integer userId : userIds) {
+            if (userId == null) {
+                continue;
+            }
+            try {
+                zapClient.users.removeUser(String.valueOf(contextId), String.valueOf(userId));
+            } catch (ClientApiException e) {
+                LOGGER.warn("Failed to remove user {} from context {}: {}", userId, contextId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs the active scan of a single role and collects the alerts it raised.
+     *
+     * @param webAppScanner The web application scanner
+     * @param targetUrl The target URL
+     * @param contextName The ZAP context name
+     * @param contextId The ID of the context, or null if no role is authenticated
+     * @param userId The ID of the role's user, or null for an anonymous role
+     * @param role The role
+     * @param scanPolicy The scan policy to use
+     * @return The scan result of the role
+     * @throws ZapScannerException If scanning fails
+     */
+    private ScanResult scanAsRole(WebAppScanner webAppScanner, String targetUrl, String contextName,
+                                  Integer contextId, Integer userId, ScanRole role, ScanPolicy scanPolicy)
+            throws ZapScannerException {
+        LOGGER.info("Starting active scan as role: {}", role);
+        long startTime = System.currentTimeMillis();
+
+        int scanId = webAppScanner.performActiveScanAsUser(targetUrl, contextName, contextId, userId, scanPolicy,
+                config.getMaxActiveScanDurationInMinutes());
+
+        ScanResult result = reportGenerator.generateActiveScanResult(targetUrl, List.of(scanId),
+                System.currentTimeMillis() - startTime);
+
+        LOGGER.info("Active scan as role {} completed with {} alerts", role, result.getTotalAlerts());
+        return result;
+    }
+}
@@ -0,0 +1,176 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cancellation of a scan in progress.
+ * <p>
+ * Scanners register each spider and active scan they start in ZAP for as long as they wait for
+ * it, and poll through {@link #pause(long)} instead of sleeping. Cancelling stops every
+ * registered scan in ZAP at once, so its capacity is reclaimed immediately, and wakes up the
+ * polling, which then fails with a {@link ZapScannerException}.
+ */
+public class ScanCancellation {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanCancellation.class);
+
+    /**
+     * Stops a scan in ZAP.
+     */
+    @FunctionalInterface
+    public interface StopAction {
+        /**
+         * Stops the scan.
+         *
+         * @throws ClientApiException If ZAP cannot be reached
+         */
+        void stop() throws ClientApiException;
+    }
+
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final CompletableFuture<Void> cancelledFuture = new CompletableFuture<>();
+    private final Map<Registration, StopAction> running = new LinkedHashMap<>();
+
+    /**
+     * Registers a scan running in ZAP, to be stopped if the scan is cancelled. A scan registered
+     * after cancellation is stopped right away.
+     *
+     * @param description The description of the scan, for logging
+     * @param stopAction How to stop the scan
+     * @return The registration, to close once the scan no longer runs
+     */
+    public Registration register(String description, StopAction stopAction) {
+        Registration registration = new Registration(description);
+        synchronized (running) {
+            if (!isCancelled()) {
+                running.put(registration, stopAction);
+                return registration;
+            }
+        }
+        stop(description, stopAction);
+        return registration;
+    }
+
+    /**
+     * Cancels the scan: stops the registered scans in ZAP and wakes up polling.
+     * Cancelling more than once has no further effect.
+     */
+    public void cancel() {
+        Map<Registration, StopAction> toStop;
+        synchronized (running) {
+            if (isCancelled()) {
+                return;
+            }
+            cancelled.countDown();
+            cancelledFuture.complete(null);
+            toStop = new LinkedHashMap<>(running);
+            running.clear();
+        }
+
+        LOGGER.info("Cancelling scan, stopping {} running ZAP scan(s)", toStop.size());
+        toStop.forEach((registration, stopAction) -> stop(registration.description, stopAction));
+    }
+
+    /**
+     * Checks whether the scan was cancelled.
+     *
+     * @return True if the scan was cancelled, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * Fails if the scan was cancelled, for checking between the phases of a scan.
+     *
+     * @throws ZapScannerException If the scan was cancelled
+     */
+    public void checkCancelled() throws ZapScannerException {
+        if (isCancelled()) {
+            throw new ZapScannerException("Scan cancelled");
+        }
+    }
+
+    /**
+     * Waits between two polls of a scan, returning early if the scan is cancelled.
+     *
+     * @param millis The time to wait in milliseconds
+     * @throws ZapScannerException If the scan was cancelled before or while waiting
+     * @throws InterruptedException If the thread was interrupted while waiting
+     */
+    public void pause(long millis) throws ZapScannerException, InterruptedException {
+        if (cancelled.await(millis, TimeUnit.MILLISECONDS)) {
+            throw new ZapScannerException("Scan cancelled");
+        }
+    }
+
+    /**
+     * Waits until an event happens, returning early if the scan is cancelled.
+     *
+     * @param event The event
+     * @param millis The maximum time to wait in milliseconds
+     * @throws ZapScannerException If the scan was cancelled before or while waiting
+     * @throws InterruptedException If the thread was interrupted while waiting
+     */
+    public void pauseUntil(CompletableFuture<?> event, long millis) throws ZapScannerException, InterruptedException {
+        try {
+            CompletableFuture.anyOf(event, cancelledFuture).get(millis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // A failed or late event only ends the wait
+        }
+        checkCancelled();
+    }
+
+    /**
+     * Gets the descriptions of the scans currently registered.
+     *
+     * @return The descriptions, in registration order
+     */
+    public List<String> getRunning() {
+        synchronized (running) {
+            List<String> descriptions = new ArrayList<>();
+            running.keySet().forEach(registration -> descriptions.add(registration.description));
+            return descriptions;
+        }
+    }
+
+    private static void stop(String description, StopAction stopAction) {
+        try {
+            stopAction.stop();
+            LOGGER.info("Stopped {}", description);
+        } catch (ClientApiException e) {
+            LOGGER.warn("Failed to stop {}: {}", description, e.getMessage());
+        }
+    }
+
+    /**
+     * Registration of a running scan, closed once the scan no longer runs.
+     */
+    public class Registration implements AutoCloseable {
+        private final String description;
+
+        private Registration(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public void close() {
+            synchronized (running) {
+                running.remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.securitytesting.zap.scanner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.securitytesting.zap.policy.ScanHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checkpoint of one scan of a target, persisted to a small local file so a restarted process
+ * can pick the scan up where it stopped: the phases already completed, the IDs of the spider
+ * and active scan started in ZAP, the ZAP instance and session they run in and their last
+ * known progress.
+ * <p>
+ * Scan IDs are only meaningful within the ZAP process that issued them, which reuses them once
+ * restarted, so a checkpoint is only resumed in the same ZAP session: one marked with the same
+ * random identity, kept in a ZAP global variable that does not survive a restart.
+ * <p>
+ * The journal is written at each phase boundary, whenever a scan starts and, at most once per
+ * checkpoint interval, while a scan is polled. Failing to write it only logs a warning: the
+ * scan itself does not depend on it. The file is deleted once the scan completes.
+ * <p>
+ * A journal claims its file for as long as it is open, so two scans of the same target in one
+ * process never share a checkpoint: while the file is claimed, another scan of the target gets
+ * a fresh journal that is kept in memory only, neither resuming nor overwriting the checkpoint.
+ */
+public class ScanJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanJournal.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String SESSION_VAR = "securitytesting.zap.session";
+
+    /**
+     * The journal files claimed by the open journals of this process.
+     */
+    private static final Set<Path> CLAIMED_FILES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Enum representing the phases of a scan that are checkpointed once completed.
+     */
+    public enum Phase {
+        SPIDER,
+        PASSIVE_SCAN,
+        ACTIVE_SCAN
+    }
+
+    private final Path file;
+    private final String targetUrl;
+    private final String zapInstance;
+    private final String zapSession;
+    private final long checkpointIntervalMs;
+    private final boolean persisted;
+
+    private final Set<Phase> completedPhases = EnumSet.noneOf(Phase.class);
+    private long startTime;
+    private Integer spiderScanId;
+    private Integer activeScanId;
+    private String policyName;
+    private boolean policyTuned;
+    private int progress;
+    private long lastSaved;
+    private boolean claimed;
+
+    private ScanJournal(Path file, String targetUrl, String zapInstance, String zapSession,
+            long checkpointIntervalMs, boolean persisted) {
+        this.file = file;
+        this.targetUrl = targetUrl;
+        this.zapInstance = zapInstance;
+        this.zapSession = zapSession;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        this.persisted = persisted;
+        this.claimed = persisted;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Opens the journal of a target's scan, resuming the checkpoint a previous run left if it
+     * was made in the same session of the same ZAP instance. If another scan of this process
+     * holds the target's journal open, the journal is a fresh one kept in memory only.
+     *
+     * @param directory The directory journals are kept in
+     * @param targetUrl The target URL
+     * @param zapInstance The ZAP instance, as host and port
+     * @param zapSession The identity of the ZAP session, or null if unknown, in which case no
+     *                   checkpoint is resumed
+     * @param checkpointIntervalMs The minimum time between checkpoints while polling, in milliseconds
+     * @return The journal, to close once the scan ends
+     */
+    public static ScanJournal open(Path directory, String targetUrl, String zapInstance, String zapSession,
+            long checkpointIntervalMs) {
+        Path file = directory.resolve(fileName(targetUrl)).toAbsolutePath().normalize();
+        if (!CLAIMED_FILES.add(file)) {
+            // The checkpoint belongs to a scan still running in this process
+            LOGGER.info("Scan journal {} is held by another scan of {}, not journaling this scan", file, targetUrl);
+            return new ScanJournal(file, targetUrl, zapInstance, zapSession, checkpointIntervalMs, false);
+        }
+
+        ScanJournal journal = new ScanJournal(file, targetUrl, zapInstance, zapSession, checkpointIntervalMs, true);
+        if (!Files.exists(file)) {
+            return journal;
+        }
+
+        try {
+            JsonNode root = MAPPER.readTree(file.toFile());
+            if (!targetUrl.equals(root.path("targetUrl").asText())
+                    || !zapInstance.equals(root.path("zapInstance").asText())) {
+                // Scans of another target or ZAP instance cannot be reattached to
+                LOGGER.info("Discarding scan journal {} of another target or ZAP instance", file);
+                return journal;
+            }
+            if (zapSession == null || !zapSession.equals(root.path("zapSession").asText(null))) {
+                // ZAP was restarted: its scan IDs may now name other scans and its site tree is empty
+                LOGGER.info("Discarding scan journal {} of another ZAP session", file);
+                return journal;
+            }
+
+            root.path("completedPhases").forEach(phase -> journal.completedPhases.add(Phase.valueOf(phase.asText())));
+            journal.startTime = root.path("startTime").asLong(journal.startTime);
+            journal.spiderScanId = root.hasNonNull("spiderScanId") ? root.get("spiderScanId").asInt() : null;
+            journal.activeScanId = root.hasNonNull("activeScanId") ? root.get("activeScanId").asInt() : null;
+            journal.policyName = root.path("policyName").asText(null);
+            journal.policyTuned = root.path("policyTuned").asBoolean();
+            journal.progress = root.path("progress").asInt();
+            LOGGER.info("Resuming scan of {} from journal: completed {}, spider {}, active scan {} at {}%",
+                    targetUrl, journal.completedPhases, journal.spiderScanId, journal.activeScanId, journal.progress);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Ignoring unreadable scan journal {}: {}", file, e.getMessage());
+        }
+        return journal;
+    }
+
+    /**
+     * Gets the identity of the current session of a ZAP instance, marking the session with a new
+     * random identity if it has none yet.
+     *
+     * @param zapClient The ZAP client
+     * @return The session identity, or null if ZAP cannot keep one
+     */
+    public static String zapSession(ClientApi zapClient) {
+        try {
+            synchronized (zapClient) {
+                String session = zapClient.script.globalVar(SESSION_VAR).asString();
+                if (session == null || session.isEmpty()) {
+                    session = UUID.randomUUID().toString();
+                    zapClient.script.setGlobalVar(SESSION_VAR, session);
+                }
+                return session;
+            }
+        } catch (ClientApiException e) {
+            LOGGER.warn("Failed to read the ZAP session, scans will not be resumed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a previous run completed a phase.
+     *
+     * @param phase The phase
+     * @return True if the phase was completed, false otherwise
+     */
+    public synchronized boolean isCompleted(Phase phase) {
+        return completedPhases.contains(phase);
+    }
+
+    /**
+     * Records that a phase completed.
+     *
+     * @param phase The phase
+     */
+    public synchronized void phaseCompleted(Phase phase) {
+        completedPhases.add(phase);
+        progress = 0;
+        save();
+    }
+
+    /**
+     * Records that a spider started.
+     *
+     * @param scanId The ID of the spider
+     */
+    public synchronized void spiderStarted(int scanId) {
+        spiderScanId = scanId;
+        progress = 0;
+        save();
+    }
+
+    /**
+     * Records that an active scan started.
+     *
+     * @param scanId The ID of the active scan
+     * @param policyName The name of the policy the scan runs, or null for ZAP's default policy
+     * @param policyTuned Whether the policy was tuned to the target
+     */
+    public synchronized void activeScanStarted(int scanId, String policyName, boolean policyTuned) {
+        activeScanId = scanId;
+        this.policyName = policyName;
+        this.policyTuned = policyTuned;
+        progress = 0;
+        save();
+    }
+
+    /**
+     * Records the progress of the scan being polled, writing the journal if the checkpoint
+     * interval has passed since it was last written.
+     *
+     * @param progress The progress in percent
+     */
+    public synchronized void progress(int progress) {
+        this.progress = progress;
+        if (System.currentTimeMillis() - lastSaved >= checkpointIntervalMs) {
+            save();
+        }
+    }
+
+    /**
+     * Forgets the checkpoint a previous run left, as when ZAP no longer knows its scans, so the
+     * scan starts over.
+     */
+    public synchronized void restart() {
+        completedPhases.clear();
+        startTime = System.currentTimeMillis();
+        spiderScanId = null;
+        activeScanId = null;
+        policyName = null;
+        policyTuned = false;
+        progress = 0;
+        save();
+    }
+
+    /**
+     * Deletes the journal once the scan completed, and closes it.
+     */
+    public synchronized void finish() {
+        if (claimed) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete scan journal {}: {}", file, e.getMessage());
+            }
+        }
+        close();
+    }
+
+    /**
+     * Closes the journal once the scan ended, keeping its checkpoint for a later run to resume
+     * unless it was finished. A closed journal is no longer written.
+     */
+    public synchronized void close() {
+        if (claimed) {
+            claimed = false;
+            CLAIMED_FILES.remove(file);
+        }
+    }
+
+    /**
+     * Gets when the scan first started, across restarts.
+     *
+     * @return The start time in milliseconds since the epoch
+     */
+    public synchronized long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the ID of the last spider started for the scan.
+     *
+     * @return The spider ID, or null if none was started
+     */
+    public synchronized Integer getSpiderScanId() {
+        return spiderScanId;
+    }
+
+    /**
+     * Gets the ID of the last active scan started for the scan.
+     *
+     * @return The active scan ID, or null if none was started
+     */
+    public synchronized Integer getActiveScanId() {
+        return activeScanId;
+    }
+
+    /**
+     * Gets the name of the policy the last active scan runs.
+     *
+     * @return The policy name, or null for ZAP's default policy
+     */
+    public synchronized String getPolicyName() {
+        return policyName;
+    }
+
+    /**
+     * Checks whether the policy the last active scan runs was tuned to the target.
+     *
+     * @return True if the policy was tuned, false otherwise
+     */
+    public synchronized boolean isPolicyTuned() {
+        return policyTuned;
+    }
+
+    /**
+     * Gets the last recorded progress of the scan being polled.
+     *
+     * @return The progress in percent
+     */
+    public synchronized int getProgress() {
+        return progress;
+    }
+
+    /**
+     * Gets the journal file.
+     *
+     * @return The file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Checks whether the journal is written to its file, which it is unless another scan of this
+     * process held the file when it was opened.
+     *
+     * @return True if the journal is persisted, false if it is kept in memory only
+     */
+    public boolean isPersisted() {
+        return persisted;
+    }
+
+    private void save() {
+        if (!claimed) {
+            return;
+        }
+
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("targetUrl", targetUrl);
+        root.put("zapInstance", zapInstance);
+        root.put("zapSession", zapSession);
+        root.put("startTime", startTime);
+        ArrayNode phases = root.putArray("completedPhases");
+        completedPhases.forEach(phase -> phases.add(phase.name()));
+        root.put("spiderScanId", spiderScanId);
+        root.put("activeScanId", activeScanId);
+        root.put("policyName", policyName);
+        root.put("policyTuned", policyTuned);
+        root.put("progress", progress);
+        root.put("updatedAt", System.currentTimeMillis());
+
+        try {
+            Path absolute = file.toAbsolutePath();
+            Files.createDirectories(absolute.getParent());
+            Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            try {
+                MAPPER.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), root);
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            lastSaved = System.currentTimeMillis();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write scan journal {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the name of the journal file of a target: its readable origin, followed by a digest of
+     * the full URL so targets sharing an origin keep separate journals.
+     */
+    private static String fileName(String targetUrl) {
+        String origin = ScanHistory.targetKey(targetUrl).replaceAll("[^A-Za-z0-9.-]+", "_");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(targetUrl.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return "scan-" + origin + "-" + hex + ".json";
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform implements SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
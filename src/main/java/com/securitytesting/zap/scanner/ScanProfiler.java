@@ -0,0 +1,87 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.policy.RuleExecution;
+import com.securitytesting.zap.report.ScanProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects where the time of a scanner's active scans went, per scan, host and rule.
+ * <p>
+ * Each scanner owns one profiler and hands it every active scan once the scan ended, however
+ * it ended. Profiles may be collected from several threads, as when the shards of a scan run
+ * in parallel.
+ */
+final class ScanProfiler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanProfiler.class);
+
+    private final ClientApi zapClient;
+    private final List<ScanProfile> scanProfiles = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Creates a new profiler reading the active scans of a ZAP instance.
+     *
+     * @param zapClient The ZAP client API
+     */
+    ScanProfiler(ClientApi zapClient) {
+        this.zapClient = zapClient;
+    }
+
+    /**
+     * Reads the time, requests and alerts of each rule of an active scan from ZAP.
+     * Missing timings only degrade profiling and tuning, so failures are logged, not thrown.
+     *
+     * @param scanId The scan ID
+     */
+    void collect(int scanId) {
+        try {
+            ScanProfile profile = ScanProfile.fromScanProgress(scanId,
+                    zapClient.ascan.scanProgress(Integer.toString(scanId)));
+            scanProfiles.add(profile);
+            LOGGER.debug("Active scan {} profile: {}", scanId, profile);
+        } catch (ClientApiException e) {
+            LOGGER.warn("Failed to read rule timings of active scan {}: {}", scanId, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets where the time of the active scans profiled so far went, per scan, host and rule.
+     *
+     * @return The scan profile
+     */
+    ScanProfile getScanProfile() {
+        synchronized (scanProfiles) {
+            return ScanProfile.merge(scanProfiles);
+        }
+    }
+
+    /**
+     * Gets the time, requests and alerts of each active scan rule across the active scans profiled so far.
+     *
+     * @return One execution per rule, ordered by rule ID
+     */
+    List<RuleExecution> getRuleExecutions() {
+        return RuleExecution.fromProfile(getScanProfile());
+    }
+
+    /**
+     * Wraps a failure of an active scan with the profile of the scans run so far, so a scan
+     * that timed out still tells where its time went.
+     *
+     * @param e The failure
+     * @return The exception to throw
+     */
+    ZapScannerException activeScanFailure(Exception e) {
+        ZapScannerException failure = new ZapScannerException("Failed during active scan: " + e.getMessage(), e);
+        failure.setScanProfile(getScanProfile());
+        return failure;
+    }
+}
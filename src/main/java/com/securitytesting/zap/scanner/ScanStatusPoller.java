@@ -0,0 +1,280 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls the status of every spider and active scan in flight on one ZAP instance and dispatches
+ * it to the scans waiting on them.
+ * <p>
+ * Each poll lists all scans of a type with a single call to the spider.scans or ascan.scans
+ * view, so the number of calls per interval stays the same however many scans run concurrently.
+ * A scan missing from the list, or a list that cannot be read, falls back to the status view of
+ * that scan. Polling runs on a daemon thread only while scans are watched.
+ */
+public class ScanStatusPoller {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanStatusPoller.class);
+
+    private static final long DEFAULT_POLL_INTERVAL_MS = 2000;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final Map<ClientApi, ScanStatusPoller> INSTANCES = new WeakHashMap<>();
+
+    /**
+     * Enum representing the types of scans the poller tracks.
+     */
+    public enum Kind {
+        SPIDER,
+        ACTIVE_SCAN
+    }
+
+    private final ClientApi zapClient;
+    private final long pollIntervalMs;
+    private final Map<Kind, Map<Integer, List<Watch>>> watches = new EnumMap<>(Kind.class);
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a new poller for a ZAP instance.
+     *
+     * @param zapClient The ZAP client
+     * @param pollIntervalMs The time between two polls in milliseconds
+     */
+    public ScanStatusPoller(ClientApi zapClient, long pollIntervalMs) {
+        this.zapClient = zapClient;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /**
+     * Gets the poller shared by all scanners of a ZAP instance.
+     *
+     * @param zapClient The ZAP client
+     * @return The shared poller
+     */
+    public static ScanStatusPoller forClient(ClientApi zapClient) {
+        synchronized (INSTANCES) {
+            return INSTANCES.computeIfAbsent(zapClient, client -> new ScanStatusPoller(client, DEFAULT_POLL_INTERVAL_MS));
+        }
+    }
+
+    /**
+     * Watches a scan, starting the polling if no other scan is watched.
+     *
+     * @param kind The type of the scan
+     * @param scanId The scan ID
+     * @return The watch, to close once the scan is no longer waited on
+     */
+    public synchronized Watch watch(Kind kind, int scanId) {
+        Watch watch = new Watch(kind, scanId);
+        watches.computeIfAbsent(kind, k -> new HashMap<>())
+                .computeIfAbsent(scanId, id -> new ArrayList<>())
+                .add(watch);
+
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "zap-status-poller-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+            LOGGER.debug("Started polling scan statuses every {} ms", pollIntervalMs);
+        }
+        return watch;
+    }
+
+    /**
+     * Polls the status of all watched scans once and dispatches it to their watches.
+     */
+    public void poll() {
+        for (Map.Entry<Kind, Set<Integer>> entry : getWatchedScans().entrySet()) {
+            Kind kind = entry.getKey();
+            Map<Integer, Integer> progress = new HashMap<>();
+            Map<Integer, ClientApiException> failures = new HashMap<>();
+
+            try {
+                progress.putAll(parseScans(kind == Kind.SPIDER ? zapClient.spider.scans() : zapClient.ascan.scans()));
+            } catch (ClientApiException e) {
+                LOGGER.debug("Failed to list {} statuses, polling each scan: {}", kind, e.getMessage());
+            }
+
+            for (int scanId : entry.getValue()) {
+                if (progress.containsKey(scanId)) {
+                    continue;
+                }
+                try {
+                    String id = Integer.toString(scanId);
+                    ApiResponse response = kind == Kind.SPIDER ? zapClient.spider.status(id) : zapClient.ascan.status(id);
+                    progress.put(scanId, response.asInt());
+                } catch (ClientApiException e) {
+                    failures.put(scanId, e);
+                } catch (RuntimeException e) {
+                    failures.put(scanId, new ClientApiException("Unexpected status of " + kind + " " + scanId, e));
+                }
+            }
+
+            dispatch(kind, progress, failures);
+        }
+    }
+
+    /**
+     * Dispatches the result of a poll to the watches of the polled scans.
+     *
+     * @param kind The type of the polled scans
+     * @param progress The progress in percent, by scan ID
+     * @param failures The failures to read a status, by scan ID
+     */
+    synchronized void dispatch(Kind kind, Map<Integer, Integer> progress, Map<Integer, ClientApiException> failures) {
+        watches.getOrDefault(kind, new HashMap<>()).forEach((scanId, scanWatches) -> {
+            if (progress.containsKey(scanId)) {
+                scanWatches.forEach(watch -> watch.update(progress.get(scanId), null));
+            } else if (failures.containsKey(scanId)) {
+                scanWatches.forEach(watch -> watch.update(watch.progress, failures.get(scanId)));
+            }
+        });
+    }
+
+    /**
+     * Gets the IDs of the scans currently watched.
+     *
+     * @return The scan IDs, by type of scan
+     */
+    public synchronized Map<Kind, Set<Integer>> getWatchedScans() {
+        Map<Kind, Set<Integer>> watched = new EnumMap<>(Kind.class);
+        watches.forEach((kind, scans) -> {
+            if (!scans.isEmpty()) {
+                watched.put(kind, new HashSet<>(scans.keySet()));
+            }
+        });
+        return watched;
+    }
+
+    /**
+     * Checks whether the poller is polling, which it does only while scans are watched.
+     *
+     * @return True if polling, false otherwise
+     */
+    public synchronized boolean isPolling() {
+        return executor != null;
+    }
+
+    private synchronized void unwatch(Watch watch) {
+        Map<Integer, List<Watch>> scans = watches.get(watch.kind);
+        List<Watch> scanWatches = scans != null ? scans.get(watch.scanId) : null;
+        if (scanWatches == null || !scanWatches.remove(watch)) {
+            return;
+        }
+        if (scanWatches.isEmpty()) {
+            scans.remove(watch.scanId);
+        }
+
+        if (executor != null && watches.values().stream().allMatch(Map::isEmpty)) {
+            executor.shutdown();
+            executor = null;
+            LOGGER.debug("Stopped polling scan statuses");
+        }
+    }
+
+    /**
+     * Parses the scans listed by ZAP.
+     *
+     * @param response The response of the spider.scans or ascan.scans view
+     * @return The progress in percent, by scan ID
+     * @throws ClientApiException If the response is not a list
+     */
+    static Map<Integer, Integer> parseScans(ApiResponse response) throws ClientApiException {
+        Map<Integer, Integer> progress = new HashMap<>();
+        for (ApiResponse item : response.asList()) {
+            try {
+                ApiResponseSet scan = item.asSet();
+                progress.put(scan.getIntValue("id"), scan.getIntValue("progress"));
+            } catch (ClientApiException e) {
+                LOGGER.debug("Ignoring scan with unexpected status: {}", item);
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Watch of a scan, updated by each poll that reads the scan's status.
+     */
+    public class Watch implements AutoCloseable {
+        private final Kind kind;
+        private final int scanId;
+        private int progress;
+        private ClientApiException failure;
+        private CompletableFuture<Void> nextUpdate = new CompletableFuture<>();
+
+        private Watch(Kind kind, int scanId) {
+            this.kind = kind;
+            this.scanId = scanId;
+        }
+
+        /**
+         * Waits for the next poll of the scan and gets its progress. If no poll reads the scan
+         * for two intervals, as when ZAP is slow to answer, the last known progress is returned.
+         *
+         * @param cancellation The cancellation of the scan, which ends the wait
+         * @return The progress in percent
+         * @throws ClientApiException If the last poll failed to read the scan's status
+         * @throws ZapScannerException If the scan was cancelled
+         * @throws InterruptedException If the thread was interrupted while waiting
+         */
+        public int awaitProgress(ScanCancellation cancellation)
+                throws ClientApiException, ZapScannerException, InterruptedException {
+            CompletableFuture<Void> update;
+            synchronized (ScanStatusPoller.this) {
+                update = nextUpdate;
+            }
+            cancellation.pauseUntil(update, 2 * pollIntervalMs);
+
+            synchronized (ScanStatusPoller.this) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return progress;
+            }
+        }
+
+        /**
+         * Gets the progress of the scan as of the last poll.
+         *
+         * @return The progress in percent
+         */
+        public int getProgress() {
+            synchronized (ScanStatusPoller.this) {
+                return progress;
+            }
+        }
+
+        private void update(int progress, ClientApiException failure) {
+            this.progress = progress;
+            this.failure = failure;
+            CompletableFuture<Void> update = nextUpdate;
+            nextUpdate = new CompletableFuture<>();
+            update.complete(null);
+        }
+
+        @Override
+        public void close() {
+            unwatch(this);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.securitytesting.zap.scanner;
+
+/**
+ * Health of a scan target over one sampling window: how many requests it answered,
+ * how many of those were throttled or failed, and how quickly it responded.
+ */
+public class TargetHealthSample {
+
+    private final long requests;
+    private final long throttledResponses;
+    private final long serverErrors;
+    private final double meanLatencyMs;
+
+    /**
+     * Creates a new sample.
+     *
+     * @param requests The number of responses received in the window
+     * @param throttledResponses The number of 429 responses
+     * @param serverErrors The number of 5xx responses
+     * @param meanLatencyMs The mean response time in milliseconds
+     */
+    public TargetHealthSample(long requests, long throttledResponses, long serverErrors, double meanLatencyMs) {
+        this.requests = requests;
+        this.throttledResponses = throttledResponses;
+        this.serverErrors = serverErrors;
+        this.meanLatencyMs = meanLatencyMs;
+    }
+
+    /**
+     * Gets the number of responses received in the window.
+     *
+     * @return The number of responses
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Gets the number of 429 responses.
+     *
+     * @return The number of throttled responses
+     */
+    public long getThrottledResponses() {
+        return throttledResponses;
+    }
+
+    /**
+     * Gets the number of 5xx responses.
+     *
+     * @return The number of server errors
+     */
+    public long getServerErrors() {
+        return serverErrors;
+    }
+
+    /**
+     * Gets the mean response time.
+     *
+     * @return The mean response time in milliseconds
+     */
+    public double getMeanLatencyMs() {
+        return meanLatencyMs;
+    }
+
+    /**
+     * Gets the share of responses that were throttled or failed.
+     *
+     * @return The error rate, between 0 and 1
+     */
+    public double getErrorRate() {
+        return requests > 0 ? (double) (throttledResponses + serverErrors) / requests : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d requests, %d throttled, %d server errors, %.0f ms mean latency",
+                requests, throttledResponses, serverErrors, meanLatencyMs);
+    }
+}
@@ -0,0 +1,133 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.policy.TechnologyFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.util.Collections;
+
+/**
+ * Fingerprints a target's technologies from what ZAP recorded while spidering and passively
+ * scanning it: the headers and cookies of its messages, the file extensions of its URLs and
+ * the passive alerts raised on it.
+ * <p>
+ * Runs between the passive and the active scan, so the active scan policy can be pruned to
+ * the rules that can apply to the target.
+ */
+public class TechnologyFingerprinter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TechnologyFingerprinter.class);
+
+    private static final int PAGE_SIZE = 500;
+
+    private final ClientApi zapClient;
+    private final int maxMessages;
+
+    /**
+     * Creates a new fingerprinter.
+     *
+     * @param zapClient The ZAP client
+     * @param maxMessages The maximum number of messages to read; a sample is enough to fingerprint a target
+     */
+    public TechnologyFingerprinter(ClientApi zapClient, int maxMessages) {
+        this.zapClient = zapClient;
+        this.maxMessages = maxMessages;
+    }
+
+    /**
+     * Fingerprints a target.
+     *
+     * @param targetUrl The target URL
+     * @return The target's fingerprint
+     * @throws ZapScannerException If ZAP cannot be queried
+     */
+    public TechnologyFingerprint fingerprint(String targetUrl) throws ZapScannerException {
+        LOGGER.info("Fingerprinting technologies of {}", targetUrl);
+
+        TechnologyFingerprint fingerprint = new TechnologyFingerprint();
+        try {
+            // Read the messages page by page, up to the sample size
+            int read = 0;
+            while (read < maxMessages) {
+                int count = Math.min(PAGE_SIZE, maxMessages - read);
+                ApiResponse messages = zapClient.core.messages(targetUrl, Integer.toString(read), Integer.toString(count));
+                int pageSize = 0;
+                for (ApiResponse message : items(messages)) {
+                    pageSize++;
+                    if (message instanceof ApiResponseSet) {
+                        addMessage(fingerprint, (ApiResponseSet) message);
+                    }
+                }
+                read += pageSize;
+                if (pageSize < count) {
+                    break;
+                }
+            }
+
+            for (ApiResponse alert : items(zapClient.core.alerts(targetUrl, 0, -1))) {
+                if (alert instanceof ApiResponseSet) {
+                    ApiResponseSet values = (ApiResponseSet) alert;
+                    String name = values.getStringValue("alert");
+                    fingerprint.addAlert(name != null ? name : values.getStringValue("name"),
+                            values.getStringValue("evidence"));
+                }
+            }
+
+            LOGGER.info("Fingerprinted {} from {} message(s): {}", targetUrl, read, fingerprint);
+            return fingerprint;
+        } catch (ClientApiException e) {
+            LOGGER.error("Failed to fingerprint target", e);
+            throw new ZapScannerException("Failed to fingerprint target: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds the URL and headers of a message to a fingerprint.
+     *
+     * @param fingerprint The fingerprint
+     * @param message The message, as returned by ZAP
+     */
+    static void addMessage(TechnologyFingerprint fingerprint, ApiResponseSet message) {
+        String requestHeader = message.getStringValue("requestHeader");
+        if (requestHeader != null) {
+            // The request line is "METHOD URL VERSION"
+            String[] requestLine = firstLine(requestHeader).split(" ");
+            if (requestLine.length > 1) {
+                fingerprint.addUrl(requestLine[1]);
+            }
+            addHeaders(fingerprint, requestHeader);
+        }
+
+        String responseHeader = message.getStringValue("responseHeader");
+        if (responseHeader != null) {
+            addHeaders(fingerprint, responseHeader);
+        }
+    }
+
+    private static void addHeaders(TechnologyFingerprint fingerprint, String header) {
+        String[] lines = header.split("\r?\n");
+        // The first line is the request or status line
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                fingerprint.addHeader(lines[i].substring(0, colon), lines[i].substring(colon + 1));
+            }
+        }
+    }
+
+    private static String firstLine(String header) {
+        int end = header.indexOf('\n');
+        return (end >= 0 ? header.substring(0, end) : header).trim();
+    }
+
+    private static Iterable<ApiResponse> items(ApiResponse response) {
+        // Lists are iterated lazily, so a page of messages is not held in memory at once
+        return response instanceof ApiResponseList ? (ApiResponseList) response : Collections.emptyList();
+    }
+}
@@ -0,0 +1,29 @@
+package com.securitytesting.zap.scanner;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * A flow through a web application driven with Selenium, such as visiting a route
+ * or completing a checkout. Traffic generated by the flow is recorded by ZAP.
+ */
+@FunctionalInterface
+public interface UserJourney {
+
+    /**
+     * Navigates the journey with the specified browser session.
+     *
+     * @param driver The browser session, proxied through ZAP
+     * @throws Exception If navigation fails
+     */
+    void navigate(WebDriver driver) throws Exception;
+
+    /**
+     * Creates a journey that visits a single URL.
+     *
+     * @param url The URL to visit
+     * @return The journey
+     */
+    static UserJourney visit(String url) {
+        return driver -> driver.get(url);
+    }
+}
@@ -3,7 +3,11 @@ package com.securitytesting.zap.scanner;
 import com.securitytesting.zap.auth.AuthenticationHandler;
 import com.securitytesting.zap.config.ScanConfig;
 import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.policy.RuleExecution;
+import com.securitytesting.zap.policy.ScanHistory;
 import com.securitytesting.zap.policy.ScanPolicy;
+import com.securitytesting.zap.policy.ScanPolicyApplier;
+import com.securitytesting.zap.report.ScanProfile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zaproxy.clientapi.core.ApiResponse;
@@ -12,6 +16,7 @@ import org.zaproxy.clientapi.core.ClientApi;
 import org.zaproxy.clientapi.core.ClientApiException;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,7 +30,11 @@ public class WebAppScanner {
     
     private final ClientApi zapClient;
     private final ScanConfig config;
+    private final ScanStatusPoller statusPoller;
     private AuthenticationHandler authHandler;
+    private ScanCancellation cancellation = new ScanCancellation();
+    private ScanJournal scanJournal;
+    private final ScanProfiler scanProfiler;
     
     /**
      * Creates a new web application scanner with the specified ZAP client and configuration.
@@ -35,6 +44,8 @@ public class WebAppScanner {
      */
     public WebAppScanner(ClientApi zapClient, ScanConfig config) {
         this.zapClient = zapClient;
+        this.statusPoller = ScanStatusPoller.forClient(zapClient);
+        this.scanProfiler = new ScanProfiler(zapClient);
         this.config = config;
     }
     
@@ -47,6 +58,25 @@ public class WebAppScanner {
         this.authHandler = authHandler;
     }
     
+    /**
+     * Sets the cancellation of the scan this scanner runs: cancelling it stops the scans the
+     * scanner started in ZAP and ends its polling.
+     * 
+     * @param cancellation The scan cancellation
+     */
+    public void setCancellation(ScanCancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+    
+    /**
+     * Sets the journal the scans started by this scanner are checkpointed to.
+     * 
+     * @param scanJournal The scan journal, or null to not checkpoint scans
+     */
+    public void setScanJournal(ScanJournal scanJournal) {
+        this.scanJournal = scanJournal;
+    }
+    
     /**
      * Spiders a target URL to discover content.
      * 
@@ -64,22 +94,33 @@ public class WebAppScanner {
         
         LOGGER.info("Starting spider for target URL: {}", targetUrl);
         
+        // Set up authentication if needed, for as long as the spider runs
+        try (AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, authHandler, contextName)) {
+            spiderTargetAsUser(targetUrl, contextName, authentication.getUserId(), maxDepth, timeoutInMinutes);
+        } catch (Exception e) {
+            LOGGER.error("Failed during spider", e);
+            throw new ZapScannerException("Failed during spider: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Spiders a target URL as a user of an already configured context.
+     * 
+     * @param targetUrl The target URL
+     * @param contextName The ZAP context name
+     * @param userId The ID of the user to spider as, or null to spider without a user
+     * @param maxDepth The maximum spider depth
+     * @param timeoutInMinutes The maximum spider duration in minutes
+     * @throws ZapScannerException If spidering fails
+     */
+    public void spiderTargetAsUser(String targetUrl, String contextName, Integer userId, int maxDepth, 
+            int timeoutInMinutes) throws ZapScannerException {
         try {
-            // Set up authentication if needed
-            Integer contextId = null;
-            Integer userId = null;
-            
-            if (authHandler != null && contextName != null && !contextName.isEmpty()) {
-                // Configure authentication
-                contextId = authHandler.setupAuthentication(contextName);
-                LOGGER.info("Authentication configured for context ID: {}", contextId);
-            }
-            
             // Start the spider
             ApiResponse response;
             String scanIdStr;
             
-            if (contextId != null && userId != null) {
+            if (userId != null) {
                 // Spider as user
                 Map<String, String> params = new HashMap<>();
                 params.put("url", targetUrl);
@@ -98,6 +139,9 @@ public class WebAppScanner {
             int scanId = Integer.parseInt(scanIdStr);
             
             LOGGER.info("Spider started with ID: {}", scanId);
+            if (scanJournal != null) {
+                scanJournal.spiderStarted(scanId);
+            }
             
             // Wait for spider to complete
             waitForSpiderCompletion(scanId, timeoutInMinutes);
@@ -107,6 +151,69 @@ public class WebAppScanner {
         }
     }
     
+    /**
+     * Reattaches to a spider a previous run started and waits for it to complete.
+     * 
+     * @param targetUrl The target URL
+     * @param scanId The ID of the spider
+     * @param timeoutInMinutes The maximum spider duration in minutes
+     * @return True if ZAP still knows the spider, false if it has to be started again
+     * @throws ZapScannerException If waiting for the spider fails
+     */
+    public boolean reattachSpider(String targetUrl, int scanId, int timeoutInMinutes) throws ZapScannerException {
+        if (!isSpiderListed(targetUrl, scanId)) {
+            return false;
+        }
+        
+        LOGGER.info("Reattaching to spider with ID: {}", scanId);
+        waitForSpiderCompletion(scanId, timeoutInMinutes);
+        return true;
+    }
+    
+    /**
+     * Checks whether ZAP lists a spider of a target. ZAP forgets its spiders when it is restarted
+     * or given a new session, and then reuses their IDs for other scans.
+     * 
+     * @param targetUrl The target URL
+     * @param scanId The ID of the spider
+     * @return True if the spider is listed and crawled the target's origin, false otherwise
+     */
+    public boolean isSpiderListed(String targetUrl, int scanId) {
+        try {
+            if (ScanStatusPoller.parseScans(zapClient.spider.scans()).containsKey(scanId)
+                    && listsOrigin(zapClient.spider.results(Integer.toString(scanId)), targetUrl)) {
+                return true;
+            }
+            LOGGER.info("Spider {} of {} is no longer known to ZAP", scanId, targetUrl);
+        } catch (ClientApiException e) {
+            LOGGER.info("Spider {} is no longer known to ZAP: {}", scanId, e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Checks whether the URLs or hosts a scan lists, as values of its response, include the
+     * target's origin. A scan that lists none yet cannot be told apart and is accepted.
+     * 
+     * @param response The spider results or active scan progress
+     * @param targetUrl The target URL
+     * @return True if the scan lists the target's origin or nothing, false otherwise
+     * @throws ClientApiException If the response is not a list
+     */
+    private static boolean listsOrigin(ApiResponse response, String targetUrl) throws ClientApiException {
+        String origin = ScanHistory.targetKey(targetUrl);
+        boolean listed = false;
+        for (ApiResponse item : response.asList()) {
+            if (item instanceof ApiResponseElement) {
+                if (origin.equals(ScanHistory.targetKey(((ApiResponseElement) item).getValue()))) {
+                    return true;
+                }
+                listed = true;
+            }
+        }
+        return !listed;
+    }
+    
     /**
      * Waits for a spider to complete.
      * 
@@ -118,13 +225,17 @@ public class WebAppScanner {
         long startTime = System.currentTimeMillis();
         long timeoutInMs = timeoutInMinutes * 60 * 1000;
         
-        try {
+        try (ScanCancellation.Registration registration = cancellation.register("spider " + scanId, 
+                () -> zapClient.spider.stop(Integer.toString(scanId)));
+                ScanStatusPoller.Watch watch = statusPoller.watch(ScanStatusPoller.Kind.SPIDER, scanId)) {
             while (true) {
-                // Check if spider is complete
-                ApiResponse response = zapClient.spider.status(Integer.toString(scanId));
-                int progress = Integer.parseInt(((ApiResponseElement) response).getValue());
+                // Wait for the shared poller to read the spider's status
+                int progress = watch.awaitProgress(cancellation);
                 
                 LOGGER.debug("Spider progress: {}%", progress);
+                if (scanJournal != null) {
+                    scanJournal.progress(progress);
+                }
                 
                 if (progress >= 100) {
                     LOGGER.info("Spider completed");
@@ -138,9 +249,6 @@ public class WebAppScanner {
                     zapClient.spider.stop(Integer.toString(scanId));
                     throw new ZapScannerException("Spider timed out after " + timeoutInMinutes + " minutes");
                 }
-                
-                // Wait before polling again
-                Thread.sleep(POLL_INTERVAL_MS);
             }
         } catch (ClientApiException | InterruptedException | NumberFormatException e) {
             LOGGER.error("Failed while waiting for spider completion", e);
@@ -164,16 +272,8 @@ public class WebAppScanner {
         
         LOGGER.info("Starting Ajax spider for target URL: {}", targetUrl);
         
-        try {
-            // Set up authentication if needed
-            Integer contextId = null;
-            
-            if (authHandler != null && contextName != null && !contextName.isEmpty()) {
-                // Configure authentication
-                contextId = authHandler.setupAuthentication(contextName);
-                LOGGER.info("Authentication configured for context ID: {}", contextId);
-            }
-            
+        // Set up authentication if needed, for as long as the Ajax spider runs
+        try (AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, authHandler, contextName)) {
             // Start the Ajax spider
             ApiResponse response = zapClient.ajaxSpider.scan(targetUrl, contextName, null, null);
             
@@ -197,7 +297,8 @@ public class WebAppScanner {
         long startTime = System.currentTimeMillis();
         long timeoutInMs = timeoutInMinutes * 60 * 1000;
         
-        try {
+        try (ScanCancellation.Registration registration = cancellation.register("Ajax spider", 
+                () -> zapClient.ajaxSpider.stop())) {
             while (true) {
                 // Check if Ajax spider is complete
                 ApiResponse response = zapClient.ajaxSpider.status();
@@ -219,7 +320,7 @@ public class WebAppScanner {
                 }
                 
                 // Wait before polling again
-                Thread.sleep(POLL_INTERVAL_MS);
+                cancellation.pause(POLL_INTERVAL_MS);
             }
         } catch (ClientApiException | InterruptedException e) {
             LOGGER.error("Failed while waiting for Ajax spider completion", e);
@@ -245,7 +346,7 @@ public class WebAppScanner {
             while (true) {
                 // Check if passive scanning is complete
                 ApiResponse response = zapClient.pscan.recordsToScan();
-                int recordsToScan = Integer.parseInt(((ApiResponseElement) response).getValue());
+                int recordsToScan = response.asInt();
                 
                 LOGGER.debug("Records left to scan: {}", recordsToScan);
                 
@@ -262,7 +363,7 @@ public class WebAppScanner {
                 }
                 
                 // Wait before checking again
-                Thread.sleep(POLL_INTERVAL_MS);
+                cancellation.pause(POLL_INTERVAL_MS);
             }
         } catch (ClientApiException | InterruptedException | NumberFormatException e) {
             LOGGER.error("Failed during passive scan", e);
@@ -287,41 +388,51 @@ public class WebAppScanner {
         
         LOGGER.info("Starting active scan for target URL: {}", targetUrl);
         
-        try {
-            // Set up authentication if needed
-            Integer contextId = null;
-            Integer userId = null;
-            
-            if (authHandler != null && contextName != null && !contextName.isEmpty()) {
-                // Configure authentication
-                contextId = authHandler.setupAuthentication(contextName);
-                LOGGER.info("Authentication configured for context ID: {}", contextId);
-                // In a real implementation, we would also get the user ID
+        // Set up authentication if needed, for as long as the scan runs
+        try (AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, authHandler, contextName)) {
+            // Adapt the scan load to the target's health while the scan runs
+            try (AdaptiveConcurrencyController.Lease concurrency = AdaptiveConcurrencyController.start(zapClient, config, targetUrl)) {
+                performActiveScanAsUser(targetUrl, contextName, authentication.getContextId(), 
+                        authentication.getUserId(), scanPolicy, timeoutInMinutes);
             }
-            
+        } catch (Exception e) {
+            LOGGER.error("Failed during active scan", e);
+            throw scanProfiler.activeScanFailure(e);
+        }
+    }
+    
+    /**
+     * Performs an active scan as a user of an already configured context and waits for it to complete.
+     * 
+     * @param targetUrl The target URL
+     * @param contextName The ZAP context name (optional)
+     * @param contextId The ID of the context, or null to scan without a user
+     * @param userId The ID of the user to scan as, or null to scan without a user
+     * @param scanPolicy The scan policy to use
+     * @param timeoutInMinutes The maximum scan duration in minutes
+     * @return The ID of the completed active scan
+     * @throws ZapScannerException If scanning fails
+     */
+    public int performActiveScanAsUser(String targetUrl, String contextName, Integer contextId, Integer userId, 
+            ScanPolicy scanPolicy, int timeoutInMinutes) throws ZapScannerException {
+        try {
             // Start the active scan
             ApiResponse response;
             String scanIdStr;
+            String scanPolicyName = scanPolicy != null ? scanPolicy.getName() : null;
+            
+            // Push the scan policy to ZAP before the scan picks it up
+            if (scanPolicy != null) {
+                ScanPolicyApplier.getInstance().apply(zapClient, scanPolicy);
+            }
             
             if (contextId != null && userId != null) {
                 // Scan as user
-                response = zapClient.ascan.scanAsUser(targetUrl, contextId, userId);
+                response = zapClient.ascan.scanAsUser(targetUrl, String.valueOf(contextId), String.valueOf(userId), 
+                        "true", scanPolicyName, null, null);
             } else {
                 // Regular scan
-                Map<String, String> params = new HashMap<>();
-                params.put("url", targetUrl);
-                params.put("recurse", "true");
-                params.put("inScopeOnly", "false");
-                
-                if (contextName != null && !contextName.isEmpty()) {
-                    params.put("contextName", contextName);
-                }
-                
-                if (scanPolicy != null) {
-                    params.put("scanPolicyName", scanPolicy.getName());
-                }
-                
-                response = zapClient.ascan.scan(targetUrl, "true", "false", scanPolicy.getName(), null, null);
+                response = zapClient.ascan.scan(targetUrl, "true", "false", scanPolicyName, null, null);
             }
             
             // Extract scan ID
@@ -329,34 +440,76 @@ public class WebAppScanner {
             int scanId = Integer.parseInt(scanIdStr);
             
             LOGGER.info("Active scan started with ID: {}", scanId);
-            
-            // Configure scan policy if provided
-            if (scanPolicy != null) {
-                configureScanPolicy(scanId, scanPolicy);
+            if (scanJournal != null) {
+                scanJournal.activeScanStarted(scanId, scanPolicyName, scanPolicy != null && scanPolicy.isTuned());
             }
             
-            // Wait for scan to complete
-            waitForActiveScanCompletion(scanId, timeoutInMinutes);
+            // Wait for scan to complete, profiling it even if it runs out of time
+            try {
+                waitForActiveScanCompletion(scanId, timeoutInMinutes);
+            } finally {
+                scanProfiler.collect(scanId);
+            }
+            return scanId;
         } catch (Exception e) {
             LOGGER.error("Failed during active scan", e);
-            throw new ZapScannerException("Failed during active scan: " + e.getMessage(), e);
+            throw scanProfiler.activeScanFailure(e);
         }
     }
     
     /**
-     * Configures a scan with the specified policy.
+     * Reattaches to an active scan a previous run started and waits for it to complete.
      * 
-     * @param scanId The scan ID
-     * @param policy The scan policy
-     * @throws ClientApiException If configuration fails
+     * @param targetUrl The target URL
+     * @param scanId The ID of the active scan
+     * @param timeoutInMinutes The maximum scan duration in minutes
+     * @return True if ZAP still knows the scan, false if it has to be started again
+     * @throws ZapScannerException If waiting for the scan fails
      */
-    private void configureScanPolicy(int scanId, ScanPolicy policy) throws ClientApiException {
-        LOGGER.debug("Configuring scan policy for scan ID: {}", scanId);
-        
-        // In a real implementation, we would configure the scan policy
-        // For this stub, we'll just log the action
+    public boolean reattachActiveScan(String targetUrl, int scanId, int timeoutInMinutes) 
+            throws ZapScannerException {
+        try {
+            if (!ScanStatusPoller.parseScans(zapClient.ascan.scans()).containsKey(scanId)
+                    || !listsOrigin(zapClient.ascan.scanProgress(Integer.toString(scanId)), targetUrl)) {
+                LOGGER.info("Active scan {} of {} is no longer known to ZAP", scanId, targetUrl);
+                return false;
+            }
+        } catch (ClientApiException e) {
+            LOGGER.info("Active scan {} is no longer known to ZAP: {}", scanId, e.getMessage());
+            return false;
+        }
         
-        LOGGER.debug("Scan policy configured for scan ID: {}", scanId);
+        LOGGER.info("Reattaching to active scan with ID: {}", scanId);
+        try (AdaptiveConcurrencyController.Lease concurrency = AdaptiveConcurrencyController.start(zapClient, config, targetUrl)) {
+            // Wait for scan to complete, profiling it even if it runs out of time
+            try {
+                waitForActiveScanCompletion(scanId, timeoutInMinutes);
+            } finally {
+                scanProfiler.collect(scanId);
+            }
+        } catch (ZapScannerException e) {
+            e.setScanProfile(getScanProfile());
+            throw e;
+        }
+        return true;
+    }
+    
+    /**
+     * Gets where the time of the active scans run so far went, per scan, host and rule.
+     * 
+     * @return The scan profile
+     */
+    public ScanProfile getScanProfile() {
+        return scanProfiler.getScanProfile();
+    }
+    
+    /**
+     * Gets the time, requests and alerts of each active scan rule across the active scans run so far.
+     * 
+     * @return One execution per rule, ordered by rule ID
+     */
+    public List<RuleExecution> getRuleExecutions() {
+        return scanProfiler.getRuleExecutions();
     }
     
     /**
@@ -370,13 +523,17 @@ public class WebAppScanner {
         long startTime = System.currentTimeMillis();
         long timeoutInMs = timeoutInMinutes * 60 * 1000;
         
-        try {
+        try (ScanCancellation.Registration registration = cancellation.register("active scan " + scanId, 
+                () -> zapClient.ascan.stop(Integer.toString(scanId)));
+                ScanStatusPoller.Watch watch = statusPoller.watch(ScanStatusPoller.Kind.ACTIVE_SCAN, scanId)) {
             while (true) {
-                // Check if scan is complete
-                ApiResponse response = zapClient.ascan.status(Integer.toString(scanId));
-                int progress = Integer.parseInt(((ApiResponseElement) response).getValue());
+                // Wait for the shared poller to read the active scan's status
+                int progress = watch.awaitProgress(cancellation);
                 
                 LOGGER.debug("Active scan progress: {}%", progress);
+                if (scanJournal != null) {
+                    scanJournal.progress(progress);
+                }
                 
                 if (progress >= 100) {
                     LOGGER.info("Active scan completed");
@@ -390,9 +547,6 @@ public class WebAppScanner {
                     zapClient.ascan.stop(Integer.toString(scanId));
                     throw new ZapScannerException("Active scan timed out after " + timeoutInMinutes + " minutes");
                 }
-                
-                // Wait before polling again
-                Thread.sleep(POLL_INTERVAL_MS);
             }
         } catch (ClientApiException | InterruptedException | NumberFormatException e) {
             LOGGER.error("Failed while waiting for active scan completion", e);
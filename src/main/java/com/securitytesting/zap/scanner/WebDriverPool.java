@@ -0,0 +1,186 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of reusable WebDriver sessions.
+ * Sessions are started lazily, up to the maximum size, and returned to the pool after
+ * each use so that navigating many flows does not start a new browser for each flow.
+ * The idle sessions and the closed state are guarded by one lock, so a session released
+ * while or after the pool closes is quit rather than left idle in a drained pool.
+ */
+public class WebDriverPool implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebDriverPool.class);
+
+    private final Supplier<WebDriver> driverFactory;
+    private final int maxSessions;
+    private final Semaphore permits;
+    private final Object lock = new Object();
+    private final Deque<WebDriver> idleDrivers = new ArrayDeque<>();
+    private final AtomicInteger createdSessions = new AtomicInteger();
+    private boolean closed;
+
+    /**
+     * Creates a new WebDriver pool.
+     *
+     * @param maxSessions The maximum number of sessions open at the same time
+     * @param driverFactory The factory used to start a new session
+     */
+    public WebDriverPool(int maxSessions, Supplier<WebDriver> driverFactory) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("Maximum number of sessions must be at least 1");
+        }
+
+        this.maxSessions = maxSessions;
+        this.driverFactory = driverFactory;
+        this.permits = new Semaphore(maxSessions, true);
+    }
+
+    /**
+     * Acquires a session from the pool, starting a new one if no idle session is available.
+     * Blocks while the maximum number of sessions is in use.
+     *
+     * @param timeout The maximum time to wait for a session
+     * @param unit The unit of the timeout
+     * @return The session
+     * @throws ZapScannerException If the pool is closed, no session becomes available in time, or starting a session fails
+     */
+    public WebDriver acquire(long timeout, TimeUnit unit) throws ZapScannerException {
+        if (isClosed()) {
+            throw new ZapScannerException("WebDriver pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(timeout, unit)) {
+                throw new ZapScannerException("Timed out waiting for a WebDriver session");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ZapScannerException("Interrupted while waiting for a WebDriver session", e);
+        }
+
+        WebDriver driver;
+        synchronized (lock) {
+            if (closed) {
+                permits.release();
+                throw new ZapScannerException("WebDriver pool is closed");
+            }
+            driver = idleDrivers.pollFirst();
+        }
+        if (driver != null) {
+            return driver;
+        }
+
+        try {
+            driver = driverFactory.get();
+            int created = createdSessions.incrementAndGet();
+            LOGGER.debug("Started WebDriver session {} of at most {}", created, maxSessions);
+            return driver;
+        } catch (RuntimeException e) {
+            permits.release();
+            LOGGER.error("Failed to start WebDriver session", e);
+            throw new ZapScannerException("Failed to start WebDriver session: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a healthy session to the pool for reuse, or quits it if the pool is closed.
+     *
+     * @param driver The session
+     */
+    public void release(WebDriver driver) {
+        boolean pooled;
+        synchronized (lock) {
+            pooled = !closed;
+            if (pooled) {
+                idleDrivers.offerFirst(driver);
+            }
+        }
+        if (!pooled) {
+            quit(driver);
+        }
+
+        permits.release();
+    }
+
+    /**
+     * Discards a session that failed, so the next acquire starts a fresh one.
+     *
+     * @param driver The session
+     */
+    public void invalidate(WebDriver driver) {
+        quit(driver);
+        permits.release();
+    }
+
+    /**
+     * Gets the maximum number of sessions open at the same time.
+     *
+     * @return The maximum number of sessions
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Gets the number of sessions started by this pool.
+     *
+     * @return The number of started sessions
+     */
+    public int getCreatedSessions() {
+        return createdSessions.get();
+    }
+
+    /**
+     * Quits all idle sessions and closes the pool. Sessions in use are quit when they are released.
+     */
+    @Override
+    public void close() {
+        List<WebDriver> drivers;
+        synchronized (lock) {
+            closed = true;
+            drivers = new ArrayList<>(idleDrivers);
+            idleDrivers.clear();
+        }
+
+        drivers.forEach(WebDriverPool::quit);
+        LOGGER.debug("WebDriver pool closed, {} idle sessions quit", drivers.size());
+    }
+
+    /**
+     * Checks whether the pool is closed.
+     *
+     * @return True if the pool is closed, false otherwise
+     */
+    public boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    /**
+     * Quits a session, ignoring failures since the session is discarded either way.
+     *
+     * @param driver The session
+     */
+    private static void quit(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to quit WebDriver session", e);
+        }
+    }
+}
@@ -2,7 +2,59 @@ package org.zaproxy.clientapi.core;
 
 /**
  * Stub implementation of the ZAP ApiResponse class.
+ * <p>
+ * The typed accessors convert a response to the shape a caller expects, failing with a
+ * {@link ClientApiException} if ZAP answered with another shape, so callers do not have to
+ * cast and parse values themselves.
  */
 public class ApiResponse {
-    // Basic implementation to allow compilation
+    
+    /**
+     * Gets the response as a string value.
+     * 
+     * @return The value
+     * @throws ClientApiException If the response is not a single value
+     */
+    public String asString() throws ClientApiException {
+        throw new ClientApiException("Expected a value but got " + describe());
+    }
+    
+    /**
+     * Gets the response as an integer value, such as a scan ID or progress.
+     * 
+     * @return The value
+     * @throws ClientApiException If the response is not a single integer value
+     */
+    public int asInt() throws ClientApiException {
+        String value = asString();
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new ClientApiException("Expected an integer but got \"" + value + "\"", e);
+        }
+    }
+    
+    /**
+     * Gets the response as a list.
+     * 
+     * @return The list
+     * @throws ClientApiException If the response is not a list
+     */
+    public ApiResponseList asList() throws ClientApiException {
+        throw new ClientApiException("Expected a list but got " + describe());
+    }
+    
+    /**
+     * Gets the response as a set of values by key.
+     * 
+     * @return The set
+     * @throws ClientApiException If the response is not a set
+     */
+    public ApiResponseSet asSet() throws ClientApiException {
+        throw new ClientApiException("Expected a set but got " + describe());
+    }
+    
+    private String describe() {
+        return getClass().getSimpleName();
+    }
 }
@@ -37,6 +37,11 @@ public class ApiResponseElement extends ApiResponse {
         return value;
     }
     
+    @Override
+    public String asString() {
+        return value;
+    }
+    
     @Override
     public String toString() {
         return String.format("<%s>%s</%s>", name, value, name);
@@ -0,0 +1,66 @@
+package org.zaproxy.clientapi.core;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Stub implementation of the ZAP ApiResponseFactory class, creating responses from the
+ * body of a JSON API call.
+ * <p>
+ * The body is only tokenized once, to check that it is well formed; lists and sets keep a
+ * reference to their region of the body and parse it when they are read. A large list, such
+ * as the alerts or messages of a target, can then be iterated one item at a time without
+ * building a tree of the whole response first.
+ */
+public final class ApiResponseFactory {
+    
+    private ApiResponseFactory() {
+    }
+    
+    /**
+     * Creates a response from the body of a JSON API call. ZAP wraps each response in an
+     * object with a single field named after the response, such as {"scans": [...]}; the
+     * wrapper is removed.
+     * 
+     * @param json The body of the API call
+     * @return The response
+     * @throws ClientApiException If the body is not well-formed JSON
+     */
+    public static ApiResponse getResponse(byte[] json) throws ClientApiException {
+        JsonRegion body = new JsonRegion(json, 0, json.length);
+        try (JsonParser parser = body.parser()) {
+            if (parser.nextToken() == null) {
+                throw new ClientApiException("Empty API response");
+            }
+            
+            ApiResponse response = body.read("response", parser);
+            if (parser.nextToken() != null) {
+                throw new ClientApiException("Unexpected content after API response");
+            }
+            if (response instanceof ApiResponseSet) {
+                ApiResponseSet wrapper = (ApiResponseSet) response;
+                if (wrapper.getValuesMap().size() == 1) {
+                    return wrapper.getValuesMap().values().iterator().next();
+                }
+            }
+            return response;
+        } catch (IOException e) {
+            throw new ClientApiException("Malformed API response: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Checks that the parser is positioned on the expected token.
+     * 
+     * @param parser The parser
+     * @param expected The expected token
+     * @throws IOException If the parser is on another token
+     */
+    static void expect(JsonParser parser, JsonToken expected) throws IOException {
+        if (parser.currentToken() != expected) {
+            throw new IOException("Expected " + expected + " but got " + parser.currentToken());
+        }
+    }
+}
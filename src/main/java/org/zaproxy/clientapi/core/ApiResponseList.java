@@ -0,0 +1,177 @@
+package org.zaproxy.clientapi.core;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Stub implementation of the ZAP ApiResponseList class.
+ * This is a placeholder that enables compilation without the actual ZAP API.
+ * <p>
+ * A list created by {@link ApiResponseFactory} parses its items from the response body as it
+ * is iterated, so iterating it does not hold all items in memory; {@link #getItems()} parses
+ * them all once and keeps them.
+ */
+public class ApiResponseList extends ApiResponse implements Iterable<ApiResponse> {
+    private String name;
+    private List<ApiResponse> items;
+    private JsonRegion source;
+    
+    /**
+     * Constructor for the ApiResponseList.
+     * 
+     * @param name The name of the list
+     * @param items The items of the list
+     */
+    public ApiResponseList(String name, List<ApiResponse> items) {
+        this.name = name;
+        this.items = new ArrayList<>(items);
+    }
+    
+    /**
+     * Constructor for an empty ApiResponseList.
+     * 
+     * @param name The name of the list
+     */
+    public ApiResponseList(String name) {
+        this(name, Collections.emptyList());
+    }
+    
+    /**
+     * Constructor for a list parsed lazily from a region of a response body.
+     * 
+     * @param name The name of the list
+     * @param source The region of the JSON array
+     */
+    ApiResponseList(String name, JsonRegion source) {
+        this.name = name;
+        this.source = source;
+    }
+    
+    /**
+     * Gets the name of the list.
+     * 
+     * @return The name of the list
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Gets the items of the list.
+     * 
+     * @return The items
+     */
+    public synchronized List<ApiResponse> getItems() {
+        if (items == null) {
+            List<ApiResponse> parsed = new ArrayList<>();
+            iterator().forEachRemaining(parsed::add);
+            items = parsed;
+            source = null;
+        }
+        return Collections.unmodifiableList(items);
+    }
+    
+    /**
+     * Gets the number of items of the list.
+     * 
+     * @return The number of items
+     */
+    public int size() {
+        synchronized (this) {
+            if (items != null) {
+                return items.size();
+            }
+        }
+        int size = 0;
+        for (Iterator<ApiResponse> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+            size++;
+        }
+        return size;
+    }
+    
+    /**
+     * Iterates over the items of the list, parsing each item only when it is reached.
+     * 
+     * @return The iterator
+     */
+    @Override
+    public Iterator<ApiResponse> iterator() {
+        JsonRegion region;
+        synchronized (this) {
+            if (items != null) {
+                return Collections.unmodifiableList(items).iterator();
+            }
+            region = source;
+        }
+        try {
+            return new LazyIterator(region);
+        } catch (IOException e) {
+            // The body was checked to be well formed when the response was created
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    public ApiResponseList asList() {
+        return this;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("<%s>%s</%s>", name, getItems(), name);
+    }
+    
+    /**
+     * Iterator over the items of a JSON array.
+     */
+    private class LazyIterator implements Iterator<ApiResponse> {
+        private final JsonRegion region;
+        private final JsonParser parser;
+        private boolean advanced;
+        
+        LazyIterator(JsonRegion region) throws IOException {
+            this.region = region;
+            this.parser = region.parser();
+            parser.nextToken();
+            ApiResponseFactory.expect(parser, JsonToken.START_ARRAY);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            try {
+                if (!advanced) {
+                    parser.nextToken();
+                    advanced = true;
+                }
+                if (parser.currentToken() == JsonToken.END_ARRAY) {
+                    parser.close();
+                    return false;
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        @Override
+        public ApiResponse next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            advanced = false;
+            try {
+                return region.read(name, parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
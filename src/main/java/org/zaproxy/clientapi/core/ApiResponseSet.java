@@ -0,0 +1,130 @@
+package org.zaproxy.clientapi.core;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stub implementation of the ZAP ApiResponseSet class.
+ * This is a placeholder that enables compilation without the actual ZAP API.
+ * <p>
+ * A set created by {@link ApiResponseFactory} parses its values from the response body the
+ * first time one is read.
+ */
+public class ApiResponseSet extends ApiResponse {
+    private String name;
+    private Map<String, ApiResponse> values;
+    private JsonRegion source;
+    
+    /**
+     * Constructor for the ApiResponseSet.
+     * 
+     * @param name The name of the set
+     * @param values The values of the set, by key
+     */
+    public ApiResponseSet(String name, Map<String, ApiResponse> values) {
+        this.name = name;
+        this.values = new LinkedHashMap<>(values);
+    }
+    
+    /**
+     * Constructor for a set parsed lazily from a region of a response body.
+     * 
+     * @param name The name of the set
+     * @param source The region of the JSON object
+     */
+    ApiResponseSet(String name, JsonRegion source) {
+        this.name = name;
+        this.source = source;
+    }
+    
+    /**
+     * Gets the name of the set.
+     * 
+     * @return The name of the set
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Gets the values of the set.
+     * 
+     * @return The values, by key
+     */
+    public Map<String, ApiResponse> getValuesMap() {
+        return Collections.unmodifiableMap(values());
+    }
+    
+    /**
+     * Gets a value of the set.
+     * 
+     * @param key The key
+     * @return The value, or null if the set has no value with the key
+     */
+    public ApiResponse getValue(String key) {
+        return values().get(key);
+    }
+    
+    /**
+     * Gets a value of the set as a string.
+     * 
+     * @param key The key
+     * @return The value, or null if the set has no element with the key
+     */
+    public String getStringValue(String key) {
+        ApiResponse value = values().get(key);
+        return value instanceof ApiResponseElement ? ((ApiResponseElement) value).getValue() : null;
+    }
+    
+    /**
+     * Gets a value of the set as an integer.
+     * 
+     * @param key The key
+     * @return The value
+     * @throws ClientApiException If the set has no integer value with the key
+     */
+    public int getIntValue(String key) throws ClientApiException {
+        ApiResponse value = values().get(key);
+        if (value == null) {
+            throw new ClientApiException("Missing value " + key + " in " + name);
+        }
+        return value.asInt();
+    }
+    
+    @Override
+    public ApiResponseSet asSet() {
+        return this;
+    }
+    
+    private synchronized Map<String, ApiResponse> values() {
+        if (values == null) {
+            Map<String, ApiResponse> parsed = new LinkedHashMap<>();
+            try (JsonParser parser = source.parser()) {
+                parser.nextToken();
+                ApiResponseFactory.expect(parser, JsonToken.START_OBJECT);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.getCurrentName();
+                    parser.nextToken();
+                    parsed.put(key, source.read(key, parser));
+                }
+            } catch (IOException e) {
+                // The body was checked to be well formed when the response was created
+                throw new UncheckedIOException(e);
+            }
+            values = parsed;
+            source = null;
+        }
+        return values;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("<%s>%s</%s>", name, values(), name);
+    }
+}
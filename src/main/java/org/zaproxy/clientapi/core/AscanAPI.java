@@ -36,6 +36,16 @@ public class AscanAPI {
         return new ApiResponseElement("status", "100");
     }
     
+    /**
+     * Gets the ID, progress and state of all active scans.
+     * 
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse scans() throws ClientApiException {
+        return new ApiResponseList("scans");
+    }
+    
     /**
      * Stops an active scan.
      * 
@@ -89,6 +99,17 @@ public class AscanAPI {
         return new ApiResponseElement("scanId", "1");
     }
     
+    /**
+     * Gets the IDs of the alerts raised by an active scan.
+     * 
+     * @param scanId The scan ID
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse alertsIds(String scanId) throws ClientApiException {
+        return new ApiResponseElement("alertsIds", "");
+    }
+    
     /**
      * Sets the enabled state of a scanner.
      * 
@@ -125,6 +146,32 @@ public class AscanAPI {
         return new ApiResponseElement("result", "OK");
     }
     
+    /**
+     * Sets the attack strength of a scanner in a scan policy.
+     * 
+     * @param id The scanner ID
+     * @param attackStrength The attack strength
+     * @param scanPolicyName The scan policy name
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse setScannerAttackStrength(String id, String attackStrength, String scanPolicyName) 
+            throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
+    
+    /**
+     * Gets the progress of an active scan per host and scanner, including the time each
+     * scanner took, the requests it sent and the alerts it raised.
+     * 
+     * @param scanId The scan ID
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse scanProgress(String scanId) throws ClientApiException {
+        return new ApiResponseList("scanProgress");
+    }
+    
     /**
      * Gets the scanners.
      * 
@@ -144,4 +191,100 @@ public class AscanAPI {
     public ApiResponse policies() throws ClientApiException {
         return new ApiResponseElement("policies", "");
     }
+    
+    /**
+     * Sets the number of threads the active scanner uses per host.
+     * 
+     * @param threads The number of threads
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse setOptionThreadPerHost(int threads) throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
+    
+    /**
+     * Sets the delay the active scanner waits between requests.
+     * 
+     * @param delayInMs The delay in milliseconds
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse setOptionDelayInMs(int delayInMs) throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
+    
+    /**
+     * Adds a scan policy.
+     * 
+     * @param scanPolicyName The scan policy name
+     * @param alertThreshold The default alert threshold of the policy's scanners
+     * @param attackStrength The default attack strength of the policy's scanners
+     * @return The API response
+     * @throws ClientApiException If an error occurs, such as the policy already existing
+     */
+    public ApiResponse addScanPolicy(String scanPolicyName, String alertThreshold, String attackStrength) 
+            throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
+    
+    /**
+     * Updates the default alert threshold and attack strength of a scan policy.
+     * 
+     * @param scanPolicyName The scan policy name
+     * @param alertThreshold The default alert threshold of the policy's scanners
+     * @param attackStrength The default attack strength of the policy's scanners
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse updateScanPolicy(String scanPolicyName, String alertThreshold, String attackStrength) 
+            throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
+    
+    /**
+     * Enables all scanners of a scan policy.
+     * 
+     * @param scanPolicyName The scan policy name
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse enableAllScanners(String scanPolicyName) throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
+    
+    /**
+     * Disables all scanners of a scan policy.
+     * 
+     * @param scanPolicyName The scan policy name
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse disableAllScanners(String scanPolicyName) throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
+    
+    /**
+     * Enables scanners of a scan policy.
+     * 
+     * @param ids The comma-separated scanner IDs
+     * @param scanPolicyName The scan policy name
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse enableScanners(String ids, String scanPolicyName) throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
+    
+    /**
+     * Disables scanners of a scan policy.
+     * 
+     * @param ids The comma-separated scanner IDs
+     * @param scanPolicyName The scan policy name
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse disableScanners(String ids, String scanPolicyName) throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
 }
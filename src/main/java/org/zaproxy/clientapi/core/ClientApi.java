@@ -16,6 +16,7 @@ public class ClientApi {
     public final Script script;
     public final UsersAPI users;
     public final Reports reports;
+    public final StatsAPI stats;
     
     /**
      * Creates a new ZAP client API with the specified parameters.
@@ -35,6 +36,7 @@ public class ClientApi {
         this.script = new Script();
         this.users = new UsersAPI();
         this.reports = new Reports();
+        this.stats = new StatsAPI();
     }
     
     /**
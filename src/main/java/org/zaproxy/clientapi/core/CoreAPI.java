@@ -40,6 +40,19 @@ public class CoreAPI {
         return new ApiResponseElement("alert", "");
     }
     
+    /**
+     * Gets the HTTP messages ZAP recorded for a site, with their request and response headers.
+     * 
+     * @param baseUrl The base URL
+     * @param start The start index
+     * @param count The count
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse messages(String baseUrl, String start, String count) throws ClientApiException {
+        return new ApiResponseList("messages");
+    }
+    
     /**
      * Gets the sites.
      * 
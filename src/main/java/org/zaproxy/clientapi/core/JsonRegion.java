@@ -0,0 +1,77 @@
+package org.zaproxy.clientapi.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Region of a JSON response buffer holding one value, parsed only when the value is read.
+ */
+final class JsonRegion {
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private final byte[] buffer;
+    private final int offset;
+    private final int length;
+    
+    /**
+     * Creates a new region.
+     * 
+     * @param buffer The response buffer
+     * @param offset The offset of the value in the buffer
+     * @param length The length of the value in bytes
+     */
+    JsonRegion(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+    
+    /**
+     * Creates a parser positioned before the value of the region.
+     * 
+     * @return The parser
+     * @throws IOException If the parser cannot be created
+     */
+    JsonParser parser() throws IOException {
+        return JSON_FACTORY.createParser(buffer, offset, length);
+    }
+    
+    /**
+     * Reads the value the parser is positioned on. Scalars are read at once; objects and
+     * arrays are skipped and returned as sets and lists over their region of the buffer.
+     * 
+     * @param name The name to give the value
+     * @param parser The parser, positioned on the first token of the value
+     * @return The value
+     * @throws IOException If the value is malformed
+     */
+    ApiResponse read(String name, JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                return new ApiResponseSet(name, skip(parser));
+            case START_ARRAY:
+                return new ApiResponseList(name, skip(parser));
+            case VALUE_NULL:
+                return new ApiResponseElement(name, null);
+            default:
+                return new ApiResponseElement(name, parser.getValueAsString());
+        }
+    }
+    
+    private JsonRegion skip(JsonParser parser) throws IOException {
+        // Offsets reported by the parser are relative to the start of this region
+        int start = (int) parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        int end = (int) parser.getCurrentLocation().getByteOffset();
+        return new JsonRegion(buffer, offset + start, end - start);
+    }
+    
+    @Override
+    public String toString() {
+        return new String(buffer, offset, length, StandardCharsets.UTF_8);
+    }
+}
@@ -1,11 +1,16 @@
 package org.zaproxy.clientapi.core;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Stub implementation of the ZAP Script API.
  * This is a placeholder that enables compilation without the actual ZAP API.
  */
 public class Script {
     
+    private final Map<String, String> globalVars = new ConcurrentHashMap<>();
+    
     /**
      * Runs a script.
      * 
@@ -60,4 +65,28 @@ public class Script {
     public ApiResponse remove(String scriptName) throws ClientApiException {
         return new ApiResponseElement("result", "Script removed successfully");
     }
+    
+    /**
+     * Gets the value of a global variable, kept by ZAP until it is restarted.
+     * 
+     * @param varKey The key of the variable
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse globalVar(String varKey) throws ClientApiException {
+        return new ApiResponseElement("globalVar", globalVars.get(varKey));
+    }
+    
+    /**
+     * Sets the value of a global variable.
+     * 
+     * @param varKey The key of the variable
+     * @param varValue The value of the variable
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse setGlobalVar(String varKey, String varValue) throws ClientApiException {
+        globalVars.put(varKey, varValue);
+        return new ApiResponseElement("Result", "OK");
+    }
 }
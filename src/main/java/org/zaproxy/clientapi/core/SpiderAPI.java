@@ -46,6 +46,16 @@ public class SpiderAPI {
         return new ApiResponseElement("status", "100");
     }
     
+    /**
+     * Gets the ID, progress and state of all spider scans.
+     * 
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse scans() throws ClientApiException {
+        return new ApiResponseList("scans");
+    }
+    
     /**
      * Stops a spider scan.
      * 
@@ -65,6 +75,6 @@ public class SpiderAPI {
      * @throws ClientApiException If an error occurs
      */
     public ApiResponse results(String scanId) throws ClientApiException {
-        return new ApiResponseElement("results", "");
+        return new ApiResponseList("results");
     }
 }
@@ -0,0 +1,22 @@
+package org.zaproxy.clientapi.core;
+
+import java.util.Map;
+
+/**
+ * Stub implementation of the ZAP Stats API.
+ * This is a placeholder that enables compilation without the actual ZAP API.
+ */
+public class StatsAPI {
+    
+    /**
+     * Gets the statistics of a site, such as response code counts and the response time histogram.
+     * 
+     * @param site The site, as scheme://host:port
+     * @param keyPrefix The prefix of the statistic keys to return
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse siteStats(String site, String keyPrefix) throws ClientApiException {
+        return new ApiResponseSet("siteStats", Map.of());
+    }
+}
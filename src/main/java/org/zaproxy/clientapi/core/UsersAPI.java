@@ -96,4 +96,16 @@ public class UsersAPI {
             throws ClientApiException {
         return new ApiResponseElement("result", "OK");
     }
+    
+    /**
+     * Removes a user from a context.
+     * 
+     * @param contextId The context ID as a string
+     * @param userId The user ID as a string
+     * @return The API response
+     * @throws ClientApiException If an error occurs
+     */
+    public ApiResponse removeUser(String contextId, String userId) throws ClientApiException {
+        return new ApiResponseElement("result", "OK");
+    }
 }
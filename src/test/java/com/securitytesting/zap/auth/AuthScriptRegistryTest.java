@@ -0,0 +1,130 @@
+package com.securitytesting.zap.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.Script;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AuthScriptRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AuthScriptRegistry registry;
+    private ClientApi zapClient;
+    private Script script;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        registry = new AuthScriptRegistry(tempDir);
+        zapClient = new ClientApi("localhost", 8080);
+        script = mock(Script.class);
+
+        Field field = ClientApi.class.getField("script");
+        field.setAccessible(true);
+        field.set(zapClient, script);
+    }
+
+    @Test
+    public void testScriptNameIsContentAddressed() {
+        String name = AuthScriptRegistry.scriptName("api-key-auth", "content");
+
+        assertEquals(name, AuthScriptRegistry.scriptName("api-key-auth", "content"));
+        assertNotEquals(name, AuthScriptRegistry.scriptName("api-key-auth", "other content"));
+        assertTrue(name.startsWith("api-key-auth-"));
+    }
+
+    @Test
+    public void testScriptLoadedOncePerInstance() throws Exception {
+        String name = AuthScriptRegistry.scriptName("api-key-auth", "content");
+        Path first = registry.acquire(zapClient, "api-key-auth", "API Key", "content");
+        Path second = registry.acquire(zapClient, "api-key-auth", "API Key", "content");
+
+        assertEquals(first, second);
+        assertEquals(tempDir.resolve(name + ".js"), first);
+        assertEquals(2, registry.getReferenceCount(zapClient, name));
+        verify(script, times(1)).load(eq(name), eq("authentication"), eq("ECMAScript"), anyString(),
+                eq("API Key"), isNull());
+        assertTrue(Files.exists(first));
+    }
+
+    @Test
+    public void testScriptRemovedWhenLastReferenceReleased() throws Exception {
+        String name = AuthScriptRegistry.scriptName("oauth2-auth", "content");
+        registry.acquire(zapClient, "oauth2-auth", "OAuth2", "content");
+        registry.acquire(zapClient, "oauth2-auth", "OAuth2", "content");
+
+        registry.release(zapClient, name);
+        verify(script, never()).remove(anyString());
+
+        registry.release(zapClient, name);
+        verify(script, times(1)).remove(name);
+        assertEquals(0, registry.getReferenceCount(zapClient, name));
+
+        // Releasing an unknown script is a no-op
+        registry.release(zapClient, name);
+        verify(script, times(1)).remove(name);
+    }
+
+    @Test
+    public void testPlantedScriptFileIsOverwritten() throws Exception {
+        String name = AuthScriptRegistry.scriptName("api-key-auth", "content");
+        Files.writeString(tempDir.resolve(name + ".js"), "planted");
+
+        registry.acquire(zapClient, "api-key-auth", "API Key", "content");
+
+        assertEquals("content", Files.readString(tempDir.resolve(name + ".js")));
+    }
+
+    @Test
+    public void testScriptFileWrittenByRegistryIsNotRewritten() throws Exception {
+        Path file = registry.acquire(zapClient, "api-key-auth", "API Key", "content");
+        FileTime written = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(file, written);
+
+        assertEquals(file, registry.acquire(zapClient, "api-key-auth", "API Key", "content"));
+        assertEquals(written, Files.getLastModifiedTime(file));
+    }
+
+    @Test
+    public void testScriptFileDeletedWhenLastReferenceReleased() throws Exception {
+        ClientApi otherClient = new ClientApi("localhost", 8081);
+        Field field = ClientApi.class.getField("script");
+        field.setAccessible(true);
+        field.set(otherClient, mock(Script.class));
+
+        String name = AuthScriptRegistry.scriptName("oauth2-auth", "content");
+        Path file = registry.acquire(zapClient, "oauth2-auth", "OAuth2", "content");
+        registry.acquire(otherClient, "oauth2-auth", "OAuth2", "content");
+
+        registry.release(zapClient, name);
+        assertTrue(Files.exists(file));
+
+        registry.release(otherClient, name);
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testDefaultDirectoryIsPrivate() throws Exception {
+        AuthScriptRegistry privateRegistry = new AuthScriptRegistry();
+        Path file = privateRegistry.getScriptFile("api-key-auth-test", "content");
+
+        assertNotEquals(Path.of(System.getProperty("java.io.tmpdir"), "zap-auth-scripts"), file.getParent());
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParent())));
+        }
+        Files.delete(file);
+        Files.delete(file.getParent());
+    }
+}
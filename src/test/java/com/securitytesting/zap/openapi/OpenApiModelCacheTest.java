@@ -0,0 +1,162 @@
+package com.securitytesting.zap.openapi;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenApiModelCacheTest {
+
+    private static final String PETSTORE = "{\"openapi\":\"3.0.1\",\"info\":{\"title\":\"Petstore\",\"version\":\"1\"},"
+            + "\"servers\":[{\"url\":\"https://petstore.example.com/v1\"}],"
+            + "\"paths\":{\"/pets/{id}\":{\"get\":{\"operationId\":\"getPet\",\"parameters\":[{\"name\":\"id\","
+            + "\"in\":\"path\",\"required\":true,\"schema\":{\"type\":\"integer\"}}],"
+            + "\"responses\":{\"200\":{\"description\":\"OK\"}}}}}}";
+
+    private static final String SWAGGER_2 = "swagger: '2.0'\n"
+            + "info: {title: Legacy, version: '1'}\n"
+            + "host: legacy.example.com\n"
+            + "schemes: [https]\n"
+            + "paths:\n"
+            + "  /orders:\n"
+            + "    get:\n"
+            + "      responses: {'200': {description: OK}}\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testModelCachedByContent() throws Exception {
+        OpenApiModelCache cache = new OpenApiModelCache(4, null);
+
+        OpenAPI first = cache.getModel(PETSTORE, null);
+        OpenAPI second = cache.getModel(PETSTORE, null);
+
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+        assertTrue(first.getPaths().containsKey("/pets/{id}"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedModelEvicted() throws Exception {
+        OpenApiModelCache cache = new OpenApiModelCache(1, null);
+
+        OpenAPI petstore = cache.getModel(PETSTORE, null);
+        cache.getModel(SWAGGER_2, null);
+
+        assertEquals(1, cache.size());
+        assertNotSame(petstore, cache.getModel(PETSTORE, null));
+    }
+
+    @Test
+    public void testModelReadFromDiskCache() throws Exception {
+        new OpenApiModelCache(4, tempDir).getModel(PETSTORE, null);
+
+        Path cachedModel = tempDir.resolve(OpenApiModelCache.contentHash(PETSTORE) + ".json");
+        assertTrue(Files.exists(cachedModel));
+
+        OpenAPI model = new OpenApiModelCache(4, tempDir).getModel(PETSTORE, null);
+        assertEquals("https://petstore.example.com/v1", model.getServers().get(0).getUrl());
+        assertEquals("getPet", model.getPaths().get("/pets/{id}").getGet().getOperationId());
+    }
+
+    @Test
+    public void testSwagger2ConvertedAndFileParsed() throws Exception {
+        Path specFile = tempDir.resolve("legacy.yaml");
+        Files.write(specFile, SWAGGER_2.getBytes());
+
+        OpenAPI model = new OpenApiModelCache(4, null).getModel(specFile);
+
+        assertEquals("https://legacy.example.com/", model.getServers().get(0).getUrl());
+        assertNotNull(model.getPaths().get("/orders").getGet());
+    }
+
+    @Test
+    public void testInvalidSpecification() {
+        OpenApiModelCache cache = new OpenApiModelCache(4, null);
+
+        assertThrows(ZapScannerException.class, () -> cache.getModel("not: [an, api", null));
+    }
+
+    @Test
+    public void testStreamChannelAndFileShareStringCacheKey() throws Exception {
+        OpenApiModelCache cache = new OpenApiModelCache(4, null);
+        OpenAPI fromString = cache.getModel(PETSTORE, null);
+
+        Path specFile = tempDir.resolve("petstore.json");
+        Files.write(specFile, PETSTORE.getBytes(StandardCharsets.UTF_8));
+        byte[] content = PETSTORE.getBytes(StandardCharsets.UTF_8);
+
+        assertSame(fromString, cache.getModel(specFile));
+        try (InputStream in = new ByteArrayInputStream(content)) {
+            assertSame(fromString, cache.getModel(in, null));
+        }
+        assertSame(fromString, cache.getModel(Channels.newChannel(new ByteArrayInputStream(content)), null));
+        try (FileChannel channel = FileChannel.open(specFile)) {
+            assertSame(fromString, cache.getModel(channel, null));
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLargeYamlFileParsedWithExternalReferences() throws Exception {
+        Files.write(tempDir.resolve("schemas.yaml"), ("Item:\n"
+                + "  type: object\n"
+                + "  properties: {name: {type: string}}\n").getBytes(StandardCharsets.UTF_8));
+
+        // Larger than the YAML parser's default document size limit
+        StringBuilder spec = new StringBuilder("openapi: 3.0.1\n"
+                + "info: {title: Generated, version: '1'}\n"
+                + "servers: [{url: 'https://generated.example.com'}]\n"
+                + "paths:\n");
+        int operations = 0;
+        while (spec.length() < 4 * 1024 * 1024) {
+            spec.append("  /items").append(operations).append(":\n")
+                    .append("    get:\n")
+                    .append("      operationId: getItems").append(operations).append('\n')
+                    .append("      description: '").append("x".repeat(200)).append("'\n")
+                    .append("      responses:\n")
+                    .append("        '200':\n")
+                    .append("          description: OK\n")
+                    .append("          content: {application/json: {schema: {$ref: './schemas.yaml#/Item'}}}\n");
+            operations++;
+        }
+        Path specFile = tempDir.resolve("generated.yaml");
+        Files.write(specFile, spec.toString().getBytes(StandardCharsets.UTF_8));
+
+        OpenAPI model = new OpenApiModelCache(4, null).getModel(specFile);
+
+        assertEquals(operations, model.getPaths().size());
+        assertEquals("#/components/schemas/Item", model.getPaths().get("/items0").getGet().getResponses()
+                .get("200").getContent().get("application/json").getSchema().get$ref());
+        assertNotNull(model.getComponents().getSchemas().get("Item"));
+    }
+
+    @Test
+    public void testSwagger2StreamConverted() throws Exception {
+        try (InputStream in = new ByteArrayInputStream(SWAGGER_2.getBytes(StandardCharsets.UTF_8))) {
+            OpenAPI model = new OpenApiModelCache(4, null).getModel(in, null);
+
+            assertEquals("https://legacy.example.com/", model.getServers().get(0).getUrl());
+            assertNotNull(model.getPaths().get("/orders").getGet());
+        }
+    }
+
+    @Test
+    public void testInvalidSpecificationStream() {
+        OpenApiModelCache cache = new OpenApiModelCache(4, null);
+
+        assertThrows(ZapScannerException.class, () -> cache.getModel(
+                new ByteArrayInputStream("not: [an, api".getBytes(StandardCharsets.UTF_8)), null));
+    }
+}
@@ -0,0 +1,140 @@
+package com.securitytesting.zap.openapi;
+
+import com.sun.net.httpserver.HttpServer;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenApiRequestSeederTest {
+
+    private static final String SPEC = "openapi: 3.0.1\n"
+            + "info: {title: Shop, version: '1'}\n"
+            + "paths:\n"
+            + "  /categories/{categoryId}:\n"
+            + "    parameters:\n"
+            + "      - {name: categoryId, in: path, required: true, schema: {type: integer, minimum: 7}}\n"
+            + "    get:\n"
+            + "      operationId: getCategory\n"
+            + "      parameters:\n"
+            + "        - {name: expand, in: query, schema: {type: array, items: {type: string, enum: [children, parent]}}}\n"
+            + "        - {name: X-Tenant, in: header, schema: {type: string, format: uuid}}\n"
+            + "        - $ref: '#/components/parameters/Session'\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "    put:\n"
+            + "      operationId: updateCategory\n"
+            + "      requestBody:\n"
+            + "        content:\n"
+            + "          application/json:\n"
+            + "            schema: {$ref: '#/components/schemas/Category'}\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "components:\n"
+            + "  parameters:\n"
+            + "    Session: {name: session, in: cookie, schema: {type: string, example: abc}}\n"
+            + "  schemas:\n"
+            + "    Category:\n"
+            + "      type: object\n"
+            + "      properties:\n"
+            + "        name: {type: string}\n"
+            + "        parent: {$ref: '#/components/schemas/Category'}\n"
+            + "        children: {type: array, items: {$ref: '#/components/schemas/Category'}}\n";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxObservedInFlight = new AtomicInteger();
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            int current = inFlight.incrementAndGet();
+            maxObservedInFlight.accumulateAndGet(current, Math::max);
+            received.add(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testRequestGeneratedForEachOperation() throws Exception {
+        OpenAPI model = new OpenApiModelCache(1, null).getModel(SPEC, null);
+
+        Map<String, SampleRequest> requests = new OpenApiRequestGenerator(model).generateRequests(baseUrl + "/api/")
+                .stream()
+                .collect(Collectors.toMap(SampleRequest::getOperationId, Function.identity()));
+
+        SampleRequest get = requests.get("getCategory");
+        assertEquals("GET", get.getMethod());
+        assertEquals(baseUrl + "/api/categories/7?expand=children", get.getUrl());
+        assertEquals("3fa85f64-5717-4562-b3fc-2c963f66afa6", get.getHeaders().get("X-Tenant"));
+        assertEquals("session=abc", get.getHeaders().get("Cookie"));
+        assertNull(get.getBody());
+
+        // The recursive Category schema is cut off instead of expanding forever
+        SampleRequest put = requests.get("updateCategory");
+        assertEquals("application/json", put.getHeaders().get("Content-Type"));
+        assertEquals("{\"name\":\"string\",\"children\":[]}", put.getBody());
+    }
+
+    @Test
+    public void testSeedingBoundsRequestsInFlight() throws Exception {
+        List<SampleRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            requests.add(new SampleRequest("op" + i, "POST", baseUrl + "/items/" + i,
+                    Map.of("Content-Type", "application/json", "Host", "ignored"), "{}"));
+        }
+
+        OpenApiRequestSeeder seeder = new OpenApiRequestSeeder(HttpClient.newHttpClient(), 4);
+        int seeded = seeder.seed(requests);
+
+        assertEquals(40, seeded);
+        assertEquals(40, received.size());
+        assertTrue(maxObservedInFlight.get() <= 4);
+        assertTrue(maxObservedInFlight.get() > 1);
+    }
+
+    @Test
+    public void testFailedRequestsAreNotCounted() throws Exception {
+        List<SampleRequest> requests = List.of(
+                new SampleRequest("ok", "GET", baseUrl + "/ok", Map.of(), null),
+                new SampleRequest("refused", "GET", "http://localhost:1/unreachable", Map.of(), null));
+
+        int seeded = new OpenApiRequestSeeder(HttpClient.newHttpClient(), 2).seed(requests);
+
+        assertEquals(1, seeded);
+    }
+}
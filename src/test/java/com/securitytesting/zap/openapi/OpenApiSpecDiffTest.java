@@ -0,0 +1,160 @@
+package com.securitytesting.zap.openapi;
+
+import com.securitytesting.zap.report.Alert;
+import com.securitytesting.zap.report.Severity;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenApiSpecDiffTest {
+
+    private static final String V1 = "openapi: 3.0.1\n"
+            + "info: {title: Shop, version: '1'}\n"
+            + "paths:\n"
+            + "  /catalog/items:\n"
+            + "    get:\n"
+            + "      operationId: listItems\n"
+            + "      description: Lists items\n"
+            + "      parameters: [{name: page, in: query, schema: {type: integer}}]\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "  /orders/{orderId}:\n"
+            + "    put:\n"
+            + "      operationId: updateOrder\n"
+            + "      parameters: [{name: orderId, in: path, required: true, schema: {type: integer}}]\n"
+            + "      requestBody: {content: {application/json: {schema: {$ref: '#/components/schemas/Order'}}}}\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "  /users/{userId}:\n"
+            + "    get:\n"
+            + "      operationId: getUser\n"
+            + "      parameters: [{name: userId, in: path, required: true, schema: {type: integer}}]\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "  /legacy:\n"
+            + "    get: {responses: {'200': {description: OK}}}\n"
+            + "components:\n"
+            + "  schemas:\n"
+            + "    Order:\n"
+            + "      type: object\n"
+            + "      properties:\n"
+            + "        lines: {type: array, items: {$ref: '#/components/schemas/Line'}}\n"
+            + "    Line:\n"
+            + "      type: object\n"
+            + "      properties: {sku: {type: string}}\n";
+
+    // Documentation edits, a changed nested schema, a moved operation, an added and a removed one
+    private static final String V2 = "openapi: 3.0.1\n"
+            + "info: {title: Shop, version: '2'}\n"
+            + "paths:\n"
+            + "  /catalog/items:\n"
+            + "    get:\n"
+            + "      operationId: listItems\n"
+            + "      description: Lists the items of the catalog\n"
+            + "      parameters: [{name: page, in: query, description: Page number, schema: {type: integer}}]\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "  /orders/{orderId}:\n"
+            + "    put:\n"
+            + "      operationId: updateOrder\n"
+            + "      parameters: [{name: orderId, in: path, required: true, schema: {type: integer}}]\n"
+            + "      requestBody: {content: {application/json: {schema: {$ref: '#/components/schemas/Order'}}}}\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "  /accounts/{userId}:\n"
+            + "    get:\n"
+            + "      operationId: getUser\n"
+            + "      parameters: [{name: userId, in: path, required: true, schema: {type: integer}}]\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "  /reviews:\n"
+            + "    post: {operationId: addReview, responses: {'201': {description: Created}}}\n"
+            + "components:\n"
+            + "  schemas:\n"
+            + "    Order:\n"
+            + "      type: object\n"
+            + "      properties:\n"
+            + "        lines: {type: array, items: {$ref: '#/components/schemas/Line'}}\n"
+            + "    Line:\n"
+            + "      type: object\n"
+            + "      properties: {sku: {type: string}, quantity: {type: integer}}\n";
+
+    @Test
+    public void testOperationsClassified() throws Exception {
+        OpenApiModelCache cache = new OpenApiModelCache(4, null);
+        OpenApiSpecDiff diff = OpenApiSpecDiff.compare(cache.getModel(V1, null), cache.getModel(V2, null));
+
+        assertEquals(List.of("GET /catalog/items"), endpoints(diff.getUnchanged()));
+        assertEquals(List.of("PUT /orders/{orderId}", "GET /accounts/{userId}"), endpoints(diff.getChanged()));
+        assertEquals(List.of("POST /reviews"), endpoints(diff.getAdded()));
+        assertEquals(List.of("GET /legacy"), endpoints(diff.getRemoved()));
+        assertTrue(diff.hasChanges());
+        assertEquals(Set.of("PUT /orders/{orderId}", "GET /accounts/{userId}", "POST /reviews"),
+                diff.getEndpointsToScan());
+    }
+
+    @Test
+    public void testIdenticalSpecificationsHaveNoChanges() throws Exception {
+        OpenAPI v1 = new OpenApiModelCache(4, null).getModel(V1, null);
+        OpenAPI v1Again = new OpenApiModelCache(4, null).getModel(V1, null);
+
+        OpenApiSpecDiff diff = OpenApiSpecDiff.compare(v1, v1Again);
+
+        assertFalse(diff.hasChanges());
+        assertEquals(4, diff.getUnchanged().size());
+    }
+
+    @Test
+    public void testWithoutPreviousVersionEverythingIsAdded() throws Exception {
+        OpenApiSpecDiff diff = OpenApiSpecDiff.compare(null, new OpenApiModelCache(4, null).getModel(V2, null));
+
+        assertEquals(4, diff.getAdded().size());
+        assertTrue(diff.getUnchanged().isEmpty());
+    }
+
+    @Test
+    public void testAlertsCarriedOverForUnchangedOperationsOnly() throws Exception {
+        OpenApiModelCache cache = new OpenApiModelCache(4, null);
+        OpenApiSpecDiff diff = OpenApiSpecDiff.compare(cache.getModel(V1, null), cache.getModel(V2, null));
+
+        List<Alert> previousAlerts = List.of(
+                alert("SQL Injection", "https://shop.example.com/api/catalog/items?page=1"),
+                alert("IDOR", "https://shop.example.com/api/orders/1"),
+                alert("Stale", "https://shop.example.com/api/legacy"),
+                alert("Other host path", "https://shop.example.com/other/catalog/items"));
+
+        List<Alert> carriedOver = diff.carryOverAlerts(previousAlerts, "https://shop.example.com/api/");
+
+        assertEquals(List.of("SQL Injection"), carriedOver.stream().map(Alert::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testShardingLimitedToChangedEndpoints() throws Exception {
+        OpenApiModelCache cache = new OpenApiModelCache(4, null);
+        OpenAPI v2 = cache.getModel(V2, null);
+        OpenApiSpecDiff diff = OpenApiSpecDiff.compare(cache.getModel(V1, null), v2);
+
+        List<OperationShard> shards = new OperationSharder(OperationSharder.Strategy.PATH_PREFIX)
+                .shard(v2, "https://shop.example.com/api", diff.getEndpointsToScan());
+
+        int targets = 0;
+        for (OperationShard shard : shards) {
+            for (OperationShard.ScanTarget target : shard.getTargets()) {
+                assertFalse(target.isRecurse());
+                assertFalse(target.getUrl().contains("/catalog/"));
+                targets++;
+            }
+        }
+        assertEquals(3, targets);
+
+        assertEquals(3, new OpenApiRequestGenerator(v2)
+                .generateRequests("https://shop.example.com/api", diff.getEndpointsToScan()).size());
+    }
+
+    private static List<String> endpoints(List<OperationFingerprint> operations) {
+        return operations.stream().map(OperationFingerprint::getEndpoint).collect(Collectors.toList());
+    }
+
+    private static Alert alert(String name, String url) {
+        return new Alert.Builder(name).severity(Severity.HIGH).url(url).build();
+    }
+}
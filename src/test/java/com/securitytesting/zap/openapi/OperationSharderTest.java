@@ -0,0 +1,77 @@
+package com.securitytesting.zap.openapi;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperationSharderTest {
+
+    private static final String SPEC = "openapi: 3.0.1\n"
+            + "info: {title: Shop, version: '1'}\n"
+            + "paths:\n"
+            + "  /health:\n"
+            + "    get: {tags: [ops], responses: {'200': {description: OK}}}\n"
+            + "  /catalog/items:\n"
+            + "    get: {tags: [catalog], responses: {'200': {description: OK}}}\n"
+            + "  /orders/{orderId}:\n"
+            + "    get:\n"
+            + "      tags: [orders]\n"
+            + "      parameters: [{name: orderId, in: path, required: true, schema: {type: integer}}]\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "    put:\n"
+            + "      tags: [orders]\n"
+            + "      parameters: [{name: orderId, in: path, required: true, schema: {type: integer}}]\n"
+            + "      requestBody: {content: {application/json: {schema: {type: object}}}}\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "  /:\n"
+            + "    get: {responses: {'200': {description: OK}}}\n";
+
+    private OpenAPI model;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        model = new OpenApiModelCache(1, null).getModel(SPEC, null);
+    }
+
+    @Test
+    public void testPathPrefixShardsOrderedByRisk() {
+        List<OperationShard> shards = new OperationSharder(OperationSharder.Strategy.PATH_PREFIX)
+                .shard(model, "https://shop.example.com/api/");
+
+        assertEquals(4, shards.size());
+
+        // PUT with a body and an ID path parameter scores 1 + 3 + 3 + 2
+        OperationShard orders = shards.get(0);
+        assertEquals("/orders", orders.getName());
+        assertEquals(9, orders.getMaxRisk());
+        assertEquals(2, orders.getOperationCount());
+        assertEquals(1, orders.getTargets().size());
+        assertEquals("https://shop.example.com/api/orders", orders.getTargets().get(0).getUrl());
+        assertTrue(orders.getTargets().get(0).isRecurse());
+
+        // The root path is scanned without recursing over the whole API
+        OperationShard root = shards.stream().filter(shard -> shard.getName().equals("/")).findFirst().get();
+        assertFalse(root.getTargets().get(0).isRecurse());
+        assertEquals("GET", root.getTargets().get(0).getMethod());
+    }
+
+    @Test
+    public void testTagShardsScanOperationsHighestRiskFirst() {
+        List<OperationShard> shards = new OperationSharder(OperationSharder.Strategy.TAG)
+                .shard(model, "https://shop.example.com/api");
+
+        OperationShard orders = shards.get(0);
+        assertEquals("orders", orders.getName());
+        assertEquals(2, orders.getTargets().size());
+        assertEquals("PUT", orders.getTargets().get(0).getMethod());
+        assertEquals("https://shop.example.com/api/orders/1", orders.getTargets().get(0).getUrl());
+        assertEquals("{}", orders.getTargets().get(0).getBody());
+        assertEquals("GET", orders.getTargets().get(1).getMethod());
+
+        assertTrue(shards.stream().anyMatch(shard -> shard.getName().equals("untagged")));
+    }
+}
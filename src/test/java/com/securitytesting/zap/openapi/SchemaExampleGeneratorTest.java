@@ -0,0 +1,74 @@
+package com.securitytesting.zap.openapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaExampleGeneratorTest {
+
+    private static Schema<?> ref(String name) {
+        return new Schema<>().$ref("#/components/schemas/" + name);
+    }
+
+    @Test
+    public void testExampleCutByEnclosingRecursionIsNotReused() {
+        // Customer -> Order -> Customer
+        OpenAPI model = new OpenAPI().components(new Components()
+                .addSchemas("Customer", new ObjectSchema()
+                        .addProperties("name", new StringSchema())
+                        .addProperties("orders", new ArraySchema().items(ref("Order"))))
+                .addSchemas("Order", new ObjectSchema()
+                        .addProperties("id", new StringSchema())
+                        .addProperties("customer", ref("Customer"))));
+        SchemaExampleGenerator generator = new SchemaExampleGenerator(model);
+
+        JsonNode customer = generator.generate(ref("Customer"));
+        assertFalse(customer.get("orders").get(0).has("customer"));
+
+        // Used on its own, an order includes its customer
+        JsonNode order = generator.generate(ref("Order"));
+        assertEquals("string", order.get("customer").get("name").asText());
+        assertFalse(order.get("customer").get("orders").get(0).has("customer"));
+    }
+
+    @Test
+    public void testExampleCutBySelfRecursionIsReused() {
+        OpenAPI model = new OpenAPI().components(new Components()
+                .addSchemas("Category", new ObjectSchema()
+                        .addProperties("name", new StringSchema())
+                        .addProperties("parent", ref("Category"))));
+        SchemaExampleGenerator generator = new SchemaExampleGenerator(model);
+
+        JsonNode first = generator.generate(ref("Category"));
+        assertFalse(first.has("parent"));
+        assertSame(first, generator.generate(ref("Category")));
+    }
+
+    @Test
+    public void testExampleCutByDepthIsNotReused() {
+        // Level0 -> Level1 -> ... -> Level7, each a nested object
+        Components components = new Components();
+        for (int i = 0; i < 8; i++) {
+            ObjectSchema level = new ObjectSchema();
+            level.addProperties("name", new StringSchema());
+            if (i < 7) {
+                level.addProperties("next", ref("Level" + (i + 1)));
+            }
+            components.addSchemas("Level" + i, level);
+        }
+        SchemaExampleGenerator generator = new SchemaExampleGenerator(new OpenAPI().components(components));
+
+        generator.generate(ref("Level0"));
+
+        // Generated at the top, the deepest levels are no longer cut off
+        JsonNode level4 = generator.generate(ref("Level4"));
+        assertTrue(level4.get("next").get("next").get("next").has("name"));
+    }
+}
@@ -0,0 +1,182 @@
+package com.securitytesting.zap.policy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolicyAutoTunerTest {
+
+    private static final String TARGET = "https://shop.example.com/app";
+
+    private ScanHistory history;
+    private PolicyAutoTuner tuner;
+    private ScanPolicy policy;
+
+    @BeforeEach
+    public void setUp() {
+        history = new ScanHistory();
+        tuner = new PolicyAutoTuner.Builder(history)
+                .coverageFloor(0.6)
+                .fullStrengthInterval(4)
+                .minRuns(3)
+                .minRuleTimeInMs(1000)
+                .build();
+        policy = new ScanPolicy.Builder("Custom")
+                .strength(ScanPolicy.Strength.HIGH)
+                .enableRules(RuleSet.of(1, 2, 3, 4, 5))
+                .build();
+    }
+
+    @Test
+    public void testUntunedUntilEnoughHistory() {
+        record(policy, 2);
+
+        assertTrue(tuner.isFullStrengthRunDue(TARGET));
+        assertSame(policy, tuner.tune(policy, TARGET));
+    }
+
+    @Test
+    public void testExpensiveUnproductiveRulesDroppedWithinCoverageFloor() {
+        record(policy, 3);
+
+        ScanPolicy tuned = tuner.tune(policy, TARGET);
+
+        assertTrue(PolicyAutoTuner.isTuned(tuned));
+        // Rules 3, 4 and 5 never found anything; two of five rules may be dropped, the most expensive first
+        assertEquals(RuleSet.of(1, 2, 3), tuned.getEnabledRuleSet());
+        assertEquals(ScanPolicy.Strength.LOW, tuned.getRuleStrength(3));
+        // Rule 2 found something and rule 1 is too cheap to matter: both keep full strength
+        assertEquals(ScanPolicy.Strength.HIGH, tuned.getRuleStrength(1));
+        assertEquals(ScanPolicy.Strength.HIGH, tuned.getRuleStrength(2));
+    }
+
+    @Test
+    public void testTunedPoliciesAreNamedAfterTheirRules() {
+        record(policy, 3);
+        ScanPolicy tuned = tuner.tune(policy, TARGET);
+
+        // Another target tuned from the same policy runs other rules, so it gets another ZAP policy
+        tuner.record("https://admin.example.com", policy, List.of(
+                new RuleExecution(1, "Rule 1", 60_000, 5, 0),
+                new RuleExecution(2, "Rule 2", 60_000, 5, 0)));
+        ScanPolicy other = new PolicyAutoTuner.Builder(tuner.getHistory()).minRuns(1).build()
+                .tune(policy, "https://admin.example.com");
+
+        assertTrue(other.isTuned());
+        assertNotEquals(tuned.getEnabledRuleSet(), other.getEnabledRuleSet());
+        assertNotEquals(tuned.getName(), other.getName());
+        assertEquals(tuned.getName(), tuner.tune(policy, TARGET).getName());
+    }
+
+    @Test
+    public void testTunedFlagIsNotTakenFromTheName() {
+        ScanPolicy named = new ScanPolicy.Builder("Nightly (Tuned)").enableRule(1).build();
+
+        assertFalse(PolicyAutoTuner.isTuned(named));
+        assertTrue(PolicyAutoTuner.isTuned(new ScanPolicy.Builder("Nightly").tuned(true).build()));
+    }
+
+    @Test
+    public void testPeriodicFullStrengthRun() {
+        record(policy, 3);
+
+        for (int i = 0; i < 3; i++) {
+            ScanPolicy tuned = tuner.tune(policy, TARGET);
+            assertNotSame(policy, tuned);
+            record(tuned, 1);
+        }
+
+        // The fourth scan since the last untuned one runs the full policy and resets the count
+        assertSame(policy, tuner.tune(policy, TARGET));
+        record(policy, 1);
+        assertNotSame(policy, tuner.tune(policy, TARGET));
+    }
+
+    @Test
+    public void testDenyListPolicyDisablesDroppedRules() {
+        ScanPolicy allRules = new ScanPolicy.Builder("All").disableRule(9).build();
+        record(allRules, 3);
+
+        ScanPolicy tuned = tuner.tune(allRules, TARGET);
+
+        assertTrue(tuned.getEnabledRuleSet().isEmpty());
+        assertEquals(RuleSet.of(4, 5, 9), tuned.getDisabledRuleSet());
+    }
+
+    @Test
+    public void testHistorySurvivesSaveAndLoad(@TempDir Path directory) throws Exception {
+        record(policy, 3);
+        Path file = directory.resolve("history.json");
+        history.save(file);
+
+        ScanHistory loaded = ScanHistory.load(file);
+        ScanHistory.TargetHistory target = loaded.getTarget("https://SHOP.example.com:443/other");
+
+        assertEquals(3, target.getRuns());
+        assertEquals(5, target.getRules().size());
+        assertEquals(60_000, target.getRules().get(5).getMeanTimeInMs());
+        assertEquals(3, target.getRules().get(2).getAlertCount());
+        assertEquals("Rule 4", target.getRules().get(4).getName());
+        assertNull(ScanHistory.load(directory.resolve("missing.json")).getTarget(TARGET));
+    }
+
+    @Test
+    public void testRuleExecutionsReadFromScanProgress() {
+        List<ApiResponse> hostProcess = List.of(
+                plugin("Path Traversal", "6", "1500", "120", "0"),
+                plugin("SQL Injection", "40018", "9000", "800", "2"));
+        List<ApiResponse> otherHostProcess = List.of(plugin("Path Traversal", "6", "500", "30", "1"));
+        ApiResponse scanProgress = new ApiResponseList("scanProgress", List.of(
+                new ApiResponseElement("id", "https://a.example.com"),
+                new ApiResponseList("HostProcess", hostProcess),
+                new ApiResponseElement("id", "https://b.example.com"),
+                new ApiResponseList("HostProcess", otherHostProcess)));
+
+        List<RuleExecution> executions = RuleExecution.fromScanProgress(scanProgress);
+
+        assertEquals(2, executions.size());
+        assertEquals(6, executions.get(0).getRuleId());
+        assertEquals(2000, executions.get(0).getTimeInMs());
+        assertEquals(150, executions.get(0).getRequestCount());
+        assertEquals(1, executions.get(0).getAlertCount());
+        assertEquals("SQL Injection", executions.get(1).getName());
+    }
+
+    /**
+     * Records scans in which rule 2 finds something and rules 3 to 5 never do, at rising cost.
+     */
+    private void record(ScanPolicy scannedPolicy, int scans) {
+        for (int i = 0; i < scans; i++) {
+            List<RuleExecution> executions = new ArrayList<>();
+            executions.add(new RuleExecution(1, "Rule 1", 500, 10, 0));
+            executions.add(new RuleExecution(2, "Rule 2", 90_000, 500, 1));
+            executions.add(new RuleExecution(3, "Rule 3", 20_000, 200, 0));
+            executions.add(new RuleExecution(4, "Rule 4", 40_000, 300, 0));
+            executions.add(new RuleExecution(5, "Rule 5", 60_000, 400, 0));
+            executions.removeIf(execution -> scannedPolicy.isRuleDisabled(execution.getRuleId())
+                    || (!scannedPolicy.getEnabledRuleSet().isEmpty()
+                            && !scannedPolicy.isRuleEnabled(execution.getRuleId())));
+            tuner.record(TARGET, scannedPolicy, executions);
+        }
+    }
+
+    private static ApiResponse plugin(String name, String id, String timeInMs, String requests, String alerts) {
+        return new ApiResponseList("Plugin", List.of(
+                new ApiResponseElement("name", name),
+                new ApiResponseElement("id", id),
+                new ApiResponseElement("quality", "release"),
+                new ApiResponseElement("status", "Complete"),
+                new ApiResponseElement("timeInMs", timeInMs),
+                new ApiResponseElement("reqCount", requests),
+                new ApiResponseElement("alertCount", alerts)));
+    }
+}
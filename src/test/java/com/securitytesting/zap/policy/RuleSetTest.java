@@ -0,0 +1,78 @@
+package com.securitytesting.zap.policy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleSetTest {
+
+    @Test
+    public void testCreationSortsAndRemovesDuplicates() {
+        RuleSet rules = RuleSet.of(40018, 6, 90020, 6, 40012);
+
+        assertArrayEquals(new int[] {6, 40012, 40018, 90020}, rules.toArray());
+        assertEquals(RuleSet.of(List.of(90020, 40012, 6, 40018)), rules);
+        assertTrue(rules.contains(40018));
+        assertFalse(rules.contains(40019));
+        assertSame(RuleSet.EMPTY, RuleSet.of());
+    }
+
+    @Test
+    public void testSetAlgebra() {
+        RuleSet a = RuleSet.of(1, 3, 5, 7);
+        RuleSet b = RuleSet.of(3, 4, 5, 6);
+
+        assertEquals(RuleSet.of(1, 3, 4, 5, 6, 7), a.union(b));
+        assertEquals(RuleSet.of(3, 5), a.intersect(b));
+        assertEquals(RuleSet.of(1, 7), a.minus(b));
+        assertSame(RuleSet.EMPTY, a.intersect(RuleSet.of(2, 4)));
+        assertSame(a, a.union(RuleSet.of(1, 5)));
+        assertSame(a, a.minus(RuleSet.of(2)));
+    }
+
+    @Test
+    public void testSingleRuleUpdatesReturnNewSets() {
+        RuleSet rules = RuleSet.of(10, 30);
+
+        assertEquals(RuleSet.of(10, 20, 30), rules.with(20));
+        assertEquals(RuleSet.of(30), rules.without(10));
+        assertSame(rules, rules.with(10));
+        assertSame(rules, rules.without(20));
+        assertEquals(RuleSet.of(10, 30), rules);
+        assertEquals("10,30", rules.toIdList());
+    }
+
+    @Test
+    public void testPoliciesComposeFromPresets() {
+        RuleSet slowRules = RuleSet.of(90020, 90023);
+        RuleSet composed = PolicyManager.OWASP_TOP_10_RULES.minus(slowRules).union(PolicyManager.API_SECURITY_RULES);
+
+        assertTrue(composed.contains(40012));
+        assertTrue(composed.contains(40008));
+        assertTrue(composed.contains(90020));
+
+        ScanPolicy policy = new ScanPolicy.Builder("Composed").enableRules(composed).build();
+        assertSame(composed, policy.getEnabledRuleSet());
+    }
+
+    @Test
+    public void testPresetPoliciesShareInternedRuleSets() {
+        PolicyManager policyManager = new PolicyManager();
+
+        ScanPolicy first = policyManager.createHighSecurityPolicy();
+        ScanPolicy second = policyManager.createHighSecurityPolicy();
+        assertSame(PolicyManager.HIGH_SECURITY_RULES, first.getEnabledRuleSet());
+        assertSame(first.getEnabledRuleSet(), second.getEnabledRuleSet());
+
+        // Changing one policy does not affect the shared preset
+        first.disableRule(40018);
+        assertFalse(first.isRuleEnabled(40018));
+        assertTrue(first.isRuleDisabled(40018));
+        assertTrue(second.isRuleEnabled(40018));
+        assertTrue(PolicyManager.HIGH_SECURITY_RULES.contains(40018));
+        assertEquals(Set.of(40018), first.getDisabledRules());
+    }
+}
@@ -0,0 +1,94 @@
+package com.securitytesting.zap.policy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ClientApi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanPolicyApplierTest {
+
+    private ScanPolicyApplier applier;
+    private ClientApi zapClient;
+    private PolicyManager policyManager;
+
+    @BeforeEach
+    public void setUp() {
+        applier = new ScanPolicyApplier();
+        zapClient = new ClientApi("localhost", 8080);
+        policyManager = new PolicyManager();
+    }
+
+    @Test
+    public void testFirstApplyPushesPolicyInBatches() throws Exception {
+        // Add the policy, reset its scanners, enable the listed ones in one call
+        assertEquals(3, applier.apply(zapClient, policyManager.createHighSecurityPolicy()));
+    }
+
+    @Test
+    public void testReapplyingUnchangedPolicyCostsNoCalls() throws Exception {
+        applier.apply(zapClient, policyManager.createHighSecurityPolicy());
+
+        assertEquals(0, applier.apply(zapClient, policyManager.createHighSecurityPolicy()));
+    }
+
+    @Test
+    public void testSwitchingBetweenPresetsCostsNoCallsOnceApplied() throws Exception {
+        applier.apply(zapClient, policyManager.createHighSecurityPolicy());
+        applier.apply(zapClient, policyManager.createMediumSecurityPolicy());
+        applier.apply(zapClient, policyManager.createLowSecurityPolicy());
+
+        assertEquals(0, applier.apply(zapClient, policyManager.createHighSecurityPolicy()));
+        assertEquals(0, applier.apply(zapClient, policyManager.createMediumSecurityPolicy()));
+        assertEquals(0, applier.apply(zapClient, policyManager.createLowSecurityPolicy()));
+    }
+
+    @Test
+    public void testOnlyDifferencesArePushed() throws Exception {
+        ScanPolicy policy = new ScanPolicy.Builder("Custom")
+                .strength(ScanPolicy.Strength.MEDIUM)
+                .threshold(ScanPolicy.Threshold.MEDIUM)
+                .disableRule(40018)
+                .build();
+        assertEquals(3, applier.apply(zapClient, policy));
+
+        // Two more rules disabled: a single batched call
+        policy.disableRule(40012);
+        policy.disableRule(90020);
+        assertEquals(1, applier.apply(zapClient, policy));
+
+        // One rule re-enabled and another disabled: one call per direction
+        policy.resetRules();
+        policy.disableRule(40012);
+        policy.disableRule(90020);
+        policy.disableRule(6);
+        assertEquals(2, applier.apply(zapClient, policy));
+
+        // Threshold and strength share one call
+        policy.setStrength(ScanPolicy.Strength.HIGH);
+        policy.setThreshold(ScanPolicy.Threshold.LOW);
+        assertEquals(1, applier.apply(zapClient, policy));
+    }
+
+    @Test
+    public void testSwitchingToAllowListResetsScanners() throws Exception {
+        ScanPolicy policy = new ScanPolicy.Builder("Custom").disableRule(40018).build();
+        applier.apply(zapClient, policy);
+
+        policy.enableRule(40012);
+
+        // Disable all scanners, then enable the allowed one
+        assertEquals(2, applier.apply(zapClient, policy));
+    }
+
+    @Test
+    public void testStateIsKeptPerZapInstance() throws Exception {
+        ClientApi otherZapClient = new ClientApi("localhost", 8090);
+        applier.apply(zapClient, policyManager.createHighSecurityPolicy());
+
+        assertEquals(3, applier.apply(otherZapClient, policyManager.createHighSecurityPolicy()));
+
+        applier.invalidate(zapClient);
+        assertEquals(3, applier.apply(zapClient, policyManager.createHighSecurityPolicy()));
+    }
+}
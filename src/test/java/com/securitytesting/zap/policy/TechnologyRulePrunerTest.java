@@ -0,0 +1,132 @@
+package com.securitytesting.zap.policy;
+
+import com.securitytesting.zap.config.ScanConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TechnologyRulePrunerTest {
+
+    private final TechnologyRulePruner pruner = new TechnologyRulePruner.Builder().build();
+
+    private static TechnologyFingerprint nodeJsonApi() {
+        TechnologyFingerprint fingerprint = new TechnologyFingerprint();
+        fingerprint.addHeader("X-Powered-By", "Express");
+        fingerprint.addHeader("Server", "cloudflare");
+        fingerprint.addHeader("Content-Type", "application/json; charset=utf-8");
+        fingerprint.addHeader("Set-Cookie", "connect.sid=s%3Aabc; Path=/; HttpOnly");
+        fingerprint.addUrl("https://api.example.com/v1/orders?page=2");
+        return fingerprint;
+    }
+
+    @Test
+    public void testFingerprintFromHeadersCookiesUrlsAndAlerts() {
+        TechnologyFingerprint fingerprint = new TechnologyFingerprint();
+        fingerprint.addHeader("Server", "Microsoft-IIS/10.0");
+        fingerprint.addHeader("Cookie", "theme=dark; ASP.NET_SessionId=xyz");
+        fingerprint.addUrl("https://shop.example.com/cart/checkout.aspx;jsessionid=1?step=2");
+        fingerprint.addAlert("Server Leaks Information via \"X-Powered-By\" HTTP Response Header Field(s)",
+                "X-Powered-By: PHP/8.1");
+        fingerprint.addHeader("Content-Type", "text/html");
+
+        assertEquals(EnumSet.of(Technology.ASP_NET, Technology.PHP, Technology.IIS, Technology.HTML),
+                fingerprint.getTechnologies());
+        assertTrue(fingerprint.isKnown(Technology.Category.SERVER));
+        assertEquals(2, fingerprint.getEvidence(Technology.ASP_NET).size());
+    }
+
+    @Test
+    public void testProxyServerHeaderIsIgnoredAndApplicationServerDetected() {
+        assertFalse(nodeJsonApi().isKnown(Technology.Category.SERVER));
+
+        TechnologyFingerprint fingerprint = new TechnologyFingerprint();
+        fingerprint.addHeader("Server", "Kestrel");
+
+        assertEquals(EnumSet.of(Technology.ASP_NET, Technology.APPLICATION_SERVER), fingerprint.getTechnologies());
+    }
+
+    @Test
+    public void testPrunesRulesThatCannotApplyToNodeJsonApi() {
+        ScanPolicy policy = new ScanPolicy.Builder("High")
+                .enableRules(PolicyManager.HIGH_SECURITY_RULES)
+                .ruleStrength(40015, ScanPolicy.Strength.INSANE)
+                .ruleStrength(6, ScanPolicy.Strength.INSANE)
+                .build();
+
+        ScanPolicy pruned = pruner.prune(policy, nodeJsonApi());
+
+        assertEquals("High (Pruned " + pruned.getRulesDigest() + ")", pruned.getName());
+        // LDAP, code injection and padding oracle need platforms the API does not use
+        assertEquals(PolicyManager.HIGH_SECURITY_RULES.minus(RuleSet.of(40015, 90019, 90024)),
+                pruned.getEnabledRuleSet());
+        assertFalse(pruned.getRuleStrengths().containsKey(40015));
+        assertEquals(ScanPolicy.Strength.INSANE, pruned.getRuleStrength(6));
+    }
+
+    @Test
+    public void testTargetsWithDifferentStacksGetDifferentPolicyNames() {
+        ScanPolicy policy = new ScanPolicy.Builder("High").enableRules(PolicyManager.HIGH_SECURITY_RULES).build();
+        TechnologyFingerprint php = new TechnologyFingerprint();
+        php.addHeader("X-Powered-By", "PHP/8.2.1");
+
+        ScanPolicy nodePolicy = pruner.prune(policy, nodeJsonApi());
+        ScanPolicy phpPolicy = pruner.prune(policy, php);
+
+        // Each name is pushed to ZAP with its own rules, so concurrent scans never overwrite each other's
+        assertNotEquals(nodePolicy.getEnabledRuleSet(), phpPolicy.getEnabledRuleSet());
+        assertNotEquals(nodePolicy.getName(), phpPolicy.getName());
+        assertEquals(nodePolicy.getName(), pruner.prune(policy, nodeJsonApi()).getName());
+    }
+
+    @Test
+    public void testUnknownTargetAndMatchingStackKeepPolicy() {
+        ScanPolicy policy = new ScanPolicy.Builder("High").enableRules(PolicyManager.HIGH_SECURITY_RULES).build();
+        assertSame(policy, pruner.prune(policy, new TechnologyFingerprint()));
+
+        TechnologyFingerprint aspNet = new TechnologyFingerprint();
+        aspNet.addHeader("X-AspNet-Version", "4.0.30319");
+        aspNet.addHeader("Server", "Microsoft-IIS/10.0");
+        aspNet.addHeader("Content-Type", "text/html");
+        aspNet.addHeader("Content-Type", "application/soap+xml");
+        assertSame(policy, pruner.prune(policy, aspNet));
+    }
+
+    @Test
+    public void testDenyListPolicyDisablesPrunedRules() {
+        ScanPolicy policy = new ScanPolicy.Builder("All").disableRule(7).build();
+
+        ScanPolicy pruned = pruner.prune(policy, nodeJsonApi());
+
+        assertTrue(pruned.getEnabledRuleSet().isEmpty());
+        assertEquals(RuleSet.of(7, 40015, 90019, 90024), pruned.getDisabledRuleSet());
+    }
+
+    @Test
+    public void testUnknownCategoryNeverPrunes() {
+        TechnologyFingerprint fingerprint = new TechnologyFingerprint();
+        fingerprint.addHeader("Content-Type", "text/html");
+
+        // The platform is unknown, so LDAP injection may apply
+        assertTrue(pruner.isApplicable(40015, fingerprint));
+    }
+
+    @Test
+    public void testContentTypesNeverPruneInjectionRules() {
+        TechnologyRulePruner xmlPruner = new TechnologyRulePruner.Builder().require(90023, Technology.XML).build();
+
+        // A JSON API may still parse XML, so XXE and server side include keep running
+        assertTrue(xmlPruner.isApplicable(90023, nodeJsonApi()));
+        assertTrue(pruner.isApplicable(40009, nodeJsonApi()));
+        assertTrue(pruner.isApplicable(90023, nodeJsonApi()));
+        assertFalse(new ScanConfig.Builder().build().isTechnologyRulePruningEnabled());
+    }
+
+    @Test
+    public void testPolicyWithOnlyInapplicableRulesIsKept() {
+        ScanPolicy policy = new ScanPolicy.Builder("LDAP").enableRule(40015).build();
+
+        assertSame(policy, pruner.prune(policy, nodeJsonApi()));
+    }
+}
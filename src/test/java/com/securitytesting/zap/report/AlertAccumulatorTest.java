@@ -0,0 +1,153 @@
+package com.securitytesting.zap.report;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlertAccumulatorTest {
+
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    private static Alert alert(int thread, int i) {
+        return new Alert.Builder("Alert " + (i % 7))
+                .severity(SEVERITIES[i % SEVERITIES.length])
+                .url("https://shop.example.com/" + thread + "/" + i)
+                .build();
+    }
+
+    /**
+     * Adds alerts from several threads released at once.
+     *
+     * @return The time taken in nanoseconds
+     */
+    private static long ingest(AlertAccumulator accumulator, int threads, int alertsPerThread) throws Exception {
+        List<List<Alert>> alerts = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Alert> threadAlerts = new ArrayList<>(alertsPerThread);
+            for (int i = 0; i < alertsPerThread; i++) {
+                threadAlerts.add(alert(t, i));
+            }
+            alerts.add(threadAlerts);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Alert> threadAlerts : alerts) {
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    for (Alert alert : threadAlerts) {
+                        accumulator.add(alert);
+                    }
+                    return null;
+                }));
+            }
+            ready.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentAddsAreAllKept() throws Exception {
+        int threads = 8;
+        int alertsPerThread = 5_000;
+        AlertAccumulator accumulator = new AlertAccumulator();
+        ingest(accumulator, threads, alertsPerThread);
+
+        assertEquals(40_000, accumulator.getTotalCount());
+        assertEquals(10_000, accumulator.getCount(Severity.HIGH));
+
+        ScanResult result = accumulator.freeze("https://shop.example.com", new Date(0), 1000);
+        assertEquals(40_000, result.getTotalAlerts());
+        assertEquals(10_000, result.getHighAlerts());
+        assertEquals(10_000, result.getInfoAlerts());
+
+        // Every alert added is kept exactly once
+        Set<String> expected = new HashSet<>();
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < alertsPerThread; i++) {
+                expected.add(alert(t, i).getUrl());
+            }
+        }
+        List<Alert> alerts = result.getAlerts();
+        Set<String> actual = new HashSet<>();
+        for (Alert alert : alerts) {
+            actual.add(alert.getUrl());
+        }
+        assertEquals(40_000, alerts.size());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testAlertsOfOneThreadKeepTheirOrder() throws Exception {
+        AlertAccumulator accumulator = new AlertAccumulator(4);
+        ingest(accumulator, 4, 1000);
+
+        List<Alert> alerts = accumulator.freeze("https://shop.example.com", new Date(0), 0).getAlerts();
+        int[] next = new int[4];
+        for (Alert alert : alerts) {
+            String[] path = alert.getUrl().substring("https://shop.example.com/".length()).split("/");
+            int thread = Integer.parseInt(path[0]);
+            assertEquals(next[thread]++, Integer.parseInt(path[1]));
+        }
+    }
+
+    @Test
+    public void testFrozenResultCannotChange() {
+        AlertAccumulator accumulator = new AlertAccumulator();
+        accumulator.add(alert(0, 0));
+        accumulator.addAll(List.of(alert(0, 1), alert(0, 2)));
+
+        ScanResult result = accumulator.freeze("https://shop.example.com", new Date(0), 0);
+
+        assertTrue(result.isFrozen());
+        assertEquals(3, result.getTotalAlerts());
+        assertThrows(UnsupportedOperationException.class, () -> result.addAlert(alert(0, 3)));
+        assertThrows(UnsupportedOperationException.class, () -> result.setTotalAlerts(0));
+        assertThrows(IllegalStateException.class, () -> accumulator.add(alert(0, 3)));
+        assertThrows(IllegalStateException.class, () -> accumulator.freeze("https://shop.example.com", new Date(0), 0));
+        assertFalse(new ScanResult().isFrozen());
+    }
+
+    /**
+     * Compares the throughput of one thread with that of many contending threads. Timings depend
+     * on the machine, so this only runs with the benchmark profile and reports, not asserts, them.
+     */
+    @Test
+    @Tag("benchmark")
+    public void testContentionBenchmark() throws Exception {
+        int alertsPerThread = 50_000;
+        int threads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+        ingest(new AlertAccumulator(), threads, alertsPerThread / 4);
+        long single = ingest(new AlertAccumulator(), 1, alertsPerThread);
+        AlertAccumulator contendedAccumulator = new AlertAccumulator();
+        long contended = ingest(contendedAccumulator, threads, alertsPerThread);
+
+        assertEquals((long) threads * alertsPerThread, contendedAccumulator.getTotalCount());
+        System.out.printf("One thread added %.0f alerts/s, %d threads %.0f alerts/s%n",
+                alertsPerThread / (single / 1e9), threads, (double) threads * alertsPerThread / (contended / 1e9));
+    }
+}
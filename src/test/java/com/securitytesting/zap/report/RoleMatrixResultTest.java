@@ -0,0 +1,58 @@
+package com.securitytesting.zap.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoleMatrixResultTest {
+
+    private static Alert alert(String name, String url, Severity severity) {
+        return new Alert.Builder(name)
+                .url(url)
+                .severity(severity)
+                .build();
+    }
+
+    @Test
+    public void testMergedResultContainsEachAlertOnce() {
+        Alert shared = alert("SQL Injection", "https://example.com/search", Severity.HIGH);
+        Alert adminOnly = alert("Path Traversal", "https://example.com/admin/files", Severity.MEDIUM);
+
+        Map<String, ScanResult> resultsByRole = new LinkedHashMap<>();
+        resultsByRole.put("admin", new ScanResult.Builder().addAlert(shared).addAlert(adminOnly).build());
+        resultsByRole.put("user", new ScanResult.Builder()
+                .addAlert(alert("SQL Injection", "https://example.com/search", Severity.HIGH)).build());
+
+        RoleMatrixResult result = new RoleMatrixResult("https://example.com", resultsByRole, 1000);
+
+        ScanResult merged = result.getMergedResult();
+        assertEquals(2, merged.getTotalAlerts());
+        assertEquals(1, merged.getHighAlerts());
+        assertEquals(1, merged.getMediumAlerts());
+        assertEquals(1000, merged.getScanDurationMs());
+        assertEquals(Set.of("admin", "user"), result.getRolesForAlert(shared));
+        assertEquals(Set.of("admin"), result.getRolesForAlert(adminOnly));
+    }
+
+    @Test
+    public void testAlertsOnlyForRole() {
+        Alert anonymousOnly = alert("Information Disclosure", "https://example.com/debug", Severity.LOW);
+
+        Map<String, ScanResult> resultsByRole = new LinkedHashMap<>();
+        resultsByRole.put("admin", new ScanResult.Builder().build());
+        resultsByRole.put("anonymous", new ScanResult.Builder().addAlert(anonymousOnly).build());
+
+        RoleMatrixResult result = new RoleMatrixResult("https://example.com", resultsByRole, 0);
+
+        List<Alert> alerts = result.getAlertsOnlyFor("anonymous");
+        assertEquals(1, alerts.size());
+        assertSame(anonymousOnly, alerts.get(0));
+        assertTrue(result.getAlertsOnlyFor("admin").isEmpty());
+        assertEquals(List.of("admin", "anonymous"), List.copyOf(result.getRoles()));
+    }
+}
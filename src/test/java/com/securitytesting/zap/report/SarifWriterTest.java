@@ -0,0 +1,107 @@
+package com.securitytesting.zap.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zaproxy.clientapi.core.ClientApi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SarifWriterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    private static Alert alert(String name, Severity severity, String url) {
+        return new Alert.Builder(name)
+                .severity(severity)
+                .url(url)
+                .param("q")
+                .description("Description of " + name)
+                .solution("Fix " + name)
+                .reference("https://owasp.org/\nhttps://cwe.mitre.org/")
+                .cweId(89)
+                .build();
+    }
+
+    private static ScanResult result(int count) {
+        ScanResult.Builder builder = new ScanResult.Builder()
+                .targetUrl("https://shop.example.com")
+                .scanDate(new Date(1_700_000_000_000L));
+        for (int i = 0; i < count; i++) {
+            builder.addAlert(alert(i % 2 == 0 ? "SQL Injection" : "Cross Site Scripting",
+                    i % 2 == 0 ? Severity.HIGH : Severity.MEDIUM, "https://shop.example.com/items/" + i));
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testRulesAreWrittenOnceAndReferencedByIndex() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SarifWriter.write(result(4), out);
+
+        JsonNode log = MAPPER.readTree(out.toByteArray());
+        assertEquals("2.1.0", log.path("version").asText());
+        JsonNode run = log.path("runs").get(0);
+
+        JsonNode rules = run.path("tool").path("driver").path("rules");
+        assertEquals(2, rules.size());
+        assertEquals("SQL Injection", rules.get(0).path("id").asText());
+        assertEquals("https://owasp.org/", rules.get(0).path("helpUri").asText());
+        assertEquals("external/cwe/cwe-89", rules.get(0).path("properties").path("tags").get(1).asText());
+
+        JsonNode results = run.path("results");
+        assertEquals(4, results.size());
+        for (JsonNode result : results) {
+            JsonNode rule = rules.get(result.path("ruleIndex").asInt());
+            assertEquals(rule.path("id").asText(), result.path("ruleId").asText());
+        }
+        assertEquals("error", results.get(0).path("level").asText());
+        assertEquals("warning", results.get(1).path("level").asText());
+        assertEquals("https://shop.example.com/items/1", results.get(1).path("locations").get(0)
+                .path("physicalLocation").path("artifactLocation").path("uri").asText());
+        assertFalse(results.get(0).has("fullDescription"));
+    }
+
+    @Test
+    public void testSeveralRunsKeepTheirOwnRules() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SarifWriter writer = new SarifWriter(out)) {
+            writer.startRun("https://a");
+            writer.writeResult(alert("SQL Injection", Severity.HIGH, "https://a/1"));
+            writer.endRun();
+            writer.startRun("https://b");
+            writer.writeResult(alert("Cross Site Scripting", Severity.HIGH, "https://b/1"));
+            assertThrows(IllegalStateException.class, () -> writer.startRun("https://c"));
+            // The open run is ended by closing the writer
+        }
+
+        JsonNode runs = MAPPER.readTree(out.toByteArray()).path("runs");
+        assertEquals(2, runs.size());
+        assertEquals("Cross Site Scripting", runs.get(1).path("tool").path("driver").path("rules").get(0).path("id").asText());
+        assertEquals(0, runs.get(1).path("results").get(0).path("ruleIndex").asInt());
+    }
+
+    @Test
+    public void testSavedResultIsStreamedToSarif() throws Exception {
+        ReportGenerator generator = new ReportGenerator(new ClientApi("localhost", 8080));
+        String saved = tempDir.resolve("result.zsr").toString();
+        String report = tempDir.resolve("reports/result.sarif").toString();
+        generator.saveScanResult(result(1000), saved);
+
+        generator.generateSarifReport(saved, report);
+
+        JsonNode run = MAPPER.readTree(new File(report)).path("runs").get(0);
+        assertEquals(1000, run.path("results").size());
+        assertEquals(2, run.path("tool").path("driver").path("rules").size());
+        assertEquals("https://shop.example.com/", run.path("automationDetails").path("id").asText());
+    }
+}
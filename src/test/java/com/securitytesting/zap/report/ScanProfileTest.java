@@ -0,0 +1,95 @@
+package com.securitytesting.zap.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanProfileTest {
+
+    private static ApiResponse plugin(String name, String id, String status, String timeInMs, String requests,
+            String alerts) {
+        return new ApiResponseList("Plugin", List.of(
+                new ApiResponseElement("name", name),
+                new ApiResponseElement("id", id),
+                new ApiResponseElement("quality", "release"),
+                new ApiResponseElement("status", status),
+                new ApiResponseElement("timeInMs", timeInMs),
+                new ApiResponseElement("reqCount", requests),
+                new ApiResponseElement("alertCount", alerts)));
+    }
+
+    private static ScanProfile twoHostProfile() {
+        ApiResponse scanProgress = new ApiResponseList("scanProgress", List.of(
+                new ApiResponseElement("id", "https://a.example.com"),
+                new ApiResponseList("HostProcess", List.of(
+                        plugin("Path Traversal", "6", "Complete", "1500", "120", "0"),
+                        plugin("SQL Injection", "40018", "Complete", "9000", "900", "2"))),
+                new ApiResponseElement("id", "https://b.example.com"),
+                new ApiResponseList("HostProcess", List.of(
+                        plugin("Path Traversal", "6", "Running", "500", "30", "1")))));
+        return ScanProfile.fromScanProgress(7, scanProgress);
+    }
+
+    @Test
+    public void testParsesEntriesPerHostAndRule() {
+        ScanProfile profile = twoHostProfile();
+
+        assertEquals(3, profile.getRules().size());
+        ScanProfile.RuleProfile running = profile.getRules().get(2);
+        assertEquals(7, running.getScanId());
+        assertEquals("https://b.example.com", running.getHost());
+        assertEquals(6, running.getRuleId());
+        assertEquals("Running", running.getStatus());
+        assertEquals(11_000, profile.getTotalTimeInMs());
+    }
+
+    @Test
+    public void testTimeByHostAndRuleMostExpensiveFirst() {
+        ScanProfile profile = twoHostProfile();
+
+        Map<String, Long> byHost = profile.getTimeByHost();
+        assertEquals(List.of("https://a.example.com", "https://b.example.com"), new ArrayList<>(byHost.keySet()));
+        assertEquals(10_500, byHost.get("https://a.example.com"));
+
+        List<ScanProfile.RuleProfile> byRule = profile.getRulesByTime();
+        assertEquals(2, byRule.size());
+        assertEquals(40018, byRule.get(0).getRuleId());
+        assertEquals(2000, byRule.get(1).getTimeInMs());
+        assertEquals(150, byRule.get(1).getRequestCount());
+        assertEquals(1, byRule.get(1).getAlertCount());
+    }
+
+    @Test
+    public void testMergeKeepsScansApart() {
+        ScanProfile merged = ScanProfile.merge(List.of(twoHostProfile(), twoHostProfile()));
+
+        assertEquals(6, merged.getRules().size());
+        assertEquals(22_000, merged.getTotalTimeInMs());
+        assertEquals(18_000, merged.getRulesByTime().get(0).getTimeInMs());
+    }
+
+    @Test
+    public void testTableAndJsonRendering() throws Exception {
+        ScanProfile profile = twoHostProfile();
+
+        String table = profile.toTable();
+        assertTrue(table.contains("| SQL Injection | 40018 |"));
+        assertTrue(table.contains("| https://a.example.com |"));
+        assertTrue(table.indexOf("SQL Injection") < table.indexOf("Path Traversal"));
+
+        JsonNode json = new ObjectMapper().readTree(profile.toJson());
+        assertEquals(11_000, json.get("totalTimeInMs").asLong());
+        assertEquals(500, json.get("hosts").get("https://b.example.com").asLong());
+        assertEquals(40018, json.get("rules").get(0).get("id").asInt());
+        assertEquals(3, json.get("entries").size());
+    }
+}
@@ -0,0 +1,192 @@
+package com.securitytesting.zap.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanResultCodecTest {
+
+    private static Alert alert(int id, String name, Severity severity, String url) {
+        return new Alert.Builder(name)
+                .alertId(id)
+                .severity(severity)
+                .description("The page results were successfully manipulated using boolean conditions.")
+                .url(url)
+                .attack("' OR '1'='1")
+                .param("q")
+                .solution("Use prepared statements.")
+                .reference("https://owasp.org/www-community/attacks/SQL_Injection")
+                .cweId(89)
+                .wascId(19)
+                .pluginId("40018")
+                .build();
+    }
+
+    private static ScanResult result() {
+        return new ScanResult.Builder()
+                .targetUrl("https://shop.example.com")
+                .scanDate(new Date(1_700_000_000_000L))
+                .scanDurationMs(93_000)
+                .addAlert(alert(1, "SQL Injection", Severity.HIGH, "https://shop.example.com/search"))
+                .addAlert(alert(2, "SQL Injection", Severity.HIGH, "https://shop.example.com/cart"))
+                .addAlert(new Alert.Builder("Cookie No HttpOnly Flag").alertId(3).severity(Severity.LOW)
+                        .evidence("Set-Cookie: session").cweId(-1).build())
+                .scanProfile(new ScanProfile(Arrays.asList(
+                        new ScanProfile.RuleProfile(4, "https://shop.example.com", 40018, "SQL Injection",
+                                "Complete", 61_000, 1200, 2),
+                        new ScanProfile.RuleProfile(4, "https://shop.example.com", 10010, null, "Complete", 5, 0, 1))))
+                .build();
+    }
+
+    private static void assertSameAlert(Alert expected, Alert actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getSeverity(), actual.getSeverity());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getUrl(), actual.getUrl());
+        assertEquals(expected.getAttack(), actual.getAttack());
+        assertEquals(expected.getEvidence(), actual.getEvidence());
+        assertEquals(expected.getSolution(), actual.getSolution());
+        assertEquals(expected.getReference(), actual.getReference());
+        assertEquals(expected.getParam(), actual.getParam());
+        assertEquals(expected.getCweId(), actual.getCweId());
+        assertEquals(expected.getWascId(), actual.getWascId());
+        assertEquals(expected.getOtherInfo(), actual.getOtherInfo());
+        assertEquals(expected.getPluginId(), actual.getPluginId());
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long... values) {
+        for (long value : values) {
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                out.write((int) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+            out.write((int) zigZag);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ScanResult original = result();
+
+        ScanResult decoded = ScanResultCodec.decode(ScanResultCodec.encode(original));
+
+        assertEquals(original.getTargetUrl(), decoded.getTargetUrl());
+        assertEquals(original.getScanDate(), decoded.getScanDate());
+        assertEquals(original.getScanDurationMs(), decoded.getScanDurationMs());
+        assertEquals(2, decoded.getHighAlerts());
+        assertEquals(1, decoded.getLowAlerts());
+        assertEquals(3, decoded.getTotalAlerts());
+        assertEquals(original.getAlerts().size(), decoded.getAlerts().size());
+        for (int i = 0; i < original.getAlerts().size(); i++) {
+            assertSameAlert(original.getAlerts().get(i), decoded.getAlerts().get(i));
+        }
+        assertEquals(original.getScanProfile().toJson(), decoded.getScanProfile().toJson());
+    }
+
+    @Test
+    public void testCountsAreKeptAsRecorded() throws Exception {
+        ScanResult merged = new ScanResult.Builder().targetUrl("https://a").totalAlerts(7).build();
+
+        ScanResult decoded = ScanResultCodec.decode(ScanResultCodec.encode(merged));
+
+        assertEquals(7, decoded.getTotalAlerts());
+        assertTrue(decoded.getAlerts().isEmpty());
+        assertEquals(merged.getScanDate(), decoded.getScanDate());
+        assertNull(decoded.getScanProfile());
+    }
+
+    @Test
+    public void testStreamingWriteAndRead() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScanResultCodec.Writer writer = new ScanResultCodec.Writer(out, "https://api", new Date(0), 10);
+        for (int i = 0; i < 1000; i++) {
+            writer.writeAlert(alert(i, "SQL Injection", Severity.MEDIUM, "https://api/items/" + i));
+        }
+        writer.finish(null);
+
+        ScanResultCodec.Reader reader = new ScanResultCodec.Reader(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(ScanResultCodec.VERSION, reader.getVersion());
+        assertEquals("https://api", reader.getTargetUrl());
+        int count = 0;
+        for (Alert alert = reader.nextAlert(); alert != null; alert = reader.nextAlert()) {
+            assertEquals("https://api/items/" + count, alert.getUrl());
+            count++;
+        }
+        assertEquals(1000, count);
+        assertNull(reader.nextAlert());
+
+        // The text alerts share is written once, so each further alert takes a few dozen bytes
+        assertTrue(out.size() < 1000 * 40, "Encoded size " + out.size());
+    }
+
+    @Test
+    public void testStringTableStaysBoundedForDistinctStrings() throws Exception {
+        ScanResult.Builder builder = new ScanResult.Builder().targetUrl("https://api");
+        for (int i = 0; i < 10_000; i++) {
+            builder.addAlert(new Alert.Builder("Rule " + (i % 10)).alertId(i).severity(Severity.LOW)
+                    .description("Description " + i).url("https://api/items/" + i).param("p" + (i % 3)).build());
+        }
+        ScanResult original = builder.build();
+
+        ScanResult decoded = ScanResultCodec.decode(ScanResultCodec.encode(original));
+
+        // Once the table is full, new strings are written inline and still read back
+        assertEquals(10_000, decoded.getAlerts().size());
+        for (int i = 0; i < 10_000; i += 997) {
+            assertSameAlert(original.getAlerts().get(i), decoded.getAlerts().get(i));
+        }
+        assertSameAlert(original.getAlerts().get(9_999), decoded.getAlerts().get(9_999));
+    }
+
+    @Test
+    public void testReadsLayout() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[] {'Z', 'S', 'R', 'B', 1});
+        // Target URL inline, then the date and duration
+        writeVarint(out, 2, 9);
+        out.write("https://a".getBytes());
+        writeVarint(out, 0, 0);
+        // One alert, its name a new table string and its plugin ID a reference to it
+        writeVarint(out, 1, 7, 1, 3);
+        out.write("XSS".getBytes());
+        writeVarint(out, 3, 0, 0, 0, 0, 0, 0, 0, 79, 8, 0, 3);
+        // End marker, counts and no profile
+        writeVarint(out, 0, 1, 0, 0, 0, 1, -1);
+
+        ScanResult decoded = ScanResultCodec.decode(out.toByteArray());
+
+        assertEquals("https://a", decoded.getTargetUrl());
+        Alert alert = decoded.getAlerts().get(0);
+        assertEquals(7, alert.getId());
+        assertEquals("XSS", alert.getName());
+        assertEquals(Severity.HIGH, alert.getSeverity());
+        assertNull(alert.getUrl());
+        assertEquals(79, alert.getCweId());
+        assertEquals("XSS", alert.getPluginId());
+        assertEquals(1, decoded.getHighAlerts());
+    }
+
+    @Test
+    public void testRejectsOtherDataAndVersions() throws Exception {
+        byte[] encoded = ScanResultCodec.encode(result());
+
+        assertThrows(IOException.class, () -> ScanResultCodec.decode("{\"alerts\": []}".getBytes()));
+
+        byte[] newer = encoded.clone();
+        newer[4] = (byte) (ScanResultCodec.VERSION + 1);
+        assertThrows(IOException.class, () -> ScanResultCodec.decode(newer));
+        byte[] older = encoded.clone();
+        older[4] = (byte) (ScanResultCodec.VERSION - 1);
+        assertThrows(IOException.class, () -> ScanResultCodec.decode(older));
+
+        assertThrows(IOException.class, () -> ScanResultCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+    }
+}
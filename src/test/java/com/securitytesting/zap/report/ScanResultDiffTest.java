@@ -0,0 +1,101 @@
+package com.securitytesting.zap.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanResultDiffTest {
+
+    private static Alert alert(String name, Severity severity, String url) {
+        return new Alert.Builder(name).severity(severity).url(url).param("q").cweId(89).build();
+    }
+
+    private static ScanResult result(long date, Alert... alerts) {
+        ScanResult.Builder builder = new ScanResult.Builder()
+                .targetUrl("https://shop.example.com")
+                .scanDate(new Date(date));
+        for (Alert alert : alerts) {
+            builder.addAlert(alert);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testNewFixedAndPersistingAlerts() {
+        ScanResult previous = result(1000,
+                alert("SQL Injection", Severity.HIGH, "https://shop.example.com/search"),
+                alert("Cross Site Scripting", Severity.HIGH, "https://shop.example.com/cart"));
+        ScanResult current = result(2000,
+                alert("SQL Injection", Severity.MEDIUM, "https://shop.example.com/search"),
+                alert("Cookie No HttpOnly Flag", Severity.LOW, "https://shop.example.com/"),
+                alert("Cookie No HttpOnly Flag", Severity.LOW, "https://shop.example.com/"));
+
+        ScanResultDiff diff = ScanResultDiff.compare(previous, current);
+
+        assertEquals(1, diff.getNewAlerts().size());
+        assertEquals("Cookie No HttpOnly Flag", diff.getNewAlerts().get(0).getName());
+        assertEquals(1, diff.getFixedAlerts().size());
+        assertEquals("Cross Site Scripting", diff.getFixedAlerts().get(0).getName());
+        assertEquals(1, diff.getPersistingAlerts().size());
+        // Persisting alerts are reported as the current scan found them
+        assertEquals(Severity.MEDIUM, diff.getPersistingAlerts().get(0).getSeverity());
+        assertTrue(diff.hasChanges());
+    }
+
+    @Test
+    public void testChangesAreStreamedInOrder() {
+        ScanResult previous = result(1000,
+                alert("A", Severity.LOW, "https://a/1"),
+                alert("B", Severity.LOW, "https://a/2"));
+        ScanResult current = result(2000,
+                alert("C", Severity.LOW, "https://a/3"),
+                alert("A", Severity.LOW, "https://a/1"));
+
+        List<String> changes = new ArrayList<>();
+        ScanResultDiff.compare(previous, current, (change, alert) -> changes.add(change + " " + alert.getName()));
+
+        assertEquals(List.of("NEW C", "PERSISTING A", "FIXED B"), changes);
+    }
+
+    @Test
+    public void testReportsRenderOnlyTheChanges() {
+        ScanResult previous = result(1000,
+                alert("SQL Injection", Severity.HIGH, "https://shop.example.com/search"),
+                alert("Server Leaks Version", Severity.LOW, "https://shop.example.com/"));
+        ScanResult current = result(2000,
+                alert("SQL Injection", Severity.HIGH, "https://shop.example.com/search"),
+                alert("Missing Anti-CSRF Tokens", Severity.MEDIUM, "https://shop.example.com/login"));
+
+        ScanResultDiff diff = ScanResultDiff.compare(previous, current);
+        String markdown = diff.toMarkdown();
+        String json = diff.toJson();
+
+        assertTrue(markdown.contains("1 new, 1 fixed, 1 persisting"));
+        assertTrue(markdown.contains("Missing Anti-CSRF Tokens"));
+        assertTrue(markdown.contains("Server Leaks Version"));
+        assertFalse(markdown.contains("SQL Injection"));
+        assertTrue(json.contains("\"persistingCount\" : 1"));
+        assertFalse(json.contains("SQL Injection"));
+    }
+
+    @Test
+    public void testLargeScansCompareInLinearTime() {
+        int count = 200_000;
+        ScanResult.Builder previous = new ScanResult.Builder().targetUrl("https://api");
+        ScanResult.Builder current = new ScanResult.Builder().targetUrl("https://api");
+        for (int i = 0; i < count; i++) {
+            previous.addAlert(alert("SQL Injection", Severity.HIGH, "https://api/items/" + i));
+            current.addAlert(alert("SQL Injection", Severity.HIGH, "https://api/items/" + (i + count / 2)));
+        }
+
+        ScanResultDiff diff = ScanResultDiff.compare(previous.build(), current.build());
+
+        assertEquals(count / 2, diff.getNewAlerts().size());
+        assertEquals(count / 2, diff.getFixedAlerts().size());
+        assertEquals(count / 2, diff.getPersistingAlerts().size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.securitytesting.zap.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanResultMergerTest {
+
+    private final ScanResultMerger merger = new ScanResultMerger();
+
+    private static Alert alert(String name, Severity severity, String url) {
+        return new Alert.Builder(name).severity(severity).url(url).param("id").build();
+    }
+
+    private static ScanResult result(long start, long durationMs, Alert... alerts) {
+        ScanResult.Builder builder = new ScanResult.Builder()
+                .targetUrl("https://shop.example.com")
+                .scanDate(new Date(start))
+                .scanDurationMs(durationMs);
+        Arrays.stream(alerts).forEach(builder::addAlert);
+        return builder.build();
+    }
+
+    @Test
+    public void testDeduplicatesAndRecountsAlerts() {
+        ScanResult users = result(1_000, 500,
+                alert("SQL Injection", Severity.HIGH, "https://shop.example.com/users"),
+                alert("Missing Anti-CSRF Tokens", Severity.MEDIUM, "https://shop.example.com/users"));
+        ScanResult orders = result(1_200, 1_000,
+                alert("Missing Anti-CSRF Tokens", Severity.LOW, "https://shop.example.com/users"),
+                alert("Cookie No HttpOnly Flag", Severity.LOW, "https://shop.example.com/orders"));
+        ScanResult strict = result(900, 100,
+                alert("Missing Anti-CSRF Tokens", Severity.HIGH, "https://shop.example.com/users"));
+
+        ScanResult merged = merger.merge(Arrays.asList(users, orders, strict));
+
+        assertEquals(3, merged.getTotalAlerts());
+        assertEquals(2, merged.getHighAlerts());
+        assertEquals(0, merged.getMediumAlerts());
+        assertEquals(1, merged.getLowAlerts());
+        // The most severe duplicate is kept, in the place the finding was first seen
+        assertEquals("SQL Injection", merged.getAlerts().get(0).getName());
+        assertEquals(Severity.HIGH, merged.getAlerts().get(1).getSeverity());
+        assertEquals(new Date(900), merged.getScanDate());
+        assertEquals(1_300, merged.getScanDurationMs());
+        assertEquals("https://shop.example.com", merged.getTargetUrl());
+    }
+
+    @Test
+    public void testMergesScanProfiles() {
+        ScanResult first = result(0, 10);
+        first.setScanProfile(new ScanProfile(Collections.singletonList(
+                new ScanProfile.RuleProfile(1, "https://a", 40018, "SQL Injection", "Complete", 100, 10, 0))));
+        ScanResult second = result(0, 10);
+        ScanResult third = result(0, 10);
+        third.setScanProfile(new ScanProfile(Collections.singletonList(
+                new ScanProfile.RuleProfile(2, "https://a", 40018, "SQL Injection", "Complete", 50, 5, 1))));
+
+        ScanResult merged = merger.merge(Arrays.asList(first, second, third));
+
+        assertEquals(150, merged.getScanProfile().getTotalTimeInMs());
+        assertNull(merger.merge(Collections.singletonList(second)).getScanProfile());
+    }
+
+    @Test
+    public void testParallelMergeMatchesSequentialOrder() {
+        List<ScanResult> shards = new ArrayList<>();
+        for (int shard = 0; shard < 40; shard++) {
+            List<Alert> alerts = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                // Neighbouring shards overlap on half of their URLs
+                alerts.add(alert("XSS", Severity.MEDIUM, "https://shop.example.com/p/" + (shard * 1_000 + i)));
+            }
+            shards.add(result(shard, 1_000, alerts.toArray(new Alert[0])));
+        }
+
+        ScanResult merged = new ScanResultMerger(new ForkJoinPool(4)).merge(shards);
+
+        assertEquals(41_000, merged.getTotalAlerts());
+        List<Alert> alerts = merged.getAlerts();
+        for (int i = 0; i < alerts.size(); i += 997) {
+            assertEquals("https://shop.example.com/p/" + i, alerts.get(i).getUrl());
+        }
+        assertEquals(1_039, merged.getScanDurationMs());
+    }
+
+    @Test
+    public void testNothingToMerge() {
+        assertThrows(IllegalArgumentException.class, () -> merger.merge(Collections.emptyList()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.securitytesting.zap.report;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SuppressionBaselineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Alert alert(String name, String url, String param) {
+        return new Alert.Builder(name).severity(Severity.MEDIUM).url(url).param(param).build();
+    }
+
+    @Test
+    public void testFingerprintSuppressesOnlyThatAlert() {
+        Alert accepted = alert("SQL Injection", "https://shop.example.com/search", "q");
+        SuppressionBaseline baseline = new SuppressionBaseline.Builder()
+                .fingerprint(ScanResultMerger.fingerprint(accepted))
+                .build();
+
+        assertTrue(baseline.isSuppressed(accepted));
+        assertFalse(baseline.isSuppressed(alert("SQL Injection", "https://shop.example.com/search", "page")));
+        assertFalse(baseline.isSuppressed(alert("SQL Injection", "https://shop.example.com/cart", "q")));
+    }
+
+    @Test
+    public void testRulesMatchRuleUrlPatternAndParameter() {
+        SuppressionBaseline baseline = new SuppressionBaseline.Builder()
+                .rule("10038", "https://shop.example.com/static/*", null)
+                .rule("Cookie No HttpOnly Flag", "*", "tracking")
+                .build();
+
+        assertTrue(baseline.isSuppressed("Content Security Policy (CSP) Header Not Set", "10038",
+                "https://shop.example.com/static/app.js", null));
+        assertFalse(baseline.isSuppressed("Content Security Policy (CSP) Header Not Set", "10038",
+                "https://shop.example.com/login", null));
+        // Characters of the URL other than * are matched literally
+        assertFalse(baseline.isSuppressed("Content Security Policy (CSP) Header Not Set", "10038",
+                "https://shopXexample.com/static/app.js", null));
+
+        // Alerts read from ZAP carry the ID of the rule that raised them
+        Alert csp = new Alert.Builder("Content Security Policy (CSP) Header Not Set").pluginId("10038")
+                .url("https://shop.example.com/static/app.js").build();
+        assertTrue(baseline.isSuppressed(csp));
+        assertFalse(baseline.isSuppressed(alert(csp.getName(), csp.getUrl(), null)));
+
+        assertTrue(baseline.isSuppressed(alert("Cookie No HttpOnly Flag", "https://shop.example.com/", "tracking")));
+        assertFalse(baseline.isSuppressed(alert("Cookie No HttpOnly Flag", "https://shop.example.com/", "session")));
+        assertEquals(2, baseline.size());
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        Path file = tempDir.resolve("baseline.json");
+        Files.writeString(file, "{\"suppressions\": ["
+                + "{\"fingerprint\": \"SQL Injection|https://shop.example.com/search|q\", \"reason\": \"False positive\"},"
+                + "{\"rule\": \"10038\", \"url\": \"https://shop.example.com/static/*\", \"reason\": \"Accepted risk\"}"
+                + "]}");
+
+        SuppressionBaseline baseline = SuppressionBaseline.load(file);
+
+        assertEquals(2, baseline.size());
+        assertTrue(baseline.isSuppressed(alert("SQL Injection", "https://shop.example.com/search", "q")));
+        assertTrue(baseline.isSuppressed("CSP Header Not Set", "10038", "https://shop.example.com/static/a.css", null));
+
+        Files.writeString(file, "{\"suppressions\": [{\"reason\": \"Nothing to match\"}]}");
+        assertThrows(IOException.class, () -> SuppressionBaseline.load(file));
+    }
+}
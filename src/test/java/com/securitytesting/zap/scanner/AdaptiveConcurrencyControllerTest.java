@@ -0,0 +1,144 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.config.ScanConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ClientApi;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyControllerTest {
+
+    private AdaptiveConcurrencyController controller;
+
+    @BeforeEach
+    public void setUp() {
+        controller = new AdaptiveConcurrencyController.Builder(new ClientApi("localhost", 8080), "https://app:443")
+                .minThreads(1)
+                .initialThreads(4)
+                .maxThreads(6)
+                .delayStepMs(100)
+                .maxDelayMs(400)
+                .minRequestsPerSample(10)
+                .build();
+    }
+
+    @Test
+    public void testHealthyTargetGainsOneThreadPerWindowUpToMaximum() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            controller.onSample(new TargetHealthSample(100, 0, 0, 50));
+        }
+
+        assertEquals(6, controller.getThreadsPerHost());
+        assertEquals(0, controller.getDelayInMs());
+    }
+
+    @Test
+    public void testThrottledTargetHalvesThreadsThenDoublesDelay() throws Exception {
+        TargetHealthSample throttled = new TargetHealthSample(100, 20, 0, 50);
+
+        controller.onSample(throttled);
+        assertEquals(2, controller.getThreadsPerHost());
+
+        controller.onSample(throttled);
+        assertEquals(1, controller.getThreadsPerHost());
+        assertEquals(0, controller.getDelayInMs());
+
+        controller.onSample(throttled);
+        assertEquals(100, controller.getDelayInMs());
+        controller.onSample(throttled);
+        controller.onSample(throttled);
+        controller.onSample(throttled);
+        assertEquals(400, controller.getDelayInMs());
+
+        // Recovery removes the delay before adding threads back
+        TargetHealthSample healthy = new TargetHealthSample(100, 0, 0, 50);
+        for (int i = 0; i < 4; i++) {
+            controller.onSample(healthy);
+        }
+        assertEquals(0, controller.getDelayInMs());
+        assertEquals(1, controller.getThreadsPerHost());
+
+        controller.onSample(healthy);
+        assertEquals(2, controller.getThreadsPerHost());
+    }
+
+    @Test
+    public void testLatencyWellAboveBaselineBacksOff() throws Exception {
+        controller.onSample(new TargetHealthSample(100, 0, 0, 40));
+        assertEquals(5, controller.getThreadsPerHost());
+
+        controller.onSample(new TargetHealthSample(100, 0, 0, 70));
+        assertEquals(6, controller.getThreadsPerHost());
+
+        controller.onSample(new TargetHealthSample(100, 0, 0, 200));
+        assertEquals(3, controller.getThreadsPerHost());
+    }
+
+    @Test
+    public void testSparseWindowsIgnored() throws Exception {
+        assertFalse(controller.onSample(new TargetHealthSample(5, 5, 0, 5000)));
+        assertEquals(4, controller.getThreadsPerHost());
+    }
+
+    @Test
+    public void testCloseRestoresInitialSettings() throws Exception {
+        controller.onSample(new TargetHealthSample(100, 0, 50, 50));
+        controller.onSample(new TargetHealthSample(100, 0, 50, 50));
+        controller.onSample(new TargetHealthSample(100, 0, 50, 50));
+
+        controller.close();
+
+        assertEquals(4, controller.getThreadsPerHost());
+        assertEquals(0, controller.getDelayInMs());
+    }
+
+    @Test
+    public void testSampleComputedFromStatisticDeltas() {
+        Map<String, Long> previous = Map.of("stats.code.200", 100L, "stats.code.429", 5L,
+                "stats.responseTime.16", 100L, "stats.responseTime.256", 5L);
+        Map<String, Long> current = Map.of("stats.code.200", 170L, "stats.code.429", 25L, "stats.code.503", 10L,
+                "stats.responseTime.16", 150L, "stats.responseTime.256", 55L, "stats.responseTime.1024", 0L,
+                "stats.other", 7L);
+
+        TargetHealthSample sample = AdaptiveConcurrencyController.toSample(previous, current);
+
+        assertEquals(100, sample.getRequests());
+        assertEquals(20, sample.getThrottledResponses());
+        assertEquals(10, sample.getServerErrors());
+        assertEquals(0.3, sample.getErrorRate(), 0.0001);
+        assertEquals((50 * 16 + 50 * 256) / 100.0, sample.getMeanLatencyMs(), 0.0001);
+    }
+
+    @Test
+    public void testConcurrentScansShareOneControllerUntilTheLastIsDone() throws Exception {
+        ClientApi zapClient = new ClientApi("localhost", 8090);
+        ScanConfig config = new ScanConfig.Builder().threadCount(4).adaptiveConcurrencyEnabled(false).build();
+
+        AdaptiveConcurrencyController.Lease first = AdaptiveConcurrencyController.start(zapClient, config, "https://a.example.com");
+        AdaptiveConcurrencyController.Lease second = AdaptiveConcurrencyController.start(zapClient, config, "https://b.example.com");
+        AdaptiveConcurrencyController shared = first.getController();
+        assertSame(shared, second.getController());
+        assertEquals(2, shared.getReferenceCount());
+
+        // A congested site backs off the settings all scans share
+        shared.onSamples(Map.of("https://a.example.com:443", new TargetHealthSample(100, 0, 0, 50),
+                "https://b.example.com:443", new TargetHealthSample(100, 50, 0, 50)));
+        assertEquals(2, shared.getThreadsPerHost());
+
+        // The back-off survives the first scan and is only undone after the last one
+        first.close();
+        first.close();
+        assertEquals(2, shared.getThreadsPerHost());
+        assertSame(shared, AdaptiveConcurrencyController.getShared(zapClient));
+
+        second.close();
+        assertEquals(4, shared.getThreadsPerHost());
+        assertNull(AdaptiveConcurrencyController.getShared(zapClient));
+        try (AdaptiveConcurrencyController.Lease next = AdaptiveConcurrencyController.start(zapClient, config, "https://a.example.com")) {
+            assertNotSame(shared, next.getController());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.auth.AuthenticationHandler;
+import com.securitytesting.zap.exception.AuthenticationException;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ClientApi;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AuthenticationLeaseTest {
+
+    private final ClientApi zapClient = new ClientApi("localhost", 8080);
+
+    @Test
+    public void testAuthenticationCleanedUpWhenPhaseEnds() throws Exception {
+        AuthenticationHandler authHandler = mock(AuthenticationHandler.class);
+        when(authHandler.setupAuthentication("shop")).thenReturn(3);
+        when(authHandler.getUserId()).thenReturn(7);
+
+        try (AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, authHandler, "shop")) {
+            assertEquals(3, authentication.getContextId());
+            assertEquals(7, authentication.getUserId());
+            verify(authHandler, never()).cleanup(any(), anyInt());
+        }
+
+        verify(authHandler).cleanup(zapClient, 3);
+    }
+
+    @Test
+    public void testAuthenticationCleanedUpWhenPhaseFails() throws Exception {
+        AuthenticationHandler authHandler = mock(AuthenticationHandler.class);
+        when(authHandler.setupAuthentication("shop")).thenReturn(3);
+
+        assertThrows(IllegalStateException.class, () -> {
+            try (AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, authHandler, "shop")) {
+                throw new IllegalStateException("Scan failed");
+            }
+        });
+
+        verify(authHandler).cleanup(zapClient, 3);
+    }
+
+    @Test
+    public void testCleanupFailureDoesNotHideOutcome() throws Exception {
+        AuthenticationHandler authHandler = mock(AuthenticationHandler.class);
+        when(authHandler.setupAuthentication("shop")).thenReturn(3);
+        doThrow(new AuthenticationException("ZAP unreachable")).when(authHandler).cleanup(zapClient, 3);
+
+        AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, authHandler, "shop");
+        assertDoesNotThrow(authentication::close);
+    }
+
+    @Test
+    public void testNothingSetUpWithoutContext() throws Exception {
+        AuthenticationHandler authHandler = mock(AuthenticationHandler.class);
+
+        try (AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, authHandler, null)) {
+            assertNull(authentication.getContextId());
+            assertNull(authentication.getUserId());
+        }
+        try (AuthenticationLease authentication = AuthenticationLease.setUp(zapClient, null, "shop")) {
+            assertNull(authentication.getContextId());
+        }
+
+        verify(authHandler, never()).setupAuthentication(anyString());
+        verify(authHandler, never()).cleanup(any(), anyInt());
+    }
+}
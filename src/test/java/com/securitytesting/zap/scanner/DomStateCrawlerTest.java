@@ -0,0 +1,103 @@
+package com.securitytesting.zap.scanner;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomStateCrawlerTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private List<String> requestedPaths;
+    private HtmlUnitDriver driver;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        requestedPaths = new CopyOnWriteArrayList<>();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requestedPaths.add(path);
+
+            StringBuilder html = new StringBuilder("<html><body><nav><a href=\"/\">Home</a>"
+                    + "<a href=\"/about\">About</a><a href=\"mailto:team@example.com\">Mail</a></nav>");
+            if (path.equals("/")) {
+                for (int i = 1; i <= 30; i++) {
+                    html.append("<a href=\"/items/").append(i).append("\">Item ").append(i).append("</a>");
+                }
+            } else if (path.startsWith("/items/")) {
+                html.append("<h1>Item ").append(path.substring(7)).append("</h1>");
+            }
+            html.append("</body></html>");
+
+            byte[] body = html.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        driver = new HtmlUnitDriver();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        driver.quit();
+        server.stop(0);
+    }
+
+    @Test
+    public void testUrlTemplate() {
+        assertEquals("https://example.com/users/{id}?tab",
+                DomStateCrawler.urlTemplate("https://example.com/users/42?tab=orders"));
+        assertEquals("https://example.com/orders/{id}/items?page&sort",
+                DomStateCrawler.urlTemplate("https://example.com/orders/3f2b1c9e-0a4d-4e6f-8b7a-1c2d3e4f5a6b/items?sort=asc&page=2"));
+        assertEquals("https://example.com/#/products/{id}",
+                DomStateCrawler.urlTemplate("https://example.com/#/products/7"));
+    }
+
+    @Test
+    public void testNormalizeDomIgnoresContent() {
+        String first = "<div class=\"row-1\"><span>Alice</span><input name=\"q\" value=\"x\"><!-- a --></div>"
+                + "<script>var t = 1;</script>";
+        String second = "<div class=\"row-2\">\n  <span>Bob</span><input name=\"q\" value=\"y\"></div>";
+
+        assertEquals(DomStateCrawler.normalizeDom(first), DomStateCrawler.normalizeDom(second));
+        assertNotEquals(DomStateCrawler.normalizeDom(first), DomStateCrawler.normalizeDom("<div><form></form></div>"));
+    }
+
+    @Test
+    public void testCrawlSkipsDuplicateStates() {
+        DomStateCrawler crawler = new DomStateCrawler(100, 100, 60000);
+
+        DomStateCrawler.Result result = crawler.crawl(driver, baseUrl);
+
+        // Home, about and a single item page; the other 29 item links share one URL template
+        assertEquals(3, result.getStatesDiscovered());
+        assertEquals(1, requestedPaths.stream().filter(path -> path.startsWith("/items/")).count());
+        assertTrue(requestedPaths.contains("/about"));
+    }
+
+    @Test
+    public void testFrontierIsBounded() {
+        DomStateCrawler crawler = new DomStateCrawler(100, 1, 60000);
+
+        DomStateCrawler.Result result = crawler.crawl(driver, baseUrl);
+
+        assertTrue(result.getDroppedActions() > 0);
+        assertTrue(result.getStatesDiscovered() <= 2);
+    }
+}
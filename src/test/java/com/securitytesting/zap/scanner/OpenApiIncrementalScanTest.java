@@ -0,0 +1,134 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.config.ScanConfig;
+import com.securitytesting.zap.openapi.OpenApiModelCache;
+import com.securitytesting.zap.report.Alert;
+import com.securitytesting.zap.report.ReportGenerator;
+import com.securitytesting.zap.report.ScanResult;
+import com.securitytesting.zap.report.Severity;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.AscanAPI;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.CoreAPI;
+import org.zaproxy.clientapi.core.PscanAPI;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OpenApiIncrementalScanTest {
+
+    private static final String TARGET = "https://shop.example.com/api";
+
+    private static final String PREVIOUS_SPEC = "openapi: 3.0.1\n"
+            + "info: {title: Shop, version: '1'}\n"
+            + "servers: [{url: '" + TARGET + "'}]\n"
+            + "paths:\n"
+            + "  /orders:\n"
+            + "    get: {responses: {'200': {description: OK}}}\n"
+            + "  /users:\n"
+            + "    get: {responses: {'200': {description: OK}}}\n"
+            + "  /legacy:\n"
+            + "    get: {responses: {'200': {description: OK}}}\n";
+
+    private static final String SPEC = "openapi: 3.0.1\n"
+            + "info: {title: Shop, version: '2'}\n"
+            + "servers: [{url: '" + TARGET + "'}]\n"
+            + "paths:\n"
+            + "  /orders:\n"
+            + "    get:\n"
+            + "      parameters: [{name: status, in: query, schema: {type: string}}]\n"
+            + "      responses: {'200': {description: OK}}\n"
+            + "  /users:\n"
+            + "    get: {responses: {'200': {description: OK}}}\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFreshAlertsOfChangedOperationsAreCombinedWithCarriedOverAlerts() throws Exception {
+        PscanAPI pscan = mock(PscanAPI.class);
+        when(pscan.recordsToScan()).thenReturn(new ApiResponseElement("recordsToScan", "0"));
+
+        AscanAPI ascan = mock(AscanAPI.class);
+        when(ascan.scan(startsWith(TARGET + "/orders"), anyString(), anyString(), any(), any(), any()))
+                .thenReturn(new ApiResponseElement("scan", "3"));
+        when(ascan.scans()).thenReturn(new ApiResponseList("scans", List.of(scan("3", "100"))));
+        when(ascan.scanProgress(anyString())).thenReturn(new ApiResponseList("scanProgress", List.of()));
+        when(ascan.alertsIds("3")).thenReturn(new ApiResponseElement("alertsIds", "7"));
+
+        // ZAP also holds an alert of an earlier scan of the target, which the scan did not raise
+        CoreAPI core = mock(CoreAPI.class);
+        when(core.alert("7")).thenReturn(alert("7", "SQL Injection", TARGET + "/orders?status=1"));
+        when(core.alert("9")).thenReturn(alert("9", "Stale Finding", TARGET + "/legacy"));
+
+        ClientApi zapClient = new ClientApi("localhost", 8080);
+        set(zapClient, "pscan", pscan);
+        set(zapClient, "ascan", ascan);
+        set(zapClient, "core", core);
+
+        OpenApiScanner scanner = new OpenApiScanner(zapClient, new ScanConfig.Builder().build());
+        scanner.setReportGenerator(new ReportGenerator(zapClient));
+
+        OpenAPI previousModel = new OpenApiModelCache(1, null).getModel(PREVIOUS_SPEC, null);
+        ScanResult previousResult = new ScanResult.Builder()
+                .targetUrl(TARGET)
+                .addAlert(new Alert.Builder("Missing Header").severity(Severity.LOW).url(TARGET + "/users").build())
+                .addAlert(new Alert.Builder("Old Orders Finding").severity(Severity.HIGH)
+                        .url(TARGET + "/orders").build())
+                .addAlert(new Alert.Builder("Legacy Finding").severity(Severity.MEDIUM)
+                        .url(TARGET + "/legacy").build())
+                .build();
+
+        Path spec = tempDir.resolve("openapi.yaml");
+        Files.writeString(spec, SPEC);
+        ScanResult result = scanner.scanChanges(spec.toUri().toString(), previousModel, previousResult, null);
+
+        Set<String> names = result.getAlerts().stream().map(Alert::getName).collect(Collectors.toSet());
+        assertEquals(Set.of("SQL Injection", "Missing Header"), names);
+        assertEquals(TARGET, result.getTargetUrl());
+
+        // Only the changed operation is scanned
+        verify(ascan, never()).scan(startsWith(TARGET + "/users"), anyString(), anyString(), any(), any(), any());
+        verify(core, never()).alert("9");
+    }
+
+    private static ApiResponse scan(String id, String progress) {
+        return new ApiResponseSet("scan", Map.of(
+                "id", new ApiResponseElement("id", id),
+                "progress", new ApiResponseElement("progress", progress)));
+    }
+
+    private static ApiResponse alert(String id, String name, String url) {
+        return new ApiResponseSet("alert", Map.of(
+                "id", new ApiResponseElement("id", id),
+                "alert", new ApiResponseElement("alert", name),
+                "risk", new ApiResponseElement("risk", "High"),
+                "url", new ApiResponseElement("url", url)));
+    }
+
+    private static void set(ClientApi zapClient, String name, Object api) throws Exception {
+        Field field = ClientApi.class.getField(name);
+        field.setAccessible(true);
+        field.set(zapClient, api);
+    }
+}
@@ -0,0 +1,77 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.config.ScanConfig;
+import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.openapi.OpenApiModelCache;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.AscanAPI;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OpenApiShardedScanTest {
+
+    private static final String SPEC = "openapi: 3.0.1\n"
+            + "info: {title: Shop, version: '1'}\n"
+            + "servers: [{url: 'https://shop.example.com/api'}]\n"
+            + "paths:\n"
+            + "  /orders:\n"
+            + "    get: {responses: {'200': {description: OK}}}\n"
+            + "  /users:\n"
+            + "    get: {responses: {'200': {description: OK}}}\n";
+
+    @Test
+    public void testShardsStillRunningAreStoppedWhenAnotherShardFails() throws Exception {
+        AscanAPI ascan = mock(AscanAPI.class);
+        CountDownLatch ordersStarted = new CountDownLatch(1);
+        when(ascan.scan(eq("https://shop.example.com/api/orders"), anyString(), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    ordersStarted.countDown();
+                    return new ApiResponseElement("scan", "1");
+                });
+        when(ascan.scan(eq("https://shop.example.com/api/users"), anyString(), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    // Fail only once the other shard's scan runs in ZAP
+                    assertTrue(ordersStarted.await(5, TimeUnit.SECONDS));
+                    throw new ClientApiException("Connection refused");
+                });
+        ApiResponse scan = new ApiResponseSet("scan", Map.of(
+                "id", new ApiResponseElement("id", "1"),
+                "progress", new ApiResponseElement("progress", "10")));
+        when(ascan.scans()).thenReturn(new ApiResponseList("scans", List.of(scan)));
+
+        ClientApi zapClient = new ClientApi("localhost", 8080);
+        Field ascanField = ClientApi.class.getField("ascan");
+        ascanField.setAccessible(true);
+        ascanField.set(zapClient, ascan);
+
+        OpenApiScanner scanner = new OpenApiScanner(zapClient, new ScanConfig.Builder().build());
+        Field modelField = OpenApiScanner.class.getDeclaredField("openApiModel");
+        modelField.setAccessible(true);
+        modelField.set(scanner, new OpenApiModelCache(1, null).getModel(SPEC, null));
+
+        ZapScannerException e = assertThrows(ZapScannerException.class,
+                () -> scanner.performActiveScan("https://shop.example.com/api", null, null, 5));
+
+        assertTrue(e.getMessage().contains("Connection refused"));
+        // The orders scan would otherwise keep running in ZAP after the scan failed
+        verify(ascan).stop("1");
+    }
+}
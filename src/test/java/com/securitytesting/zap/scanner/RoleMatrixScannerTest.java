@@ -0,0 +1,129 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.auth.AuthenticationHandler;
+import com.securitytesting.zap.config.ScanConfig;
+import com.securitytesting.zap.config.ScanRole;
+import com.securitytesting.zap.exception.AuthenticationException;
+import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.report.ReportGenerator;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.AscanAPI;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+import org.zaproxy.clientapi.core.PscanAPI;
+import org.zaproxy.clientapi.core.SpiderAPI;
+import org.zaproxy.clientapi.core.UsersAPI;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RoleMatrixScannerTest {
+
+    private static final String TARGET = "https://shop.example.com";
+
+    @Test
+    public void testUsersCreatedForRolesAreRemovedWhenScanFails() throws Exception {
+        ClientApi zapClient = new ClientApi("localhost", 8080);
+        UsersAPI users = mock(UsersAPI.class);
+        Field field = ClientApi.class.getField("users");
+        field.setAccessible(true);
+        field.set(zapClient, users);
+
+        AuthenticationHandler authHandler = mock(AuthenticationHandler.class);
+        when(authHandler.setupAuthentication(anyString())).thenReturn(1);
+        when(authHandler.createUser(1, "alice", "secret")).thenReturn(5);
+        when(authHandler.createUser(1, "bob", "secret")).thenReturn(6);
+        when(authHandler.createUser(1, "carol", "secret")).thenThrow(new AuthenticationException("Rejected"));
+
+        ScanConfig config = new ScanConfig.Builder().build();
+        RoleMatrixScanner scanner = new RoleMatrixScanner(zapClient, config, new ReportGenerator(zapClient));
+        scanner.setAuthenticationHandler(authHandler);
+
+        assertThrows(ZapScannerException.class, () -> scanner.scan(TARGET, List.of(
+                ScanRole.anonymous("guest"),
+                new ScanRole("customer", "alice", "secret"),
+                new ScanRole("support", "bob", "secret"),
+                new ScanRole("admin", "carol", "secret")), null));
+
+        verify(users).removeUser("1", "5");
+        verify(users).removeUser("1", "6");
+        verify(users, never()).removeUser("1", "null");
+        verify(authHandler).cleanup(zapClient, 1);
+    }
+
+    @Test
+    public void testScansOfOtherRolesAreStoppedWhenOneFails() throws Exception {
+        SpiderAPI spider = mock(SpiderAPI.class);
+        when(spider.scan(anyMap())).thenReturn(new ApiResponseElement("scan", "1"));
+        when(spider.scans()).thenReturn(new ApiResponseList("scans", List.of(scan("1", "100"))));
+        PscanAPI pscan = mock(PscanAPI.class);
+        when(pscan.recordsToScan()).thenReturn(new ApiResponseElement("recordsToScan", "0"));
+
+        AscanAPI ascan = mock(AscanAPI.class);
+        CountDownLatch guestStarted = new CountDownLatch(1);
+        when(ascan.scan(eq(TARGET), anyString(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            guestStarted.countDown();
+            return new ApiResponseElement("scan", "2");
+        });
+        when(ascan.scanAsUser(eq(TARGET), eq("1"), eq("5"), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    // Fail only once the guest's scan runs in ZAP
+                    assertTrue(guestStarted.await(5, TimeUnit.SECONDS));
+                    throw new ClientApiException("Connection refused");
+                });
+        when(ascan.scans()).thenReturn(new ApiResponseList("scans", List.of(scan("2", "10"))));
+        when(ascan.scanProgress(anyString())).thenReturn(new ApiResponseList("scanProgress", List.of()));
+
+        ClientApi zapClient = new ClientApi("localhost", 8080);
+        set(zapClient, "spider", spider);
+        set(zapClient, "pscan", pscan);
+        set(zapClient, "ascan", ascan);
+        set(zapClient, "users", mock(UsersAPI.class));
+
+        AuthenticationHandler authHandler = mock(AuthenticationHandler.class);
+        when(authHandler.setupAuthentication(anyString())).thenReturn(1);
+        when(authHandler.createUser(1, "alice", "secret")).thenReturn(5);
+
+        RoleMatrixScanner scanner = new RoleMatrixScanner(zapClient, new ScanConfig.Builder().build(),
+                new ReportGenerator(zapClient));
+        scanner.setAuthenticationHandler(authHandler);
+
+        ZapScannerException e = assertThrows(ZapScannerException.class, () -> scanner.scan(TARGET, List.of(
+                new ScanRole("customer", "alice", "secret"),
+                ScanRole.anonymous("guest")), null));
+
+        assertTrue(e.getMessage().contains("Connection refused"));
+        // The guest's scan would otherwise keep running in ZAP after the scan failed
+        verify(ascan).stop("2");
+        verify(authHandler).cleanup(zapClient, 1);
+    }
+
+    private static ApiResponse scan(String id, String progress) {
+        return new ApiResponseSet("scan", Map.of(
+                "id", new ApiResponseElement("id", id),
+                "progress", new ApiResponseElement("progress", progress)));
+    }
+
+    private static void set(ClientApi zapClient, String name, Object api) throws Exception {
+        Field field = ClientApi.class.getField(name);
+        field.setAccessible(true);
+        field.set(zapClient, api);
+    }
+}
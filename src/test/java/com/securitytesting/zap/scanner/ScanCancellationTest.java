@@ -0,0 +1,92 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanCancellationTest {
+
+    private final ScanCancellation cancellation = new ScanCancellation();
+    private final List<String> stopped = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testCancelStopsRunningScans() {
+        cancellation.register("spider 1", () -> stopped.add("spider 1"));
+        ScanCancellation.Registration ascan = cancellation.register("active scan 2", () -> stopped.add("active scan 2"));
+        assertEquals(Arrays.asList("spider 1", "active scan 2"), cancellation.getRunning());
+
+        cancellation.cancel();
+        cancellation.cancel();
+        ascan.close();
+
+        assertTrue(cancellation.isCancelled());
+        assertEquals(Arrays.asList("spider 1", "active scan 2"), stopped);
+        assertTrue(cancellation.getRunning().isEmpty());
+    }
+
+    @Test
+    public void testClosedRegistrationIsNotStopped() {
+        try (ScanCancellation.Registration registration = cancellation.register("spider 1",
+                () -> stopped.add("spider 1"))) {
+            assertEquals(Collections.singletonList("spider 1"), cancellation.getRunning());
+        }
+
+        cancellation.cancel();
+
+        assertTrue(stopped.isEmpty());
+    }
+
+    @Test
+    public void testScanRegisteredAfterCancelIsStoppedAtOnce() {
+        cancellation.cancel();
+
+        cancellation.register("active scan 3", () -> stopped.add("active scan 3"));
+
+        assertEquals(Collections.singletonList("active scan 3"), stopped);
+        assertTrue(cancellation.getRunning().isEmpty());
+    }
+
+    @Test
+    public void testFailingStopDoesNotPreventOthers() {
+        cancellation.register("Ajax spider", () -> {
+            throw new ClientApiException("Connection refused");
+        });
+        cancellation.register("active scan 4", () -> stopped.add("active scan 4"));
+
+        cancellation.cancel();
+
+        assertEquals(Collections.singletonList("active scan 4"), stopped);
+    }
+
+    @Test
+    public void testCancelWakesUpPause() throws Exception {
+        CompletableFuture<Long> paused = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            assertThrows(ZapScannerException.class, () -> cancellation.pause(TimeUnit.SECONDS.toMillis(30)));
+            return System.nanoTime() - start;
+        });
+
+        Thread.sleep(100);
+        cancellation.cancel();
+
+        assertTrue(paused.get(5, TimeUnit.SECONDS) < TimeUnit.SECONDS.toNanos(5));
+        assertThrows(ZapScannerException.class, cancellation::checkCancelled);
+    }
+
+    @Test
+    public void testPauseWithoutCancelWaits() throws Exception {
+        cancellation.checkCancelled();
+        cancellation.pause(1);
+
+        assertFalse(cancellation.isCancelled());
+    }
+}
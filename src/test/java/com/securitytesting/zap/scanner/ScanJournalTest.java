@@ -0,0 +1,222 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.config.ScanConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.SpiderAPI;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ScanJournalTest {
+
+    private static final String TARGET = "https://shop.example.com/app";
+    private static final String ZAP = "localhost:8080";
+    private static final String SESSION = "5c0a7e4e-session";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCheckpointSurvivesRestart() {
+        ScanJournal journal = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        journal.spiderStarted(3);
+        journal.phaseCompleted(ScanJournal.Phase.SPIDER);
+        journal.phaseCompleted(ScanJournal.Phase.PASSIVE_SCAN);
+        journal.activeScanStarted(7, "High Security Policy (Tuned 0a1b2c3d)", true);
+        journal.progress(42);
+        journal.close();
+
+        ScanJournal resumed = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+
+        assertTrue(resumed.isCompleted(ScanJournal.Phase.SPIDER));
+        assertTrue(resumed.isCompleted(ScanJournal.Phase.PASSIVE_SCAN));
+        assertFalse(resumed.isCompleted(ScanJournal.Phase.ACTIVE_SCAN));
+        assertEquals(3, resumed.getSpiderScanId());
+        assertEquals(7, resumed.getActiveScanId());
+        assertEquals("High Security Policy (Tuned 0a1b2c3d)", resumed.getPolicyName());
+        assertTrue(resumed.isPolicyTuned());
+        assertEquals(42, resumed.getProgress());
+        assertEquals(journal.getStartTime(), resumed.getStartTime());
+    }
+
+    @Test
+    public void testProgressIsCheckpointedAtMostOncePerInterval() {
+        ScanJournal journal = ScanJournal.open(directory, TARGET, ZAP, SESSION, 60_000);
+        journal.activeScanStarted(7, null, false);
+        journal.progress(10);
+        journal.progress(20);
+        journal.close();
+
+        ScanJournal resumed = ScanJournal.open(directory, TARGET, ZAP, SESSION, 60_000);
+
+        assertEquals(7, resumed.getActiveScanId());
+        assertNull(resumed.getPolicyName());
+        assertFalse(resumed.isPolicyTuned());
+        assertEquals(0, resumed.getProgress());
+    }
+
+    @Test
+    public void testJournalOfAnotherZapInstanceIsDiscarded() {
+        ScanJournal journal = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        journal.phaseCompleted(ScanJournal.Phase.SPIDER);
+        journal.close();
+
+        ScanJournal other = ScanJournal.open(directory, TARGET, "zap-2:8080", SESSION, 0);
+
+        assertFalse(other.isCompleted(ScanJournal.Phase.SPIDER));
+        assertNull(other.getSpiderScanId());
+    }
+
+    @Test
+    public void testFinishDeletesJournal() {
+        ScanJournal journal = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        journal.phaseCompleted(ScanJournal.Phase.SPIDER);
+        assertTrue(Files.exists(journal.getFile()));
+
+        journal.finish();
+
+        assertFalse(Files.exists(journal.getFile()));
+        assertFalse(ScanJournal.open(directory, TARGET, ZAP, SESSION, 0).isCompleted(ScanJournal.Phase.SPIDER));
+    }
+
+    @Test
+    public void testJournalOfAnotherZapSessionIsDiscarded() {
+        ScanJournal journal = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        journal.spiderStarted(3);
+        journal.phaseCompleted(ScanJournal.Phase.SPIDER);
+        journal.close();
+
+        // A restarted ZAP reuses scan IDs and starts with an empty site tree
+        ScanJournal restarted = ScanJournal.open(directory, TARGET, ZAP, "another-session", 0);
+        assertFalse(restarted.isCompleted(ScanJournal.Phase.SPIDER));
+        assertNull(restarted.getSpiderScanId());
+        restarted.close();
+        assertFalse(ScanJournal.open(directory, TARGET, ZAP, null, 0).isCompleted(ScanJournal.Phase.SPIDER));
+    }
+
+    @Test
+    public void testTargetsSharingAnOriginKeepSeparateJournals() {
+        ScanJournal shop = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        ScanJournal admin = ScanJournal.open(directory, "https://shop.example.com/admin", ZAP, SESSION, 0);
+        shop.activeScanStarted(7, null, false);
+        admin.activeScanStarted(8, null, false);
+        shop.close();
+        admin.close();
+
+        assertNotEquals(shop.getFile(), admin.getFile());
+        assertEquals(7, ScanJournal.open(directory, TARGET, ZAP, SESSION, 0).getActiveScanId());
+        assertEquals(8, ScanJournal.open(directory, "https://shop.example.com/admin", ZAP, SESSION, 0)
+                .getActiveScanId());
+    }
+
+    @Test
+    public void testRestartForgetsCheckpoint() {
+        ScanJournal journal = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        journal.spiderStarted(3);
+        journal.phaseCompleted(ScanJournal.Phase.SPIDER);
+
+        journal.restart();
+        journal.close();
+
+        ScanJournal resumed = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        assertFalse(resumed.isCompleted(ScanJournal.Phase.SPIDER));
+        assertNull(resumed.getSpiderScanId());
+    }
+
+    @Test
+    public void testConcurrentScanOfSameTargetGetsFreshJournal() {
+        ScanJournal first = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        first.spiderStarted(3);
+        first.phaseCompleted(ScanJournal.Phase.SPIDER);
+
+        ScanJournal second = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        assertFalse(second.isPersisted());
+        assertFalse(second.isCompleted(ScanJournal.Phase.SPIDER));
+        assertNull(second.getSpiderScanId());
+
+        // The second scan neither overwrites nor deletes the first scan's checkpoint
+        second.activeScanStarted(9, null, false);
+        second.finish();
+        assertTrue(Files.exists(first.getFile()));
+        first.close();
+
+        ScanJournal resumed = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        assertTrue(resumed.isPersisted());
+        assertEquals(3, resumed.getSpiderScanId());
+        assertNull(resumed.getActiveScanId());
+    }
+
+    @Test
+    public void testClosedJournalIsNoLongerWritten() {
+        ScanJournal journal = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        journal.spiderStarted(3);
+        journal.close();
+        journal.spiderStarted(4);
+
+        assertEquals(3, ScanJournal.open(directory, TARGET, ZAP, SESSION, 0).getSpiderScanId());
+    }
+
+    @Test
+    public void testZapSessionIsKeptUntilZapRestarts() {
+        ClientApi zapClient = new ClientApi("localhost", 8080);
+        String session = ScanJournal.zapSession(zapClient);
+
+        assertNotNull(session);
+        assertEquals(session, ScanJournal.zapSession(zapClient));
+        assertNotEquals(session, ScanJournal.zapSession(new ClientApi("localhost", 8080)));
+    }
+
+    @Test
+    public void testReattachedSpiderIsPolledToCompletion() throws Exception {
+        ScanJournal journal = ScanJournal.open(directory, TARGET, ZAP, SESSION, 0);
+        WebAppScanner scanner = new WebAppScanner(spiderListing(3, "https://shop.example.com/app/login"),
+                new ScanConfig.Builder().build());
+        scanner.setScanJournal(journal);
+
+        assertTrue(scanner.reattachSpider(TARGET, 3, 1));
+        assertEquals(100, journal.getProgress());
+    }
+
+    @Test
+    public void testSpiderNotListedOrOfAnotherTargetIsNotReattached() throws Exception {
+        WebAppScanner scanner = new WebAppScanner(spiderListing(3, "https://blog.example.com/"),
+                new ScanConfig.Builder().build());
+
+        assertFalse(scanner.reattachSpider(TARGET, 4, 1));
+        assertFalse(scanner.reattachSpider(TARGET, 3, 1));
+        assertTrue(scanner.isSpiderListed("https://blog.example.com/", 3));
+    }
+
+    /**
+     * Creates a ZAP client whose spider lists one completed spider that found a URL.
+     */
+    private static ClientApi spiderListing(int scanId, String url) throws Exception {
+        SpiderAPI spider = mock(SpiderAPI.class);
+        ApiResponse scan = new ApiResponseSet("scan", Map.of(
+                "id", new ApiResponseElement("id", Integer.toString(scanId)),
+                "progress", new ApiResponseElement("progress", "100")));
+        when(spider.scans()).thenReturn(new ApiResponseList("scans", List.of(scan)));
+        when(spider.results(Integer.toString(scanId)))
+                .thenReturn(new ApiResponseList("results", List.of(new ApiResponseElement("url", url))));
+        when(spider.results("4")).thenReturn(new ApiResponseList("results"));
+
+        ClientApi zapClient = new ClientApi("localhost", 8080);
+        Field field = ClientApi.class.getField("spider");
+        field.setAccessible(true);
+        field.set(zapClient, spider);
+        return zapClient;
+    }
+}
@@ -0,0 +1,83 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import com.securitytesting.zap.policy.RuleExecution;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.AscanAPI;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ScanProfilerTest {
+
+    private static ApiResponse scanProgress(String ruleId, String timeInMs) {
+        return new ApiResponseList("scanProgress", List.of(
+                new ApiResponseElement("id", "https://shop.example.com"),
+                new ApiResponseList("HostProcess", List.of(new ApiResponseList("Plugin", List.of(
+                        new ApiResponseElement("name", "Rule " + ruleId),
+                        new ApiResponseElement("id", ruleId),
+                        new ApiResponseElement("quality", "release"),
+                        new ApiResponseElement("status", "Complete"),
+                        new ApiResponseElement("timeInMs", timeInMs),
+                        new ApiResponseElement("reqCount", "10"),
+                        new ApiResponseElement("alertCount", "0")))))));
+    }
+
+    private static ClientApi zapClient(AscanAPI ascan) throws Exception {
+        ClientApi zapClient = new ClientApi("localhost", 8080);
+        Field field = ClientApi.class.getField("ascan");
+        field.setAccessible(true);
+        field.set(zapClient, ascan);
+        return zapClient;
+    }
+
+    @Test
+    public void testProfilesOfAllScansAreMerged() throws Exception {
+        AscanAPI ascan = mock(AscanAPI.class);
+        when(ascan.scanProgress("1")).thenReturn(scanProgress("40018", "9000"));
+        when(ascan.scanProgress("2")).thenReturn(scanProgress("6", "1500"));
+        ScanProfiler profiler = new ScanProfiler(zapClient(ascan));
+
+        profiler.collect(1);
+        profiler.collect(2);
+
+        assertEquals(10_500, profiler.getScanProfile().getTotalTimeInMs());
+        List<RuleExecution> executions = profiler.getRuleExecutions();
+        assertEquals(2, executions.size());
+    }
+
+    @Test
+    public void testUnreadableTimingsAreSkipped() throws Exception {
+        AscanAPI ascan = mock(AscanAPI.class);
+        when(ascan.scanProgress("1")).thenThrow(new ClientApiException("Does Not Exist"));
+        when(ascan.scanProgress("2")).thenReturn(scanProgress("6", "1500"));
+        ScanProfiler profiler = new ScanProfiler(zapClient(ascan));
+
+        profiler.collect(1);
+        profiler.collect(2);
+
+        assertEquals(1500, profiler.getScanProfile().getTotalTimeInMs());
+    }
+
+    @Test
+    public void testFailureCarriesProfileOfScansRunSoFar() throws Exception {
+        AscanAPI ascan = mock(AscanAPI.class);
+        when(ascan.scanProgress("1")).thenReturn(scanProgress("40018", "9000"));
+        ScanProfiler profiler = new ScanProfiler(zapClient(ascan));
+        profiler.collect(1);
+
+        ZapScannerException failure = profiler.activeScanFailure(new IllegalStateException("Timed out"));
+
+        assertEquals("Failed during active scan: Timed out", failure.getMessage());
+        assertEquals(9000, failure.getScanProfile().getTotalTimeInMs());
+    }
+}
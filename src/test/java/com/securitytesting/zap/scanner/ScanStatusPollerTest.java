@@ -0,0 +1,123 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.ClientApi;
+import org.zaproxy.clientapi.core.ClientApiException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanStatusPollerTest {
+
+    private final ScanStatusPoller poller = new ScanStatusPoller(new ClientApi("localhost", 8080), 60_000);
+    private final ScanCancellation cancellation = new ScanCancellation();
+
+    private static ApiResponse scan(String id, String progress) {
+        Map<String, ApiResponse> values = new LinkedHashMap<>();
+        values.put("id", new ApiResponseElement("id", id));
+        values.put("progress", new ApiResponseElement("progress", progress));
+        values.put("state", new ApiResponseElement("state", "RUNNING"));
+        return new ApiResponseSet("scan", values);
+    }
+
+    private CompletableFuture<Integer> awaitProgress(ScanStatusPoller.Watch watch) throws InterruptedException {
+        // Let the first poll, made as soon as the scans are watched, go by
+        Thread.sleep(200);
+        CompletableFuture<Integer> progress = CompletableFuture.supplyAsync(() -> {
+            try {
+                return watch.awaitProgress(cancellation);
+            } catch (ClientApiException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        return progress;
+    }
+
+    @Test
+    public void testParseScans() throws Exception {
+        ApiResponseList scans = new ApiResponseList("scans",
+                Arrays.asList(scan("0", "100"), scan("3", "42"), scan("x", "1")));
+
+        Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(0, 100);
+        expected.put(3, 42);
+        assertEquals(expected, ScanStatusPoller.parseScans(scans));
+    }
+
+    @Test
+    public void testOnePollUpdatesAllWatchedScans() throws Exception {
+        try (ScanStatusPoller.Watch first = poller.watch(ScanStatusPoller.Kind.ACTIVE_SCAN, 1);
+                ScanStatusPoller.Watch second = poller.watch(ScanStatusPoller.Kind.ACTIVE_SCAN, 2);
+                ScanStatusPoller.Watch spider = poller.watch(ScanStatusPoller.Kind.SPIDER, 1)) {
+            assertEquals(Set.of(1, 2), poller.getWatchedScans().get(ScanStatusPoller.Kind.ACTIVE_SCAN));
+
+            CompletableFuture<Integer> waiting = awaitProgress(second);
+            Map<Integer, Integer> progress = new HashMap<>();
+            progress.put(1, 30);
+            progress.put(2, 70);
+            poller.dispatch(ScanStatusPoller.Kind.ACTIVE_SCAN, progress, Collections.emptyMap());
+
+            assertEquals(70, waiting.get(5, TimeUnit.SECONDS));
+            assertEquals(30, first.getProgress());
+        }
+
+        assertTrue(poller.getWatchedScans().isEmpty());
+        assertFalse(poller.isPolling());
+    }
+
+    @Test
+    public void testFailureIsRethrownToWaitingScan() throws Exception {
+        try (ScanStatusPoller.Watch watch = poller.watch(ScanStatusPoller.Kind.SPIDER, 5)) {
+            CompletableFuture<Integer> waiting = awaitProgress(watch);
+            poller.dispatch(ScanStatusPoller.Kind.SPIDER, Collections.emptyMap(),
+                    Collections.singletonMap(5, new ClientApiException("Does Not Exist")));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+            assertEquals("Does Not Exist", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testScansMissingFromListFallBackToStatus() throws Exception {
+        ScanStatusPoller fastPoller = new ScanStatusPoller(new ClientApi("localhost", 8080), 10);
+        try (ScanStatusPoller.Watch watch = fastPoller.watch(ScanStatusPoller.Kind.SPIDER, 3)) {
+            assertTrue(fastPoller.isPolling());
+
+            // The stub lists no scans and reports every scan complete
+            int progress = 0;
+            for (int i = 0; i < 100 && progress < 100; i++) {
+                progress = watch.awaitProgress(cancellation);
+            }
+            assertEquals(100, progress);
+        }
+        assertFalse(fastPoller.isPolling());
+    }
+
+    @Test
+    public void testCancelEndsWait() throws Exception {
+        try (ScanStatusPoller.Watch watch = poller.watch(ScanStatusPoller.Kind.ACTIVE_SCAN, 9)) {
+            CompletableFuture.runAsync(cancellation::cancel, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+
+            long start = System.nanoTime();
+            assertThrows(ZapScannerException.class, () -> watch.awaitProgress(cancellation));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        }
+    }
+}
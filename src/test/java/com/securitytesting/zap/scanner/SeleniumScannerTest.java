@@ -0,0 +1,110 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.config.ScanConfig;
+import com.securitytesting.zap.exception.ZapScannerException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.zaproxy.clientapi.core.ClientApi;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeleniumScannerTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private Set<String> visitedPaths;
+    private WebDriverPool driverPool;
+    private SeleniumScanner scanner;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        visitedPaths = ConcurrentHashMap.newKeySet();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            visitedPaths.add(exchange.getRequestURI().getPath());
+            byte[] body = "<html><head><title>Test</title></head><body>ok</body></html>"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+
+        ScanConfig config = new ScanConfig.Builder()
+                .maxBrowserSessions(2)
+                .build();
+        driverPool = new WebDriverPool(config.getMaxBrowserSessions(), HtmlUnitDriver::new);
+        scanner = new SeleniumScanner(new ClientApi("localhost", 8080), config, driverPool);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scanner.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testNavigateApplication() throws Exception {
+        scanner.navigateApplication(baseUrl + "home");
+
+        assertTrue(visitedPaths.contains("/home"));
+        assertEquals(1, driverPool.getCreatedSessions());
+    }
+
+    @Test
+    public void testNavigateRoutesReusesPooledSessions() throws Exception {
+        List<String> routes = Arrays.asList("a", "b", "c", "d", "e", "f");
+
+        int navigated = scanner.navigateRoutes(baseUrl, routes);
+
+        assertEquals(6, navigated);
+        assertTrue(visitedPaths.containsAll(Arrays.asList("/a", "/b", "/c", "/d", "/e", "/f")));
+        assertTrue(driverPool.getCreatedSessions() <= 2);
+    }
+
+    @Test
+    public void testFailedJourneyDiscardsSession() throws Exception {
+        UserJourney failing = driver -> {
+            throw new IllegalStateException("Element not found");
+        };
+
+        int navigated = scanner.navigateJourneys(Arrays.asList(
+                failing, UserJourney.visit(baseUrl + "next")));
+
+        assertEquals(1, navigated);
+        assertTrue(visitedPaths.contains("/next"));
+
+        // The failed session was quit, so the pool can still hand out a working session
+        WebDriver driver = driverPool.acquire(1, TimeUnit.SECONDS);
+        driver.get(baseUrl + "after");
+        driverPool.release(driver);
+        assertTrue(visitedPaths.contains("/after"));
+    }
+
+    @Test
+    public void testAllJourneysFailing() {
+        UserJourney failing = driver -> {
+            throw new IllegalStateException("Element not found");
+        };
+
+        assertThrows(ZapScannerException.class, () -> scanner.navigateJourneys(Collections.singletonList(failing)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.config.ScanConfig;
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.junit.jupiter.api.Test;
+import org.zaproxy.clientapi.core.ApiResponse;
+import org.zaproxy.clientapi.core.ApiResponseElement;
+import org.zaproxy.clientapi.core.ApiResponseList;
+import org.zaproxy.clientapi.core.ApiResponseSet;
+import org.zaproxy.clientapi.core.AscanAPI;
+import org.zaproxy.clientapi.core.ClientApi;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebAppScannerTest {
+
+    private static final String TARGET = "https://shop.example.com";
+
+    private static ClientApi runningActiveScan(int scanId) throws Exception {
+        AscanAPI ascan = mock(AscanAPI.class);
+        ApiResponse scan = new ApiResponseSet("scan", Map.of(
+                "id", new ApiResponseElement("id", Integer.toString(scanId)),
+                "progress", new ApiResponseElement("progress", "40")));
+        when(ascan.scans()).thenReturn(new ApiResponseList("scans", List.of(scan)));
+        when(ascan.scanProgress(Integer.toString(scanId))).thenReturn(new ApiResponseList("scanProgress", List.of(
+                new ApiResponseElement("id", TARGET),
+                new ApiResponseList("HostProcess", List.of(new ApiResponseList("Plugin", List.of(
+                        new ApiResponseElement("name", "SQL Injection"),
+                        new ApiResponseElement("id", "40018"),
+                        new ApiResponseElement("quality", "release"),
+                        new ApiResponseElement("status", "Running"),
+                        new ApiResponseElement("timeInMs", "9000"),
+                        new ApiResponseElement("reqCount", "900"),
+                        new ApiResponseElement("alertCount", "2"))))))));
+
+        ClientApi zapClient = new ClientApi("localhost", 8080);
+        Field field = ClientApi.class.getField("ascan");
+        field.setAccessible(true);
+        field.set(zapClient, ascan);
+        return zapClient;
+    }
+
+    @Test
+    public void testTimedOutActiveScanKeepsItsProfile() throws Exception {
+        WebAppScanner scanner = new WebAppScanner(runningActiveScan(5), new ScanConfig.Builder().build());
+
+        ZapScannerException e = assertThrows(ZapScannerException.class,
+                () -> scanner.reattachActiveScan(TARGET, 5, 0));
+
+        assertTrue(e.getMessage().contains("timed out"));
+        assertNotNull(e.getScanProfile());
+        assertEquals(9000, e.getScanProfile().getTotalTimeInMs());
+
+        // Wrapping the failure, as the scan methods of ZapScanner do, keeps the profile
+        ZapScannerException wrapped = new ZapScannerException("Failed to scan web application", e);
+        assertSame(e.getScanProfile(), wrapped.getScanProfile());
+    }
+}
@@ -0,0 +1,83 @@
+package com.securitytesting.zap.scanner;
+
+import com.securitytesting.zap.exception.ZapScannerException;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class WebDriverPoolTest {
+
+    @Test
+    public void testReleasedSessionIsReused() throws Exception {
+        WebDriver driver = mock(WebDriver.class);
+        try (WebDriverPool pool = new WebDriverPool(1, () -> driver)) {
+            pool.release(pool.acquire(1, TimeUnit.SECONDS));
+
+            assertSame(driver, pool.acquire(1, TimeUnit.SECONDS));
+            assertEquals(1, pool.getCreatedSessions());
+            verify(driver, never()).quit();
+        }
+    }
+
+    @Test
+    public void testSessionReleasedAfterCloseIsQuit() throws Exception {
+        WebDriver driver = mock(WebDriver.class);
+        WebDriverPool pool = new WebDriverPool(1, () -> driver);
+        WebDriver acquired = pool.acquire(1, TimeUnit.SECONDS);
+
+        pool.close();
+        pool.release(acquired);
+
+        verify(driver).quit();
+        assertTrue(pool.isClosed());
+        assertThrows(ZapScannerException.class, () -> pool.acquire(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSessionsReleasedWhileClosingAreAllQuit() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            List<WebDriver> drivers = new ArrayList<>();
+            WebDriverPool pool = new WebDriverPool(4, () -> {
+                WebDriver driver = mock(WebDriver.class);
+                synchronized (drivers) {
+                    drivers.add(driver);
+                }
+                return driver;
+            });
+            List<WebDriver> acquired = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                acquired.add(pool.acquire(1, TimeUnit.SECONDS));
+            }
+
+            // Release the sessions while another thread closes the pool
+            CountDownLatch start = new CountDownLatch(1);
+            Thread closer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                pool.close();
+            });
+            closer.start();
+            start.countDown();
+            acquired.forEach(pool::release);
+            closer.join();
+
+            // Each session is quit exactly once, whether it was idle at close or released after it
+            for (WebDriver driver : drivers) {
+                verify(driver, times(1)).quit();
+            }
+        }
+    }
+}
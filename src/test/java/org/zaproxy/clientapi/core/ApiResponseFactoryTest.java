@@ -0,0 +1,74 @@
+package org.zaproxy.clientapi.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApiResponseFactoryTest {
+
+    private static ApiResponse parse(String json) throws ClientApiException {
+        return ApiResponseFactory.getResponse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testValueIsUnwrappedAndTyped() throws Exception {
+        ApiResponse status = parse("{\"status\": \"42\"}");
+
+        assertEquals("42", status.asString());
+        assertEquals(42, status.asInt());
+        assertThrows(ClientApiException.class, status::asList);
+        assertThrows(ClientApiException.class, () -> parse("{\"status\": \"done\"}").asInt());
+    }
+
+    @Test
+    public void testListIsIteratedLazily() throws Exception {
+        ApiResponseList scans = parse("{\"scans\": ["
+                + "{\"id\": \"0\", \"progress\": \"100\", \"state\": \"FINISHED\"},"
+                + "{\"id\": \"1\", \"progress\": \"35\", \"state\": \"RUNNING\", \"hosts\": [\"a\", {\"b\": [1, 2]}]}"
+                + "]}").asList();
+
+        assertEquals("scans", scans.getName());
+        Iterator<ApiResponse> iterator = scans.iterator();
+        ApiResponseSet first = iterator.next().asSet();
+        assertEquals(0, first.getIntValue("id"));
+        assertEquals("FINISHED", first.getStringValue("state"));
+
+        ApiResponseSet second = iterator.next().asSet();
+        assertEquals(35, second.getIntValue("progress"));
+        ApiResponseList hosts = second.getValue("hosts").asList();
+        assertEquals("a", hosts.getItems().get(0).asString());
+        assertEquals(2, hosts.getItems().get(1).asSet().getValue("b").asList().getItems().get(1).asInt());
+        assertFalse(iterator.hasNext());
+
+        assertEquals(2, scans.size());
+        assertEquals(2, scans.getItems().size());
+    }
+
+    @Test
+    public void testMultiByteCharactersKeepRegionsAligned() throws Exception {
+        ApiResponseList alerts = parse("{\"alerts\": [{\"name\": \"\u00dcber-\u00c4rger \u2713\"}, {\"name\": \"next\"}]}").asList();
+
+        assertEquals("\u00dcber-\u00c4rger \u2713", alerts.getItems().get(0).asSet().getStringValue("name"));
+        assertEquals("next", alerts.getItems().get(1).asSet().getStringValue("name"));
+    }
+
+    @Test
+    public void testMissingAndNullValues() throws Exception {
+        ApiResponseSet alert = parse("{\"alert\": {\"cweid\": \"\", \"other\": null}}").asSet();
+
+        assertNull(alert.getStringValue("other"));
+        assertNull(alert.getValue("missing"));
+        assertThrows(ClientApiException.class, () -> alert.getIntValue("cweid"));
+        assertThrows(ClientApiException.class, () -> alert.getIntValue("missing"));
+    }
+
+    @Test
+    public void testMalformedResponseFailsWhenCreated() {
+        assertThrows(ClientApiException.class, () -> parse("{\"scans\": [{\"id\": \"0\"}"));
+        assertThrows(ClientApiException.class, () -> parse(""));
+        assertThrows(ClientApiException.class, () -> parse("{} {}"));
+    }
+}